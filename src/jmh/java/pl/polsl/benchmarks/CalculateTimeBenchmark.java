@@ -0,0 +1,111 @@
+package pl.polsl.benchmarks;
+
+import java.text.DateFormat;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.util.Date;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import org.openjdk.jmh.annotations.*;
+import pl.polsl.model.InvalidInputException;
+import pl.polsl.model.TimeConverter;
+import pl.polsl.model.TimesModel;
+
+/**
+ * Compares conversion of the meeting date to local time of one participant:
+ * the original SimpleDateFormat code, TimesModel.calculateTime which parses
+ * the date on every call, and TimeConverter with the date parsed once.
+ *
+ * @author Jacek
+ * @version 1.5
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CalculateTimeBenchmark {
+
+    /**
+     * Date of the meeting in GMT+2
+     */
+    private static final String MEETING_DATE = "2022-01-24 15:15:00";
+
+    /**
+     * Timezone of the participant
+     */
+    @Param({"GMT+1", "Europe/Warsaw"})
+    public String zone;
+
+    /**
+     * Tested model
+     */
+    private final TimesModel model = new TimesModel();
+
+    /**
+     * Tested converter
+     */
+    private final TimeConverter converter = new TimeConverter();
+
+    /**
+     * Meeting date parsed once
+     */
+    private Instant meeting;
+
+    /**
+     * Parses the meeting date
+     *
+     * @throws InvalidInputException if the date is incorrect
+     */
+    @Setup
+    public void setUp() throws InvalidInputException {
+        meeting = converter.parseMeetingDate(MEETING_DATE);
+    }
+
+    /**
+     * Code of calculateTime before java.time was used
+     *
+     * @return local time
+     * @throws ParseException if the date couldn't be parsed
+     */
+    @Benchmark
+    public String original() throws ParseException {
+        Pattern datePattern = Pattern
+                .compile("^((19|2[0-9])[0-9]{2})-(0[1-9]|1[012])-(0[1-9]|[12][0-9]|3[01]) (2[0-3]|[01]?[0-9]):([0-5]?[0-9]):([0-5]?[0-9])$");
+        if (!datePattern.matcher(MEETING_DATE).matches()) {
+            throw new ParseException(MEETING_DATE, 0);
+        }
+        DateFormat df = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+        df.setTimeZone(TimeZone.getTimeZone("GMT+2"));
+        Date date = df.parse(MEETING_DATE);
+        df.setTimeZone(TimeZone.getTimeZone(zone));
+        return df.format(date);
+    }
+
+    /**
+     * Conversion which parses the meeting date on every call
+     *
+     * @return local time
+     * @throws ParseException if the date couldn't be parsed
+     * @throws InvalidInputException if the date is incorrect
+     */
+    @Benchmark
+    public String calculateTime() throws ParseException, InvalidInputException {
+        return model.localTimeFor(zone, MEETING_DATE);
+    }
+
+    /**
+     * Conversion of a participant when the meeting date is already parsed,
+     * as it is done for every participant of the roster
+     *
+     * @return local time
+     * @throws InvalidInputException if the timezone doesn't exist
+     */
+    @Benchmark
+    public String parsedOnce() throws InvalidInputException {
+        return converter.localTime(meeting, zone);
+    }
+}
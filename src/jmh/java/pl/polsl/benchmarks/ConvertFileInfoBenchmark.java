@@ -0,0 +1,95 @@
+package pl.polsl.benchmarks;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import pl.polsl.model.InvalidInputException;
+import pl.polsl.model.RosterReader;
+import pl.polsl.model.TimesModel;
+
+/**
+ * Measures reading of participants files of different sizes, materialized
+ * as lists and streamed with RosterReader
+ *
+ * @author Jacek
+ * @version 1.5
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConvertFileInfoBenchmark {
+
+    /**
+     * Number of participants in the file
+     */
+    @Param({"100", "10000", "100000"})
+    public int participants;
+
+    /**
+     * Tested model
+     */
+    private final TimesModel model = new TimesModel();
+
+    /**
+     * Generated file with participants
+     */
+    private Path file;
+
+    /**
+     * Writes file with participants
+     *
+     * @throws IOException if file couldn't be written
+     */
+    @Setup
+    public void setUp() throws IOException {
+        file = Files.createTempFile("participants", ".txt");
+        Files.write(file, Rosters.lines(participants), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Removes the file
+     *
+     * @throws IOException if file couldn't be removed
+     */
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    /**
+     * Reads the whole file
+     *
+     * @return participants from the file
+     * @throws FileNotFoundException if file wasn't found
+     */
+    @Benchmark
+    public List<List<String>> convertFileInfo() throws FileNotFoundException {
+        return model.convertFileInfo(file.toString());
+    }
+
+    /**
+     * Reads the whole file one participant at a time, without keeping them
+     *
+     * @return number of read participants
+     * @throws IOException if file couldn't be read
+     * @throws InvalidInputException if file was incorrect
+     */
+    @Benchmark
+    public int rosterReader() throws IOException, InvalidInputException {
+        int count = 0;
+        try (RosterReader reader = model.openRoster(file.toString())) {
+            while (reader.next() != null) {
+                ++count;
+            }
+        }
+        return count;
+    }
+}
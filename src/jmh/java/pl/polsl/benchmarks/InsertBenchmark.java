@@ -0,0 +1,151 @@
+package pl.polsl.benchmarks;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import pl.polsl.model.BatchInsertResult;
+import pl.polsl.model.SchemaMigrator;
+import pl.polsl.model.TimesModel;
+
+/**
+ * Compares saving a roster row by row with autocommit against batched
+ * inserts in one transaction and against saving a new version of a saved
+ * roster in which one participant changed. Scores are in participants per
+ * second.
+ *
+ * @author Jacek
+ * @version 1.5
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InsertBenchmark {
+
+    /**
+     * Number of participants in the roster
+     */
+    private static final int ROWS = 5000;
+
+    /**
+     * Number of participants sent to the database at once
+     */
+    @Param({"100", "500", "5000"})
+    public int batchSize;
+
+    /**
+     * Tested model
+     */
+    private final TimesModel model = new TimesModel();
+
+    /**
+     * Connection to in-memory database
+     */
+    private Connection con;
+
+    /**
+     * Saved roster
+     */
+    private List<List<String>> participants;
+
+    /**
+     * Versions of the roster with the first participant in two timezones
+     */
+    private final List<List<List<String>>> versions = new ArrayList<>(2);
+
+    /**
+     * Number of saved versions
+     */
+    private int saved;
+
+    /**
+     * Creates in-memory database and the roster
+     *
+     * @throws SQLException if database couldn't be created
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        con = DriverManager.getConnection("jdbc:derby:memory:insertBenchmark;create=true");
+        new SchemaMigrator().migrate(con);
+        participants = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            participants.add(List.of("Participant" + i, "2022-01-24 15:15:00"));
+        }
+        for (String localTime : List.of("2022-01-24 06:15:00", "2022-01-24 07:15:00")) {
+            List<List<String>> version = new ArrayList<>(participants);
+            version.set(0, List.of("Participant0", localTime));
+            versions.add(version);
+        }
+    }
+
+    /**
+     * Removes rows inserted in the previous iteration
+     *
+     * @throws SQLException if rows couldn't be removed
+     */
+    @Setup(Level.Iteration)
+    public void clear() throws SQLException {
+        try (Statement statement = con.createStatement()) {
+            statement.executeUpdate("DELETE FROM APP.TIMES");
+            statement.executeUpdate("DELETE FROM APP.PARTICIPANTS");
+            statement.executeUpdate("DELETE FROM APP.MEETINGS");
+        }
+        model.insertAll(con, "2022-01-24 15:15:00", "user:benchmark", "benchmark.txt", participants, batchSize);
+    }
+
+    /**
+     * Closes connection to the database
+     *
+     * @throws SQLException if connection couldn't be closed
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        con.close();
+    }
+
+    /**
+     * Saves the roster the old way, two autocommitted statements per participant
+     *
+     * @throws SQLException if participant couldn't be saved
+     */
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void rowByRow() throws SQLException {
+        for (List<String> participant : participants) {
+            model.insertToDB(con, participant.get(0), participant.get(1));
+        }
+    }
+
+    /**
+     * Saves the roster in batches in one transaction
+     *
+     * @return result of the insert
+     * @throws SQLException if transaction failed
+     */
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public BatchInsertResult batched() throws SQLException {
+        return model.insertAll(con, "2022-01-24 15:15:00", participants, batchSize);
+    }
+
+    /**
+     * Saves a new version of the roster of a logged in user, in which the
+     * local time of one participant changed
+     *
+     * @return result of the save
+     * @throws SQLException if transaction failed
+     */
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public BatchInsertResult newVersion() throws SQLException {
+        return model.insertAll(con, "2022-01-24 15:15:00", "user:benchmark", "benchmark.txt", versions.get(saved++ & 1),
+                batchSize);
+    }
+}
@@ -0,0 +1,109 @@
+package pl.polsl.benchmarks;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import pl.polsl.model.InvalidInputException;
+import pl.polsl.model.MeetingMatrix;
+import pl.polsl.model.ZoneTable;
+import pl.polsl.view.HtmlStream;
+import pl.polsl.view.TimesView;
+
+/**
+ * Measures converting large rosters at hundreds of candidate meetings and
+ * rendering the table of local times
+ *
+ * @author Jacek
+ * @version 1.5
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MatrixBenchmark {
+
+    /**
+     * Number of participants
+     */
+    @Param({"5000"})
+    public int participants;
+
+    /**
+     * Number of candidate meetings
+     */
+    @Param({"24", "200"})
+    public int candidates;
+
+    /**
+     * Candidate meetings every 30 minutes
+     */
+    private List<Instant> meetings;
+
+    /**
+     * Timezone tables of the participants
+     */
+    private ZoneTable[] tables;
+
+    /**
+     * Matrix with all of the participants
+     */
+    private MeetingMatrix matrix;
+
+    /**
+     * Rendering view
+     */
+    private final TimesView view = new TimesView();
+
+    /**
+     * Stream which discards the page
+     */
+    private final OutputStream discarded = OutputStream.nullOutputStream();
+
+    /**
+     * Prepares candidates, timezones of the participants and the matrix
+     *
+     * @throws InvalidInputException if a timezone doesn't exist
+     */
+    @Setup
+    public void setUp() throws InvalidInputException {
+        Instant first = Instant.parse("2022-03-20T00:00:00Z");
+        meetings = MeetingMatrix.range(first, first.plusSeconds((candidates - 1) * 30L * 60), 30);
+        tables = new ZoneTable[participants];
+        for (int i = 0; i < participants; i++) {
+            tables[i] = ZoneTable.of(Rosters.zone(i));
+        }
+        matrix = build();
+    }
+
+    /**
+     * Converts all of the participants at all of the candidates
+     *
+     * @return matrix of local times
+     * @throws InvalidInputException if there are too many candidates
+     */
+    @Benchmark
+    public MeetingMatrix build() throws InvalidInputException {
+        MeetingMatrix built = new MeetingMatrix(meetings);
+        for (int i = 0; i < participants; i++) {
+            built.add("Participant" + i, Rosters.zone(i), tables[i]);
+        }
+        return built;
+    }
+
+    /**
+     * Renders the table of local times
+     *
+     * @throws IOException if the page couldn't be written
+     */
+    @Benchmark
+    public void render() throws IOException {
+        HtmlStream out = new HtmlStream(discarded);
+        view.printMatrix(out, matrix);
+        out.flush();
+    }
+}
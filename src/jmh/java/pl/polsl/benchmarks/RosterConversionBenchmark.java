@@ -0,0 +1,120 @@
+package pl.polsl.benchmarks;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import pl.polsl.model.ConversionCache;
+import pl.polsl.model.InvalidInputException;
+import pl.polsl.model.MeetingConversion;
+import pl.polsl.model.ParallelRosterLoader;
+import pl.polsl.model.TimesModel;
+
+/**
+ * Measures the whole conversion done for one request: reading the file,
+ * validating participants and converting the meeting date to their local
+ * times
+ *
+ * @author Jacek
+ * @version 1.5
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RosterConversionBenchmark {
+
+    /**
+     * Number of participants in the file
+     */
+    @Param({"100", "10000", "1000000"})
+    public int participants;
+
+    /**
+     * Tested model
+     */
+    private final TimesModel model = new TimesModel();
+
+    /**
+     * Loader converting every file in parallel
+     */
+    private final ParallelRosterLoader loader = new ParallelRosterLoader(0, 0, 1024 * 1024);
+
+    /**
+     * Cache holding the converted roster after the first call
+     */
+    private final ConversionCache cache = new ConversionCache(16, 10000000, 3600);
+
+    /**
+     * Generated file with participants
+     */
+    private Path file;
+
+    /**
+     * Writes file with participants
+     *
+     * @throws IOException if file couldn't be written
+     */
+    @Setup
+    public void setUp() throws IOException {
+        file = Files.createTempFile("participants", ".txt");
+        Files.write(file, Rosters.lines(participants), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Removes the file
+     *
+     * @throws IOException if file couldn't be removed
+     */
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+        loader.close();
+    }
+
+    /**
+     * Converts the whole roster
+     *
+     * @return participants names and their local time
+     * @throws IOException if file couldn't be read
+     * @throws InvalidInputException if participants are incorrect
+     * @throws ParseException if the date couldn't be parsed
+     */
+    @Benchmark
+    public List<List<String>> convertRoster() throws IOException, InvalidInputException, ParseException {
+        return new MeetingConversion(file.toString(), "2022-01-24 15:15:00").execute(model);
+    }
+
+    /**
+     * Converts the whole roster in parallel from the memory-mapped file
+     *
+     * @return participants names and their local time
+     * @throws IOException if file couldn't be read
+     * @throws InvalidInputException if participants are incorrect
+     * @throws ParseException if the date couldn't be parsed
+     */
+    @Benchmark
+    public List<List<String>> convertRosterParallel() throws IOException, InvalidInputException, ParseException {
+        return new MeetingConversion(file.toString(), "2022-01-24 15:15:00", loader).execute(model);
+    }
+
+    /**
+     * Converts the roster which was already converted, so only the file is
+     * checked and the result is taken from the cache
+     *
+     * @return participants names and their local time
+     * @throws IOException if file couldn't be read
+     * @throws InvalidInputException if participants are incorrect
+     * @throws ParseException if the date couldn't be parsed
+     */
+    @Benchmark
+    public List<List<String>> convertRosterCached() throws IOException, InvalidInputException, ParseException {
+        return new MeetingConversion(file.toString(), "2022-01-24 15:15:00", null, cache).execute(model);
+    }
+}
@@ -0,0 +1,67 @@
+package pl.polsl.benchmarks;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import pl.polsl.model.Roster;
+
+/**
+ * Generates participants used by the benchmarks
+ *
+ * @author Jacek
+ * @version 1.5
+ */
+final class Rosters {
+
+    /**
+     * Timezones of the participants, both fixed offsets and regions
+     */
+    private static final String[] ZONES = {"GMT+1", "GMT-7", "GMT+9", "GMT+2", "GMT-9",
+        "Europe/Warsaw", "America/New_York", "Asia/Tokyo", "Australia/Sydney", "GMT+5"};
+
+    /**
+     * Utility class
+     */
+    private Rosters() {
+    }
+
+    /**
+     * Returns timezone of the participant
+     *
+     * @param participant number of the participant
+     * @return timezone
+     */
+    static String zone(int participant) {
+        return ZONES[participant % ZONES.length];
+    }
+
+    /**
+     * Returns lines of participants file, every participant has different name
+     *
+     * @param participants number of participants
+     * @return lines in "name timezone" format
+     */
+    static List<String> lines(int participants) {
+        List<String> lines = new ArrayList<>(participants);
+        for (int i = 0; i < participants; i++) {
+            lines.add("Participant" + i + " " + ZONES[i % ZONES.length]);
+        }
+        return lines;
+    }
+
+    /**
+     * Returns converted participants, as they are passed to the view
+     *
+     * @param participants number of participants
+     * @return participants names, timezones and their local time
+     */
+    static Roster converted(int participants) {
+        Roster.Builder converted = new Roster.Builder(participants);
+        long localTime = LocalDateTime.of(2022, 1, 24, 15, 15).toEpochSecond(ZoneOffset.UTC);
+        for (int i = 0; i < participants; i++) {
+            converted.add("Participant" + i, ZONES[i % ZONES.length], localTime);
+        }
+        return converted.build();
+    }
+}
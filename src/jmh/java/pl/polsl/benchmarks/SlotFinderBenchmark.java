@@ -0,0 +1,68 @@
+package pl.polsl.benchmarks;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import pl.polsl.model.InvalidInputException;
+import pl.polsl.model.MeetingSlot;
+import pl.polsl.model.MeetingSlotFinder;
+import pl.polsl.model.WorkingHours;
+
+/**
+ * Measures finding of the best meeting times for large rosters over weeks of
+ * candidate meetings starting every 15 minutes
+ *
+ * @author Jacek
+ * @version 1.5
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SlotFinderBenchmark {
+
+    /**
+     * Number of participants
+     */
+    @Param({"1000", "100000"})
+    public int participants;
+
+    /**
+     * Number of searched weeks
+     */
+    @Param({"1", "8"})
+    public int weeks;
+
+    /**
+     * Finder with all of the participants
+     */
+    private MeetingSlotFinder finder;
+
+    /**
+     * Adds participants with different timezones and working hours
+     */
+    @Setup
+    public void setUp() {
+        finder = new MeetingSlotFinder();
+        for (int i = 0; i < participants; i++) {
+            int start = (6 + i % 6) * 60;
+            finder.add(Rosters.zone(i), new WorkingHours(start, start + 8 * 60));
+        }
+    }
+
+    /**
+     * Finds 10 best one hour meetings
+     *
+     * @return best meetings
+     * @throws InvalidInputException if the search is incorrect
+     */
+    @Benchmark
+    public List<MeetingSlot> find() throws InvalidInputException {
+        Instant from = Instant.parse("2022-01-24T00:00:00Z");
+        return finder.find(from, from.plus(weeks * 7L, ChronoUnit.DAYS), 60, 15, 10, false);
+    }
+}
@@ -0,0 +1,106 @@
+package pl.polsl.benchmarks;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import pl.polsl.model.Roster;
+import pl.polsl.view.HtmlStream;
+import pl.polsl.view.TimesView;
+
+/**
+ * Measures rendering of the page with converted participants to a stream
+ * which discards it: the original view concatenating strings for a
+ * PrintWriter, and TimesView writing fragments with HtmlStream
+ *
+ * @author Jacek
+ * @version 1.5
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ViewRenderBenchmark {
+
+    /**
+     * Number of participants on the page
+     */
+    @Param({"100", "10000"})
+    public int participants;
+
+    /**
+     * Tested view
+     */
+    private final TimesView view = new TimesView();
+
+    /**
+     * Stream which discards the page
+     */
+    private final OutputStream discarded = OutputStream.nullOutputStream();
+
+    /**
+     * Rendered participants
+     */
+    private Roster converted;
+
+    /**
+     * Creates participants
+     */
+    @Setup
+    public void setUp() {
+        converted = Rosters.converted(participants);
+    }
+
+    /**
+     * Renders the page with all of the participants
+     *
+     * @throws IOException if the page couldn't be written
+     */
+    @Benchmark
+    public void renderParticipants() throws IOException {
+        HtmlStream out = new HtmlStream(discarded);
+        view.printHeader(out);
+        for (int i = 0; i < converted.size(); i++) {
+            view.printParticipantInfo(out, converted.getName(i), converted.getLocalTime(i));
+        }
+        view.printCurrentMeeting(out, "2022-01-24 15:15:00");
+        view.printFooter(out);
+        out.flush();
+    }
+
+    /**
+     * Code of the view before HtmlStream was used, without escaping
+     */
+    @Benchmark
+    public void renderParticipantsConcatenated() {
+        PrintWriter out = new PrintWriter(new OutputStreamWriter(discarded, StandardCharsets.UTF_8));
+        out.println("<html>\n"
+                + "<head>\n"
+                + "<style>\n"
+                + "table, th, td {\n"
+                + "border:1px solid black;\n"
+                + "}\n"
+                + "</style>\n"
+                + "<title>Time Zones</title>\n"
+                + "<meta charset=\"UTF-8\">\n"
+                + "</head>\n"
+                + "<body>\n"
+                + "<h1>Local times for participants</h1>\n");
+        for (int i = 0; i < converted.size(); i++) {
+            out.println("<p>"
+                    + "Name: " + converted.getName(i)
+                    + "<br> "
+                    + "Local time: " + converted.getLocalTime(i)
+                    + "</p>\n");
+        }
+        out.print("<h2>Current meeting date (for GMT+2): </h2>" + "2022-01-24 15:15:00");
+        out.println("</body>\n"
+                + "</html>");
+        out.flush();
+    }
+}
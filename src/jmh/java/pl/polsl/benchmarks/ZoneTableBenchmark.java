@@ -0,0 +1,95 @@
+package pl.polsl.benchmarks;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.zone.ZoneRules;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import pl.polsl.model.InvalidInputException;
+import pl.polsl.model.ZoneTable;
+
+/**
+ * Compares finding offsets of a region timezone for a year of meetings, one
+ * every hour, with rules of the timezone and with the precomputed table
+ *
+ * @author Jacek
+ * @version 1.5
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ZoneTableBenchmark {
+
+    /**
+     * Number of converted instants, hours of one year
+     */
+    private static final int INSTANTS = 365 * 24;
+
+    /**
+     * Timezone of the participants
+     */
+    @Param({"Europe/Warsaw", "America/New_York", "Australia/Sydney"})
+    public String zone;
+
+    /**
+     * Rules of the timezone
+     */
+    private ZoneRules rules;
+
+    /**
+     * Table of the timezone
+     */
+    private ZoneTable table;
+
+    /**
+     * Converted instants
+     */
+    private Instant[] instants;
+
+    /**
+     * Resolves the timezone and creates the instants
+     *
+     * @throws InvalidInputException if the timezone doesn't exist
+     */
+    @Setup
+    public void setUp() throws InvalidInputException {
+        rules = ZoneId.of(zone).getRules();
+        table = ZoneTable.of(zone);
+        instants = new Instant[INSTANTS];
+        Instant start = Instant.parse("2022-01-01T00:00:00Z");
+        for (int i = 0; i < INSTANTS; i++) {
+            instants[i] = start.plusSeconds(i * 3600L);
+        }
+    }
+
+    /**
+     * Offsets found with rules of the timezone
+     *
+     * @return sum of the offsets
+     */
+    @Benchmark
+    public long rules() {
+        long sum = 0;
+        for (Instant instant : instants) {
+            sum += rules.getOffset(instant).getTotalSeconds();
+        }
+        return sum;
+    }
+
+    /**
+     * Offsets found with a binary search in the table
+     *
+     * @return sum of the offsets
+     */
+    @Benchmark
+    public long table() {
+        long sum = 0;
+        for (Instant instant : instants) {
+            sum += table.getOffset(instant.getEpochSecond());
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,4 @@
+/*
+ * This package contains JMH benchmarks of the most frequently used parts of the model
+ */
+package pl.polsl.benchmarks;
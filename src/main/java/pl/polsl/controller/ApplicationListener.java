@@ -0,0 +1,365 @@
+package pl.polsl.controller;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.inject.Inject;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
+import javax.servlet.annotation.WebListener;
+import org.eclipse.microprofile.config.Config;
+import org.eclipse.microprofile.config.ConfigProvider;
+import org.eclipse.microprofile.metrics.MetricRegistry;
+import org.eclipse.microprofile.metrics.MetricUnits;
+import org.eclipse.microprofile.metrics.annotation.RegistryType;
+import pl.polsl.model.BoundedExecutor;
+import pl.polsl.model.ConnectionPool;
+import pl.polsl.model.ConversionCache;
+import pl.polsl.model.DatabaseBackend;
+import pl.polsl.model.HistoryPages;
+import pl.polsl.model.InvalidInputException;
+import pl.polsl.model.MeetingHistories;
+import pl.polsl.model.ParallelRosterLoader;
+import pl.polsl.model.SchemaMigrator;
+import pl.polsl.model.WriteBehindQueue;
+
+/**
+ * Creates resources shared by all servlets when the application starts and
+ * releases them when it stops. Settings are read from
+ * microprofile-config.properties.
+ *
+ * @author Jacek
+ * @version 1.5
+ */
+@WebListener
+public class ApplicationListener implements ServletContextListener {
+
+    /**
+     * Name of the servlet context attribute with the connection pool
+     */
+    public static final String POOL_ATTRIBUTE = "connectionPool";
+
+    /**
+     * Name of the servlet context attribute with the parallel roster loader
+     */
+    public static final String ROSTER_LOADER_ATTRIBUTE = "rosterLoader";
+
+    /**
+     * Name of the servlet context attribute with the histories of the teams
+     */
+    public static final String TEAM_HISTORIES_ATTRIBUTE = "teamHistories";
+
+    /**
+     * Name of the servlet context attribute with the cache of conversions
+     */
+    public static final String CONVERSION_CACHE_ATTRIBUTE = "conversionCache";
+
+    /**
+     * Name of the servlet context attribute with the cache of history pages
+     */
+    public static final String HISTORY_PAGES_ATTRIBUTE = "historyPages";
+
+    /**
+     * Name of the servlet context attribute with the executor of blocking
+     * work of requests
+     */
+    public static final String REQUEST_EXECUTOR_ATTRIBUTE = "requestExecutor";
+
+    /**
+     * Name of the servlet context attribute with the queue saving meetings
+     * in the background
+     */
+    public static final String WRITE_BEHIND_ATTRIBUTE = "writeBehindQueue";
+
+    /**
+     * Name of the servlet context attribute with the metrics of requests
+     */
+    public static final String METRICS_ATTRIBUTE = "requestMetrics";
+
+    /**
+     * Logger used to report problems with starting the application
+     */
+    private static final Logger LOGGER = Logger.getLogger(ApplicationListener.class.getName());
+
+    /**
+     * Application registry of MicroProfile Metrics, null if the container
+     * doesn't inject it
+     */
+    @Inject
+    @RegistryType(type = MetricRegistry.Type.APPLICATION)
+    private MetricRegistry registry;
+
+    /**
+     * Way of running the database, null until the application starts
+     */
+    private DatabaseBackend backend;
+
+    /**
+     * Name of the embedded database
+     */
+    private String database;
+
+    /**
+     * Creates connection pool to the configured database backend, roster
+     * loader, histories of the teams, cache of conversions, executor of requests and the write-behind queue, stores
+     * them in the servlet context and brings the database schema to the
+     * latest version, so requests don't have to check it. The queue is
+     * created after the migration, because it can save meetings left in the
+     * spill file at once. If the spill file can't be used, the queue is
+     * started without it. Finally metrics of requests are registered together
+     * with gauges of the shared objects.
+     *
+     * @param event event of the servlet context
+     */
+    @Override
+    public void contextInitialized(ServletContextEvent event) {
+        Config config = ConfigProvider.getConfig();
+        try {
+            backend = DatabaseBackend.of(config.getOptionalValue("db.backend", String.class).orElse("network"));
+        } catch (InvalidInputException ex) {
+            LOGGER.log(Level.SEVERE, ex.getMessage() + ", network is used", ex);
+            backend = DatabaseBackend.NETWORK;
+        }
+        database = config.getOptionalValue("db.embedded.database", String.class).orElse("TimeZones");
+        String driver = config.getOptionalValue("db.driver", String.class).orElse(backend.getDriver());
+        String url = backend.getUrl(config.getOptionalValue("db.url", String.class).orElse("jdbc:derby://localhost:1527/TimeZones"),
+                database);
+        LOGGER.log(Level.INFO, "Database {0} is used", url);
+        String user = config.getOptionalValue("db.user", String.class).orElse("app");
+        String password = config.getOptionalValue("db.password", String.class).orElse("app");
+
+        try {
+            Class.forName(driver);
+        } catch (ClassNotFoundException cnfe) {
+            LOGGER.log(Level.SEVERE, "Database driver " + driver + " wasn't found", cnfe);
+        }
+
+        ConnectionPool pool = new ConnectionPool(() -> DriverManager.getConnection(url, user, password),
+                config.getOptionalValue("db.pool.maxSize", Integer.class).orElse(10),
+                config.getOptionalValue("db.pool.borrowTimeoutMillis", Long.class).orElse(5000L),
+                config.getOptionalValue("db.pool.validationTimeoutSeconds", Integer.class).orElse(2),
+                config.getOptionalValue("db.pool.leakThresholdMillis", Long.class).orElse(30000L));
+        event.getServletContext().setAttribute(POOL_ATTRIBUTE, pool);
+
+        event.getServletContext().setAttribute(ROSTER_LOADER_ATTRIBUTE, new ParallelRosterLoader(
+                config.getOptionalValue("roster.parallel.threads", Integer.class).orElse(0),
+                config.getOptionalValue("roster.parallel.thresholdBytes", Long.class).orElse(8L * 1024 * 1024),
+                config.getOptionalValue("roster.parallel.chunkBytes", Integer.class).orElse(1024 * 1024)));
+
+        event.getServletContext().setAttribute(TEAM_HISTORIES_ATTRIBUTE, new MeetingHistories(
+                config.getOptionalValue("history.meetings.maxTeams", Integer.class).orElse(1000)));
+
+        event.getServletContext().setAttribute(CONVERSION_CACHE_ATTRIBUTE, new ConversionCache(
+                config.getOptionalValue("cache.conversion.maxEntries", Integer.class).orElse(256),
+                config.getOptionalValue("cache.conversion.maxParticipants", Long.class).orElse(1000000L),
+                config.getOptionalValue("cache.conversion.ttlSeconds", Long.class).orElse(3600L)));
+
+        event.getServletContext().setAttribute(HISTORY_PAGES_ATTRIBUTE, new HistoryPages(
+                config.getOptionalValue("history.cache.maxPages", Integer.class).orElse(1000),
+                config.getOptionalValue("history.cache.ttlSeconds", Long.class).orElse(60L)));
+
+        BoundedExecutor executor = new BoundedExecutor(
+                config.getOptionalValue("async.executor.maxConcurrent", Integer.class).orElse(10),
+                config.getOptionalValue("async.executor.maxQueued", Integer.class).orElse(100),
+                config.getOptionalValue("async.executor.virtualThreads", Boolean.class).orElse(true));
+        event.getServletContext().setAttribute(REQUEST_EXECUTOR_ATTRIBUTE, executor);
+        LOGGER.log(Level.INFO, "Requests are processed on {0} threads",
+                executor.usesVirtualThreads() ? "virtual" : "platform");
+
+        try (Connection con = pool.borrow()) {
+            int version = new SchemaMigrator().migrate(con);
+            LOGGER.log(Level.INFO, "Database schema is at version {0}", version);
+        } catch (SQLException ex) {
+            LOGGER.log(Level.SEVERE, "Database schema couldn't be migrated", ex);
+        }
+
+        RequestMetrics metrics = new RequestMetrics(registry);
+        event.getServletContext().setAttribute(METRICS_ATTRIBUTE, metrics);
+
+        if (config.getOptionalValue("db.writeBehind.enabled", Boolean.class).orElse(true)) {
+            HistoryPages pages = getHistoryPages(event.getServletContext());
+            Path spillFile = config.getOptionalValue("db.writeBehind.spillFile", String.class)
+                    .filter(s -> !s.isBlank()).map(Paths::get).orElse(null);
+            int maxRecords = config.getOptionalValue("db.writeBehind.maxRecords", Integer.class).orElse(200000);
+            int batchRecords = config.getOptionalValue("db.writeBehind.batchRecords", Integer.class).orElse(5000);
+            long maxDelayMillis = config.getOptionalValue("db.writeBehind.maxDelayMillis", Long.class).orElse(200L);
+            int insertBatchSize = config.getOptionalValue("db.insert.batchSize", Integer.class).orElse(500);
+            WriteBehindQueue queue;
+            try {
+                queue = new WriteBehindQueue(pool::borrow, maxRecords, batchRecords, maxDelayMillis, insertBatchSize,
+                        spillFile, metrics::insert, pages::saved);
+            } catch (IOException ex) {
+                LOGGER.log(Level.SEVERE, "Spill file " + spillFile
+                        + " couldn't be opened, queued meetings are lost if the application stops", ex);
+                try {
+                    queue = new WriteBehindQueue(pool::borrow, maxRecords, batchRecords, maxDelayMillis, insertBatchSize,
+                            null, metrics::insert, pages::saved);
+                } catch (IOException unexpected) {
+                    // queue without a spill file doesn't read or open any file
+                    throw new UncheckedIOException(unexpected);
+                }
+            }
+            event.getServletContext().setAttribute(WRITE_BEHIND_ATTRIBUTE, queue);
+        }
+
+        registerGauges(event.getServletContext(), metrics);
+    }
+
+    /**
+     * Registers gauges showing the state of the shared objects on /metrics
+     *
+     * @param context servlet context with the shared objects
+     * @param metrics metrics of requests
+     */
+    private static void registerGauges(ServletContext context, RequestMetrics metrics) {
+        ConnectionPool pool = getPool(context);
+        metrics.gauge("db.pool.active", MetricUnits.NONE, "Borrowed connections", pool::getActiveCount);
+        metrics.gauge("db.pool.idle", MetricUnits.NONE, "Idle connections", pool::getIdleCount);
+
+        ConversionCache cache = getConversionCache(context);
+        metrics.gauge("cache.conversion.hits", MetricUnits.NONE, "Conversions taken from the cache", cache::getHits);
+        metrics.gauge("cache.conversion.misses", MetricUnits.NONE, "Conversions which weren't in the cache", cache::getMisses);
+        metrics.gauge("cache.conversion.evictions", MetricUnits.NONE, "Conversions removed from the cache", cache::getEvictions);
+        metrics.gauge("cache.conversion.size", MetricUnits.NONE, "Conversions in the cache", cache::size);
+
+        HistoryPages pages = getHistoryPages(context);
+        metrics.gauge("history.cache.hits", MetricUnits.NONE, "History pages and counts taken from the cache", pages::getHits);
+        metrics.gauge("history.cache.misses", MetricUnits.NONE, "History pages and counts read from the database", pages::getMisses);
+        metrics.gauge("history.cache.size", MetricUnits.NONE, "History pages in the cache", pages::size);
+
+        BoundedExecutor executor = getRequestExecutor(context);
+        metrics.gauge("executor.pending", MetricUnits.NONE, "Requests which run or wait on the executor", executor::getPending);
+        metrics.gauge("executor.rejected", MetricUnits.NONE, "Requests rejected with 503", executor::getRejected);
+
+        WriteBehindQueue queue = getWriteBehindQueue(context);
+        if (queue != null) {
+            metrics.gauge("writeBehind.depth", MetricUnits.NONE, "Records waiting to be saved", queue::getDepth);
+            metrics.gauge("writeBehind.lag", MetricUnits.MILLISECONDS, "Age of the oldest meeting which isn't saved", queue::getLagMillis);
+            metrics.gauge("writeBehind.saved", MetricUnits.NONE, "Saved records", queue::getSavedRecords);
+            metrics.gauge("writeBehind.failed", MetricUnits.NONE, "Records which couldn't be saved", queue::getFailedRecords);
+            metrics.gauge("writeBehind.rejected", MetricUnits.NONE, "Meetings saved by requests because the queue was full",
+                    queue::getRejectedMeetings);
+        }
+    }
+
+    /**
+     * Stops the executor of requests, saves meetings waiting in the
+     * write-behind queue, closes connection pool, shuts down an embedded
+     * database and stops threads of the roster loader
+     *
+     * @param event event of the servlet context
+     */
+    @Override
+    public void contextDestroyed(ServletContextEvent event) {
+        BoundedExecutor executor = getRequestExecutor(event.getServletContext());
+        if (executor != null) {
+            executor.close();
+        }
+        WriteBehindQueue queue = getWriteBehindQueue(event.getServletContext());
+        if (queue != null) {
+            queue.close();
+        }
+        ConnectionPool pool = getPool(event.getServletContext());
+        if (pool != null) {
+            pool.close();
+        }
+        if (backend != null) {
+            try {
+                backend.shutdown(database);
+            } catch (SQLException ex) {
+                LOGGER.log(Level.WARNING, "Embedded database " + database + " couldn't be shut down", ex);
+            }
+        }
+        ParallelRosterLoader loader = getRosterLoader(event.getServletContext());
+        if (loader != null) {
+            loader.close();
+        }
+    }
+
+    /**
+     * Returns connection pool of the application
+     *
+     * @param context servlet context
+     * @return connection pool
+     */
+    public static ConnectionPool getPool(ServletContext context) {
+        return (ConnectionPool) context.getAttribute(POOL_ATTRIBUTE);
+    }
+
+    /**
+     * Returns loader converting large roster files in parallel
+     *
+     * @param context servlet context
+     * @return roster loader
+     */
+    public static ParallelRosterLoader getRosterLoader(ServletContext context) {
+        return (ParallelRosterLoader) context.getAttribute(ROSTER_LOADER_ATTRIBUTE);
+    }
+
+    /**
+     * Returns histories of meeting dates of the teams
+     *
+     * @param context servlet context
+     * @return histories of the teams
+     */
+    public static MeetingHistories getTeamHistories(ServletContext context) {
+        return (MeetingHistories) context.getAttribute(TEAM_HISTORIES_ATTRIBUTE);
+    }
+
+    /**
+     * Returns cache of converted rosters
+     *
+     * @param context servlet context
+     * @return cache of conversions
+     */
+    public static ConversionCache getConversionCache(ServletContext context) {
+        return (ConversionCache) context.getAttribute(CONVERSION_CACHE_ATTRIBUTE);
+    }
+
+    /**
+     * Returns cache of pages of the saved meetings
+     *
+     * @param context servlet context
+     * @return cache of history pages
+     */
+    public static HistoryPages getHistoryPages(ServletContext context) {
+        return (HistoryPages) context.getAttribute(HISTORY_PAGES_ATTRIBUTE);
+    }
+
+    /**
+     * Returns executor of blocking work of requests
+     *
+     * @param context servlet context
+     * @return executor of requests
+     */
+    public static BoundedExecutor getRequestExecutor(ServletContext context) {
+        return (BoundedExecutor) context.getAttribute(REQUEST_EXECUTOR_ATTRIBUTE);
+    }
+
+    /**
+     * Returns queue saving meetings in the background
+     *
+     * @param context servlet context
+     * @return write-behind queue or null if it is disabled
+     */
+    public static WriteBehindQueue getWriteBehindQueue(ServletContext context) {
+        return (WriteBehindQueue) context.getAttribute(WRITE_BEHIND_ATTRIBUTE);
+    }
+
+    /**
+     * Returns metrics of requests
+     *
+     * @param context servlet context
+     * @return metrics of requests
+     */
+    public static RequestMetrics getMetrics(ServletContext context) {
+        return (RequestMetrics) context.getAttribute(METRICS_ATTRIBUTE);
+    }
+}
@@ -0,0 +1,20 @@
+package pl.polsl.controller;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import javax.ws.rs.NameBinding;
+
+/**
+ * Marks REST methods whose requests and responses can be compressed with gzip
+ * by GzipInterceptor
+ *
+ * @author Jacek
+ * @version 1.5
+ */
+@NameBinding
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE, ElementType.METHOD})
+public @interface Compressed {
+}
@@ -0,0 +1,234 @@
+package pl.polsl.controller;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+import javax.ws.rs.Consumes;
+import javax.ws.rs.HeaderParam;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+import org.eclipse.microprofile.config.Config;
+import org.eclipse.microprofile.config.ConfigProvider;
+import pl.polsl.model.InvalidInputException;
+import pl.polsl.model.RosterEntry;
+import pl.polsl.model.RosterReader;
+import pl.polsl.model.RosterTooLargeException;
+import pl.polsl.model.TimeConverter;
+import pl.polsl.model.TimesModel;
+import pl.polsl.model.ZoneTable;
+import pl.polsl.view.RecordFormat;
+
+/**
+ * REST resource converting a roster sent in the body of the request for one
+ * or more meetings. It doesn't use the HTTP session, so it can be called at
+ * high rates by schedulers. The roster is read and checked before the
+ * response starts, then converted times are streamed as NDJSON or CSV
+ * depending on the Accept header, compressed with gzip if the client accepts
+ * it. Example:
+ * <pre>
+ * curl -H "Accept: text/csv" -H "Content-Type: text/plain" --data-binary @times.txt \
+ *     "http://localhost:9080/api/conversions?meeting=2022-01-24%2015:15:00&amp;meeting=2022-03-28T08:00:00Z"
+ * </pre>
+ * Adding group=zone returns one record per timezone with names of its
+ * participants, so the response grows with the number of timezones.
+ *
+ * @author Jacek
+ * @version 1.5
+ */
+@Path("conversions")
+@ApplicationScoped
+public class ConversionResource {
+
+    /** Size of the buffer of the response in characters */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /** Model used to parse meeting dates */
+    private TimesModel model = new TimesModel();
+
+    /** Maximal number of meetings in one request */
+    private int maxMeetings;
+
+    /** Maximal number of participants in one request */
+    private int maxParticipants;
+
+    /**
+     * Reads limits of requests and the timezone of meeting dates from the
+     * configuration
+     *
+     * @throws IllegalStateException if the configured timezone doesn't exist
+     */
+    @PostConstruct
+    public void init() {
+        Config config = ConfigProvider.getConfig();
+        maxMeetings = config.getOptionalValue("api.maxMeetings", Integer.class).orElse(100);
+        maxParticipants = config.getOptionalValue("api.maxParticipants", Integer.class).orElse(1000000);
+        try {
+            model = new TimesModel(config.getOptionalValue("meeting.referenceZone", String.class)
+                    .orElse(TimeConverter.DEFAULT_REFERENCE_ZONE));
+        } catch (InvalidInputException ex) {
+            throw new IllegalStateException("Timezone of meetings is incorrect: " + ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Converts the roster for all of the meetings. Records are written meeting
+     * after meeting, in order of the roster. Participants are grouped by
+     * normalized timezone while the roster is read and every meeting is
+     * converted and formatted once per timezone. With group=zone one record
+     * is written for every timezone with names of its participants instead
+     * of one record for every participant.
+     *
+     * @param meetings meeting dates in yyyy-MM-dd HH:mm:ss format in the
+     * timezone of meetings or ISO-8601 instants, e.g. 2022-01-24T13:15:00Z
+     * @param group "zone" to group participants by timezone or null
+     * @param accept Accept header of the request
+     * @param body roster with one participant and their timezone per line
+     * @return streamed records, 400 with the description of the problem or
+     * 413 if the roster has too many participants
+     * @throws IOException if the body couldn't be read
+     */
+    @POST
+    @Compressed
+    @Consumes({MediaType.TEXT_PLAIN, MediaType.APPLICATION_OCTET_STREAM})
+    @Produces({"application/x-ndjson", "text/csv"})
+    public Response convert(@QueryParam("meeting") List<String> meetings, @QueryParam("group") String group,
+            @HeaderParam(HttpHeaders.ACCEPT) String accept, InputStream body) throws IOException {
+        RecordFormat format = chooseFormat(accept);
+        boolean byZone = "zone".equals(group);
+        List<Instant> instants = new ArrayList<>(meetings.size());
+        List<String> names = new ArrayList<>();
+        List<String> zones = new ArrayList<>();
+        int[] zoneOf = new int[16];
+        Map<ZoneId, Integer> zoneIndexes = new HashMap<>();
+        List<ZoneTable> tables = new ArrayList<>();
+        List<String> groupZones = new ArrayList<>();
+        List<List<String>> groupNames = new ArrayList<>();
+        try {
+            if (group != null && !group.isEmpty() && !byZone) {
+                throw new InvalidInputException("Parameter group can only be zone");
+            }
+            if (meetings.isEmpty() || meetings.size() > maxMeetings) {
+                throw new InvalidInputException("Request should have from 1 to " + maxMeetings + " meeting parameters");
+            }
+            for (String meeting : meetings) {
+                instants.add(parseMeeting(meeting));
+            }
+            RosterReader reader = new RosterReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+            reader.setMaxParticipants(maxParticipants);
+            RosterEntry participant;
+            while ((participant = reader.next()) != null) {
+                ZoneTable table = participant.getZoneTable();
+                Integer zone = zoneIndexes.get(table.getId().normalized());
+                if (zone == null) {
+                    zone = tables.size();
+                    zoneIndexes.put(table.getId().normalized(), zone);
+                    tables.add(table);
+                    groupZones.add(participant.getZone());
+                    groupNames.add(new ArrayList<>());
+                }
+                if (byZone) {
+                    groupNames.get(zone).add(participant.getName());
+                } else {
+                    if (names.size() == zoneOf.length) {
+                        zoneOf = Arrays.copyOf(zoneOf, zoneOf.length * 2);
+                    }
+                    zoneOf[names.size()] = zone;
+                    names.add(participant.getName());
+                    zones.add(participant.getZone());
+                }
+            }
+        } catch (RosterTooLargeException ex) {
+            return Response.status(Response.Status.REQUEST_ENTITY_TOO_LARGE).type(MediaType.TEXT_PLAIN_TYPE.withCharset("UTF-8"))
+                    .entity(ex.getMessage()).build();
+        } catch (InvalidInputException ex) {
+            return Response.status(Response.Status.BAD_REQUEST).type(MediaType.TEXT_PLAIN_TYPE.withCharset("UTF-8"))
+                    .entity(ex.getMessage()).build();
+        }
+
+        int[] participantZones = zoneOf;
+        StreamingOutput records = output -> {
+            Writer out = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), BUFFER_SIZE);
+            if (byZone) {
+                format.writeGroupHeader(out);
+            } else {
+                format.writeHeader(out);
+            }
+            String[] localTimes = new String[tables.size()];
+            for (Instant meeting : instants) {
+                String meetingText = meeting.toString();
+                for (int zone = 0; zone < localTimes.length; zone++) {
+                    localTimes[zone] = TimeConverter.format(tables.get(zone).localEpochSecond(meeting));
+                }
+                if (byZone) {
+                    for (int zone = 0; zone < localTimes.length; zone++) {
+                        format.writeGroup(out, meetingText, groupZones.get(zone), localTimes[zone], groupNames.get(zone));
+                    }
+                } else {
+                    for (int i = 0; i < names.size(); i++) {
+                        format.writeRecord(out, meetingText, names.get(i), zones.get(i), localTimes[participantZones[i]]);
+                    }
+                }
+            }
+            out.flush();
+        };
+        return Response.ok(records, MediaType.valueOf(format.getMediaType()).withCharset("UTF-8")).build();
+    }
+
+    /**
+     * Chooses the format of the response, NDJSON is used if the client
+     * accepts any format
+     *
+     * @param accept Accept header of the request, can be null
+     * @return format of the response
+     */
+    private static RecordFormat chooseFormat(String accept) {
+        if (accept != null) {
+            for (String type : accept.split(",")) {
+                RecordFormat format = RecordFormat.forMediaType(type.split(";")[0].strip());
+                if (format != null) {
+                    return format;
+                }
+            }
+        }
+        return RecordFormat.NDJSON;
+    }
+
+    /**
+     * Reads meeting given as an ISO-8601 instant or as a date in the timezone
+     * of meetings
+     *
+     * @param meeting meeting from the request
+     * @return instant of the meeting
+     * @throws InvalidInputException if the meeting is incorrect
+     */
+    private Instant parseMeeting(String meeting) throws InvalidInputException {
+        if (meeting.indexOf('T') < 0) {
+            return model.parseMeetingDate(meeting);
+        }
+        try {
+            return Instant.parse(meeting);
+        } catch (DateTimeException ex) {
+            throw new InvalidInputException("Meeting " + meeting + " isn't a correct ISO-8601 instant");
+        }
+    }
+}
@@ -1,10 +1,11 @@
 package pl.polsl.controller;
 
 import java.io.IOException;
-import java.io.PrintWriter;
 import java.sql.Connection;
 import java.sql.SQLException;
-import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.servlet.AsyncContext;
 import javax.servlet.ServletException;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.Cookie;
@@ -12,7 +13,18 @@ import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import javax.servlet.http.HttpSession;
+import org.eclipse.microprofile.config.Config;
+import org.eclipse.microprofile.config.ConfigProvider;
+import pl.polsl.model.BatchInsertResult;
+import pl.polsl.model.BoundedExecutor;
+import pl.polsl.model.ConnectionPool;
+import pl.polsl.model.HistoryPages;
+import pl.polsl.model.MeetingHistory;
+import pl.polsl.model.Roster;
+import pl.polsl.model.TimeConverter;
 import pl.polsl.model.TimesModel;
+import pl.polsl.model.WriteBehindQueue;
+import pl.polsl.view.HtmlStream;
 import pl.polsl.view.TimesView;
 
 /**
@@ -21,24 +33,195 @@ import pl.polsl.view.TimesView;
  * @author Jacek
  * @version 1.5
  */
-@WebServlet("/DataHistoryController")
+@WebServlet(urlPatterns = "/DataHistoryController", asyncSupported = true)
 public class DataHistoryController extends HttpServlet {
 
     /**
      * View class responsible for printing out info the end user
      */
-    private final TimesView view = new TimesView();
+    private TimesView view = new TimesView();
+
+    /**
+     * Name of the session attribute with the history of the user
+     */
+    private static final String HISTORY_ATTRIBUTE = "meetingHistory";
+
+    /**
+     * Maximal length of the team or user name saved as the owner
+     */
+    private static final int OWNER_LENGTH = 50;
+
+    /**
+     * Logger used to report problems with reading the history
+     */
+    private static final Logger LOGGER = Logger.getLogger(DataHistoryController.class.getName());
+
+    /**
+     * Number of participants sent to the database in one batch
+     */
+    private int batchSize;
+
+    /**
+     * Number of rows of the database table printed under the meeting
+     */
+    private int pageSize;
+
+    /**
+     * Number of meeting dates kept in the history of a user or team
+     */
+    private int historyCapacity;
+
+    /**
+     * True if histories of teams and logged in users are read from the
+     * database when they are used for the first time
+     */
+    private boolean persistHistory;
+
+    /**
+     * Executor saving meetings and rendering pages, null until the servlet
+     * is initialized
+     */
+    private BoundedExecutor executor;
+
+    /**
+     * Time after which unfinished request gets 503, in milliseconds
+     */
+    private long asyncTimeout;
+
+    /**
+     * Queue saving meetings in the background, null if it is disabled
+     */
+    private WriteBehindQueue queue;
+
+    /**
+     * Cache of the pages of the history, null until the servlet is
+     * initialized
+     */
+    private HistoryPages pages;
+
+    /**
+     * Metrics of saving and rendering, nothing is recorded until the servlet
+     * is initialized
+     */
+    private RequestMetrics metrics = new RequestMetrics(null);
+
+    /**
+     * Reads size of the batch, of the page and of the history, the timeout
+     * of requests and the timezone of meeting dates from the configuration
+     * and takes the executor of requests, the write-behind queue, the cache of
+     * history pages and the metrics of requests
+     *
+     * @throws ServletException if something is wrong with servlet
+     */
+    @Override
+    public void init() throws ServletException {
+        Config config = ConfigProvider.getConfig();
+        batchSize = config.getOptionalValue("db.insert.batchSize", Integer.class).orElse(500);
+        pageSize = config.getOptionalValue("history.pageSize", Integer.class).orElse(50);
+        historyCapacity = config.getOptionalValue("history.meetings.capacity", Integer.class).orElse(MeetingHistory.DEFAULT_CAPACITY);
+        persistHistory = config.getOptionalValue("history.meetings.persist", Boolean.class).orElse(false);
+        asyncTimeout = config.getOptionalValue("async.timeoutMillis", Long.class).orElse(30000L);
+        executor = ApplicationListener.getRequestExecutor(getServletContext());
+        queue = ApplicationListener.getWriteBehindQueue(getServletContext());
+        pages = ApplicationListener.getHistoryPages(getServletContext());
+        metrics = ApplicationListener.getMetrics(getServletContext());
+        view = new TimesView(config.getOptionalValue("meeting.referenceZone", String.class)
+                .orElse(TimeConverter.DEFAULT_REFERENCE_ZONE));
+    }
+
+    /**
+     * Returns owner of the meeting saved with it in the database: the team
+     * given in the form, otherwise the user logged in by the container. A new
+     * version of a roster saves only its changed participants, rows of a team
+     * are only marked as superseded, because teams aren't authenticated.
+     *
+     * @param request servlet request
+     * @return owner of the meeting or null if the user is anonymous
+     */
+    private String getOwner(HttpServletRequest request) {
+        String team = request.getParameter("team");
+        if (team != null && !team.isBlank()) {
+            team = team.strip();
+            return TimesModel.TEAM_OWNER + team.substring(0, Math.min(team.length(), OWNER_LENGTH));
+        }
+        if (request.getRemoteUser() != null) {
+            String user = request.getRemoteUser();
+            return TimesModel.USER_OWNER + user.substring(0, Math.min(user.length(), OWNER_LENGTH));
+        }
+        return null;
+    }
+
+    /**
+     * Returns name of the converted roster file, which identifies versions of
+     * the roster of the owner
+     *
+     * @param request servlet request dispatched by the TimesController
+     * @return name of the roster or null if it wasn't given
+     */
+    private String getRoster(HttpServletRequest request) {
+        String roster = (String) request.getAttribute("filename");
+        if (roster == null || roster.isBlank()) {
+            return null;
+        }
+        roster = roster.strip();
+        return roster.substring(0, Math.min(roster.length(), TimesModel.ROSTER_LENGTH));
+    }
+
+    /**
+     * Returns history of meeting dates shared by the team or, if no team was
+     * given, kept in the session of the user
+     *
+     * @param request servlet request
+     * @param pool pool used to read persisted history
+     * @param owner owner returned by getOwner
+     * @return history of the team or user
+     */
+    private MeetingHistory getHistory(HttpServletRequest request, ConnectionPool pool, String owner) {
+        if (owner != null && owner.startsWith(TimesModel.TEAM_OWNER)) {
+            return ApplicationListener.getTeamHistories(getServletContext())
+                    .get(owner, team -> createHistory(pool, team));
+        }
+        HttpSession session = request.getSession();
+        MeetingHistory history = (MeetingHistory) session.getAttribute(HISTORY_ATTRIBUTE);
+        if (history == null) {
+            history = createHistory(pool, owner);
+            session.setAttribute(HISTORY_ATTRIBUTE, history);
+        }
+        return history;
+    }
+
+    /**
+     * Creates history of the owner, reading their last meetings from the
+     * database if persistence is enabled
+     *
+     * @param pool pool used to read persisted history
+     * @param owner owner of the history, can be null
+     * @return new history
+     */
+    private MeetingHistory createHistory(ConnectionPool pool, String owner) {
+        if (persistHistory && owner != null) {
+            try (Connection con = pool.borrow()) {
+                return MeetingHistory.load(con, owner, historyCapacity);
+            } catch (SQLException ex) {
+                metrics.sqlError();
+                LOGGER.log(Level.WARNING, "History of " + owner + " couldn't be read", ex);
+            }
+        }
+        return new MeetingHistory(historyCapacity);
+    }
 
     /**
      * Method processes cookies, which contains number of participants at the
-     * last meeting
+     * last meeting. The new number is added to the response before the page
+     * is started, because cookies can't be sent once the response is
+     * committed.
      *
-     * @param out PrintWriter used to output HTML
      * @param request servlet request
      * @param response servlet response
      * @param numberOfParticipants number of participants at the current meeting
+     * @return number of participants at the last meeting or an empty text
      */
-    private void processCookies(PrintWriter out, HttpServletRequest request, HttpServletResponse response, String numberOfParticipants) {
+    private String processCookies(HttpServletRequest request, HttpServletResponse response, String numberOfParticipants) {
         Cookie[] cookies = request.getCookies();
         String oldNumber = "";
         if (cookies != null) {
@@ -48,17 +231,22 @@ public class DataHistoryController extends HttpServlet {
                 }
             }
         }
-        if (!"".equals(oldNumber)) {
-            view.printNumberOfParticipants(out, oldNumber);
-        }
         Cookie newNumber = new Cookie("lastNum", numberOfParticipants);
         newNumber.setMaxAge(60 * 60 * 24);
         response.addCookie(newNumber);
+        return oldNumber;
     }
 
     /**
      * Processes requests for both HTTP GET and POST
-     * methods.
+     * methods. Data of the meeting is passed by TimesController in request
+     * attributes, so it is never shared between requests. The session and
+     * cookies are handled on the thread of the container, then the request
+     * continues asynchronously and the meeting is saved and the page is
+     * rendered on the executor of requests, so slow writes to the database
+     * don't hold threads of the container. The meeting is handed to the
+     * write-behind queue, only when it is full the request waits for the
+     * inserts. If the executor is full, 503 is returned.
      *
      * @param request servlet request
      * @param response servlet response
@@ -69,46 +257,150 @@ public class DataHistoryController extends HttpServlet {
             throws ServletException, IOException {
         response.setContentType("text/html;charset=UTF-8");
 
-        try (PrintWriter out = response.getWriter()) {
-            view.printHeader(out);
-            HttpSession session = request.getSession();
-            List<List<String>> participantInfo = (List<List<String>>) session.getAttribute("participantInfo");
-            int numberOfParticipants = participantInfo.size();
+        Roster participantInfo = (Roster) request.getAttribute("participantInfo");
+        if (participantInfo == null) {
+            view.printError(response, "There is no meeting to show, please use the form first");
+            return;
+        }
 
-            TimesModel model = (TimesModel) session.getAttribute("model");
-            String meetingdate = (String) session.getAttribute("date");
-            Connection con = (Connection) session.getAttribute("con");
+        ConnectionPool pool = ApplicationListener.getPool(getServletContext());
+        String owner = getOwner(request);
+        MeetingHistory history = getHistory(request, pool, owner);
+        String lastNumber = processCookies(request, response, participantInfo.size() + "");
 
-            participantInfo.forEach((List<String> data) -> {
-                view.printParticipantInfo(out, data.get(0), data.get(1));
-            });
+        AsyncContext async = request.startAsync();
+        async.setTimeout(asyncTimeout);
+        if (!executor.trySubmit(() -> render(async, participantInfo, pool, owner, history, lastNumber))) {
+            view.printUnavailable(response, "Server is busy, please try again later");
+            async.complete();
+        }
+    }
 
-            try {
-                model.createTables(con);
-                participantInfo.forEach((List<String> data) -> {
-                    try {
-                        model.insertToDB(con, data.get(0), data.get(1));
-                    } catch (SQLException sqle) {}
-                });
-            } catch (SQLException ex) {
-                view.printError(response, ex.getMessage());
+    /**
+     * Saves the meeting and streams the page on the executor of requests.
+     * The header is sent before the participants are rendered and the rest
+     * follows in chunks of the buffer of HtmlStream. Participants are listed
+     * one by one or, if the form asked for it, once per timezone with their
+     * shared local time. Connections are borrowed
+     * from the pool only for the time they are needed. Unexpected exceptions
+     * are logged and answered with 500 if the page wasn't started yet, the
+     * request is always completed.
+     *
+     * @param async context of the request
+     * @param participantInfo converted participants
+     * @param pool pool of connections
+     * @param owner owner of the meeting or null
+     * @param history history of the team or user
+     * @param lastNumber number of participants at the last meeting or an
+     * empty text
+     */
+    private void render(AsyncContext async, Roster participantInfo, ConnectionPool pool, String owner,
+            MeetingHistory history, String lastNumber) {
+        HttpServletRequest request = (HttpServletRequest) async.getRequest();
+        HttpServletResponse response = (HttpServletResponse) async.getResponse();
+        long start = System.nanoTime();
+        try (HtmlStream out = new HtmlStream(response.getOutputStream())) {
+            view.printHeader(out);
+            out.flush();
+
+            TimesModel model = (TimesModel) request.getAttribute("model");
+            String meetingdate = (String) request.getAttribute("date");
+            String roster = getRoster(request);
+            if (Boolean.TRUE.equals(request.getAttribute("groupByZone"))) {
+                for (Roster.ZoneGroup group : participantInfo.groupByZone()) {
+                    view.printZoneGroup(out, group);
+                }
+            } else {
+                for (int i = 0; i < participantInfo.size(); i++) {
+                    view.printParticipantInfo(out, participantInfo.getName(i), participantInfo.getLocalTime(i));
+                }
+            }
+
+            if (queue != null && queue.offer(meetingdate, owner, roster, participantInfo)) {
+                view.printSavedInBackground(out);
+            } else {
+                try (Connection con = pool.borrow()) {
+                    long insertStart = System.nanoTime();
+                    BatchInsertResult result = model.insertAll(con, meetingdate, owner, roster, participantInfo, batchSize);
+                    metrics.insert(System.nanoTime() - insertStart);
+                    pages.saved(result);
+                    view.printRosterVersion(out, result);
+                    view.printInsertFailures(out, result.getFailures());
+                } catch (SQLException ex) {
+                    sqlError(response, ex);
+                }
             }
 
             view.printCurrentMeeting(out, meetingdate);
-            processCookies(out, request, response, numberOfParticipants + "");
-            view.printHistory(out, model.getMeetingDateHistory());
+            if (!"".equals(lastNumber)) {
+                view.printNumberOfParticipants(out, lastNumber);
+            }
+            view.printHistory(out, history);
 
-            model.addDateToHisotry(meetingdate);
+            history.add(meetingdate);
 
             view.printTableHeader(out);
             try {
-                view.printDB(out, con);
+                long queryStart = System.nanoTime();
+                HistoryPages.Page page = pages.get(pool::borrow, null, pageSize);
+                view.printHistoryPage(out, page);
+                view.printTableFooter(out);
+                view.printPageLinks(out, request.getContextPath(), page.getNext(), pageSize, pages.count(pool::borrow));
+                metrics.query(System.nanoTime() - queryStart);
             } catch (SQLException ex) {
-                view.printError(response, ex.getMessage());
+                sqlError(response, ex);
             }
-            view.printTableFooter(out);
 
             view.printFooter(out);
+            metrics.render(System.nanoTime() - start);
+        } catch (IOException | IllegalStateException ex) {
+            LOGGER.log(Level.FINE, "Page of the meeting couldn't be sent", ex);
+        } catch (RuntimeException ex) {
+            internalError(response, ex);
+        } finally {
+            try {
+                async.complete();
+            } catch (IllegalStateException ex) {
+                LOGGER.log(Level.FINE, "Request was already completed", ex);
+            }
+        }
+    }
+
+    /**
+     * Reports database error which doesn't stop rendering of the page. It is
+     * logged and counted, because once the page is started the error can't
+     * be sent to the user.
+     *
+     * @param response servlet response
+     * @param ex reported error
+     */
+    private void sqlError(HttpServletResponse response, SQLException ex) {
+        metrics.sqlError();
+        LOGGER.log(Level.WARNING, "Database error while the page of the meeting was rendered", ex);
+        if (!response.isCommitted()) {
+            try {
+                view.printError(response, ex.getMessage());
+            } catch (IOException failure) {
+                LOGGER.log(Level.FINE, "Error couldn't be sent", failure);
+            }
+        }
+    }
+
+    /**
+     * Logs unexpected exception of the rendering and sends 500 if the page
+     * wasn't started yet
+     *
+     * @param response servlet response
+     * @param ex exception thrown while the page was rendered
+     */
+    private void internalError(HttpServletResponse response, RuntimeException ex) {
+        LOGGER.log(Level.SEVERE, "Page of the meeting couldn't be rendered", ex);
+        if (!response.isCommitted()) {
+            try {
+                view.printInternalError(response, "Page couldn't be rendered because of an error of the server");
+            } catch (IOException failure) {
+                LOGGER.log(Level.FINE, "Error couldn't be sent", failure);
+            }
         }
     }
 
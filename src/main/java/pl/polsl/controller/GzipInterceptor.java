@@ -0,0 +1,104 @@
+package pl.polsl.controller;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.ext.Provider;
+import javax.ws.rs.ext.ReaderInterceptor;
+import javax.ws.rs.ext.ReaderInterceptorContext;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+
+/**
+ * Decompresses request bodies sent with Content-Encoding: gzip and
+ * compresses responses of methods marked with Compressed when the client
+ * accepts gzip. Streamed responses are compressed while they are written.
+ *
+ * @author Jacek
+ * @version 1.5
+ */
+@Provider
+@Compressed
+public class GzipInterceptor implements ReaderInterceptor, WriterInterceptor {
+
+    /** Name of the gzip encoding */
+    private static final String GZIP = "gzip";
+
+    /** Size of the buffers of the compressing streams */
+    private static final int BUFFER_SIZE = 8 * 1024;
+
+    /** Headers of the current request */
+    @Context
+    private HttpHeaders headers;
+
+    /**
+     * Decompresses the body of the request if it was compressed
+     *
+     * @param context context of the read body
+     * @return read body
+     * @throws IOException if the body couldn't be read
+     * @throws WebApplicationException if a reader failed
+     */
+    @Override
+    public Object aroundReadFrom(ReaderInterceptorContext context) throws IOException, WebApplicationException {
+        String encoding = context.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING);
+        if (encoding != null && GZIP.equalsIgnoreCase(encoding.strip())) {
+            context.getHeaders().remove(HttpHeaders.CONTENT_ENCODING);
+            context.setInputStream(new GZIPInputStream(context.getInputStream(), BUFFER_SIZE));
+        }
+        return context.proceed();
+    }
+
+    /**
+     * Compresses the response if the client accepts gzip
+     *
+     * @param context context of the written response
+     * @throws IOException if the response couldn't be written
+     * @throws WebApplicationException if a writer failed
+     */
+    @Override
+    public void aroundWriteTo(WriterInterceptorContext context) throws IOException, WebApplicationException {
+        context.getHeaders().add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (!acceptsGzip(headers.getRequestHeader(HttpHeaders.ACCEPT_ENCODING))) {
+            context.proceed();
+            return;
+        }
+        context.getHeaders().putSingle(HttpHeaders.CONTENT_ENCODING, GZIP);
+        GZIPOutputStream compressed = new GZIPOutputStream(context.getOutputStream(), BUFFER_SIZE);
+        context.setOutputStream(compressed);
+        context.proceed();
+        compressed.finish();
+    }
+
+    /**
+     * Checks if the Accept-Encoding header allows gzip
+     *
+     * @param values values of the header, can be null
+     * @return true if gzip is accepted
+     */
+    static boolean acceptsGzip(List<String> values) {
+        if (values == null) {
+            return false;
+        }
+        for (String value : values) {
+            for (String coding : value.split(",")) {
+                String[] parts = coding.split(";");
+                if (!GZIP.equalsIgnoreCase(parts[0].strip())) {
+                    continue;
+                }
+                for (int i = 1; i < parts.length; i++) {
+                    String parameter = parts[i].strip();
+                    if (parameter.startsWith("q=") && parameter.substring(2).strip().matches("0(\\.0*)?")) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+}
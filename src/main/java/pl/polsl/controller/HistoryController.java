@@ -0,0 +1,211 @@
+package pl.polsl.controller;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.sql.SQLException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.servlet.ServletException;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.eclipse.microprofile.config.Config;
+import org.eclipse.microprofile.config.ConfigProvider;
+import pl.polsl.model.ConnectionPool;
+import pl.polsl.model.HistoryPages;
+import pl.polsl.view.HtmlStream;
+import pl.polsl.view.TimesView;
+
+/**
+ * Servlet is responsible for browsing data saved in the database page by
+ * page. "/History" prints one page of the table and "/History/count" returns
+ * only the number of rows as plain text.
+ *
+ * @author Jacek
+ * @version 1.5
+ */
+@WebServlet({"/History", "/History/count"})
+public class HistoryController extends HttpServlet {
+
+    /**
+     * Logger used to report problems with reading the history
+     */
+    private static final Logger LOGGER = Logger.getLogger(HistoryController.class.getName());
+
+    /**
+     * View class responsible for printing out info the end user
+     */
+    private final TimesView view = new TimesView();
+
+    /**
+     * Cache of the pages of the history, null until the servlet is
+     * initialized
+     */
+    private HistoryPages pages;
+
+    /**
+     * Number of rows on the page if user didn't choose it
+     */
+    private int defaultPageSize;
+
+    /**
+     * Maximal number of rows on the page
+     */
+    private int maxPageSize;
+
+    /**
+     * Metrics of queries, nothing is recorded until the servlet is
+     * initialized
+     */
+    private RequestMetrics metrics = new RequestMetrics(null);
+
+    /**
+     * Reads sizes of the page from the configuration and takes the cache of
+     * history pages and the metrics of requests
+     *
+     * @throws ServletException if something is wrong with servlet
+     */
+    @Override
+    public void init() throws ServletException {
+        Config config = ConfigProvider.getConfig();
+        defaultPageSize = config.getOptionalValue("history.pageSize", Integer.class).orElse(50);
+        maxPageSize = config.getOptionalValue("history.maxPageSize", Integer.class).orElse(500);
+        pages = ApplicationListener.getHistoryPages(getServletContext());
+        metrics = ApplicationListener.getMetrics(getServletContext());
+    }
+
+    /**
+     * Returns size of the page chosen by the user, limited by the maximal size
+     *
+     * @param request servlet request
+     * @return number of rows on the page
+     */
+    private int getPageSize(HttpServletRequest request) {
+        String pageSize = request.getParameter("pageSize");
+        if (pageSize == null || pageSize.isEmpty()) {
+            return defaultPageSize;
+        }
+        try {
+            return Math.max(1, Math.min(maxPageSize, Integer.parseInt(pageSize)));
+        } catch (NumberFormatException ex) {
+            return defaultPageSize;
+        }
+    }
+
+    /**
+     * Processes requests for both HTTP GET and POST
+     * methods.
+     *
+     * @param request servlet request
+     * @param response servlet response
+     * @throws ServletException if a servlet-specific error occurs
+     * @throws IOException if an I/O error occurs
+     */
+    protected void processRequest(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+        ConnectionPool pool = ApplicationListener.getPool(getServletContext());
+
+        if ("/History/count".equals(request.getServletPath())) {
+            long count;
+            try {
+                count = pages.count(pool::borrow);
+            } catch (SQLException ex) {
+                sqlError(response, ex);
+                return;
+            }
+            response.setContentType("text/plain;charset=UTF-8");
+            try (PrintWriter out = response.getWriter()) {
+                out.print(count);
+            }
+            return;
+        }
+
+        Integer before = null;
+        String cursor = request.getParameter("before");
+        if (cursor != null && !cursor.isEmpty()) {
+            try {
+                before = Integer.valueOf(cursor);
+            } catch (NumberFormatException ex) {
+                view.printError(response, "Incorrect page!");
+                return;
+            }
+        }
+        int pageSize = getPageSize(request);
+
+        HistoryPages.Page page;
+        long count;
+        try {
+            long start = System.nanoTime();
+            page = pages.get(pool::borrow, before, pageSize);
+            count = pages.count(pool::borrow);
+            metrics.query(System.nanoTime() - start);
+        } catch (SQLException ex) {
+            sqlError(response, ex);
+            return;
+        }
+
+        response.setContentType("text/html;charset=UTF-8");
+        try (HtmlStream out = new HtmlStream(response.getOutputStream())) {
+            view.printHeader(out);
+            view.printTableHeader(out);
+            view.printHistoryPage(out, page);
+            view.printTableFooter(out);
+            view.printPageLinks(out, request.getContextPath(), page.getNext(), pageSize, count);
+            view.printFooter(out);
+        }
+    }
+
+    /**
+     * Records and logs the error of the database and sends 500, the history
+     * is read before anything is written, so the response isn't committed
+     *
+     * @param response servlet response
+     * @param ex error of the database
+     * @throws IOException if the error couldn't be sent
+     */
+    private void sqlError(HttpServletResponse response, SQLException ex) throws IOException {
+        metrics.sqlError();
+        LOGGER.log(Level.WARNING, "Database error while the history was read", ex);
+        view.printInternalError(response, "History couldn't be read because of an error of the database");
+    }
+
+    // <editor-fold defaultstate="collapsed" desc="HttpServlet methods. Click on the + sign on the left to edit the code.">
+    /**
+     * Handles the HTTP <code>GET</code> method.
+     *
+     * @param request servlet request
+     * @param response servlet response
+     * @throws ServletException if a servlet-specific error occurs
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+        processRequest(request, response);
+    }
+
+    /**
+     * Handles the HTTP <code>POST</code> method.
+     *
+     * @param request servlet request
+     * @param response servlet response
+     * @throws ServletException if a servlet-specific error occurs
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    protected void doPost(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+        processRequest(request, response);
+    }
+
+    /**
+     * Returns a short description of the servlet.
+     *
+     * @return a String containing servlet description
+     */
+    @Override
+    public String getServletInfo() {
+        return "Pages of the meeting history";
+    }// </editor-fold>
+}
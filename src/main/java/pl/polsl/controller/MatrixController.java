@@ -0,0 +1,236 @@
+package pl.polsl.controller;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import javax.servlet.ServletException;
+import javax.servlet.annotation.MultipartConfig;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.Part;
+import org.eclipse.microprofile.config.Config;
+import org.eclipse.microprofile.config.ConfigProvider;
+import pl.polsl.model.InvalidInputException;
+import pl.polsl.model.MeetingMatrix;
+import pl.polsl.model.RosterReader;
+import pl.polsl.model.RosterTooLargeException;
+import pl.polsl.model.TimeConverter;
+import pl.polsl.model.TimesModel;
+import pl.polsl.view.HtmlStream;
+import pl.polsl.view.TimesView;
+
+/**
+ * Servlet is responsible for converting the roster at many candidate meetings
+ * at once. Candidates are given one per line or as a range of meeting dates
+ * with a step in minutes. The table has a row for every participant and a
+ * column for every candidate, so the number of participants is limited by the
+ * number of cells.
+ *
+ * @author Jacek
+ * @version 1.5
+ */
+@WebServlet("/Matrix")
+@MultipartConfig(fileSizeThreshold = RosterUpload.FILE_SIZE_THRESHOLD, maxFileSize = RosterUpload.MAX_FILE_SIZE,
+        maxRequestSize = RosterUpload.MAX_REQUEST_SIZE)
+public class MatrixController extends HttpServlet {
+
+    /**
+     * View class responsible for printing out info the end user
+     */
+    private TimesView view = new TimesView();
+
+    /**
+     * Model used to read the roster and format the times
+     */
+    private TimesModel model = new TimesModel();
+
+    /**
+     * Maximal number of candidate meetings
+     */
+    private int maxCandidates;
+
+    /**
+     * Maximal number of cells of the table
+     */
+    private long maxCells;
+
+    /**
+     * Limits of uploaded rosters, null until the servlet is initialized
+     */
+    private RosterUpload uploads;
+
+    /**
+     * Metrics of conversions, nothing is recorded until the servlet is
+     * initialized
+     */
+    private RequestMetrics metrics = new RequestMetrics(null);
+
+    /**
+     * Reads limits of the table and of uploads and the timezone of meeting
+     * dates from the configuration
+     *
+     * @throws ServletException if something is wrong with servlet or the
+     * configured timezone doesn't exist
+     */
+    @Override
+    public void init() throws ServletException {
+        Config config = ConfigProvider.getConfig();
+        maxCandidates = Math.min(MeetingMatrix.MAX_CANDIDATES,
+                config.getOptionalValue("matrix.maxCandidates", Integer.class).orElse(500));
+        maxCells = config.getOptionalValue("matrix.maxCells", Long.class).orElse(2000000L);
+        String referenceZone = config.getOptionalValue("meeting.referenceZone", String.class)
+                .orElse(TimeConverter.DEFAULT_REFERENCE_ZONE);
+        try {
+            model = new TimesModel(referenceZone);
+        } catch (InvalidInputException ex) {
+            throw new ServletException("Timezone of meetings is incorrect: " + ex.getMessage(), ex);
+        }
+        view = new TimesView(referenceZone);
+        uploads = new RosterUpload();
+        metrics = ApplicationListener.getMetrics(getServletContext());
+    }
+
+    /**
+     * Reads candidate meetings from the request, either one meeting date per
+     * line of the meetings parameter or the range from the first to the last
+     * meeting date every step minutes
+     *
+     * @param request servlet request
+     * @return candidate meetings
+     * @throws InvalidInputException if a meeting date is incorrect or there
+     * are too many candidates
+     */
+    private List<Instant> getCandidates(HttpServletRequest request) throws InvalidInputException {
+        List<Instant> candidates = new ArrayList<>();
+        String meetings = request.getParameter("meetings");
+        if (meetings != null && !meetings.isBlank()) {
+            for (String line : meetings.split("\\R")) {
+                if (!line.isBlank()) {
+                    candidates.add(model.parseMeetingDate(line.strip()));
+                }
+            }
+        } else {
+            String from = request.getParameter("from");
+            String to = request.getParameter("to");
+            Instant first = model.parseMeetingDate(from == null ? "" : from.strip());
+            Instant last = model.parseMeetingDate(to == null ? "" : to.strip());
+            int step;
+            try {
+                String value = request.getParameter("step");
+                step = value == null || value.isBlank() ? 60 : Integer.parseInt(value.strip());
+            } catch (NumberFormatException ex) {
+                throw new InvalidInputException("Parameter step should be a positive number");
+            }
+            candidates = MeetingMatrix.range(first, last, step);
+        }
+        if (candidates.size() > maxCandidates) {
+            throw new InvalidInputException("There can be at most " + maxCandidates + " candidate meetings");
+        }
+        return candidates;
+    }
+
+    /**
+     * Processes requests for both HTTP GET and POST
+     * methods. The roster is uploaded with the form and read from the stream
+     * of the part, too large one is rejected with 413.
+     *
+     * @param request servlet request
+     * @param response servlet response
+     * @throws ServletException if a servlet-specific error occurs
+     * @throws IOException if an I/O error occurs
+     */
+    protected void processRequest(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+        Part roster;
+        try {
+            roster = uploads.getRoster(request);
+        } catch (RosterTooLargeException ex) {
+            view.printTooLarge(response, ex.getMessage());
+            return;
+        }
+        String filePath = roster == null && uploads.allowsServerFiles() ? request.getParameter(RosterUpload.FIELD) : null;
+        if (roster == null && (filePath == null || filePath.isEmpty())) {
+            view.printError(response, "You should provide the file with participants!");
+            return;
+        }
+
+        MeetingMatrix matrix;
+        List<String> meetingTimes = new ArrayList<>();
+        try {
+            List<Instant> candidates = getCandidates(request);
+            long limit = Math.max(1, maxCells / candidates.size());
+            long start = System.nanoTime();
+            matrix = new MeetingMatrix(candidates);
+            try (RosterReader reader = roster != null ? uploads.open(roster) : model.openRoster(filePath)) {
+                reader.setMaxParticipants(Math.min(limit, uploads.getMaxParticipants()));
+                matrix.addAll(reader);
+            }
+            metrics.conversion(System.nanoTime() - start, matrix.getParticipantCount());
+            for (Instant candidate : candidates) {
+                meetingTimes.add(model.meetingTime(candidate));
+            }
+        } catch (RosterTooLargeException ex) {
+            view.printTooLarge(response, ex.getMessage());
+            return;
+        } catch (InvalidInputException ex) {
+            metrics.parseError();
+            view.printError(response, ex.getMessage());
+            return;
+        } catch (FileNotFoundException ex) {
+            view.printError(response, "File with participants wasn't found!");
+            return;
+        }
+
+        response.setContentType("text/html;charset=UTF-8");
+        try (HtmlStream out = new HtmlStream(response.getOutputStream())) {
+            view.printHeader(out);
+            view.printMatrixHeader(out, matrix.getParticipantCount(), meetingTimes);
+            view.printMatrix(out, matrix);
+            view.printTableFooter(out);
+            view.printFooter(out);
+        }
+    }
+
+    // <editor-fold defaultstate="collapsed" desc="HttpServlet methods. Click on the + sign on the left to edit the code.">
+    /**
+     * Handles the HTTP <code>GET</code> method.
+     *
+     * @param request servlet request
+     * @param response servlet response
+     * @throws ServletException if a servlet-specific error occurs
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+        processRequest(request, response);
+    }
+
+    /**
+     * Handles the HTTP <code>POST</code> method.
+     *
+     * @param request servlet request
+     * @param response servlet response
+     * @throws ServletException if a servlet-specific error occurs
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    protected void doPost(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+        processRequest(request, response);
+    }
+
+    /**
+     * Returns a short description of the servlet.
+     *
+     * @return a String containing servlet description
+     */
+    @Override
+    public String getServletInfo() {
+        return "Local times of the roster at many candidate meetings";
+    }// </editor-fold>
+}
@@ -0,0 +1,174 @@
+package pl.polsl.controller;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import org.eclipse.microprofile.metrics.Counter;
+import org.eclipse.microprofile.metrics.Gauge;
+import org.eclipse.microprofile.metrics.Histogram;
+import org.eclipse.microprofile.metrics.Metadata;
+import org.eclipse.microprofile.metrics.MetricRegistry;
+import org.eclipse.microprofile.metrics.MetricType;
+import org.eclipse.microprofile.metrics.MetricUnits;
+import org.eclipse.microprofile.metrics.Timer;
+
+/**
+ * Metrics of the hot paths of requests registered in the application
+ * registry of MicroProfile Metrics, so they are shown on /metrics/application.
+ * Times are measured by the callers with System.nanoTime around whole steps,
+ * not around every participant, so measuring costs a few calls per request.
+ * Without a registry, e.g. in unit tests, nothing is recorded.
+ *
+ * @author Jacek
+ * @version 1.5
+ */
+public final class RequestMetrics {
+
+    /** Time of reading and converting a roster */
+    private final Timer conversion;
+
+    /** Time of converting one participant, in nanoseconds */
+    private final Histogram participantTime;
+
+    /** Number of converted participants */
+    private final Counter participants;
+
+    /** Number of rosters rejected because of incorrect lines */
+    private final Counter parseErrors;
+
+    /** Time of saving a meeting or a batch of meetings */
+    private final Timer insert;
+
+    /** Time of reading a page of the database table */
+    private final Timer query;
+
+    /** Time of rendering the page of the meeting */
+    private final Timer render;
+
+    /** Number of database errors which didn't fail the request */
+    private final Counter sqlErrors;
+
+    /** Registry of the metrics or null if nothing is recorded */
+    private final MetricRegistry registry;
+
+    /**
+     * Registers the metrics
+     *
+     * @param registry application registry or null if nothing should be
+     * recorded
+     */
+    public RequestMetrics(MetricRegistry registry) {
+        this.registry = registry;
+        boolean enabled = registry != null;
+        conversion = enabled ? registry.timer(metadata("roster.conversion.time", MetricType.TIMER, MetricUnits.NANOSECONDS,
+                "Time of reading and converting a roster")) : null;
+        participantTime = enabled ? registry.histogram(metadata("roster.conversion.participantTime", MetricType.HISTOGRAM,
+                MetricUnits.NANOSECONDS, "Time of converting one participant, averaged over the roster")) : null;
+        participants = enabled ? registry.counter(metadata("roster.participants", MetricType.COUNTER, MetricUnits.NONE,
+                "Number of converted participants")) : null;
+        parseErrors = enabled ? registry.counter(metadata("roster.parseErrors", MetricType.COUNTER, MetricUnits.NONE,
+                "Number of rosters rejected because of incorrect input")) : null;
+        insert = enabled ? registry.timer(metadata("db.insert.time", MetricType.TIMER, MetricUnits.NANOSECONDS,
+                "Time of saving a meeting or a batch of meetings")) : null;
+        query = enabled ? registry.timer(metadata("db.query.time", MetricType.TIMER, MetricUnits.NANOSECONDS,
+                "Time of reading a page of the database table")) : null;
+        render = enabled ? registry.timer(metadata("page.render.time", MetricType.TIMER, MetricUnits.NANOSECONDS,
+                "Time of saving and rendering the page of a meeting")) : null;
+        sqlErrors = enabled ? registry.counter(metadata("db.swallowedErrors", MetricType.COUNTER, MetricUnits.NONE,
+                "Number of database errors which were reported on the page or logged instead of failing the request")) : null;
+    }
+
+    /**
+     * Records converted roster
+     *
+     * @param nanos time of reading and converting the roster
+     * @param size number of participants
+     */
+    public void conversion(long nanos, int size) {
+        if (registry != null) {
+            conversion.update(nanos, TimeUnit.NANOSECONDS);
+            participants.inc(size);
+            if (size > 0) {
+                participantTime.update(nanos / size);
+            }
+        }
+    }
+
+    /**
+     * Records roster rejected because of incorrect input
+     */
+    public void parseError() {
+        if (registry != null) {
+            parseErrors.inc();
+        }
+    }
+
+    /**
+     * Records saving of a meeting or a batch of meetings
+     *
+     * @param nanos time of the transaction
+     */
+    public void insert(long nanos) {
+        if (registry != null) {
+            insert.update(nanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Records reading of a page of the database table
+     *
+     * @param nanos time of the query and printing the rows
+     */
+    public void query(long nanos) {
+        if (registry != null) {
+            query.update(nanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Records rendering of the page of a meeting
+     *
+     * @param nanos time of rendering
+     */
+    public void render(long nanos) {
+        if (registry != null) {
+            render.update(nanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Records database error which didn't fail the request
+     */
+    public void sqlError() {
+        if (registry != null) {
+            sqlErrors.inc();
+        }
+    }
+
+    /**
+     * Registers gauge reading a value of a shared object, e.g. depth of a
+     * queue
+     *
+     * @param name name of the gauge
+     * @param unit unit of the value
+     * @param description description of the gauge
+     * @param value reads the value
+     */
+    public void gauge(String name, String unit, String description, LongSupplier value) {
+        if (registry != null) {
+            registry.register(metadata(name, MetricType.GAUGE, unit, description), (Gauge<Long>) value::getAsLong);
+        }
+    }
+
+    /**
+     * Creates description of a metric
+     *
+     * @param name name of the metric
+     * @param type type of the metric
+     * @param unit unit of the metric
+     * @param description description of the metric
+     * @return metadata of the metric
+     */
+    private static Metadata metadata(String name, MetricType type, String unit, String description) {
+        return Metadata.builder().withName(name).withType(type).withUnit(unit).withDescription(description).build();
+    }
+}
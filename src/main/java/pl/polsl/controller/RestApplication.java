@@ -0,0 +1,15 @@
+package pl.polsl.controller;
+
+import javax.ws.rs.ApplicationPath;
+import javax.ws.rs.core.Application;
+
+/**
+ * Enables REST resources of the application under /api, they are found by
+ * their annotations
+ *
+ * @author Jacek
+ * @version 1.5
+ */
+@ApplicationPath("api")
+public class RestApplication extends Application {
+}
@@ -0,0 +1,278 @@
+package pl.polsl.controller;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.UUID;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.Part;
+import org.eclipse.microprofile.config.Config;
+import org.eclipse.microprofile.config.ConfigProvider;
+import pl.polsl.model.ConversionCache;
+import pl.polsl.model.MeetingConversion;
+import pl.polsl.model.RosterReader;
+import pl.polsl.model.RosterTooLargeException;
+
+/**
+ * Roster files uploaded with the forms as multipart/form-data. The declared
+ * length of the request is checked before the container reads the body, the
+ * size of the file before it is opened and the number of participants while
+ * it is read, so too large rosters are rejected as early as possible. The
+ * container keeps parts larger than FILE_SIZE_THRESHOLD on disk and the
+ * roster is parsed straight from the stream of the part, so the file is never
+ * held on the heap. Large rosters are moved from the temporary file of the
+ * container to a file read in parallel. Limits of the container are
+ * constants of the annotations, configured limits can only be lower.
+ *
+ * @author Jacek
+ * @version 1.5
+ */
+final class RosterUpload {
+
+    /** Name of the form field with the roster */
+    static final String FIELD = "filename";
+
+    /** Largest roster accepted by the container */
+    static final long MAX_FILE_SIZE = 64L * 1024 * 1024;
+
+    /** Largest request accepted by the container */
+    static final long MAX_REQUEST_SIZE = MAX_FILE_SIZE + 1024 * 1024;
+
+    /** Parts larger than this are written to disk by the container */
+    static final int FILE_SIZE_THRESHOLD = 64 * 1024;
+
+    /** Largest roster in bytes if it isn't configured */
+    static final long DEFAULT_MAX_BYTES = 16L * 1024 * 1024;
+
+    /** Largest number of participants if it isn't configured */
+    static final long DEFAULT_MAX_PARTICIPANTS = 1000000L;
+
+    /** Room left in the request for the other fields and multipart headers */
+    private static final long FORM_OVERHEAD = 64 * 1024;
+
+    /** Largest roster in bytes */
+    private final long maxBytes;
+
+    /** Largest number of participants */
+    private final long maxParticipants;
+
+    /** True if forms can send a path to a file on the server instead */
+    private final boolean serverFiles;
+
+    /**
+     * Reads limits of uploads from the configuration
+     */
+    RosterUpload() {
+        this(ConfigProvider.getConfig());
+    }
+
+    /**
+     * Reads limits of uploads from given configuration
+     *
+     * @param config configuration of the application
+     */
+    private RosterUpload(Config config) {
+        this(config.getOptionalValue("upload.maxBytes", Long.class).orElse(DEFAULT_MAX_BYTES),
+                config.getOptionalValue("upload.maxParticipants", Long.class).orElse(DEFAULT_MAX_PARTICIPANTS),
+                config.getOptionalValue("upload.serverFiles", Boolean.class).orElse(false));
+    }
+
+    /**
+     * Creates uploads with given limits
+     *
+     * @param maxBytes largest roster in bytes, limited by MAX_FILE_SIZE
+     * @param maxParticipants largest number of participants
+     * @param serverFiles true if forms can send a path to a file on the
+     * server instead
+     */
+    RosterUpload(long maxBytes, long maxParticipants, boolean serverFiles) {
+        this.maxBytes = Math.min(MAX_FILE_SIZE, maxBytes);
+        this.maxParticipants = maxParticipants;
+        this.serverFiles = serverFiles;
+    }
+
+    /**
+     * Returns the uploaded roster. It has to be called before any parameter
+     * of the request is read, because reading a parameter makes the
+     * container read the whole body.
+     *
+     * @param request servlet request
+     * @return part with the roster or null if the request isn't multipart or
+     * no file was chosen
+     * @throws RosterTooLargeException if the request or the file is too large
+     * @throws IOException if the request couldn't be read
+     * @throws ServletException if the request isn't a correct multipart request
+     */
+    Part getRoster(HttpServletRequest request) throws RosterTooLargeException, IOException, ServletException {
+        String contentType = request.getContentType();
+        if (contentType == null || !contentType.toLowerCase(Locale.ROOT).startsWith("multipart/form-data")) {
+            return null;
+        }
+        if (request.getContentLengthLong() > maxBytes + FORM_OVERHEAD) {
+            throw tooLarge();
+        }
+        Part part;
+        try {
+            part = request.getPart(FIELD);
+        } catch (IllegalStateException ex) {
+            throw tooLarge();
+        }
+        if (part == null || part.getSize() == 0) {
+            return null;
+        }
+        if (part.getSize() > maxBytes) {
+            throw tooLarge();
+        }
+        return part;
+    }
+
+    /**
+     * Opens reader of the uploaded roster encoded in UTF-8, which rejects the
+     * roster when it has too many participants
+     *
+     * @param part part with the roster
+     * @return reader of participants
+     * @throws IOException if the part couldn't be opened
+     */
+    RosterReader open(Part part) throws IOException {
+        RosterReader reader = new RosterReader(new InputStreamReader(part.getInputStream(), StandardCharsets.UTF_8));
+        reader.setMaxParticipants(maxParticipants);
+        return reader;
+    }
+
+    /**
+     * Prepares the uploaded roster for the conversion. Hash of the content is
+     * computed at once while the part is streamed, so a roster which was
+     * already converted is found in the cache without parsing it. Roster
+     * saved for the parallel loader is written by the container to the
+     * directory, which moves its temporary file instead of copying it when
+     * the directory is the location of the uploads.
+     *
+     * @param part part with the roster
+     * @param directory directory where the container keeps uploaded files
+     * @return roster which can be converted by MeetingConversion
+     * @throws IOException if the part couldn't be read
+     */
+    MeetingConversion.Upload upload(Part part, File directory) throws IOException {
+        String hash;
+        try (InputStream in = part.getInputStream()) {
+            hash = ConversionCache.hash(in);
+        }
+        return new PartUpload(part, hash, directory);
+    }
+
+    /**
+     * Returns largest number of participants of an uploaded roster
+     *
+     * @return largest number of participants
+     */
+    long getMaxParticipants() {
+        return maxParticipants;
+    }
+
+    /**
+     * Checks if forms can send a path to a file on the server instead of the
+     * file
+     *
+     * @return true if paths are accepted
+     */
+    boolean allowsServerFiles() {
+        return serverFiles;
+    }
+
+    /**
+     * Creates exception describing the limit of the size
+     *
+     * @return exception for too large roster
+     */
+    private RosterTooLargeException tooLarge() {
+        return new RosterTooLargeException("File with participants can't be larger than " + maxBytes + " bytes");
+    }
+
+    /**
+     * Uploaded roster read from the part
+     */
+    private final class PartUpload implements MeetingConversion.Upload {
+
+        /** Part with the roster */
+        private final Part part;
+
+        /** Hash of the content of the part */
+        private final String hash;
+
+        /** Directory where the container keeps uploaded files */
+        private final File directory;
+
+        /**
+         * Creates roster of the part
+         *
+         * @param part part with the roster
+         * @param hash hash of the content of the part
+         * @param directory directory where the container keeps uploaded files
+         */
+        private PartUpload(Part part, String hash, File directory) {
+            this.part = part;
+            this.hash = hash;
+            this.directory = directory;
+        }
+
+        /**
+         * Returns hash of the content of the part
+         *
+         * @return hash of the content
+         */
+        @Override
+        public String getHash() {
+            return hash;
+        }
+
+        /**
+         * Returns size of the part
+         *
+         * @return size in bytes
+         */
+        @Override
+        public long getSize() {
+            return part.getSize();
+        }
+
+        /**
+         * Returns largest number of participants of an uploaded roster
+         *
+         * @return largest number of participants
+         */
+        @Override
+        public long getMaxParticipants() {
+            return maxParticipants;
+        }
+
+        /**
+         * Opens reader of the part limited to the number of participants
+         *
+         * @return reader of participants
+         * @throws IOException if the part couldn't be opened
+         */
+        @Override
+        public RosterReader open() throws IOException {
+            return RosterUpload.this.open(part);
+        }
+
+        /**
+         * Lets the container write the part to a new file in the directory
+         *
+         * @return path to the written file
+         * @throws IOException if the part couldn't be written
+         */
+        @Override
+        public Path save() throws IOException {
+            String name = "roster-" + UUID.randomUUID() + ".txt";
+            part.write(name);
+            return new File(directory, name).toPath();
+        }
+    }
+}
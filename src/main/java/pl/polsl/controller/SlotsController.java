@@ -0,0 +1,207 @@
+package pl.polsl.controller;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import javax.servlet.ServletException;
+import javax.servlet.annotation.MultipartConfig;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.Part;
+import org.eclipse.microprofile.config.Config;
+import org.eclipse.microprofile.config.ConfigProvider;
+import pl.polsl.model.InvalidInputException;
+import pl.polsl.model.MeetingSlot;
+import pl.polsl.model.MeetingSlotFinder;
+import pl.polsl.model.RosterReader;
+import pl.polsl.model.RosterTooLargeException;
+import pl.polsl.model.TimeConverter;
+import pl.polsl.model.TimesModel;
+import pl.polsl.view.HtmlStream;
+import pl.polsl.view.TimesView;
+
+/**
+ * Servlet is responsible for finding the best meeting times for the roster.
+ * Days of the searched range are given in the timezone of meeting dates, every
+ * line of the roster can end with working hours of the participant, e.g.
+ * "John GMT-7 08:00-16:00".
+ *
+ * @author Jacek
+ * @version 1.5
+ */
+@WebServlet("/Slots")
+@MultipartConfig(fileSizeThreshold = RosterUpload.FILE_SIZE_THRESHOLD, maxFileSize = RosterUpload.MAX_FILE_SIZE,
+        maxRequestSize = RosterUpload.MAX_REQUEST_SIZE)
+public class SlotsController extends HttpServlet {
+
+    /**
+     * View class responsible for printing out info the end user
+     */
+    private TimesView view = new TimesView();
+
+    /**
+     * Model used to read the roster and format the times
+     */
+    private TimesModel model = new TimesModel();
+
+    /**
+     * Maximal number of returned meetings
+     */
+    private int maxCount;
+
+    /**
+     * Limits of uploaded rosters, null until the servlet is initialized
+     */
+    private RosterUpload uploads;
+
+    /**
+     * Reads limits of the search and of uploads and the timezone of meeting
+     * dates from the configuration
+     *
+     * @throws ServletException if something is wrong with servlet or the
+     * configured timezone doesn't exist
+     */
+    @Override
+    public void init() throws ServletException {
+        Config config = ConfigProvider.getConfig();
+        maxCount = config.getOptionalValue("slots.maxCount", Integer.class).orElse(100);
+        String referenceZone = config.getOptionalValue("meeting.referenceZone", String.class)
+                .orElse(TimeConverter.DEFAULT_REFERENCE_ZONE);
+        try {
+            model = new TimesModel(referenceZone);
+        } catch (InvalidInputException ex) {
+            throw new ServletException("Timezone of meetings is incorrect: " + ex.getMessage(), ex);
+        }
+        view = new TimesView(referenceZone);
+        uploads = new RosterUpload();
+    }
+
+    /**
+     * Reads positive number from the request
+     *
+     * @param request servlet request
+     * @param name name of the parameter
+     * @param defaultValue value used if the parameter is missing
+     * @return value of the parameter
+     * @throws InvalidInputException if the parameter isn't a positive number
+     */
+    private int getNumber(HttpServletRequest request, String name, int defaultValue) throws InvalidInputException {
+        String value = request.getParameter(name);
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            int number = Integer.parseInt(value.strip());
+            if (number > 0) {
+                return number;
+            }
+        } catch (NumberFormatException ex) {}
+        throw new InvalidInputException("Parameter " + name + " should be a positive number");
+    }
+
+    /**
+     * Processes requests for both HTTP GET and POST
+     * methods. The roster is uploaded with the form and read from the stream
+     * of the part, too large one is rejected with 413.
+     *
+     * @param request servlet request
+     * @param response servlet response
+     * @throws ServletException if a servlet-specific error occurs
+     * @throws IOException if an I/O error occurs
+     */
+    protected void processRequest(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+        Part roster;
+        try {
+            roster = uploads.getRoster(request);
+        } catch (RosterTooLargeException ex) {
+            view.printTooLarge(response, ex.getMessage());
+            return;
+        }
+        String filePath = roster == null && uploads.allowsServerFiles() ? request.getParameter(RosterUpload.FIELD) : null;
+        if (roster == null && (filePath == null || filePath.isEmpty())) {
+            view.printError(response, "You should provide the file with participants!");
+            return;
+        }
+
+        MeetingSlotFinder finder = new MeetingSlotFinder();
+        List<MeetingSlot> slots;
+        try {
+            Instant from = model.parseDay(request.getParameter("from"));
+            String lastDay = request.getParameter("to");
+            Instant to = lastDay == null || lastDay.isBlank() ? from.plus(7, ChronoUnit.DAYS)
+                    : model.parseDay(lastDay).plus(1, ChronoUnit.DAYS);
+            int length = getNumber(request, "length", 60);
+            int step = getNumber(request, "step", 30);
+            int count = Math.min(maxCount, getNumber(request, "count", 10));
+            try (RosterReader reader = roster != null ? uploads.open(roster) : model.openRoster(filePath)) {
+                finder.addAll(reader);
+            }
+            slots = finder.find(from, to, length, step, count, request.getParameter("weekends") != null);
+        } catch (RosterTooLargeException ex) {
+            view.printTooLarge(response, ex.getMessage());
+            return;
+        } catch (InvalidInputException ex) {
+            view.printError(response, ex.getMessage());
+            return;
+        } catch (FileNotFoundException ex) {
+            view.printError(response, "File with participants wasn't found!");
+            return;
+        }
+
+        response.setContentType("text/html;charset=UTF-8");
+        try (HtmlStream out = new HtmlStream(response.getOutputStream())) {
+            view.printHeader(out);
+            view.printSlotsHeader(out, finder.getParticipants());
+            for (MeetingSlot slot : slots) {
+                view.printSlot(out, model.meetingTime(slot.getStart()), model.meetingTime(slot.getEnd()),
+                        slot.getAvailable(), slot.getParticipants());
+            }
+            view.printTableFooter(out);
+            view.printFooter(out);
+        }
+    }
+
+    // <editor-fold defaultstate="collapsed" desc="HttpServlet methods. Click on the + sign on the left to edit the code.">
+    /**
+     * Handles the HTTP <code>GET</code> method.
+     *
+     * @param request servlet request
+     * @param response servlet response
+     * @throws ServletException if a servlet-specific error occurs
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+        processRequest(request, response);
+    }
+
+    /**
+     * Handles the HTTP <code>POST</code> method.
+     *
+     * @param request servlet request
+     * @param response servlet response
+     * @throws ServletException if a servlet-specific error occurs
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    protected void doPost(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+        processRequest(request, response);
+    }
+
+    /**
+     * Returns a short description of the servlet.
+     *
+     * @return a String containing servlet description
+     */
+    @Override
+    public String getServletInfo() {
+        return "Best meeting times for the roster";
+    }// </editor-fold>
+}
@@ -0,0 +1,73 @@
+package pl.polsl.controller;
+
+import java.io.IOException;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.http.HttpServletResponse;
+import pl.polsl.view.TimesView;
+
+/**
+ * Ends asynchronous requests which weren't processed in time with 503, so
+ * the user isn't left waiting when the executor of requests lags behind
+ *
+ * @author Jacek
+ * @version 1.5
+ */
+class TimeoutListener implements AsyncListener {
+
+    /** View used to report the timeout */
+    private final TimesView view;
+
+    /**
+     * Creates listener
+     *
+     * @param view view used to report the timeout
+     */
+    TimeoutListener(TimesView view) {
+        this.view = view;
+    }
+
+    /**
+     * Does nothing
+     *
+     * @param event event of the request
+     */
+    @Override
+    public void onComplete(AsyncEvent event) {
+    }
+
+    /**
+     * Sends 503 if the page wasn't started yet and completes the request
+     *
+     * @param event event of the request
+     * @throws IOException if the error couldn't be sent
+     */
+    @Override
+    public void onTimeout(AsyncEvent event) throws IOException {
+        HttpServletResponse response = (HttpServletResponse) event.getSuppliedResponse();
+        if (!response.isCommitted()) {
+            view.printUnavailable(response, "Request took too long, please try again later");
+        }
+        event.getAsyncContext().complete();
+    }
+
+    /**
+     * Does nothing, the container completes the request
+     *
+     * @param event event of the request
+     */
+    @Override
+    public void onError(AsyncEvent event) {
+    }
+
+    /**
+     * Registers the listener again, because the request was dispatched and
+     * started asynchronous processing once more
+     *
+     * @param event event of the request
+     */
+    @Override
+    public void onStartAsync(AsyncEvent event) {
+        event.getAsyncContext().addListener(this);
+    }
+}
@@ -1,14 +1,25 @@
 package pl.polsl.controller;
 
 import java.io.*;
-import java.sql.Connection;
-import java.sql.DriverManager;
-import java.sql.SQLException;
 import java.text.ParseException;
 import java.util.*;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.servlet.AsyncContext;
+import javax.servlet.ServletContext;
 import javax.servlet.ServletException;
+import javax.servlet.annotation.MultipartConfig;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.*;
+import org.eclipse.microprofile.config.Config;
+import org.eclipse.microprofile.config.ConfigProvider;
+import pl.polsl.model.BoundedExecutor;
+import pl.polsl.model.ConversionCache;
+import pl.polsl.model.MeetingConversion;
+import pl.polsl.model.ParallelRosterLoader;
+import pl.polsl.model.Roster;
+import pl.polsl.model.RosterTooLargeException;
+import pl.polsl.model.TimeConverter;
 import pl.polsl.model.TimesModel;
 import pl.polsl.model.InvalidInputException;
 import pl.polsl.view.TimesView;
@@ -20,37 +31,120 @@ import pl.polsl.view.TimesView;
  * @author Jacek
  * @version 1.5
  */
-@WebServlet("/Form")
+@WebServlet(urlPatterns = "/Form", asyncSupported = true)
+@MultipartConfig(fileSizeThreshold = RosterUpload.FILE_SIZE_THRESHOLD, maxFileSize = RosterUpload.MAX_FILE_SIZE,
+        maxRequestSize = RosterUpload.MAX_REQUEST_SIZE)
 public class TimesController extends HttpServlet {
 
     /**
      * View object instance
      */
-    private final TimesView view = new TimesView();
+    private TimesView view = new TimesView();
     /**
-     * Instance of TimesModel class
+     * Instance of TimesModel class. It is shared by all requests, so it is
+     * used only through methods which don't change its state. It is replaced
+     * by a model for the configured timezone of meetings in init.
      */
-    private final TimesModel model = new TimesModel();
+    private TimesModel model = new TimesModel();
+    /**
+     * Loader converting large files in parallel, null until the servlet is
+     * initialized
+     */
+    private ParallelRosterLoader loader;
+    /**
+     * Cache of converted rosters, null until the servlet is initialized
+     */
+    private ConversionCache cache;
+    /**
+     * Executor running conversions, null until the servlet is initialized
+     */
+    private BoundedExecutor executor;
+    /**
+     * Time after which unfinished request gets 503, in milliseconds
+     */
+    private long asyncTimeout;
+    /**
+     * Limits of uploaded rosters, null until the servlet is initialized
+     */
+    private RosterUpload uploads;
+    /**
+     * Directory where the container keeps uploaded files, null until the
+     * servlet is initialized
+     */
+    private File uploadDirectory;
+    /**
+     * Metrics of conversions, nothing is recorded until the servlet is
+     * initialized
+     */
+    private RequestMetrics metrics = new RequestMetrics(null);
+    /**
+     * Logger used to report requests which ended before they were processed
+     */
+    private static final Logger LOGGER = Logger.getLogger(TimesController.class.getName());
 
     /**
-     * Date of meeting in format "yyyy-MM-dd HH:mm:ss"
+     * Creates servlet which is initialized by the container
      */
-    private String meetingDate;
+    public TimesController() {
+    }
 
     /**
-     * List of two element arrays where first one is the name of the participant
-     * and the second is his timezone
+     * Creates servlet converting rosters with given loader and cache and the
+     * default limits of uploads, without the container
+     *
+     * @param loader loader converting large rosters in parallel
+     * @param cache cache of converted rosters
+     * @param uploadDirectory directory where uploaded files are written
      */
-    private List<List<String>> participants;
+    public TimesController(ParallelRosterLoader loader, ConversionCache cache, File uploadDirectory) {
+        this.loader = loader;
+        this.cache = cache;
+        this.uploadDirectory = uploadDirectory;
+        this.uploads = new RosterUpload(RosterUpload.DEFAULT_MAX_BYTES, RosterUpload.DEFAULT_MAX_PARTICIPANTS, false);
+    }
 
     /**
-     * Name of the file with participants names and their timezones
+     * Takes the roster loader, the cache and the executor created when the
+     * application started and reads the timezone of meeting dates, the
+     * timeout of requests and limits of uploads from the configuration. Takes
+     * the metrics of requests and the directory of uploaded files too.
+     *
+     * @throws ServletException if something is wrong with servlet or the
+     * configured timezone doesn't exist
      */
-    private String filePath;
+    @Override
+    public void init() throws ServletException {
+        Config config = ConfigProvider.getConfig();
+        asyncTimeout = config.getOptionalValue("async.timeoutMillis", Long.class).orElse(30000L);
+        String referenceZone = config.getOptionalValue("meeting.referenceZone", String.class)
+                .orElse(TimeConverter.DEFAULT_REFERENCE_ZONE);
+        try {
+            model = new TimesModel(referenceZone);
+        } catch (InvalidInputException ex) {
+            throw new ServletException("Timezone of meetings is incorrect: " + ex.getMessage(), ex);
+        }
+        view = new TimesView(referenceZone);
+        loader = ApplicationListener.getRosterLoader(getServletContext());
+        cache = ApplicationListener.getConversionCache(getServletContext());
+        executor = ApplicationListener.getRequestExecutor(getServletContext());
+        uploads = new RosterUpload();
+        uploadDirectory = (File) getServletContext().getAttribute(ServletContext.TEMPDIR);
+        metrics = ApplicationListener.getMetrics(getServletContext());
+    }
 
     /**
-     * Processes data provided by the user, processes it and passes on to the
-     * DataHistoryController
+     * Checks data provided by the user and starts asynchronous processing of
+     * the request, so the thread of the container is released at once. The
+     * roster is uploaded with the form, too large one is rejected with 413
+     * before it is read. Path to a file on the server is accepted only if it
+     * is enabled in the configuration.
+     * Roster is converted on the executor of requests and the request is
+     * dispatched to the DataHistoryController, which saves and renders it on
+     * the executor too. All of the data of the request is kept in local
+     * variables and request attributes, so the servlet can serve many
+     * requests at once. If the executor is full, 503 is returned at once.
+     * The writer of the response isn't taken here, because
+     * DataHistoryController streams the page to the output stream.
      *
      * @param request servlet request
      * @param response servlet response
@@ -62,140 +156,145 @@ public class TimesController extends HttpServlet {
 
         response.setContentType("text/html; charset=ISO-8859-2");
 
+        Part roster;
         try {
-            Class.forName("org.apache.derby.jdbc.ClientDriver");
-        } catch (ClassNotFoundException cnfe) {
-            view.printError(response, cnfe.getMessage());
+            roster = uploads.getRoster(request);
+        } catch (RosterTooLargeException ex) {
+            view.printTooLarge(response, ex.getMessage());
+            return;
         }
+        String filePath = roster != null ? roster.getSubmittedFileName()
+                : uploads.allowsServerFiles() ? request.getParameter(RosterUpload.FIELD) : null;
+        String meetingDate = request.getParameter("meetingdate");
+        boolean groupByZone = request.getParameter("byzone") != null;
 
-        Connection con = null;
-        try (PrintWriter out = response.getWriter()) {
-            HttpSession session = request.getSession();
-            filePath = request.getParameter("filename");
-            meetingDate = request.getParameter("meetingdate");
+        if (filePath == null || meetingDate == null || filePath.length() <= 0 || meetingDate.length() <= 0) {
+            view.printError(response, "You should provide both values !");
+            return;
+        }
 
-            if (filePath.length() <= 0 || meetingDate.length() <= 0) {
-                view.printError(response, "You should provide both values !");
-                return;
-            }
-            List<List<String>> participantInfo = null;
+        AsyncContext async = request.startAsync();
+        async.setTimeout(asyncTimeout);
+        async.addListener(new TimeoutListener(view));
+        if (!executor.trySubmit(() -> convert(async, roster, filePath, meetingDate, groupByZone))) {
+            view.printUnavailable(response, "Server is busy, please try again later");
+            async.complete();
+        }
+    }
+
+    /**
+     * Converts the roster on the executor and dispatches the request to the
+     * DataHistoryController or reports the problem. Unexpected exceptions are
+     * logged and answered with 500 and the request is always completed when
+     * it isn't dispatched, so it doesn't wait for the timeout.
+     *
+     * @param async context of the request
+     * @param roster uploaded roster or null if the path to the file was sent
+     * @param filePath name of the uploaded file or path to the file
+     * @param meetingDate date of the meeting
+     * @param groupByZone true if participants are shown grouped by timezone
+     */
+    private void convert(AsyncContext async, Part roster, String filePath, String meetingDate, boolean groupByZone) {
+        HttpServletRequest request = (HttpServletRequest) async.getRequest();
+        HttpServletResponse response = (HttpServletResponse) async.getResponse();
+        boolean dispatched = false;
+        try {
+            Roster participantInfo = null;
+            long start = System.nanoTime();
             try {
-                con = DriverManager.getConnection("jdbc:derby://localhost:1527/TimeZones", "app", "app");
-                participantInfo = getParticipantInfo(filePath, meetingDate);
-            } catch (SQLException | InvalidInputException ex) {
+                participantInfo = roster != null ? getParticipantInfo(roster, meetingDate) : getParticipantInfo(filePath, meetingDate);
+                metrics.conversion(System.nanoTime() - start, participantInfo.size());
+            } catch (RosterTooLargeException ex) {
+                view.printTooLarge(response, ex.getMessage());
+            } catch (InvalidInputException ex) {
+                metrics.parseError();
                 view.printError(response, ex.getMessage());
             } catch (ParseException ex) {
                 view.printError(response, "Incorrect date!");
+            } catch (FileNotFoundException ex) {
+                view.printError(response, "File with participants wasn't found!");
+            } catch (IOException ex) {
+                view.printError(response, "File with participants couldn't be read: " + ex.getMessage());
             }
 
             if (participantInfo != null) {
-                session.setAttribute("con", con);
-                session.setAttribute("participantInfo", participantInfo);
-                session.setAttribute("model", model);
-                session.setAttribute("filename", filePath);
-                session.setAttribute("date", meetingDate);
-                request.getRequestDispatcher("/DataHistoryController").forward(request, response);
+                request.setAttribute("participantInfo", participantInfo);
+                request.setAttribute("model", model);
+                request.setAttribute("filename", filePath);
+                request.setAttribute("date", meetingDate);
+                request.setAttribute("groupByZone", groupByZone);
+                async.dispatch("/DataHistoryController");
+                dispatched = true;
+            }
+        } catch (IOException | IllegalStateException ex) {
+            LOGGER.log(Level.FINE, "Request ended before the roster was converted", ex);
+        } catch (RuntimeException ex) {
+            internalError(response, ex);
+        } finally {
+            if (!dispatched) {
+                try {
+                    async.complete();
+                } catch (IllegalStateException ex) {
+                    LOGGER.log(Level.FINE, "Request was already completed", ex);
+                }
             }
-        } catch (IOException ex) {}
-    }
-
-    /**
-     * Reasds file path and meeting date and returns processed data in List
-     * format
-     *
-     * @param filePath path to the file
-     * @param meetingDate date of the meeting
-     * @return List of participants names and their local time
-     * @throws FileNotFoundException if file with participants' data isn't found
-     * @throws InvalidInputException if input data was incorrect
-     * @throws ParseException if date of the meeting couldn't be parsed
-     */
-    @SuppressWarnings("empty-statement")
-    public List<List<String>> getParticipantInfo(String filePath, String meetingDate) throws FileNotFoundException, InvalidInputException, ParseException {
-
-        this.filePath = filePath;
-        this.meetingDate = meetingDate;
-        this.execute();
-
-        List<List<String>> correctedParticipants = new ArrayList<>();;
-        for (List<String> participant : participants) {
-            List<String> auxiliary = new ArrayList<>();
-            this.setParticipantName(participant.get(0));
-            auxiliary.add(model.getName());
-            this.calculateTime(participant.get(1));
-            auxiliary.add(model.getLocalTime());
-            correctedParticipants.add(auxiliary);
         }
-
-        return correctedParticipants;
     }
 
     /**
-     * Processes the data from text file to list, then for each element of this
-     * list calls method "setParticipantName" (for the first elemnt in the list)
-     * and "calculateTime" (for the second elemnt in the list). It also counts
-     * participants, because if a given participant would have incorrect data,
-     * it would be easier to indentify where it is, because number of the will
-     * be shown in the error window
+     * Logs unexpected exception of the conversion and sends 500 if the
+     * response wasn't started yet
      *
-     * @throws FileNotFoundException if file with participants' data isn't found
-     * @throws InvalidInputException if input data was incorrect
-     * @throws ParseException if date of the meeting couldn't be parsed
+     * @param response servlet response
+     * @param ex exception thrown by the conversion
      */
-    private void execute() throws FileNotFoundException, InvalidInputException, ParseException {
-
-        int participantNumber = 0;
-
-        this.getTimes();
-        for (List<String> participant : participants) {
+    private void internalError(HttpServletResponse response, RuntimeException ex) {
+        LOGGER.log(Level.SEVERE, "Roster couldn't be converted", ex);
+        if (!response.isCommitted()) {
             try {
-                ++participantNumber;
-                this.setParticipantName(participant.get(0));
-                this.calculateTime(participant.get(1));
-            } catch (IndexOutOfBoundsException e) {
-                throw new InvalidInputException("Participants info was incorrect!");
+                view.printInternalError(response, "Roster couldn't be converted because of an error of the server");
+            } catch (IOException failure) {
+                LOGGER.log(Level.FINE, "Error couldn't be sent", failure);
             }
         }
     }
 
     /**
-     * Calculates time for specific timezone relative to the time of the meeting
-     * First it creates new SimpleDateFormat then it sets timezone of the
-     * meeting which is GMT+2, then it parses string "meetingDate" to newly
-     * created DateFormat, and finally it offsets it by the offset which was
-     * given as a parameter, and sets it as a local time for the Model class.If
-     * date is empty will handle exeption.
+     * Reasds file path and meeting date and returns processed data as a
+     * Roster. Every call uses its own MeetingConversion, so the method is
+     * thread safe. Large files are read in parallel by the roster loader and
+     * repeated conversions are taken from the cache.
      *
-     * @param offset Time difference between the timezone of the participant and
-     * the timezone of the meeting
-     * @throws ParseException if date of the meeting couldn't be parsed
+     * @param filePath path to the file
+     * @param meetingDate date of the meeting
+     * @return participants names, timezones and their local time
+     * @throws FileNotFoundException if file with participants' data isn't found
+     * @throws IOException if file with participants' data couldn't be read
      * @throws InvalidInputException if input data was incorrect
+     * @throws ParseException if date of the meeting couldn't be parsed
      */
-    private void calculateTime(String offset) throws ParseException, InvalidInputException {
-        model.calculateTime(offset, meetingDate);
+    public Roster getParticipantInfo(String filePath, String meetingDate) throws FileNotFoundException, IOException, InvalidInputException, ParseException {
+        return new MeetingConversion(filePath, meetingDate, loader, cache).execute(model);
     }
 
     /**
-     * Sets name of the participant in the Model class
+     * Converts the uploaded roster. Hash of the content is computed while the
+     * part is streamed, so a roster uploaded again for the same meeting is
+     * taken from the cache. Rosters larger than the threshold of the loader
+     * are written to a file and read in parallel, smaller ones are read from
+     * the stream of the part one participant at a time.
      *
-     * @param name Name of the participant
+     * @param roster uploaded roster
+     * @param meetingDate date of the meeting
+     * @return participants names, timezones and their local time
+     * @throws IOException if the roster couldn't be read
+     * @throws RosterTooLargeException if the roster has too many participants
      * @throws InvalidInputException if input data was incorrect
+     * @throws ParseException if date of the meeting couldn't be parsed
      */
-    private void setParticipantName(String name) throws InvalidInputException {
-        model.setName(name);
-    }
-
-    /**
-     * Opens file with names and timezones and then converts each line to
-     * two-element array "splitStr" where first element it the name of the
-     * participant and the second is their timezone.If it can't open file it
-     * throws FileNotFoundException. Then it adds this array to list "times". At
-     * the end it assigns this list to atribute called "participants".
-     *
-     * @throws FileNotFoundException if the file isn't found
-     */
-    private void getTimes() throws FileNotFoundException {
-        participants = model.convertFileInfo(filePath);
+    public Roster getParticipantInfo(Part roster, String meetingDate) throws IOException, InvalidInputException, ParseException {
+        return new MeetingConversion(roster.getSubmittedFileName(), meetingDate, loader, cache)
+                .execute(model, uploads.upload(roster, uploadDirectory));
     }
 
     // <editor-fold defaultstate="collapsed" desc="HttpServlet methods. Click on the + sign on the left to edit the code.">
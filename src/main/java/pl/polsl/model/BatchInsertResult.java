@@ -0,0 +1,251 @@
+package pl.polsl.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Result of saving many participants to the database at once. It contains
+ * number of saved participants and the participants which couldn't be saved
+ * together with the reason. When a new version of a saved roster replaces
+ * the previous one, it contains the version and the numbers of changed,
+ * removed and unchanged participants too, and tells whether rows of the
+ * previous version were kept and only marked as superseded.
+ *
+ * @author Jacek
+ * @version 1.5
+ */
+public class BatchInsertResult {
+
+    /**
+     * Participant which couldn't be saved
+     */
+    public static final class Failure {
+
+        /** Number of the participant in the roster, starting from 1 */
+        private final int participantNumber;
+
+        /** Name of the participant */
+        private final String name;
+
+        /** Reason of the failure */
+        private final String message;
+
+        /**
+         * Creates information about the failure
+         *
+         * @param participantNumber number of the participant in the roster
+         * @param name name of the participant
+         * @param message reason of the failure
+         */
+        public Failure(int participantNumber, String name, String message) {
+            this.participantNumber = participantNumber;
+            this.name = name;
+            this.message = message;
+        }
+
+        /**
+         * Returns number of the participant in the roster, starting from 1
+         *
+         * @return number of the participant
+         */
+        public int getParticipantNumber() {
+            return participantNumber;
+        }
+
+        /**
+         * Returns name of the participant
+         *
+         * @return name of the participant
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Returns reason of the failure
+         *
+         * @return reason of the failure
+         */
+        public String getMessage() {
+            return message;
+        }
+
+        @Override
+        public String toString() {
+            return "Participant " + participantNumber + " (" + name + "): " + message;
+        }
+    }
+
+    /** Number of saved participants */
+    private int insertedCount;
+
+    /** Number of saved participants whose local time was changed */
+    private int updatedCount;
+
+    /** Number of saved participants removed from the roster */
+    private int deletedCount;
+
+    /** Number of saved participants which didn't change */
+    private int unchangedCount;
+
+    /** Version of the roster of the meeting, 1 for a new meeting */
+    private int version = 1;
+
+    /** True if rows of the previous version were kept and marked as superseded */
+    private boolean previousKept;
+
+    /** Participants which couldn't be saved */
+    private final List<Failure> failures = new ArrayList<>();
+
+    /**
+     * Returns number of saved participants
+     *
+     * @return number of saved participants
+     */
+    public int getInsertedCount() {
+        return insertedCount;
+    }
+
+    /**
+     * Returns number of saved participants whose local time was changed by
+     * the new version of the roster
+     *
+     * @return number of changed participants
+     */
+    public int getUpdatedCount() {
+        return updatedCount;
+    }
+
+    /**
+     * Returns number of saved participants which were removed, because they
+     * aren't in the new version of the roster
+     *
+     * @return number of removed participants
+     */
+    public int getDeletedCount() {
+        return deletedCount;
+    }
+
+    /**
+     * Returns number of saved participants left as they were, because they
+     * didn't change in the new version of the roster
+     *
+     * @return number of unchanged participants
+     */
+    public int getUnchangedCount() {
+        return unchangedCount;
+    }
+
+    /**
+     * Returns version of the roster of the meeting
+     *
+     * @return 1 for a new meeting, larger for a roster sent again
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * Checks whether changed and removed rows of the previous version of the
+     * roster were kept and marked as superseded, so changed participants were
+     * inserted as new rows
+     *
+     * @return true if the previous version was kept
+     */
+    public boolean isPreviousKept() {
+        return previousKept;
+    }
+
+    /**
+     * Checks whether rows saved earlier were changed or removed, not only
+     * new rows added. Rows of a kept version are only marked as superseded,
+     * so their data doesn't change.
+     *
+     * @return true if saved rows were changed
+     */
+    public boolean changedSavedRows() {
+        return !previousKept && (updatedCount > 0 || deletedCount > 0);
+    }
+
+    /**
+     * Returns participants which couldn't be saved
+     *
+     * @return unmodifiable list of failures
+     */
+    public List<Failure> getFailures() {
+        return Collections.unmodifiableList(failures);
+    }
+
+    /**
+     * Checks whether all of the participants were saved
+     *
+     * @return true if there were no failures
+     */
+    public boolean isComplete() {
+        return failures.isEmpty();
+    }
+
+    /**
+     * Adds saved participants to the result
+     *
+     * @param count number of saved participants
+     */
+    void addInserted(int count) {
+        insertedCount += count;
+    }
+
+    /**
+     * Adds saved participants whose local time was changed
+     *
+     * @param count number of changed participants
+     */
+    void addUpdated(int count) {
+        updatedCount += count;
+    }
+
+    /**
+     * Adds saved participants which were removed
+     *
+     * @param count number of removed participants
+     */
+    void addDeleted(int count) {
+        deletedCount += count;
+    }
+
+    /**
+     * Adds saved participants which didn't change
+     *
+     * @param count number of unchanged participants
+     */
+    void addUnchanged(int count) {
+        unchangedCount += count;
+    }
+
+    /**
+     * Sets version of the roster of the meeting
+     *
+     * @param version version of the roster
+     */
+    void setVersion(int version) {
+        this.version = version;
+    }
+
+    /**
+     * Sets whether the previous version of the roster was kept
+     *
+     * @param previousKept true if the previous version was kept
+     */
+    void setPreviousKept(boolean previousKept) {
+        this.previousKept = previousKept;
+    }
+
+    /**
+     * Adds participant which couldn't be saved
+     *
+     * @param failure information about the failure
+     */
+    void addFailure(Failure failure) {
+        failures.add(failure);
+    }
+}
@@ -0,0 +1,185 @@
+package pl.polsl.model;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Runs blocking work of requests, e.g. reading files and writing to the
+ * database, outside of the threads of the container. At most maxConcurrent
+ * tasks run at once and at most maxQueued more wait, further tasks are
+ * rejected, so when the database is slow new requests are turned away
+ * instead of piling up. On a JDK with virtual threads every task gets its
+ * own virtual thread and only the number of running tasks is limited,
+ * otherwise a fixed pool of platform threads is used.
+ *
+ * @author Jacek
+ * @version 1.5
+ */
+public class BoundedExecutor implements AutoCloseable {
+
+    /** Logger used to report failed tasks */
+    private static final Logger LOGGER = Logger.getLogger(BoundedExecutor.class.getName());
+
+    /** Threads running the tasks */
+    private final ExecutorService executor;
+
+    /** Permits of tasks which run or wait */
+    private final Semaphore admitted;
+
+    /** Permits of running tasks, used only with virtual threads */
+    private final Semaphore running;
+
+    /** Maximal number of running and waiting tasks */
+    private final int capacity;
+
+    /** Number of rejected tasks */
+    private final AtomicInteger rejected = new AtomicInteger();
+
+    /**
+     * Creates executor
+     *
+     * @param maxConcurrent maximal number of running tasks
+     * @param maxQueued maximal number of waiting tasks
+     * @param virtualThreads true if virtual threads should be used when the
+     * JDK has them
+     */
+    public BoundedExecutor(int maxConcurrent, int maxQueued, boolean virtualThreads) {
+        if (maxConcurrent <= 0 || maxQueued < 0) {
+            throw new IllegalArgumentException("Executor needs at least one thread and non negative queue");
+        }
+        this.capacity = maxConcurrent + maxQueued;
+        this.admitted = new Semaphore(capacity);
+        ExecutorService virtual = virtualThreads ? newVirtualThreadExecutor() : null;
+        if (virtual != null) {
+            this.executor = virtual;
+            this.running = new Semaphore(maxConcurrent, true);
+        } else {
+            AtomicInteger number = new AtomicInteger();
+            ThreadFactory factory = task -> {
+                Thread thread = new Thread(task, "request-worker-" + number.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            };
+            this.executor = new ThreadPoolExecutor(maxConcurrent, maxConcurrent, 0, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<>(), factory);
+            this.running = null;
+        }
+    }
+
+    /**
+     * Submits the task if there is room for it
+     *
+     * @param task submitted task
+     * @return true if the task will run, false if the executor is full or closed
+     */
+    public boolean trySubmit(Runnable task) {
+        if (!admitted.tryAcquire()) {
+            rejected.incrementAndGet();
+            return false;
+        }
+        try {
+            executor.execute(() -> run(task));
+            return true;
+        } catch (RejectedExecutionException ex) {
+            admitted.release();
+            rejected.incrementAndGet();
+            return false;
+        }
+    }
+
+    /**
+     * Returns number of tasks which run or wait
+     *
+     * @return number of tasks
+     */
+    public int getPending() {
+        return capacity - admitted.availablePermits();
+    }
+
+    /**
+     * Returns number of tasks rejected because the executor was full
+     *
+     * @return number of rejected tasks
+     */
+    public int getRejected() {
+        return rejected.get();
+    }
+
+    /**
+     * Returns true if tasks run on virtual threads
+     *
+     * @return true for virtual threads
+     */
+    public boolean usesVirtualThreads() {
+        return running != null;
+    }
+
+    /**
+     * Stops accepting tasks and waits a moment for the running ones
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException ex) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Runs the task, waiting for a free slot when virtual threads are used,
+     * and always releases its permits
+     *
+     * @param task run task
+     */
+    private void run(Runnable task) {
+        try {
+            if (running != null) {
+                running.acquireUninterruptibly();
+            }
+            try {
+                task.run();
+            } finally {
+                if (running != null) {
+                    running.release();
+                }
+            }
+        } catch (RuntimeException | Error ex) {
+            LOGGER.log(Level.SEVERE, "Request task failed", ex);
+        } finally {
+            admitted.release();
+        }
+    }
+
+    /**
+     * Creates executor starting a virtual thread per task. The method is
+     * looked up at run time, because the application is compiled for a JDK
+     * without virtual threads.
+     *
+     * @return executor or null if the JDK doesn't have virtual threads
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (NoSuchMethodException | IllegalAccessException ex) {
+            return null;
+        } catch (InvocationTargetException ex) {
+            LOGGER.log(Level.WARNING, "Virtual threads couldn't be used", ex.getCause());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,341 @@
+package pl.polsl.model;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Bounded pool of database connections. Connections are borrowed for a single
+ * request and given back by closing them, so they can be used in
+ * try-with-resources blocks. Idle connections are validated before they are
+ * borrowed again and connections which are kept too long are reported as
+ * leaks.
+ *
+ * @author Jacek
+ * @version 1.5
+ */
+public class ConnectionPool implements AutoCloseable {
+
+    /**
+     * Creates new physical connections to the database
+     */
+    @FunctionalInterface
+    public interface ConnectionFactory {
+
+        /**
+         * Opens new connection to the database
+         *
+         * @return new connection
+         * @throws SQLException if connection couldn't be opened
+         */
+        Connection create() throws SQLException;
+    }
+
+    /** Logger used to report leaked connections */
+    private static final Logger LOGGER = Logger.getLogger(ConnectionPool.class.getName());
+
+    /** Factory of physical connections */
+    private final ConnectionFactory factory;
+
+    /** Limits number of connections which are borrowed at once */
+    private final Semaphore permits;
+
+    /** Connections which are not borrowed at the moment */
+    private final ConcurrentLinkedDeque<Connection> idle = new ConcurrentLinkedDeque<>();
+
+    /** Borrowed connections with information when and where they were borrowed */
+    private final Map<Lease, Boolean> leases = new ConcurrentHashMap<>();
+
+    /** Maximal number of connections */
+    private final int maxSize;
+
+    /** How long borrow waits for a free connection in milliseconds */
+    private final long borrowTimeoutMillis;
+
+    /** How long validation of idle connection can take in seconds */
+    private final int validationTimeoutSeconds;
+
+    /** After how many milliseconds borrowed connection is reported as leaked, 0 disables it */
+    private final long leakThresholdMillis;
+
+    /** Thread which looks for leaked connections, null if detection is disabled */
+    private final ScheduledExecutorService leakDetector;
+
+    /** Whether the pool was closed */
+    private volatile boolean closed;
+
+    /**
+     * Creates the pool. Connections are opened lazily, when they are borrowed
+     * for the first time.
+     *
+     * @param factory factory of physical connections
+     * @param maxSize maximal number of connections
+     * @param borrowTimeoutMillis how long borrow waits for a free connection
+     * @param validationTimeoutSeconds how long validation of idle connection can take
+     * @param leakThresholdMillis after how long borrowed connection is reported
+     * as leaked, 0 disables leak detection
+     */
+    public ConnectionPool(ConnectionFactory factory, int maxSize, long borrowTimeoutMillis,
+            int validationTimeoutSeconds, long leakThresholdMillis) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Size of the pool has to be positive");
+        }
+        this.factory = factory;
+        this.maxSize = maxSize;
+        this.permits = new Semaphore(maxSize, true);
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+        this.leakThresholdMillis = leakThresholdMillis;
+
+        if (leakThresholdMillis > 0) {
+            leakDetector = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "connection-leak-detector");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long period = Math.max(1, leakThresholdMillis / 2);
+            leakDetector.scheduleAtFixedRate(this::detectLeaks, period, period, TimeUnit.MILLISECONDS);
+        } else {
+            leakDetector = null;
+        }
+    }
+
+    /**
+     * Borrows connection from the pool. Connection has to be closed to give
+     * it back to the pool.
+     *
+     * @return connection to the database
+     * @throws SQLException if there was no free connection in time or new
+     * connection couldn't be opened
+     */
+    public Connection borrow() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+        try {
+            if (!permits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new SQLException("Timed out after " + borrowTimeoutMillis + " ms waiting for a database connection");
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", ex);
+        }
+
+        try {
+            Connection physical = takeValidConnection();
+            Lease lease = new Lease(physical, leakDetector != null ? new Throwable("Connection borrowed here") : null);
+            leases.put(lease, Boolean.TRUE);
+            return lease.proxy;
+        } catch (SQLException | RuntimeException ex) {
+            permits.release();
+            throw ex;
+        }
+    }
+
+    /**
+     * Returns number of borrowed connections
+     *
+     * @return number of borrowed connections
+     */
+    public int getActiveCount() {
+        return leases.size();
+    }
+
+    /**
+     * Returns number of connections waiting in the pool
+     *
+     * @return number of idle connections
+     */
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    /**
+     * Returns maximal number of connections
+     *
+     * @return size of the pool
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Closes all idle connections and stops leak detection. Borrowed
+     * connections are closed when they are given back.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        if (leakDetector != null) {
+            leakDetector.shutdownNow();
+        }
+        Connection connection;
+        while ((connection = idle.pollFirst()) != null) {
+            closeQuietly(connection);
+        }
+    }
+
+    /**
+     * Takes the most recently used idle connection which is still valid, or
+     * opens new one if there is none
+     *
+     * @return valid physical connection
+     * @throws SQLException if new connection couldn't be opened
+     */
+    private Connection takeValidConnection() throws SQLException {
+        Connection connection;
+        while ((connection = idle.pollFirst()) != null) {
+            if (isValid(connection)) {
+                return connection;
+            }
+            closeQuietly(connection);
+        }
+        return factory.create();
+    }
+
+    /**
+     * Checks if idle connection can still be used
+     *
+     * @param connection physical connection
+     * @return true if connection is valid
+     */
+    private boolean isValid(Connection connection) {
+        try {
+            return !connection.isClosed() && connection.isValid(validationTimeoutSeconds);
+        } catch (SQLException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * Gives connection back to the pool, rolling back unfinished transaction
+     *
+     * @param lease returned lease
+     */
+    private void release(Lease lease) {
+        leases.remove(lease);
+        Connection connection = lease.physical;
+        try {
+            if (closed || connection.isClosed()) {
+                closeQuietly(connection);
+            } else {
+                if (!connection.getAutoCommit()) {
+                    connection.rollback();
+                    connection.setAutoCommit(true);
+                }
+                idle.offerFirst(connection);
+            }
+        } catch (SQLException ex) {
+            closeQuietly(connection);
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Reports connections which were borrowed for longer than the threshold.
+     * Every leak is reported only once.
+     */
+    private void detectLeaks() {
+        long now = System.nanoTime();
+        for (Lease lease : leases.keySet()) {
+            if (!lease.reported && now - lease.borrowedAt > TimeUnit.MILLISECONDS.toNanos(leakThresholdMillis)) {
+                lease.reported = true;
+                LOGGER.log(Level.WARNING, "Connection was not returned to the pool for more than "
+                        + leakThresholdMillis + " ms, possible leak", lease.borrowTrace);
+            }
+        }
+    }
+
+    /**
+     * Closes connection ignoring errors
+     *
+     * @param connection connection to close
+     */
+    private static void closeQuietly(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException ex) {
+            LOGGER.log(Level.FINE, "Couldn't close connection", ex);
+        }
+    }
+
+    /**
+     * Single borrowing of a connection. Its proxy gives the connection back to
+     * the pool when it is closed and refuses to be used afterwards.
+     */
+    private final class Lease implements InvocationHandler {
+
+        /** Connection to the database */
+        private final Connection physical;
+
+        /** Connection given to the user of the pool */
+        private final Connection proxy;
+
+        /** Stack trace of the borrowing, null if leak detection is disabled */
+        private final Throwable borrowTrace;
+
+        /** When the connection was borrowed */
+        private final long borrowedAt = System.nanoTime();
+
+        /** Whether the connection was given back, set only once */
+        private final AtomicBoolean returned = new AtomicBoolean();
+
+        /** Whether the leak was already reported */
+        private volatile boolean reported;
+
+        /**
+         * Creates lease of the connection
+         *
+         * @param physical connection to the database
+         * @param borrowTrace stack trace of the borrowing
+         */
+        private Lease(Connection physical, Throwable borrowTrace) {
+            this.physical = physical;
+            this.borrowTrace = borrowTrace;
+            this.proxy = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, this);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (returned.compareAndSet(false, true)) {
+                        release(this);
+                    }
+                    return null;
+                case "isClosed":
+                    return returned.get() || physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Pooled " + physical;
+                default:
+                    if (returned.get()) {
+                        throw new SQLException("Connection was already returned to the pool");
+                    }
+                    try {
+                        return method.invoke(physical, args);
+                    } catch (InvocationTargetException ex) {
+                        throw ex.getCause();
+                    }
+            }
+        }
+    }
+}
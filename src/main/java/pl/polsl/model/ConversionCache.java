@@ -0,0 +1,465 @@
+package pl.polsl.model;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Keeps converted rosters, so the same file converted for the same meeting
+ * date again isn't read and converted from scratch. Results are found by the
+ * SHA-256 hash of the content of the file and the instant of the meeting, so
+ * a changed file never returns the old result. Hash of a file is computed
+ * again only when its modification time or size changes. Uploaded rosters
+ * are found by the hash of their content too, so the same roster uploaded
+ * again isn't converted again. The least recently
+ * used results are removed when there are too many of them or they contain
+ * too many participants, and results older than the time to live are never
+ * returned.
+ *
+ * @author Jacek
+ * @version 1.5
+ */
+public class ConversionCache {
+
+    /**
+     * Conversion run when the result isn't in the cache
+     */
+    @FunctionalInterface
+    public interface Conversion {
+
+        /**
+         * Converts the roster
+         *
+         * @return converted roster
+         * @throws IOException if the file couldn't be read
+         * @throws InvalidInputException if the file was incorrect
+         */
+        Roster convert() throws IOException, InvalidInputException;
+    }
+
+    /** Size of the buffer used to compute the hash */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /** Results by the hash of the file and the meeting, in access order */
+    private final LinkedHashMap<Key, Entry> results = new LinkedHashMap<>(16, 0.75f, true);
+
+    /** Last known state of every file, in access order */
+    private final LinkedHashMap<String, Fingerprint> fingerprints = new LinkedHashMap<>(16, 0.75f, true);
+
+    /** Maximal number of kept results */
+    private final int maxEntries;
+
+    /** Maximal number of participants in all of the kept results */
+    private final long maxParticipants;
+
+    /** Time to live of a result in nanoseconds */
+    private final long ttlNanos;
+
+    /** Source of the time in nanoseconds */
+    private final LongSupplier clock;
+
+    /** Number of participants in all of the kept results */
+    private long participants;
+
+    /** Number of returned results */
+    private final LongAdder hits = new LongAdder();
+
+    /** Number of conversions which had to be run */
+    private final LongAdder misses = new LongAdder();
+
+    /** Number of results removed because of the limits or time to live */
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Creates empty cache
+     *
+     * @param maxEntries maximal number of kept results
+     * @param maxParticipants maximal number of participants in all of the
+     * kept results
+     * @param ttlSeconds time to live of a result in seconds
+     */
+    public ConversionCache(int maxEntries, long maxParticipants, long ttlSeconds) {
+        this(maxEntries, maxParticipants, ttlSeconds, System::nanoTime);
+    }
+
+    /**
+     * Creates empty cache using given clock
+     *
+     * @param maxEntries maximal number of kept results
+     * @param maxParticipants maximal number of participants in all of the
+     * kept results
+     * @param ttlSeconds time to live of a result in seconds
+     * @param clock source of the time in nanoseconds
+     */
+    public ConversionCache(int maxEntries, long maxParticipants, long ttlSeconds, LongSupplier clock) {
+        this.maxEntries = maxEntries;
+        this.maxParticipants = maxParticipants;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.clock = clock;
+    }
+
+    /**
+     * Returns result of the conversion of the file for the meeting, running
+     * the conversion only if the result isn't in the cache. Conversions are
+     * run without holding the lock of the cache. Result isn't kept if the
+     * file changed while it was converted.
+     *
+     * @param filePath path to the file with participants
+     * @param meeting instant of the meeting
+     * @param conversion conversion of the file
+     * @return converted roster
+     * @throws FileNotFoundException if file with participants' data isn't found
+     * @throws IOException if the file couldn't be read
+     * @throws InvalidInputException if the file was incorrect
+     */
+    public Roster get(String filePath, Instant meeting, Conversion conversion)
+            throws FileNotFoundException, IOException, InvalidInputException {
+        Fingerprint fingerprint = fingerprint(filePath);
+        Key key = new Key(fingerprint.hash, meeting);
+        long now = clock.getAsLong();
+        Roster kept = find(key, now);
+        if (kept != null) {
+            return kept;
+        }
+
+        misses.increment();
+        Roster roster = conversion.convert();
+        if (fingerprint.matches(new File(filePath).getAbsoluteFile())) {
+            keep(key, roster, now);
+        }
+        return roster;
+    }
+
+    /**
+     * Returns result of the conversion of the content with given hash for
+     * the meeting, running the conversion only if the result isn't in the
+     * cache. It is used for uploaded rosters, which have no file whose
+     * changes could be checked, so the hash has to be computed from the same
+     * content which is converted. Conversions are run without holding the
+     * lock of the cache.
+     *
+     * @param hash hash of the content computed by {@link #hash(InputStream)}
+     * @param meeting instant of the meeting
+     * @param conversion conversion of the content
+     * @return converted roster
+     * @throws IOException if the content couldn't be read
+     * @throws InvalidInputException if the content was incorrect
+     */
+    public Roster getByHash(String hash, Instant meeting, Conversion conversion) throws IOException, InvalidInputException {
+        Key key = new Key(hash, meeting);
+        long now = clock.getAsLong();
+        Roster kept = find(key, now);
+        if (kept != null) {
+            return kept;
+        }
+
+        misses.increment();
+        Roster roster = conversion.convert();
+        keep(key, roster, now);
+        return roster;
+    }
+
+    /**
+     * Computes SHA-256 hash of the content read from the stream, one buffer
+     * at a time, so the content is never held in memory
+     *
+     * @param in stream with the content, it isn't closed
+     * @return hash written as hexadecimal digits
+     * @throws IOException if the stream couldn't be read
+     */
+    public static String hash(InputStream in) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 isn't available", ex);
+        }
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int read;
+        while ((read = in.read(buffer)) > 0) {
+            digest.update(buffer, 0, read);
+        }
+        StringBuilder hash = new StringBuilder(64);
+        for (byte b : digest.digest()) {
+            hash.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hash.toString();
+    }
+
+    /**
+     * Removes all of the results and known files
+     */
+    public synchronized void clear() {
+        results.clear();
+        fingerprints.clear();
+        participants = 0;
+    }
+
+    /**
+     * Returns number of kept results
+     *
+     * @return number of results
+     */
+    public synchronized int size() {
+        return results.size();
+    }
+
+    /**
+     * Returns number of results returned from the cache
+     *
+     * @return number of hits
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Returns number of conversions which had to be run
+     *
+     * @return number of misses
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns number of results removed because of the limits or time to live
+     *
+     * @return number of evictions
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * Returns hash of the content of the file with its modification time and
+     * size. Hash is computed again only if modification time or size of the
+     * file changed since the last time.
+     *
+     * @param filePath path to the file
+     * @return fingerprint of the file
+     * @throws FileNotFoundException if the file isn't found
+     * @throws IOException if the file couldn't be read
+     */
+    private Fingerprint fingerprint(String filePath) throws FileNotFoundException, IOException {
+        File file = new File(filePath).getAbsoluteFile();
+        if (!file.isFile()) {
+            throw new FileNotFoundException(filePath);
+        }
+        String path = file.getPath();
+        long modified = file.lastModified();
+        long length = file.length();
+        synchronized (this) {
+            Fingerprint known = fingerprints.get(path);
+            if (known != null && known.modified == modified && known.length == length) {
+                return known;
+            }
+        }
+
+        String hash;
+        try (InputStream in = new FileInputStream(file)) {
+            hash = hash(in);
+        }
+
+        Fingerprint fingerprint = new Fingerprint(modified, length, hash);
+        if (!fingerprint.matches(file)) {
+            throw new IOException("File " + filePath + " was changed while it was read");
+        }
+        synchronized (this) {
+            fingerprints.put(path, fingerprint);
+            if (fingerprints.size() > maxEntries) {
+                Iterator<String> oldest = fingerprints.keySet().iterator();
+                oldest.next();
+                oldest.remove();
+            }
+        }
+        return fingerprint;
+    }
+
+    /**
+     * Returns kept result which didn't expire yet and counts the hit, expired
+     * result is removed
+     *
+     * @param key key of the result
+     * @param now current time in nanoseconds
+     * @return kept result or null if it has to be converted
+     */
+    private synchronized Roster find(Key key, long now) {
+        Entry entry = results.get(key);
+        if (entry != null && now - entry.created < ttlNanos) {
+            hits.increment();
+            return entry.roster;
+        }
+        if (entry != null) {
+            remove(key, entry);
+        }
+        return null;
+    }
+
+    /**
+     * Keeps the result if it isn't larger than the limit of participants
+     * and removes the least recently used results if needed
+     *
+     * @param key key of the result
+     * @param roster converted roster
+     * @param now time when the conversion started in nanoseconds
+     */
+    private synchronized void keep(Key key, Roster roster, long now) {
+        if (roster.size() > maxParticipants) {
+            return;
+        }
+        Entry old = results.put(key, new Entry(roster, now));
+        if (old != null) {
+            participants -= old.roster.size();
+        }
+        participants += roster.size();
+        evict();
+    }
+
+    /**
+     * Removes the least recently used results until both limits are kept,
+     * must be called with the lock of the cache
+     */
+    private void evict() {
+        Iterator<Map.Entry<Key, Entry>> oldest = results.entrySet().iterator();
+        while (oldest.hasNext() && (results.size() > maxEntries || participants > maxParticipants)) {
+            Map.Entry<Key, Entry> entry = oldest.next();
+            participants -= entry.getValue().roster.size();
+            oldest.remove();
+            evictions.increment();
+        }
+    }
+
+    /**
+     * Removes expired result, must be called with the lock of the cache
+     *
+     * @param key key of the result
+     * @param entry removed result
+     */
+    private void remove(Key key, Entry entry) {
+        results.remove(key);
+        participants -= entry.roster.size();
+        evictions.increment();
+    }
+
+    /**
+     * Identifies result by the content of the file and the meeting
+     */
+    private static final class Key {
+
+        /** Hash of the content of the file */
+        private final String hash;
+
+        /** Instant of the meeting */
+        private final Instant meeting;
+
+        /**
+         * Creates key
+         *
+         * @param hash hash of the content of the file
+         * @param meeting instant of the meeting
+         */
+        private Key(String hash, Instant meeting) {
+            this.hash = hash;
+            this.meeting = meeting;
+        }
+
+        /**
+         * Compares hashes and meetings
+         *
+         * @param other compared object
+         * @return true if both keys identify the same result
+         */
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) other;
+            return hash.equals(key.hash) && meeting.equals(key.meeting);
+        }
+
+        /**
+         * Returns hash code of the key
+         *
+         * @return hash code
+         */
+        @Override
+        public int hashCode() {
+            return Objects.hash(hash, meeting);
+        }
+    }
+
+    /**
+     * Kept result with the time it was created
+     */
+    private static final class Entry {
+
+        /** Converted roster */
+        private final Roster roster;
+
+        /** Time of the conversion in nanoseconds */
+        private final long created;
+
+        /**
+         * Creates entry
+         *
+         * @param roster converted roster
+         * @param created time of the conversion in nanoseconds
+         */
+        private Entry(Roster roster, long created) {
+            this.roster = roster;
+            this.created = created;
+        }
+    }
+
+    /**
+     * Modification time and size of the file for which the hash was computed
+     */
+    private static final class Fingerprint {
+
+        /** Modification time of the file */
+        private final long modified;
+
+        /** Size of the file */
+        private final long length;
+
+        /** Hash of the content of the file */
+        private final String hash;
+
+        /**
+         * Creates fingerprint
+         *
+         * @param modified modification time of the file
+         * @param length size of the file
+         * @param hash hash of the content of the file
+         */
+        private Fingerprint(long modified, long length, String hash) {
+            this.modified = modified;
+            this.length = length;
+            this.hash = hash;
+        }
+
+        /**
+         * Checks if the file still has the same modification time and size
+         *
+         * @param file checked file
+         * @return true if the file wasn't changed
+         */
+        private boolean matches(File file) {
+            return file.lastModified() == modified && file.length() == length;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package pl.polsl.model;
+
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Locale;
+
+/**
+ * Ways of running the Derby database. The network server is a separate
+ * process reached over TCP, embedded databases run inside the application
+ * server, so inserts and queries don't leave the process and no database
+ * server has to be started. An embedded database is kept in a directory, a
+ * database in memory is lost when the server stops and is meant for tests
+ * and demonstrations.
+ *
+ * @author Jacek
+ * @version 1.5
+ */
+public enum DatabaseBackend {
+
+    /**
+     * Derby network server, reached with the configured URL
+     */
+    NETWORK("org.apache.derby.jdbc.ClientDriver", null),
+    /**
+     * Embedded Derby keeping the database in a directory
+     */
+    EMBEDDED("org.apache.derby.jdbc.EmbeddedDriver", "jdbc:derby:"),
+    /**
+     * Embedded Derby keeping the database in memory
+     */
+    MEMORY("org.apache.derby.jdbc.EmbeddedDriver", "jdbc:derby:memory:");
+
+    /** SQL state of the exception thrown when a database was shut down */
+    private static final String SHUTDOWN_STATE = "08006";
+
+    /** Class of the JDBC driver */
+    private final String driver;
+
+    /** Beginning of the URL of the database or null if it is configured */
+    private final String urlPrefix;
+
+    /**
+     * Creates backend
+     *
+     * @param driver class of the JDBC driver
+     * @param urlPrefix beginning of the URL of the database or null if the
+     * whole URL is configured
+     */
+    DatabaseBackend(String driver, String urlPrefix) {
+        this.driver = driver;
+        this.urlPrefix = urlPrefix;
+    }
+
+    /**
+     * Finds backend by its name written in any case
+     *
+     * @param name name of the backend, e.g. embedded
+     * @return backend
+     * @throws InvalidInputException if there is no such backend
+     */
+    public static DatabaseBackend of(String name) throws InvalidInputException {
+        try {
+            return valueOf(name.strip().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            throw new InvalidInputException("Database backend " + name + " doesn't exist, use network, embedded or memory");
+        }
+    }
+
+    /**
+     * Returns class of the JDBC driver
+     *
+     * @return name of the driver class
+     */
+    public String getDriver() {
+        return driver;
+    }
+
+    /**
+     * Checks if the database runs inside the application server
+     *
+     * @return true for embedded databases
+     */
+    public boolean isEmbedded() {
+        return urlPrefix != null;
+    }
+
+    /**
+     * Returns URL of the database. Embedded databases are created when they
+     * don't exist yet.
+     *
+     * @param networkUrl URL used by the network server
+     * @param database name of an embedded database, for EMBEDDED a path
+     * relative to derby.system.home or an absolute path
+     * @return URL of the database
+     */
+    public String getUrl(String networkUrl, String database) {
+        return isEmbedded() ? urlPrefix + database + ";create=true" : networkUrl;
+    }
+
+    /**
+     * Shuts down an embedded database, so everything is written to disk and
+     * its files are released when the application is stopped. Nothing is
+     * done for the network server.
+     *
+     * @param database name of the embedded database
+     * @throws SQLException if the database couldn't be shut down
+     */
+    public void shutdown(String database) throws SQLException {
+        if (!isEmbedded()) {
+            return;
+        }
+        try {
+            DriverManager.getConnection(urlPrefix + database + ";shutdown=true").close();
+        } catch (SQLException ex) {
+            if (!SHUTDOWN_STATE.equals(ex.getSQLState())) {
+                throw ex;
+            }
+        }
+    }
+}
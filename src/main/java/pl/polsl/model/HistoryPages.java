@@ -0,0 +1,366 @@
+package pl.polsl.model;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Reads pages of the saved participants and keeps them, so repeated views of
+ * the history are served without querying the database. Pages are found by
+ * the id of the last row of the previous page, and new rows always get larger
+ * ids, so a page other than the first one doesn't change when meetings are
+ * saved. Only the first page and the number of rows are removed when a
+ * meeting is saved, all of the pages when a new version of a roster changed
+ * rows saved earlier. Every page is removed after the time to live, so rows
+ * changed by other applications are shown in the end too. The least
+ * recently used pages are removed when there are too many of them. Queries
+ * run without holding the lock of the cache.
+ *
+ * @author Jacek
+ * @version 1.5
+ */
+public class HistoryPages {
+
+    /**
+     * One page of saved participants, newest first
+     */
+    public static final class Page {
+
+        /** Ids of the participants */
+        private final int[] ids;
+
+        /** Names of the participants */
+        private final String[] names;
+
+        /** Local times of the participants */
+        private final String[] times;
+
+        /** Id to use as "before" for the next page, null for the last page */
+        private final Integer next;
+
+        /**
+         * Creates page
+         *
+         * @param ids ids of the participants
+         * @param names names of the participants
+         * @param times local times of the participants
+         * @param next id to use as "before" for the next page or null
+         */
+        private Page(int[] ids, String[] names, String[] times, Integer next) {
+            this.ids = ids;
+            this.names = names;
+            this.times = times;
+            this.next = next;
+        }
+
+        /**
+         * Returns number of rows on the page
+         *
+         * @return number of rows
+         */
+        public int size() {
+            return ids.length;
+        }
+
+        /**
+         * Returns id of the participant
+         *
+         * @param index index of the row
+         * @return id of the participant
+         */
+        public int getId(int index) {
+            return ids[index];
+        }
+
+        /**
+         * Returns name of the participant
+         *
+         * @param index index of the row
+         * @return name of the participant
+         */
+        public String getName(int index) {
+            return names[index];
+        }
+
+        /**
+         * Returns local time of the participant
+         *
+         * @param index index of the row
+         * @return local time
+         */
+        public String getTime(int index) {
+            return times[index];
+        }
+
+        /**
+         * Returns id to use as "before" for the next page
+         *
+         * @return id or null if it is the last page
+         */
+        public Integer getNext() {
+            return next;
+        }
+    }
+
+    /** Kept pages by their first row and size, in access order */
+    private final LinkedHashMap<List<Integer>, Entry> pages = new LinkedHashMap<>(16, 0.75f, true);
+
+    /** Maximal number of kept pages */
+    private final int maxPages;
+
+    /** Time to live of a page in nanoseconds */
+    private final long ttlNanos;
+
+    /** Source of the time in nanoseconds */
+    private final LongSupplier clock;
+
+    /** Number of saved rows or -1 if it isn't known */
+    private long rowCount = -1;
+
+    /** Time when the number of rows was read */
+    private long rowCountRead;
+
+    /** Number of saves, results read before a save aren't kept */
+    private long saves;
+
+    /** Number of pages and counts returned from the cache */
+    private final LongAdder hits = new LongAdder();
+
+    /** Number of pages and counts read from the database */
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Creates empty cache
+     *
+     * @param maxPages maximal number of kept pages
+     * @param ttlSeconds time to live of a page in seconds
+     */
+    public HistoryPages(int maxPages, long ttlSeconds) {
+        this(maxPages, ttlSeconds, System::nanoTime);
+    }
+
+    /**
+     * Creates empty cache using given clock
+     *
+     * @param maxPages maximal number of kept pages
+     * @param ttlSeconds time to live of a page in seconds
+     * @param clock source of the time in nanoseconds
+     */
+    public HistoryPages(int maxPages, long ttlSeconds, LongSupplier clock) {
+        this.maxPages = maxPages;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.clock = clock;
+    }
+
+    /**
+     * Returns page of saved participants, reading it only if it isn't kept.
+     * Connection is opened only when the database has to be queried.
+     *
+     * @param connections source of the connection, e.g. pool::borrow
+     * @param before only rows with smaller id are returned, null for the
+     * first page
+     * @param pageSize maximal number of rows
+     * @return page of participants
+     * @throws SQLException if the page couldn't be read
+     */
+    public Page get(ConnectionPool.ConnectionFactory connections, Integer before, int pageSize) throws SQLException {
+        List<Integer> key = Arrays.asList(before, pageSize);
+        long now = clock.getAsLong();
+        long seenSaves;
+        synchronized (this) {
+            Entry entry = pages.get(key);
+            if (entry != null && now - entry.created < ttlNanos) {
+                hits.increment();
+                return entry.page;
+            }
+            if (entry != null) {
+                pages.remove(key);
+            }
+            seenSaves = saves;
+        }
+
+        misses.increment();
+        Page page;
+        try (Connection con = connections.create()) {
+            page = read(con, before, pageSize);
+        }
+        synchronized (this) {
+            if (before != null || seenSaves == saves) {
+                pages.put(key, new Entry(page, now));
+                if (pages.size() > maxPages) {
+                    Iterator<List<Integer>> oldest = pages.keySet().iterator();
+                    oldest.next();
+                    oldest.remove();
+                }
+            }
+        }
+        return page;
+    }
+
+    /**
+     * Returns number of saved rows, reading it only if it isn't kept
+     *
+     * @param connections source of the connection, e.g. pool::borrow
+     * @return number of rows
+     * @throws SQLException if the number couldn't be read
+     */
+    public long count(ConnectionPool.ConnectionFactory connections) throws SQLException {
+        long now = clock.getAsLong();
+        long seenSaves;
+        synchronized (this) {
+            if (rowCount >= 0 && now - rowCountRead < ttlNanos) {
+                hits.increment();
+                return rowCount;
+            }
+            seenSaves = saves;
+        }
+
+        misses.increment();
+        long count;
+        try (Connection con = connections.create()) {
+            count = TimesModel.countHistory(con);
+        }
+        synchronized (this) {
+            if (seenSaves == saves) {
+                rowCount = count;
+                rowCountRead = now;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Removes the first pages and the number of rows, should be called after
+     * every saved meeting
+     */
+    public synchronized void saved() {
+        ++saves;
+        rowCount = -1;
+        pages.keySet().removeIf(key -> key.get(0) == null);
+    }
+
+    /**
+     * Removes the pages changed by the saved meeting: the first pages and the
+     * number of rows if only new rows were added, all of the pages if rows
+     * saved earlier were changed or removed
+     *
+     * @param result result of saving the meeting
+     */
+    public synchronized void saved(BatchInsertResult result) {
+        if (result.changedSavedRows()) {
+            ++saves;
+            clear();
+        } else {
+            saved();
+        }
+    }
+
+    /**
+     * Removes all of the pages
+     */
+    public synchronized void clear() {
+        pages.clear();
+        rowCount = -1;
+    }
+
+    /**
+     * Returns number of kept pages
+     *
+     * @return number of pages
+     */
+    public synchronized int size() {
+        return pages.size();
+    }
+
+    /**
+     * Returns number of pages and counts returned from the cache
+     *
+     * @return number of hits
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Returns number of pages and counts read from the database
+     *
+     * @return number of misses
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Reads one page of saved participants, newest first. Pages are found by
+     * the id of the last row of the previous page instead of an offset, so
+     * every page is read from the index and takes the same time no matter
+     * how many rows there are. One more row than the page is read to know if
+     * there is a next page, and all of them are fetched at once.
+     *
+     * @param con connection to the database
+     * @param before only rows with smaller id are returned, null for the
+     * first page
+     * @param pageSize maximal number of rows
+     * @return page of participants
+     * @throws SQLException if the page couldn't be read
+     */
+    public static Page read(Connection con, Integer before, int pageSize) throws SQLException {
+        try (PreparedStatement statement = con.prepareStatement("SELECT p.ID, p.NAME, t.TIME FROM APP.PARTICIPANTS p "
+                + "JOIN APP.TIMES t ON t.PARTICIPANT_ID = p.ID "
+                + "WHERE p.ID < ? ORDER BY p.ID DESC FETCH FIRST ? ROWS ONLY")) {
+            statement.setInt(1, before == null ? Integer.MAX_VALUE : before);
+            statement.setInt(2, pageSize + 1);
+            statement.setFetchSize(pageSize + 1);
+
+            try (ResultSet rs = statement.executeQuery()) {
+                List<Integer> ids = new ArrayList<>(Math.min(pageSize, 1024));
+                List<String> names = new ArrayList<>(Math.min(pageSize, 1024));
+                List<String> times = new ArrayList<>(Math.min(pageSize, 1024));
+                Integer next = null;
+                while (rs.next()) {
+                    if (ids.size() == pageSize) {
+                        next = ids.get(ids.size() - 1);
+                        break;
+                    }
+                    ids.add(rs.getInt(1));
+                    names.add(rs.getString(2));
+                    times.add(rs.getString(3));
+                }
+                return new Page(ids.stream().mapToInt(Integer::intValue).toArray(),
+                        names.toArray(new String[0]), times.toArray(new String[0]), next);
+            }
+        }
+    }
+
+    /**
+     * Kept page with the time when it was read
+     */
+    private static final class Entry {
+
+        /** Kept page */
+        private final Page page;
+
+        /** Time when the page was read in nanoseconds */
+        private final long created;
+
+        /**
+         * Creates entry
+         *
+         * @param page kept page
+         * @param created time when the page was read
+         */
+        private Entry(Page page, long created) {
+            this.page = page;
+            this.created = created;
+        }
+    }
+}
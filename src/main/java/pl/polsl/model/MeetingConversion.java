@@ -0,0 +1,272 @@
+package pl.polsl.model;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Instant;
+
+/**
+ * Conversion of one participants file for one meeting date. Every request
+ * creates its own instance which carries all of the state needed to parse,
+ * validate and convert the data, so concurrent requests never share
+ * intermediate results and don't need any locking.
+ *
+ * @author Jacek
+ * @version 1.5
+ */
+public final class MeetingConversion {
+
+    /**
+     * Roster uploaded by the user, whose content can be read as a stream or
+     * saved as a file
+     */
+    public interface Upload {
+
+        /**
+         * Returns hash of the content computed by
+         * {@link ConversionCache#hash(java.io.InputStream)}
+         *
+         * @return hash of the content
+         */
+        String getHash();
+
+        /**
+         * Returns size of the roster
+         *
+         * @return size in bytes
+         */
+        long getSize();
+
+        /**
+         * Returns largest number of participants of the roster
+         *
+         * @return largest number of participants
+         */
+        long getMaxParticipants();
+
+        /**
+         * Opens reader of participants which rejects the roster when it has
+         * too many of them
+         *
+         * @return reader of participants
+         * @throws IOException if the roster couldn't be opened
+         */
+        RosterReader open() throws IOException;
+
+        /**
+         * Saves the roster as a file which can be read by the parallel
+         * loader, the caller deletes it
+         *
+         * @return path to the saved file
+         * @throws IOException if the roster couldn't be saved
+         */
+        Path save() throws IOException;
+    }
+
+    /** Path to the file with participants names and their timezones */
+    private final String filePath;
+
+    /** Date of meeting in format "yyyy-MM-dd HH:mm:ss" */
+    private final String meetingDate;
+
+    /** Loader used for large files or null if files are always streamed */
+    private final ParallelRosterLoader loader;
+
+    /** Cache of converted rosters or null if every conversion is run */
+    private final ConversionCache cache;
+
+    /**
+     * Creates conversion for given file and meeting date
+     *
+     * @param filePath path to the file with participants
+     * @param meetingDate date of the meeting
+     */
+    public MeetingConversion(String filePath, String meetingDate) {
+        this(filePath, meetingDate, null);
+    }
+
+    /**
+     * Creates conversion for given file and meeting date which reads large
+     * files in parallel
+     *
+     * @param filePath path to the file with participants
+     * @param meetingDate date of the meeting
+     * @param loader loader used for files larger than its threshold, can be
+     * null
+     */
+    public MeetingConversion(String filePath, String meetingDate, ParallelRosterLoader loader) {
+        this(filePath, meetingDate, loader, null);
+    }
+
+    /**
+     * Creates conversion for given file and meeting date which reads large
+     * files in parallel and reuses results of the same conversions
+     *
+     * @param filePath path to the file with participants
+     * @param meetingDate date of the meeting
+     * @param loader loader used for files larger than its threshold, can be
+     * null
+     * @param cache cache of converted rosters, can be null
+     */
+    public MeetingConversion(String filePath, String meetingDate, ParallelRosterLoader loader, ConversionCache cache) {
+        this.filePath = filePath;
+        this.meetingDate = meetingDate;
+        this.loader = loader;
+        this.cache = cache;
+    }
+
+    /**
+     * Returns path to the file with participants
+     *
+     * @return path to the file
+     */
+    public String getFilePath() {
+        return filePath;
+    }
+
+    /**
+     * Returns date of the meeting
+     *
+     * @return date of the meeting
+     */
+    public String getMeetingDate() {
+        return meetingDate;
+    }
+
+    /**
+     * Reads the file one participant at a time, validates every participant
+     * and converts the meeting date to their local time. Meeting date is
+     * parsed only once and converted once for every distinct timezone.
+     * Model is used only through methods which don't change its state. Files
+     * accepted by the parallel loader are converted by it instead, with the
+     * same result. If the same content of the file was already converted for
+     * the same meeting, result is taken from the cache.
+     *
+     * @param model model used to parse and convert the data
+     * @return participants names, timezones and their local time
+     * @throws FileNotFoundException if file with participants' data isn't found
+     * @throws IOException if file with participants' data couldn't be read
+     * @throws InvalidInputException if input data was incorrect, message
+     * contains number of the incorrect line
+     * @throws ParseException if date of the meeting couldn't be parsed
+     */
+    public Roster execute(TimesModel model) throws FileNotFoundException, IOException, InvalidInputException, ParseException {
+        Instant meeting = model.parseMeetingDate(meetingDate);
+        if (cache != null) {
+            return cache.get(filePath, meeting, () -> convert(model, meeting));
+        }
+        return convert(model, meeting);
+    }
+
+    /**
+     * Converts roster uploaded by the user instead of the file. If the same
+     * content was already converted for the same meeting, result is taken
+     * from the cache. Otherwise rosters accepted by the parallel loader are
+     * saved as a file and converted by it, smaller ones are read one
+     * participant at a time. Rosters with too many participants are rejected
+     * even if they were converted before without the limit.
+     *
+     * @param model model used to parse and convert the data
+     * @param roster uploaded roster
+     * @return participants names, timezones and their local time
+     * @throws IOException if the roster couldn't be read
+     * @throws RosterTooLargeException if the roster has too many participants
+     * @throws InvalidInputException if input data was incorrect, message
+     * contains number of the incorrect line
+     * @throws ParseException if date of the meeting couldn't be parsed
+     */
+    public Roster execute(TimesModel model, Upload roster) throws IOException, InvalidInputException, ParseException {
+        Instant meeting = model.parseMeetingDate(meetingDate);
+        Roster converted = cache != null ? cache.getByHash(roster.getHash(), meeting, () -> convert(model, meeting, roster))
+                : convert(model, meeting, roster);
+        if (converted.size() > roster.getMaxParticipants()) {
+            throw new RosterTooLargeException("Roster can't have more than " + roster.getMaxParticipants() + " participants");
+        }
+        return converted;
+    }
+
+    /**
+     * Converts roster uploaded by the user instead of the file, reading it one
+     * participant at a time as it arrives. Neither the loader nor the cache
+     * is used, because the content can be read only once.
+     *
+     * @param model model used to parse and convert the data
+     * @param roster reader of the uploaded roster, limits of the upload
+     * should be already set
+     * @return participants names, timezones and their local time
+     * @throws IOException if the roster couldn't be read
+     * @throws InvalidInputException if input data was incorrect, message
+     * contains number of the incorrect line
+     * @throws ParseException if date of the meeting couldn't be parsed
+     */
+    public Roster execute(TimesModel model, RosterReader roster) throws IOException, InvalidInputException, ParseException {
+        return convert(model.parseMeetingDate(meetingDate), roster);
+    }
+
+    /**
+     * Reads and converts the file
+     *
+     * @param model model used to parse and convert the data
+     * @param meeting instant of the meeting
+     * @return participants names, timezones and their local time
+     * @throws FileNotFoundException if file with participants' data isn't found
+     * @throws IOException if file with participants' data couldn't be read
+     * @throws InvalidInputException if input data was incorrect
+     */
+    private Roster convert(TimesModel model, Instant meeting) throws FileNotFoundException, IOException, InvalidInputException {
+        if (loader != null && loader.accepts(filePath)) {
+            return loader.convert(filePath, meeting, model);
+        }
+
+        try (RosterReader reader = model.openRoster(filePath)) {
+            return convert(meeting, reader);
+        }
+    }
+
+    /**
+     * Reads and converts the uploaded roster
+     *
+     * @param model model used to parse and convert the data
+     * @param meeting instant of the meeting
+     * @param roster uploaded roster
+     * @return participants names, timezones and their local time
+     * @throws IOException if the roster couldn't be read
+     * @throws InvalidInputException if input data was incorrect
+     */
+    private Roster convert(TimesModel model, Instant meeting, Upload roster) throws IOException, InvalidInputException {
+        if (loader != null && loader.accepts(roster.getSize())) {
+            Path file = roster.save();
+            try {
+                return loader.convert(file.toString(), meeting, model);
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        }
+
+        try (RosterReader reader = roster.open()) {
+            return convert(meeting, reader);
+        }
+    }
+
+    /**
+     * Converts all of the participants read by the reader, the meeting is
+     * converted once for every distinct timezone
+     *
+     * @param meeting instant of the meeting
+     * @param reader reader of the roster
+     * @return participants names, timezones and their local time
+     * @throws IOException if the roster couldn't be read
+     * @throws InvalidInputException if input data was incorrect
+     */
+    private static Roster convert(Instant meeting, RosterReader reader) throws IOException, InvalidInputException {
+        Roster.Builder converted = new Roster.Builder();
+        ZoneTimes localTimes = new ZoneTimes(meeting);
+        RosterEntry participant;
+        while ((participant = reader.next()) != null) {
+            converted.add(participant.getName(), participant.getZone(), localTimes.localEpochSecond(participant));
+        }
+        return converted.build();
+    }
+}
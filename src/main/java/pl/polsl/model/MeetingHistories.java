@@ -0,0 +1,73 @@
+package pl.polsl.model;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.function.Function;
+
+/**
+ * Histories of meeting dates shared by all members of a team. Number of
+ * teams is limited, because user can send any team name, when the limit is
+ * reached the least recently used history is removed and read again from
+ * the database the next time its team is used.
+ *
+ * @author Jacek
+ * @version 1.5
+ */
+public class MeetingHistories {
+
+    /** Histories by the name of the team, in access order */
+    private final LinkedHashMap<String, MeetingHistory> histories = new LinkedHashMap<>(16, 0.75f, true);
+
+    /** Maximal number of kept histories */
+    private final int maxTeams;
+
+    /**
+     * Creates empty registry
+     *
+     * @param maxTeams maximal number of kept histories
+     */
+    public MeetingHistories(int maxTeams) {
+        this.maxTeams = maxTeams;
+    }
+
+    /**
+     * Returns history of the team, creating it the first time the team is
+     * used. The factory is called without holding the lock, so reading one
+     * team from the database doesn't stop other teams. When two requests
+     * create the same history at once, both get the one kept first.
+     *
+     * @param team name of the team
+     * @param factory creates history of a new team, e.g. from the database
+     * @return history of the team
+     */
+    public MeetingHistory get(String team, Function<String, MeetingHistory> factory) {
+        synchronized (this) {
+            MeetingHistory history = histories.get(team);
+            if (history != null) {
+                return history;
+            }
+        }
+        MeetingHistory created = factory.apply(team);
+        synchronized (this) {
+            MeetingHistory history = histories.putIfAbsent(team, created);
+            if (history != null) {
+                return history;
+            }
+            if (histories.size() > maxTeams) {
+                Iterator<String> oldest = histories.keySet().iterator();
+                oldest.next();
+                oldest.remove();
+            }
+            return created;
+        }
+    }
+
+    /**
+     * Returns number of kept histories
+     *
+     * @return number of teams
+     */
+    public synchronized int size() {
+        return histories.size();
+    }
+}
@@ -0,0 +1,155 @@
+package pl.polsl.model;
+
+import java.io.Serializable;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Last meeting dates of one user or team kept in a ring buffer of fixed
+ * capacity. Adding a date takes a number from a counter and writes one slot
+ * of the buffer, the oldest date is overwritten when the buffer is full.
+ * Neither adding nor reading takes a lock, readers skip slots which were
+ * overwritten while they were reading them.
+ *
+ * @author Jacek
+ * @version 1.5
+ */
+public final class MeetingHistory implements Iterable<String>, Serializable {
+
+    /** Version of the serialized form */
+    private static final long serialVersionUID = 1L;
+
+    /** Capacity used when it isn't configured */
+    public static final int DEFAULT_CAPACITY = 10;
+
+    /** Number of the next added date */
+    private final AtomicLong next = new AtomicLong();
+
+    /** Slots of the buffer, date number n is kept in slot n % capacity */
+    private final AtomicReferenceArray<Entry> slots;
+
+    /**
+     * Creates empty history
+     *
+     * @param capacity maximal number of kept dates
+     */
+    public MeetingHistory(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity of the history should be positive");
+        }
+        this.slots = new AtomicReferenceArray<>(capacity);
+    }
+
+    /**
+     * Reads last meetings saved in the database by given owner, so the
+     * history survives restarts of the application
+     *
+     * @param con Connection to database
+     * @param owner user or team which saved the meetings
+     * @param capacity maximal number of kept dates
+     * @return history with the saved meetings
+     * @throws SQLException when meetings couldn't be read
+     */
+    public static MeetingHistory load(Connection con, String owner, int capacity) throws SQLException {
+        List<String> dates = new ArrayList<>(capacity);
+        try (PreparedStatement statement = con.prepareStatement("SELECT MEETING_DATE FROM APP.MEETINGS "
+                + "WHERE OWNER = ? ORDER BY ID DESC FETCH FIRST ? ROWS ONLY")) {
+            statement.setString(1, owner);
+            statement.setInt(2, capacity);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    dates.add(rs.getString(1));
+                }
+            }
+        }
+        MeetingHistory history = new MeetingHistory(capacity);
+        for (int i = dates.size() - 1; i >= 0; i--) {
+            history.add(dates.get(i));
+        }
+        return history;
+    }
+
+    /**
+     * Adds date as the newest one, removing the oldest date if the history is
+     * full
+     *
+     * @param meetingDate date of the meeting
+     */
+    public void add(String meetingDate) {
+        long number = next.getAndIncrement();
+        slots.set((int) (number % slots.length()), new Entry(number, meetingDate));
+    }
+
+    /**
+     * Returns dates from the newest to the oldest. Dates added while the
+     * method runs may be missing from the result.
+     *
+     * @return unmodifiable list of dates
+     */
+    public List<String> getDates() {
+        long last = next.get();
+        long first = Math.max(0, last - slots.length());
+        List<String> dates = new ArrayList<>((int) (last - first));
+        for (long number = last - 1; number >= first; number--) {
+            Entry entry = slots.get((int) (number % slots.length()));
+            if (entry != null && entry.number == number) {
+                dates.add(entry.meetingDate);
+            }
+        }
+        return Collections.unmodifiableList(dates);
+    }
+
+    /**
+     * Iterates over dates from the newest to the oldest
+     *
+     * @return iterator over a snapshot of the dates
+     */
+    @Override
+    public Iterator<String> iterator() {
+        return getDates().iterator();
+    }
+
+    /**
+     * Returns maximal number of kept dates
+     *
+     * @return capacity of the history
+     */
+    public int getCapacity() {
+        return slots.length();
+    }
+
+    /**
+     * Date kept in one slot together with its number, so readers can tell
+     * if the slot was overwritten
+     */
+    private static final class Entry implements Serializable {
+
+        /** Version of the serialized form */
+        private static final long serialVersionUID = 1L;
+
+        /** Number of the date */
+        private final long number;
+
+        /** Date of the meeting */
+        private final String meetingDate;
+
+        /**
+         * Creates entry
+         *
+         * @param number number of the date
+         * @param meetingDate date of the meeting
+         */
+        private Entry(long number, String meetingDate) {
+            this.number = number;
+            this.meetingDate = meetingDate;
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package pl.polsl.model;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Local times of every participant of a roster at every candidate meeting,
+ * so many meeting times can be compared in one request. Participants are
+ * grouped by normalized timezone and local times of a timezone at all of the
+ * candidates are computed once, when its first participant is added. A fixed
+ * offset is resolved once and added to all of the candidates, for a region
+ * timezone the offset of every candidate is found in its table of
+ * transitions. Participants keep only the index of their timezone, so the
+ * work and memory depend on the number of timezones times the number of
+ * candidates, not on the number of participants.
+ *
+ * @author Jacek
+ * @version 1.5
+ */
+public class MeetingMatrix {
+
+    /** Largest number of candidate meetings */
+    public static final int MAX_CANDIDATES = 10_000;
+
+    /** Candidate meetings in seconds from the epoch */
+    private final long[] candidates;
+
+    /** Index of every normalized timezone */
+    private final Map<ZoneId, Integer> zoneIndexes = new HashMap<>();
+
+    /** Timezone of every group as it was written by its first participant */
+    private final List<String> zones = new ArrayList<>();
+
+    /** Local times of every group at all of the candidates */
+    private final List<long[]> zoneTimes = new ArrayList<>();
+
+    /** Names of the participants */
+    private final List<String> names = new ArrayList<>();
+
+    /** Index of the timezone of every participant */
+    private int[] zoneIds = new int[16];
+
+    /**
+     * Creates matrix for the candidate meetings
+     *
+     * @param candidates candidate meetings in order in which they are shown
+     * @throws InvalidInputException if there are no candidates or too many
+     * of them
+     */
+    public MeetingMatrix(List<Instant> candidates) throws InvalidInputException {
+        if (candidates.isEmpty() || candidates.size() > MAX_CANDIDATES) {
+            throw new InvalidInputException("There should be from 1 to " + MAX_CANDIDATES + " candidate meetings");
+        }
+        this.candidates = new long[candidates.size()];
+        for (int i = 0; i < this.candidates.length; i++) {
+            this.candidates[i] = candidates.get(i).getEpochSecond();
+        }
+    }
+
+    /**
+     * Returns candidate meetings starting every step minutes from the first
+     * meeting to the last one, including both of them
+     *
+     * @param first first meeting
+     * @param last last meeting
+     * @param stepMinutes minutes between the meetings
+     * @return candidate meetings
+     * @throws InvalidInputException if the range is empty, the step isn't
+     * positive or there are too many candidates
+     */
+    public static List<Instant> range(Instant first, Instant last, int stepMinutes) throws InvalidInputException {
+        if (stepMinutes <= 0) {
+            throw new InvalidInputException("Step should be positive");
+        }
+        if (last.isBefore(first)) {
+            throw new InvalidInputException("Last meeting can't be earlier than the first one");
+        }
+        long step = stepMinutes * 60L;
+        long count = (last.getEpochSecond() - first.getEpochSecond()) / step + 1;
+        if (count > MAX_CANDIDATES) {
+            throw new InvalidInputException("There should be from 1 to " + MAX_CANDIDATES + " candidate meetings");
+        }
+        List<Instant> range = new ArrayList<>((int) count);
+        for (long i = 0; i < count; i++) {
+            range.add(first.plusSeconds(i * step));
+        }
+        return range;
+    }
+
+    /**
+     * Adds participant, computing local times of their timezone if it is the
+     * first participant with it
+     *
+     * @param name name of the participant
+     * @param zone timezone of the participant as it was written
+     * @param table table of the timezone
+     */
+    public void add(String name, String zone, ZoneTable table) {
+        ZoneId normalized = table.getId().normalized();
+        Integer index = zoneIndexes.get(normalized);
+        if (index == null) {
+            index = zones.size();
+            zoneIndexes.put(normalized, index);
+            zones.add(zone);
+            zoneTimes.add(localTimes(table));
+        }
+        if (names.size() == zoneIds.length) {
+            zoneIds = Arrays.copyOf(zoneIds, zoneIds.length * 2);
+        }
+        zoneIds[names.size()] = index;
+        names.add(name);
+    }
+
+    /**
+     * Adds all of the participants of the roster
+     *
+     * @param reader reader of the roster
+     * @throws IOException if the roster couldn't be read
+     * @throws InvalidInputException if a line of the roster is incorrect or
+     * its timezone doesn't exist, message contains number of the line
+     */
+    public void addAll(RosterReader reader) throws IOException, InvalidInputException {
+        RosterEntry participant;
+        while ((participant = reader.next()) != null) {
+            add(participant.getName(), participant.getZone(), participant.getZoneTable());
+        }
+    }
+
+    /**
+     * Returns number of participants
+     *
+     * @return number of participants
+     */
+    public int getParticipantCount() {
+        return names.size();
+    }
+
+    /**
+     * Returns number of candidate meetings
+     *
+     * @return number of candidates
+     */
+    public int getCandidateCount() {
+        return candidates.length;
+    }
+
+    /**
+     * Returns number of distinct timezones
+     *
+     * @return number of timezones
+     */
+    public int getZoneCount() {
+        return zones.size();
+    }
+
+    /**
+     * Returns candidate meeting
+     *
+     * @param candidate index of the candidate
+     * @return instant of the meeting
+     */
+    public Instant getCandidate(int candidate) {
+        return Instant.ofEpochSecond(candidates[candidate]);
+    }
+
+    /**
+     * Returns name of the participant
+     *
+     * @param participant index of the participant
+     * @return name of the participant
+     */
+    public String getName(int participant) {
+        return names.get(participant);
+    }
+
+    /**
+     * Returns index of the timezone of the participant
+     *
+     * @param participant index of the participant
+     * @return index of the timezone
+     */
+    public int getZoneIndex(int participant) {
+        if (participant >= names.size()) {
+            throw new IndexOutOfBoundsException("Participant " + participant + " of " + names.size());
+        }
+        return zoneIds[participant];
+    }
+
+    /**
+     * Returns timezone as it was written by its first participant
+     *
+     * @param zone index of the timezone
+     * @return timezone
+     */
+    public String getZone(int zone) {
+        return zones.get(zone);
+    }
+
+    /**
+     * Returns local time in the timezone at the candidate meeting
+     *
+     * @param zone index of the timezone
+     * @param candidate index of the candidate
+     * @return seconds from 1970-01-01 00:00:00 of the local clock
+     */
+    public long getZoneLocalEpochSecond(int zone, int candidate) {
+        return zoneTimes.get(zone)[candidate];
+    }
+
+    /**
+     * Returns local time of the participant at the candidate meeting
+     *
+     * @param participant index of the participant
+     * @param candidate index of the candidate
+     * @return local time in yyyy-MM-dd HH:mm:ss format
+     */
+    public String getLocalTime(int participant, int candidate) {
+        return TimeConverter.format(getZoneLocalEpochSecond(getZoneIndex(participant), candidate));
+    }
+
+    /**
+     * Computes local times of the timezone at all of the candidates
+     *
+     * @param table table of the timezone
+     * @return local times in seconds from 1970-01-01 00:00:00 of the local
+     * clock
+     */
+    private long[] localTimes(ZoneTable table) {
+        long[] local = new long[candidates.length];
+        if (table.getTransitionCount() == 0) {
+            long offset = table.getOffset(candidates[0]);
+            for (int i = 0; i < local.length; i++) {
+                local[i] = candidates[i] + offset;
+            }
+        } else {
+            for (int i = 0; i < local.length; i++) {
+                local[i] = candidates[i] + table.getOffset(candidates[i]);
+            }
+        }
+        return local;
+    }
+}
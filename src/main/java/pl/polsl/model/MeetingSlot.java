@@ -0,0 +1,86 @@
+package pl.polsl.model;
+
+import java.time.Instant;
+
+/**
+ * Candidate time of the meeting with number of participants who are at work
+ * for the whole meeting
+ *
+ * @author Jacek
+ * @version 1.5
+ */
+public final class MeetingSlot {
+
+    /** Start of the meeting */
+    private final Instant start;
+
+    /** End of the meeting */
+    private final Instant end;
+
+    /** Number of participants at work during the meeting */
+    private final int available;
+
+    /** Number of all of the participants */
+    private final int participants;
+
+    /**
+     * Creates slot
+     *
+     * @param start start of the meeting
+     * @param end end of the meeting
+     * @param available number of participants at work during the meeting
+     * @param participants number of all of the participants
+     */
+    public MeetingSlot(Instant start, Instant end, int available, int participants) {
+        this.start = start;
+        this.end = end;
+        this.available = available;
+        this.participants = participants;
+    }
+
+    /**
+     * Returns start of the meeting
+     *
+     * @return start of the meeting
+     */
+    public Instant getStart() {
+        return start;
+    }
+
+    /**
+     * Returns end of the meeting
+     *
+     * @return end of the meeting
+     */
+    public Instant getEnd() {
+        return end;
+    }
+
+    /**
+     * Returns number of participants at work for the whole meeting
+     *
+     * @return number of available participants
+     */
+    public int getAvailable() {
+        return available;
+    }
+
+    /**
+     * Returns number of all of the participants
+     *
+     * @return number of participants
+     */
+    public int getParticipants() {
+        return participants;
+    }
+
+    /**
+     * Returns the slot as text
+     *
+     * @return start and number of available participants
+     */
+    @Override
+    public String toString() {
+        return start + " (" + available + "/" + participants + ")";
+    }
+}
@@ -0,0 +1,217 @@
+package pl.polsl.model;
+
+import java.io.IOException;
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.zone.ZoneRules;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Finds meeting times at which the most participants are at work. Candidate
+ * meetings start every step minutes in the searched range. Participants with
+ * the same timezone and working hours are counted together, for every such
+ * group working hours of every day are converted once to an interval of
+ * instants using rules of the timezone, so daylight saving time is taken into
+ * account. Every interval adds its participants to all of the candidate
+ * meetings which fit into it with a difference array, so the work doesn't
+ * depend on the number of participants times the number of candidates. The
+ * best meetings are chosen with a heap.
+ *
+ * @author Jacek
+ * @version 1.5
+ */
+public class MeetingSlotFinder {
+
+    /** Largest number of candidate meetings in one search */
+    public static final int MAX_CANDIDATES = 1_000_000;
+
+    /** Number of participants by timezone and working hours */
+    private final Map<String, Map<WorkingHours, Integer>> groups = new HashMap<>();
+
+    /** Number of all of the participants */
+    private int participants;
+
+    /**
+     * Adds participant
+     *
+     * @param zone timezone of the participant
+     * @param hours working hours of the participant in their local time
+     */
+    public void add(String zone, WorkingHours hours) {
+        groups.computeIfAbsent(zone, key -> new HashMap<>()).merge(hours, 1, Integer::sum);
+        ++participants;
+    }
+
+    /**
+     * Adds all of the participants of the roster, participants without
+     * working hours work from 09:00 to 17:00
+     *
+     * @param reader reader of the roster
+     * @throws IOException if the roster couldn't be read
+     * @throws InvalidInputException if a line of the roster is incorrect or
+     * its timezone doesn't exist, message contains number of the line
+     */
+    public void addAll(RosterReader reader) throws IOException, InvalidInputException {
+        RosterEntry participant;
+        while ((participant = reader.next()) != null) {
+            participant.getZoneTable();
+            add(participant.getZone(), participant.getWorkingHours());
+        }
+    }
+
+    /**
+     * Returns number of added participants
+     *
+     * @return number of participants
+     */
+    public int getParticipants() {
+        return participants;
+    }
+
+    /**
+     * Finds the best meetings. Meetings with more available participants are
+     * better, earlier meetings are better if the numbers are equal. Meetings
+     * at which nobody is at work aren't returned.
+     *
+     * @param from earliest start of the meeting
+     * @param to latest end of the meeting
+     * @param lengthMinutes length of the meeting in minutes
+     * @param stepMinutes minutes between starts of candidate meetings
+     * @param count maximal number of returned meetings
+     * @param weekends true if participants also work on Saturdays and Sundays
+     * @return best meetings, the best one first
+     * @throws InvalidInputException if the range is empty, lengths aren't
+     * positive, there are too many candidates or a timezone doesn't exist
+     */
+    public List<MeetingSlot> find(Instant from, Instant to, int lengthMinutes, int stepMinutes, int count, boolean weekends)
+            throws InvalidInputException {
+        if (lengthMinutes <= 0 || stepMinutes <= 0 || count <= 0) {
+            throw new InvalidInputException("Length, step and number of meetings should be positive");
+        }
+        long start = from.getEpochSecond();
+        long length = lengthMinutes * 60L;
+        long step = stepMinutes * 60L;
+        if (to.getEpochSecond() - start < length) {
+            throw new InvalidInputException("Meeting doesn't fit into the searched range");
+        }
+        long candidates = (to.getEpochSecond() - start - length) / step + 1;
+        if (candidates > MAX_CANDIDATES) {
+            throw new InvalidInputException("Range has too many candidate meetings, maximum is " + MAX_CANDIDATES);
+        }
+
+        int[] difference = new int[(int) candidates + 1];
+        for (Map.Entry<String, Map<WorkingHours, Integer>> zone : groups.entrySet()) {
+            ZoneTable table = ZoneTable.of(zone.getKey());
+            ZoneRules rules = table.getRules();
+            LocalDate first = localDate(from, table).minusDays(1);
+            LocalDate last = localDate(to, table);
+            for (Map.Entry<WorkingHours, Integer> group : zone.getValue().entrySet()) {
+                addGroup(difference, rules, first, last, group.getKey(), group.getValue(), weekends, start, length, step);
+            }
+        }
+
+        PriorityQueue<long[]> best = new PriorityQueue<>(count + 1,
+                (a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(b[1], a[1]));
+        int available = 0;
+        for (int i = 0; i < candidates; i++) {
+            available += difference[i];
+            if (available > 0 && (best.size() < count || available > best.peek()[0])) {
+                best.add(new long[] {available, i});
+                if (best.size() > count) {
+                    best.poll();
+                }
+            }
+        }
+
+        List<MeetingSlot> slots = new ArrayList<>(best.size());
+        while (!best.isEmpty()) {
+            long[] slot = best.poll();
+            Instant slotStart = Instant.ofEpochSecond(start + slot[1] * step);
+            slots.add(new MeetingSlot(slotStart, slotStart.plusSeconds(length), (int) slot[0], participants));
+        }
+        Collections.reverse(slots);
+        return slots;
+    }
+
+    /**
+     * Adds participants of one group to all of the candidates which fit into
+     * their working hours. Working hours of following days which touch or
+     * overlap are joined into one interval.
+     *
+     * @param difference differences of numbers of available participants
+     * between following candidates
+     * @param rules rules of the timezone of the group
+     * @param first first local day
+     * @param last last local day
+     * @param hours working hours of the group
+     * @param size number of participants in the group
+     * @param weekends true if the group works on Saturdays and Sundays
+     * @param start start of the first candidate in seconds
+     * @param length length of the meeting in seconds
+     * @param step seconds between starts of candidates
+     */
+    private static void addGroup(int[] difference, ZoneRules rules, LocalDate first, LocalDate last, WorkingHours hours,
+            int size, boolean weekends, long start, long length, long step) {
+        long intervalStart = 0;
+        long intervalEnd = Long.MIN_VALUE;
+        for (LocalDate day = first; !day.isAfter(last); day = day.plusDays(1)) {
+            if (!weekends && (day.getDayOfWeek() == DayOfWeek.SATURDAY || day.getDayOfWeek() == DayOfWeek.SUNDAY)) {
+                continue;
+            }
+            LocalDateTime localStart = day.atStartOfDay().plusMinutes(hours.getStart());
+            LocalDateTime localEnd = localStart.plusMinutes(hours.getLength());
+            long workStart = localStart.toEpochSecond(rules.getOffset(localStart));
+            long workEnd = localEnd.toEpochSecond(rules.getOffset(localEnd));
+            if (workStart <= intervalEnd) {
+                intervalEnd = Math.max(intervalEnd, workEnd);
+                continue;
+            }
+            addInterval(difference, intervalStart, intervalEnd, size, start, length, step);
+            intervalStart = workStart;
+            intervalEnd = workEnd;
+        }
+        addInterval(difference, intervalStart, intervalEnd, size, start, length, step);
+    }
+
+    /**
+     * Adds participants to candidates which fit into the interval
+     *
+     * @param difference differences of numbers of available participants
+     * @param intervalStart start of the interval in seconds
+     * @param intervalEnd end of the interval in seconds
+     * @param size number of participants
+     * @param start start of the first candidate in seconds
+     * @param length length of the meeting in seconds
+     * @param step seconds between starts of candidates
+     */
+    private static void addInterval(int[] difference, long intervalStart, long intervalEnd, int size,
+            long start, long length, long step) {
+        if (intervalEnd == Long.MIN_VALUE) {
+            return;
+        }
+        long firstCandidate = Math.max(0, Math.floorDiv(intervalStart - start + step - 1, step));
+        long lastCandidate = Math.min(difference.length - 2, Math.floorDiv(intervalEnd - length - start, step));
+        if (firstCandidate <= lastCandidate) {
+            difference[(int) firstCandidate] += size;
+            difference[(int) lastCandidate + 1] -= size;
+        }
+    }
+
+    /**
+     * Returns local day of the instant in the timezone
+     *
+     * @param instant converted instant
+     * @param table table of the timezone
+     * @return local day
+     */
+    private static LocalDate localDate(Instant instant, ZoneTable table) {
+        return LocalDate.ofEpochDay(Math.floorDiv(table.localEpochSecond(instant), 24 * 3600L));
+    }
+}
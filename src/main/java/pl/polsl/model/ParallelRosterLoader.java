@@ -0,0 +1,316 @@
+package pl.polsl.model;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Converts very large roster files using all of the cores. The file is
+ * memory-mapped and split into chunks which always end after a new line
+ * character, every chunk is parsed and converted by a separate task of the
+ * fork-join pool and results are merged in the order of the file. Smaller
+ * files are faster to read with RosterReader, so the loader is used only for
+ * files larger than the threshold.
+ *
+ * @author Jacek
+ * @version 1.5
+ */
+public class ParallelRosterLoader implements AutoCloseable {
+
+    /** Size of the buffer used to find the end of the line at chunk border */
+    private static final int SCAN_BUFFER_SIZE = 8 * 1024;
+
+    /** Number of characters decoded from the chunk at once */
+    private static final int DECODE_BUFFER_SIZE = 16 * 1024;
+
+    /** Pool running parsing of the chunks */
+    private final ForkJoinPool pool;
+
+    /** Smallest size of the file in bytes which is read in parallel */
+    private final long thresholdBytes;
+
+    /** Size of one chunk in bytes, chunk is extended to the end of its line */
+    private final int chunkBytes;
+
+    /**
+     * Creates loader with its own fork-join pool
+     *
+     * @param parallelism number of threads of the pool, 0 uses number of
+     * available processors
+     * @param thresholdBytes smallest size of the file which is read in parallel
+     * @param chunkBytes size of one chunk in bytes
+     */
+    public ParallelRosterLoader(int parallelism, long thresholdBytes, int chunkBytes) {
+        if (chunkBytes <= 0) {
+            throw new IllegalArgumentException("Size of the chunk should be positive");
+        }
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        this.thresholdBytes = thresholdBytes;
+        this.chunkBytes = chunkBytes;
+    }
+
+    /**
+     * Checks if the file is large enough to be read in parallel
+     *
+     * @param filename path to the file
+     * @return true if the file should be read with this loader
+     */
+    public boolean accepts(String filename) {
+        File file = new File(filename).getAbsoluteFile();
+        return file.isFile() && accepts(file.length());
+    }
+
+    /**
+     * Checks if a roster of given size is large enough to be read in
+     * parallel, e.g. an uploaded roster which isn't a file yet
+     *
+     * @param size size of the roster in bytes
+     * @return true if the roster should be read with this loader
+     */
+    public boolean accepts(long size) {
+        return size >= thresholdBytes;
+    }
+
+    /**
+     * Reads all of the participants from the file and converts the meeting
+     * date to their local times. Result is the same as reading the file with
+     * RosterReader, including number of the line reported for the first
+     * incorrect participant.
+     *
+     * @param filename path to the file
+     * @param meeting instant of the meeting
+     * @param model model used to convert the meeting date
+     * @return participants names, timezones and their local time in order of
+     * the file
+     * @throws FileNotFoundException if file with participants' data isn't found
+     * @throws IOException if file with participants' data couldn't be read
+     * @throws InvalidInputException if input data was incorrect, message
+     * contains number of the incorrect line
+     */
+    public Roster convert(String filename, Instant meeting, TimesModel model)
+            throws FileNotFoundException, IOException, InvalidInputException {
+        try (FileChannel channel = FileChannel.open(new File(filename).getAbsoluteFile().toPath(), StandardOpenOption.READ)) {
+            List<ForkJoinTask<Chunk>> tasks = new ArrayList<>();
+            long size = channel.size();
+            long start = 0;
+            while (start < size) {
+                long end = start + chunkBytes >= size ? size : lineEnd(channel, start + chunkBytes - 1, size);
+                if (end - start > Integer.MAX_VALUE) {
+                    throw new IOException("Line starting at byte " + start + " is too long");
+                }
+                long chunkStart = start;
+                tasks.add(pool.submit(() -> parse(channel, chunkStart, end, meeting, model)));
+                start = end;
+            }
+            return merge(tasks);
+        } catch (NoSuchFileException ex) {
+            throw new FileNotFoundException(filename);
+        }
+    }
+
+    /**
+     * Joins results of the chunks in order of the file. Number of the line of
+     * the incorrect participant is counted from the number of lines of the
+     * previous chunks and chunks after it are cancelled.
+     *
+     * @param tasks tasks parsing the chunks
+     * @return participants of all of the chunks
+     * @throws IOException if one of the chunks couldn't be read
+     * @throws InvalidInputException if one of the chunks contains incorrect
+     * participant
+     */
+    private Roster merge(List<ForkJoinTask<Chunk>> tasks) throws IOException, InvalidInputException {
+        List<Chunk> chunks = new ArrayList<>(tasks.size());
+        int count = 0;
+        long lines = 0;
+        try {
+            for (ForkJoinTask<Chunk> task : tasks) {
+                Chunk chunk = task.join();
+                if (chunk.failedText != null) {
+                    RosterReader.parseLine(chunk.failedText, 0, chunk.failedText.length(), lines + chunk.lines)
+                            .getZoneTable();
+                }
+                chunks.add(chunk);
+                count += chunk.roster.size();
+                lines += chunk.lines;
+            }
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        } finally {
+            for (ForkJoinTask<Chunk> task : tasks) {
+                task.cancel(false);
+            }
+        }
+
+        Roster.Builder converted = new Roster.Builder(count);
+        for (Chunk chunk : chunks) {
+            converted.addAll(chunk.roster);
+        }
+        return converted.build();
+    }
+
+    /**
+     * Parses and converts one chunk of the file. Lines end with \n, \r or
+     * \r\n like in BufferedReader. The mapped bytes are decoded straight
+     * into a small buffer of characters which is refilled when its lines are
+     * parsed, so the chunk is never copied to the heap as a whole. The buffer
+     * grows only for a line longer than itself. Parsing stops at the first
+     * incorrect participant, its line is kept so the error can be reported
+     * with the number of the line in the whole file.
+     *
+     * @param channel channel of the file
+     * @param start index of the first byte of the chunk
+     * @param end index after the last byte of the chunk
+     * @param meeting instant of the meeting
+     * @param model model used to convert the meeting date
+     * @return converted participants of the chunk
+     */
+    private Chunk parse(FileChannel channel, long start, long end, Instant meeting, TimesModel model) {
+        ByteBuffer bytes;
+        try {
+            bytes = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        CharBuffer chars = CharBuffer.allocate(DECODE_BUFFER_SIZE);
+
+        Chunk chunk = new Chunk();
+        Roster.Builder rows = new Roster.Builder();
+        ZoneTimes localTimes = new ZoneTimes(meeting);
+        boolean decoded = false;
+        while (true) {
+            if (!decoded) {
+                CoderResult result = decoder.decode(bytes, chars, true);
+                if (result.isUnderflow()) {
+                    result = decoder.flush(chars);
+                    decoded = result.isUnderflow();
+                }
+            }
+            chars.flip();
+            int parsed = parseLines(chars, decoded, chunk, rows, localTimes);
+            if (chunk.failedText != null || decoded) {
+                break;
+            }
+            chars.position(parsed);
+            if (parsed == 0 && chars.limit() == chars.capacity()) {
+                chars = CharBuffer.allocate(chars.capacity() * 2).put(chars);
+            } else {
+                chars.compact();
+            }
+        }
+        chunk.roster = rows.build();
+        return chunk;
+    }
+
+    /**
+     * Parses complete lines of the buffer. The last line is complete only at
+     * the end of the chunk, \r at the end of the buffer waits for the next
+     * character, which can be \n of the same line end.
+     *
+     * @param chars decoded characters starting at index 0
+     * @param last true if there are no more characters in the chunk
+     * @param chunk result to which lines and the incorrect line are added
+     * @param rows participants of the chunk
+     * @param localTimes local times of the meeting in timezones of the chunk
+     * @return index after the last parsed line
+     */
+    private static int parseLines(CharBuffer chars, boolean last, Chunk chunk, Roster.Builder rows, ZoneTimes localTimes) {
+        char[] text = chars.array();
+        int length = chars.limit();
+        int lineStart = 0;
+        while (lineStart < length) {
+            int lineEnd = lineStart;
+            while (lineEnd < length && text[lineEnd] != '\n' && text[lineEnd] != '\r') {
+                ++lineEnd;
+            }
+            if (!last && (lineEnd == length || (text[lineEnd] == '\r' && lineEnd + 1 == length))) {
+                return lineStart;
+            }
+            ++chunk.lines;
+            try {
+                RosterEntry participant = RosterReader.parseLine(chars, lineStart, lineEnd, chunk.lines);
+                if (participant != null) {
+                    rows.add(participant.getName(), participant.getZone(), localTimes.localEpochSecond(participant));
+                }
+            } catch (InvalidInputException ex) {
+                chunk.failedText = new String(text, lineStart, lineEnd - lineStart);
+                return lineStart;
+            }
+            if (lineEnd + 1 < length && text[lineEnd] == '\r' && text[lineEnd + 1] == '\n') {
+                ++lineEnd;
+            }
+            lineStart = lineEnd + 1;
+        }
+        return length;
+    }
+
+    /**
+     * Returns index after the first new line character found from given
+     * position. Single bytes are compared, which is correct for UTF-8 where
+     * bytes of multibyte characters are never equal to \n.
+     *
+     * @param channel channel of the file
+     * @param position index where search starts
+     * @param size size of the file
+     * @return index of the beginning of the next line or size of the file
+     * @throws IOException if file couldn't be read
+     */
+    private static long lineEnd(FileChannel channel, long position, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+        while (position < size) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    /**
+     * Stops threads of the pool
+     */
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+
+    /**
+     * Result of parsing one chunk
+     */
+    private static final class Chunk {
+
+        /** Converted participants */
+        private Roster roster;
+
+        /** Number of lines read from the chunk */
+        private long lines;
+
+        /** Text of the incorrect line or null if all lines were correct */
+        private String failedText;
+    }
+}
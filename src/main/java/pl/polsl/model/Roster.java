@@ -0,0 +1,600 @@
+package pl.polsl.model;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * Converted participants of one meeting stored in columns. Names of all of
+ * the participants share one array of characters, every distinct timezone is
+ * stored once and participants keep only its index, and local times are kept
+ * as numbers of seconds which are formatted only when they are shown. Local
+ * time of a timezone shared by all of its participants is formatted once,
+ * when the roster is created. A participant costs a few primitive values
+ * instead of a list and two strings.
+ * The roster is also a read-only list of rows containing name and formatted
+ * local time, so it can be used wherever such list was used before. It is
+ * serialized in an even more compact form, so it can be kept in a replicated
+ * session.
+ *
+ * @author Jacek
+ * @version 1.5
+ */
+public final class Roster extends AbstractList<List<String>> implements RandomAccess, Serializable {
+
+    /** Version of the serialized form */
+    private static final long serialVersionUID = 1L;
+
+    /** Number of participants */
+    private final int size;
+
+    /** Names of all of the participants, one after another */
+    private final char[] names;
+
+    /** Index after the last character of the name of every participant */
+    private final int[] nameEnds;
+
+    /** Distinct timezones of the participants */
+    private final String[] zones;
+
+    /** Index of the timezone of every participant in zones */
+    private final int[] zoneIds;
+
+    /** Local time of every participant in seconds from 1970-01-01 00:00:00 of the local clock */
+    private final long[] localTimes;
+
+    /** Formatted local time of every timezone, null if its participants have different times */
+    private final String[] zoneTimes;
+
+    /**
+     * Creates roster from the columns filled by the builder
+     *
+     * @param builder builder with the participants
+     */
+    private Roster(Builder builder) {
+        this.size = builder.size;
+        this.names = Arrays.copyOf(builder.names, builder.nameLength);
+        this.nameEnds = Arrays.copyOf(builder.nameEnds, size);
+        this.zones = builder.zones.toArray(new String[0]);
+        this.zoneIds = Arrays.copyOf(builder.zoneIds, size);
+        this.localTimes = Arrays.copyOf(builder.localTimes, size);
+        this.zoneTimes = formatZoneTimes();
+    }
+
+    /**
+     * Returns number of participants
+     *
+     * @return number of participants
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns name and formatted local time of the participant
+     *
+     * @param index index of the participant
+     * @return unmodifiable list with name and local time
+     */
+    @Override
+    public List<String> get(int index) {
+        return List.of(getName(index), getLocalTime(index));
+    }
+
+    /**
+     * Returns name of the participant
+     *
+     * @param index index of the participant
+     * @return name of the participant
+     */
+    public String getName(int index) {
+        int start = index == 0 ? 0 : nameEnds(index - 1);
+        return new String(names, start, nameEnds(index) - start);
+    }
+
+    /**
+     * Returns timezone of the participant
+     *
+     * @param index index of the participant
+     * @return timezone of the participant, the same instance for every
+     * participant in the same timezone
+     */
+    public String getZone(int index) {
+        return zones[zoneIds[checkIndex(index)]];
+    }
+
+    /**
+     * Returns local time of the participant as number of seconds from
+     * 1970-01-01 00:00:00 of the local clock
+     *
+     * @param index index of the participant
+     * @return local time in seconds
+     */
+    public long getLocalEpochSecond(int index) {
+        return localTimes[checkIndex(index)];
+    }
+
+    /**
+     * Returns local time of the participant in yyyy-MM-dd HH:mm:ss format
+     *
+     * @param index index of the participant
+     * @return formatted local time
+     */
+    public String getLocalTime(int index) {
+        String localTime = zoneTimes[zoneIds[checkIndex(index)]];
+        return localTime != null ? localTime : TimeConverter.format(localTimes[index]);
+    }
+
+    /**
+     * Returns number of distinct timezones of the participants
+     *
+     * @return number of timezones
+     */
+    public int getZoneCount() {
+        return zones.length;
+    }
+
+    /**
+     * Groups participants by timezone and local time, so output can be
+     * written once per timezone instead of once per participant. Different
+     * texts of the same timezone, e.g. GMT+2 and GMT+02:00, are in one group.
+     * Groups and their participants are in order of the roster.
+     *
+     * @return groups of participants
+     */
+    public List<ZoneGroup> groupByZone() {
+        Object[] zoneKeys = new Object[zones.length];
+        for (int zone = 0; zone < zones.length; zone++) {
+            Object id;
+            try {
+                id = ZoneTable.of(zones[zone]).getId().normalized();
+            } catch (InvalidInputException ex) {
+                id = zones[zone];
+            }
+            zoneKeys[zone] = id;
+        }
+        Map<List<Object>, ZoneGroup> groups = new LinkedHashMap<>();
+        for (int i = 0; i < size; i++) {
+            List<Object> key = Arrays.asList(zoneKeys[zoneIds[i]], localTimes[i]);
+            ZoneGroup group = groups.get(key);
+            if (group == null) {
+                group = new ZoneGroup(this, zones[zoneIds[i]], localTimes[i], getLocalTime(i));
+                groups.put(key, group);
+            }
+            group.add(i);
+        }
+        return new ArrayList<>(groups.values());
+    }
+
+    /**
+     * Formats local time of every timezone whose participants share it
+     *
+     * @return formatted local times, null for timezones whose participants
+     * have different times
+     */
+    private String[] formatZoneTimes() {
+        long[] first = new long[zones.length];
+        boolean[] seen = new boolean[zones.length];
+        boolean[] shared = new boolean[zones.length];
+        for (int i = 0; i < size; i++) {
+            int zone = zoneIds[i];
+            if (!seen[zone]) {
+                seen[zone] = true;
+                shared[zone] = true;
+                first[zone] = localTimes[i];
+            } else if (first[zone] != localTimes[i]) {
+                shared[zone] = false;
+            }
+        }
+        String[] formatted = new String[zones.length];
+        for (int zone = 0; zone < zones.length; zone++) {
+            if (shared[zone]) {
+                formatted[zone] = TimeConverter.format(first[zone]);
+            }
+        }
+        return formatted;
+    }
+
+    /**
+     * Returns end of the name of the participant
+     *
+     * @param index index of the participant
+     * @return index after the last character of the name
+     */
+    private int nameEnds(int index) {
+        return nameEnds[checkIndex(index)];
+    }
+
+    /**
+     * Checks if the participant exists, arrays can be longer than the roster
+     *
+     * @param index index of the participant
+     * @return the same index
+     */
+    private int checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+        return index;
+    }
+
+    /**
+     * Replaces the roster with its compact serialized form
+     *
+     * @return serialized form of the roster
+     */
+    private Object writeReplace() {
+        return new SerializedForm(this);
+    }
+
+    /**
+     * Roster is always serialized by SerializedForm
+     *
+     * @param in stream with the serialized object
+     * @throws InvalidObjectException always
+     */
+    private void readObject(ObjectInputStream in) throws InvalidObjectException {
+        throw new InvalidObjectException("Roster has to be read from its serialized form");
+    }
+
+    /**
+     * Participants of the roster in one timezone with the same local time
+     */
+    public static final class ZoneGroup {
+
+        /** Roster of the participants */
+        private final Roster roster;
+
+        /** Timezone as it was written by the first participant of the group */
+        private final String zone;
+
+        /** Local time in seconds */
+        private final long localEpochSecond;
+
+        /** Formatted local time */
+        private final String localTime;
+
+        /** Indexes of the participants in the roster */
+        private int[] participants = new int[4];
+
+        /** Number of participants */
+        private int size;
+
+        /**
+         * Creates empty group
+         *
+         * @param roster roster of the participants
+         * @param zone timezone of the group
+         * @param localEpochSecond local time in seconds
+         * @param localTime formatted local time
+         */
+        private ZoneGroup(Roster roster, String zone, long localEpochSecond, String localTime) {
+            this.roster = roster;
+            this.zone = zone;
+            this.localEpochSecond = localEpochSecond;
+            this.localTime = localTime;
+        }
+
+        /**
+         * Adds participant to the group
+         *
+         * @param index index of the participant in the roster
+         */
+        private void add(int index) {
+            if (size == participants.length) {
+                participants = Arrays.copyOf(participants, size * 2);
+            }
+            participants[size++] = index;
+        }
+
+        /**
+         * Returns timezone as it was written by the first participant of the
+         * group
+         *
+         * @return timezone
+         */
+        public String getZone() {
+            return zone;
+        }
+
+        /**
+         * Returns local time as number of seconds from 1970-01-01 00:00:00 of
+         * the local clock
+         *
+         * @return local time in seconds
+         */
+        public long getLocalEpochSecond() {
+            return localEpochSecond;
+        }
+
+        /**
+         * Returns local time in yyyy-MM-dd HH:mm:ss format
+         *
+         * @return formatted local time
+         */
+        public String getLocalTime() {
+            return localTime;
+        }
+
+        /**
+         * Returns number of participants in the group
+         *
+         * @return number of participants
+         */
+        public int size() {
+            return size;
+        }
+
+        /**
+         * Returns name of the participant of the group
+         *
+         * @param index index of the participant in the group
+         * @return name of the participant
+         */
+        public String getName(int index) {
+            Objects.checkIndex(index, size);
+            return roster.getName(participants[index]);
+        }
+    }
+
+    /**
+     * Serialized form of the roster. Names are written in UTF-8, lengths of
+     * the names and indexes of the timezones as variable length numbers, and
+     * local times as differences from the previous participant, which are
+     * small because all of them are close to the meeting date.
+     */
+    private static final class SerializedForm implements Serializable {
+
+        /** Version of the serialized form */
+        private static final long serialVersionUID = 1L;
+
+        /** Distinct timezones */
+        private final String[] zones;
+
+        /** Names, lengths of the names, indexes of the timezones and times */
+        private final byte[] data;
+
+        /**
+         * Writes the roster
+         *
+         * @param roster serialized roster
+         */
+        private SerializedForm(Roster roster) {
+            this.zones = roster.zones;
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(roster.names.length + roster.size * 4);
+            try (DataOutputStream out = new DataOutputStream(bytes)) {
+                byte[] names = new String(roster.names).getBytes(StandardCharsets.UTF_8);
+                writeNumber(out, roster.size);
+                writeNumber(out, names.length);
+                out.write(names);
+                long previous = 0;
+                for (int i = 0; i < roster.size; i++) {
+                    writeNumber(out, roster.nameEnds[i] - (i == 0 ? 0 : roster.nameEnds[i - 1]));
+                    writeNumber(out, roster.zoneIds[i]);
+                    long difference = roster.localTimes[i] - previous;
+                    writeNumber(out, (difference << 1) ^ (difference >> 63));
+                    previous = roster.localTimes[i];
+                }
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+            this.data = bytes.toByteArray();
+        }
+
+        /**
+         * Reads the roster back
+         *
+         * @return deserialized roster
+         * @throws InvalidObjectException if the data is damaged
+         */
+        private Object readResolve() throws InvalidObjectException {
+            try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+                int size = (int) readNumber(in);
+                byte[] names = new byte[(int) readNumber(in)];
+                in.readFully(names);
+                String text = new String(names, StandardCharsets.UTF_8);
+                Builder builder = new Builder(size);
+                int start = 0;
+                long localTime = 0;
+                for (int i = 0; i < size; i++) {
+                    int end = start + (int) readNumber(in);
+                    int zone = (int) readNumber(in);
+                    long difference = readNumber(in);
+                    localTime += (difference >>> 1) ^ -(difference & 1);
+                    builder.add(text.substring(start, end), zones[zone], localTime);
+                    start = end;
+                }
+                return builder.build();
+            } catch (IOException | RuntimeException ex) {
+                InvalidObjectException invalid = new InvalidObjectException("Serialized roster is damaged");
+                invalid.initCause(ex);
+                throw invalid;
+            }
+        }
+
+        /**
+         * Writes non-negative number using 7 bits of every byte, highest bit
+         * marks that more bytes follow
+         *
+         * @param out output of the data
+         * @param value written number
+         * @throws IOException if the number couldn't be written
+         */
+        private static void writeNumber(DataOutput out, long value) throws IOException {
+            while ((value & ~0x7FL) != 0) {
+                out.writeByte((int) (value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            out.writeByte((int) value);
+        }
+
+        /**
+         * Reads number written by writeNumber
+         *
+         * @param in input of the data
+         * @return read number
+         * @throws IOException if the number couldn't be read
+         */
+        private static long readNumber(DataInput in) throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int part = in.readUnsignedByte();
+                value |= (long) (part & 0x7F) << shift;
+                if ((part & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Number is too long");
+        }
+    }
+
+    /**
+     * Collects participants one by one and creates the roster. Arrays grow
+     * like in ArrayList and are trimmed when the roster is built. Builder
+     * isn't thread safe.
+     */
+    public static final class Builder {
+
+        /** Number of added participants */
+        private int size;
+
+        /** Names of the participants */
+        private char[] names;
+
+        /** Number of used characters in names */
+        private int nameLength;
+
+        /** Ends of the names */
+        private int[] nameEnds;
+
+        /** Indexes of the timezones */
+        private int[] zoneIds;
+
+        /** Local times in seconds */
+        private long[] localTimes;
+
+        /** Distinct timezones in order of the first use */
+        private final List<String> zones = new ArrayList<>();
+
+        /** Index of every timezone in zones */
+        private final Map<String, Integer> zoneIndexes = new HashMap<>();
+
+        /**
+         * Creates builder for a small roster
+         */
+        public Builder() {
+            this(16);
+        }
+
+        /**
+         * Creates builder for given number of participants
+         *
+         * @param capacity expected number of participants
+         */
+        public Builder(int capacity) {
+            capacity = Math.max(capacity, 1);
+            this.names = new char[capacity * 8];
+            this.nameEnds = new int[capacity];
+            this.zoneIds = new int[capacity];
+            this.localTimes = new long[capacity];
+        }
+
+        /**
+         * Adds participant to the roster
+         *
+         * @param name name of the participant
+         * @param zone timezone of the participant
+         * @param localEpochSecond local time of the participant in seconds
+         * @return this builder
+         */
+        public Builder add(String name, String zone, long localEpochSecond) {
+            name.getChars(0, name.length(), reserve(name.length()), nameLength);
+            return added(name.length(), zone, localEpochSecond);
+        }
+
+        /**
+         * Adds all of the participants of other roster at the end, names are
+         * copied without creating strings
+         *
+         * @param roster added participants
+         * @return this builder
+         */
+        public Builder addAll(Roster roster) {
+            int start = 0;
+            for (int i = 0; i < roster.size; i++) {
+                int length = roster.nameEnds[i] - start;
+                System.arraycopy(roster.names, start, reserve(length), nameLength, length);
+                added(length, roster.zones[roster.zoneIds[i]], roster.localTimes[i]);
+                start = roster.nameEnds[i];
+            }
+            return this;
+        }
+
+        /**
+         * Makes room for the next participant and their name
+         *
+         * @param length length of the name
+         * @return array to which the name should be copied at nameLength
+         */
+        private char[] reserve(int length) {
+            if (size == nameEnds.length) {
+                int capacity = size + (size >> 1) + 1;
+                nameEnds = Arrays.copyOf(nameEnds, capacity);
+                zoneIds = Arrays.copyOf(zoneIds, capacity);
+                localTimes = Arrays.copyOf(localTimes, capacity);
+            }
+            if (nameLength + length > names.length) {
+                names = Arrays.copyOf(names, Math.max(names.length + (names.length >> 1), nameLength + length));
+            }
+            return names;
+        }
+
+        /**
+         * Stores the rest of the participant whose name was already copied
+         *
+         * @param length length of the name
+         * @param zone timezone of the participant
+         * @param localEpochSecond local time of the participant in seconds
+         * @return this builder
+         */
+        private Builder added(int length, String zone, long localEpochSecond) {
+            nameLength += length;
+            nameEnds[size] = nameLength;
+            zoneIds[size] = zoneIndexes.computeIfAbsent(zone, key -> {
+                zones.add(key);
+                return zones.size() - 1;
+            });
+            localTimes[size] = localEpochSecond;
+            ++size;
+            return this;
+        }
+
+        /**
+         * Creates roster with the added participants
+         *
+         * @return new roster
+         */
+        public Roster build() {
+            return new Roster(this);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package pl.polsl.model;
+
+/**
+ * One participant read from the roster file
+ *
+ * @author Jacek
+ * @version 1.5
+ */
+public final class RosterEntry {
+
+    /** Number of the line in the file, starting from 1 */
+    private final long lineNumber;
+
+    /** Name of the participant */
+    private final String name;
+
+    /** Timezone of the participant */
+    private final String zone;
+
+    /** Working hours of the participant or null if the line doesn't have them */
+    private final String hours;
+
+    /**
+     * Creates participant read from the file
+     *
+     * @param lineNumber number of the line in the file
+     * @param name name of the participant
+     * @param zone timezone of the participant
+     */
+    public RosterEntry(long lineNumber, String name, String zone) {
+        this(lineNumber, name, zone, null);
+    }
+
+    /**
+     * Creates participant with working hours read from the file
+     *
+     * @param lineNumber number of the line in the file
+     * @param name name of the participant
+     * @param zone timezone of the participant
+     * @param hours working hours of the participant, can be null
+     */
+    public RosterEntry(long lineNumber, String name, String zone, String hours) {
+        this.lineNumber = lineNumber;
+        this.name = name;
+        this.zone = zone;
+        this.hours = hours;
+    }
+
+    /**
+     * Returns number of the line in the file, starting from 1
+     *
+     * @return number of the line
+     */
+    public long getLineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * Returns name of the participant
+     *
+     * @return name of the participant
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns timezone of the participant
+     *
+     * @return timezone of the participant
+     */
+    public String getZone() {
+        return zone;
+    }
+
+    /**
+     * Returns working hours of the participant, as they were written in the
+     * file
+     *
+     * @return working hours in HH:mm-HH:mm format or null if they weren't given
+     */
+    public String getHours() {
+        return hours;
+    }
+
+    /**
+     * Reads working hours of the participant
+     *
+     * @return working hours or default hours if they weren't given
+     * @throws InvalidInputException if the hours are incorrect, message
+     * contains number of the line
+     */
+    public WorkingHours getWorkingHours() throws InvalidInputException {
+        if (hours == null) {
+            return WorkingHours.DEFAULT;
+        }
+        try {
+            return WorkingHours.parse(hours);
+        } catch (InvalidInputException ex) {
+            throw new InvalidInputException("Line " + lineNumber + ": " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Returns table of the timezone of the participant
+     *
+     * @return table of the timezone
+     * @throws InvalidInputException if the timezone doesn't exist, message
+     * contains number of the line
+     */
+    public ZoneTable getZoneTable() throws InvalidInputException {
+        try {
+            return ZoneTable.of(zone);
+        } catch (InvalidInputException ex) {
+            throw new InvalidInputException("Line " + lineNumber + ": " + ex.getMessage());
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package pl.polsl.model;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads participants from the roster file one at a time, so memory used by
+ * the reader doesn't depend on the size of the file. Every line contains
+ * name of the participant and their timezone separated by whitespace,
+ * optionally followed by their working hours, e.g. 09:00-17:00. Blank lines
+ * are skipped. Lines are split by hand instead of a regular expression.
+ *
+ * @author Jacek
+ * @version 1.5
+ */
+public class RosterReader implements Closeable {
+
+    /** Size of the buffer of the reader in characters */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /** Source of the lines */
+    private final BufferedReader reader;
+
+    /** Number of the last read line */
+    private long lineNumber;
+
+    /** Number of read participants */
+    private long participants;
+
+    /** Largest number of participants which can be read */
+    private long maxParticipants = Long.MAX_VALUE;
+
+    /**
+     * Creates reader of participants from given source
+     *
+     * @param source source of the roster
+     */
+    public RosterReader(Reader source) {
+        this.reader = source instanceof BufferedReader ? (BufferedReader) source : new BufferedReader(source, BUFFER_SIZE);
+    }
+
+    /**
+     * Opens the roster file encoded in UTF-8
+     *
+     * @param filename path to the file
+     * @return reader of participants from the file
+     * @throws FileNotFoundException if file with participants' data isn't found
+     */
+    public static RosterReader open(String filename) throws FileNotFoundException {
+        FileInputStream stream = new FileInputStream(new File(filename).getAbsoluteFile());
+        return new RosterReader(new InputStreamReader(stream, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Limits number of participants, so a roster sent by a user is rejected
+     * as soon as it has too many of them
+     *
+     * @param maxParticipants largest number of participants
+     */
+    public void setMaxParticipants(long maxParticipants) {
+        this.maxParticipants = maxParticipants;
+    }
+
+    /**
+     * Reads next participant
+     *
+     * @return next participant or null if there are no more of them
+     * @throws IOException if the file couldn't be read
+     * @throws RosterTooLargeException if the roster has more participants
+     * than the limit
+     * @throws InvalidInputException if the line doesn't contain name and
+     * timezone, message contains number of the line
+     */
+    public RosterEntry next() throws IOException, InvalidInputException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            ++lineNumber;
+            RosterEntry entry = parseLine(line, 0, line.length(), lineNumber);
+            if (entry != null) {
+                if (++participants > maxParticipants) {
+                    throw new RosterTooLargeException("Roster can't have more than " + maxParticipants + " participants");
+                }
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns number of the last read line
+     *
+     * @return number of the line, starting from 1
+     */
+    public long getLineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * Closes the source of the roster
+     *
+     * @throws IOException if the source couldn't be closed
+     */
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    /**
+     * Reads participant from one line. First token is the name, second is
+     * the timezone, third are optional working hours, next tokens are
+     * ignored.
+     *
+     * @param text text containing the line
+     * @param start index of the first character of the line
+     * @param end index after the last character of the line
+     * @param lineNumber number of the line used in error messages
+     * @return participant or null if the line is blank
+     * @throws InvalidInputException if the line contains only one token
+     */
+    static RosterEntry parseLine(CharSequence text, int start, int end, long lineNumber) throws InvalidInputException {
+        int nameStart = skipWhitespace(text, start, end);
+        if (nameStart == end) {
+            return null;
+        }
+        int nameEnd = skipToken(text, nameStart, end);
+        int zoneStart = skipWhitespace(text, nameEnd, end);
+        if (zoneStart == end) {
+            throw new InvalidInputException("Line " + lineNumber + ": participant should have a name and a timezone");
+        }
+        int zoneEnd = skipToken(text, zoneStart, end);
+        int hoursStart = skipWhitespace(text, zoneEnd, end);
+        String hours = hoursStart == end ? null : text.subSequence(hoursStart, skipToken(text, hoursStart, end)).toString();
+        return new RosterEntry(lineNumber, text.subSequence(nameStart, nameEnd).toString(),
+                text.subSequence(zoneStart, zoneEnd).toString(), hours);
+    }
+
+    /**
+     * Splits line into all of its tokens
+     *
+     * @param line line of the file
+     * @return tokens of the line
+     */
+    static List<String> split(String line) {
+        List<String> tokens = new ArrayList<>(2);
+        int index = skipWhitespace(line, 0, line.length());
+        while (index < line.length()) {
+            int tokenEnd = skipToken(line, index, line.length());
+            tokens.add(line.substring(index, tokenEnd));
+            index = skipWhitespace(line, tokenEnd, line.length());
+        }
+        return tokens;
+    }
+
+    /**
+     * Returns index of the first character which isn't whitespace
+     *
+     * @param text searched text
+     * @param index index where search starts
+     * @param end index where search ends
+     * @return index of the character or end
+     */
+    private static int skipWhitespace(CharSequence text, int index, int end) {
+        while (index < end && isWhitespace(text.charAt(index))) {
+            ++index;
+        }
+        return index;
+    }
+
+    /**
+     * Returns index of the first whitespace character
+     *
+     * @param text searched text
+     * @param index index where search starts
+     * @param end index where search ends
+     * @return index of the character or end
+     */
+    private static int skipToken(CharSequence text, int index, int end) {
+        while (index < end && !isWhitespace(text.charAt(index))) {
+            ++index;
+        }
+        return index;
+    }
+
+    /**
+     * Checks if character is whitespace, the same characters as \s in regular
+     * expressions
+     *
+     * @param c checked character
+     * @return true if the character is whitespace
+     */
+    static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f' || c == '\u000B';
+    }
+}
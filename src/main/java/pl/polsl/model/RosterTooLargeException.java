@@ -0,0 +1,20 @@
+package pl.polsl.model;
+
+/**
+ * Exception thrown when the roster has more participants or bytes than
+ * allowed, so it is rejected instead of being read to the end
+ *
+ * @author Jacek
+ * @version 1.5
+ */
+public class RosterTooLargeException extends InvalidInputException
+{
+    /**
+     * Calls the constructor of parent InvalidInputException.
+     * @param errorMessage contents of the exception
+     */
+    public RosterTooLargeException(String errorMessage)
+    {
+        super(errorMessage);
+    }
+}
@@ -0,0 +1,344 @@
+package pl.polsl.model;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Creates and upgrades tables used by the application. Every change of the
+ * schema is a numbered migration and numbers of applied migrations are kept
+ * in SCHEMA_VERSION table, so each of them is run exactly once. It should be
+ * run once, when the application starts.
+ *
+ * @author Jacek
+ * @version 1.5
+ */
+public class SchemaMigrator {
+
+    /**
+     * Single change of the schema
+     */
+    @FunctionalInterface
+    private interface Migration {
+
+        /**
+         * Applies the change inside of the transaction of the migrator
+         *
+         * @param statement statement used to run SQL
+         * @throws SQLException if the change couldn't be applied
+         */
+        void apply(Statement statement) throws SQLException;
+    }
+
+    /**
+     * Number of rows of HISTORY_STATS sharing the number of saved times
+     */
+    private static final int HISTORY_SHARDS = 16;
+
+    /**
+     * Migrations in order, migration at index i upgrades schema to version i + 1
+     */
+    private final List<Migration> migrations = new ArrayList<>();
+
+    /**
+     * Creates migrator with all of the migrations of the application
+     */
+    public SchemaMigrator() {
+        migrations.add(this::createTables);
+        migrations.add(this::linkTimesToParticipants);
+        migrations.add(this::addHistoryIndexAndCount);
+        migrations.add(this::addMeetingOwner);
+        migrations.add(this::addRosterVersions);
+        migrations.add(this::shardHistoryCount);
+        migrations.add(this::addRosterIdentity);
+        migrations.add(this::addParticipantVersions);
+    }
+
+    /**
+     * Returns version of the schema after all of the migrations
+     *
+     * @return latest version of the schema
+     */
+    public int getLatestVersion() {
+        return migrations.size();
+    }
+
+    /**
+     * Applies all of the migrations which weren't applied yet. Each migration
+     * runs in its own transaction, while SCHEMA_VERSION table is locked, so
+     * two servers starting at once won't apply the same migration twice.
+     *
+     * @param con Connection to database
+     * @return version of the schema after the migration
+     * @throws SQLException if one of the migrations failed, it is rolled back
+     */
+    public int migrate(Connection con) throws SQLException {
+        boolean autoCommit = con.getAutoCommit();
+        try {
+            createVersionTable(con);
+            con.setAutoCommit(false);
+            for (int version = 1; version <= migrations.size(); version++) {
+                try (Statement statement = con.createStatement()) {
+                    statement.execute("LOCK TABLE APP.SCHEMA_VERSION IN EXCLUSIVE MODE");
+                    if (getCurrentVersion(con) < version) {
+                        migrations.get(version - 1).apply(statement);
+                        try (PreparedStatement insert = con.prepareStatement(
+                                "INSERT INTO APP.SCHEMA_VERSION (VERSION, APPLIED_AT) VALUES (?, CURRENT_TIMESTAMP)")) {
+                            insert.setInt(1, version);
+                            insert.executeUpdate();
+                        }
+                    }
+                    con.commit();
+                } catch (SQLException ex) {
+                    con.rollback();
+                    throw new SQLException("Migration of the database to version " + version + " failed: " + ex.getMessage(), ex);
+                }
+            }
+            return getCurrentVersion(con);
+        } finally {
+            con.setAutoCommit(autoCommit);
+        }
+    }
+
+    /**
+     * Returns version of the schema in the database
+     *
+     * @param con Connection to database
+     * @return number of the last applied migration, 0 if there was none
+     * @throws SQLException if version couldn't be read
+     */
+    public int getCurrentVersion(Connection con) throws SQLException {
+        try (Statement statement = con.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT MAX(VERSION) FROM APP.SCHEMA_VERSION")) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    /**
+     * Creates table with applied migrations if it doesn't exist
+     *
+     * @param con Connection to database
+     * @throws SQLException if the table couldn't be created
+     */
+    private void createVersionTable(Connection con) throws SQLException {
+        if (!tableExists(con.getMetaData(), "SCHEMA_VERSION")) {
+            try (Statement statement = con.createStatement()) {
+                statement.executeUpdate("CREATE TABLE APP.SCHEMA_VERSION "
+                        + "(VERSION INTEGER NOT NULL PRIMARY KEY, "
+                        + "APPLIED_AT TIMESTAMP NOT NULL)");
+            }
+        }
+    }
+
+    /**
+     * Version 1: PARTICIPANTS and TIMES tables in their original form. They
+     * are created only if they don't exist yet, because databases created
+     * before migrations were introduced already have them.
+     *
+     * @param statement statement used to run SQL
+     * @throws SQLException if tables couldn't be created
+     */
+    private void createTables(Statement statement) throws SQLException {
+        DatabaseMetaData dbm = statement.getConnection().getMetaData();
+        if (!tableExists(dbm, "TIMES")) {
+            statement.executeUpdate("CREATE TABLE APP.TIMES "
+                    + "(ID INTEGER NOT NULL PRIMARY KEY "
+                    + "GENERATED ALWAYS AS IDENTITY (START WITH 1, INCREMENT BY 1),"
+                    + "TIME VARCHAR(50))");
+        }
+        if (!tableExists(dbm, "PARTICIPANTS")) {
+            statement.executeUpdate("CREATE TABLE APP.PARTICIPANTS "
+                    + "(ID INTEGER NOT NULL PRIMARY KEY "
+                    + "GENERATED ALWAYS AS IDENTITY (START WITH 1, INCREMENT BY 1),"
+                    + "NAME VARCHAR(50))");
+            statement.executeUpdate("ALTER TABLE APP.PARTICIPANTS "
+                    + "ADD FOREIGN KEY (ID) "
+                    + "REFERENCES APP.TIMES (ID)");
+        }
+    }
+
+    /**
+     * Version 2: every saved roster gets a row in MEETINGS table and every
+     * time in TIMES references its participant with PARTICIPANT_ID column,
+     * instead of relying on equal identity values in both tables. Existing
+     * rows are linked by their old ids and times without participant are
+     * removed.
+     *
+     * @param statement statement used to run SQL
+     * @throws SQLException if the schema couldn't be changed
+     */
+    private void linkTimesToParticipants(Statement statement) throws SQLException {
+        List<String> oldKeys = new ArrayList<>();
+        try (ResultSet rs = statement.executeQuery("SELECT c.CONSTRAINTNAME FROM SYS.SYSCONSTRAINTS c "
+                + "JOIN SYS.SYSTABLES t ON c.TABLEID = t.TABLEID "
+                + "JOIN SYS.SYSSCHEMAS s ON t.SCHEMAID = s.SCHEMAID "
+                + "WHERE s.SCHEMANAME = 'APP' AND t.TABLENAME = 'PARTICIPANTS' AND c.TYPE = 'F'")) {
+            while (rs.next()) {
+                oldKeys.add(rs.getString(1));
+            }
+        }
+        for (String oldKey : oldKeys) {
+            statement.executeUpdate("ALTER TABLE APP.PARTICIPANTS DROP CONSTRAINT \"" + oldKey + "\"");
+        }
+
+        statement.executeUpdate("CREATE TABLE APP.MEETINGS "
+                + "(ID INTEGER NOT NULL PRIMARY KEY "
+                + "GENERATED ALWAYS AS IDENTITY (START WITH 1, INCREMENT BY 1),"
+                + "MEETING_DATE VARCHAR(50) NOT NULL,"
+                + "CREATED_AT TIMESTAMP NOT NULL)");
+        statement.executeUpdate("ALTER TABLE APP.PARTICIPANTS ADD COLUMN MEETING_ID INTEGER");
+        statement.executeUpdate("ALTER TABLE APP.PARTICIPANTS ADD COLUMN POSITION INTEGER");
+        statement.executeUpdate("ALTER TABLE APP.PARTICIPANTS ADD CONSTRAINT PARTICIPANTS_MEETING_FK "
+                + "FOREIGN KEY (MEETING_ID) REFERENCES APP.MEETINGS (ID) ON DELETE CASCADE");
+        statement.executeUpdate("ALTER TABLE APP.PARTICIPANTS ADD CONSTRAINT PARTICIPANTS_POSITION_UNIQUE "
+                + "UNIQUE (MEETING_ID, POSITION)");
+
+        statement.executeUpdate("ALTER TABLE APP.TIMES ADD COLUMN PARTICIPANT_ID INTEGER");
+        statement.executeUpdate("UPDATE APP.TIMES SET PARTICIPANT_ID = ID "
+                + "WHERE ID IN (SELECT ID FROM APP.PARTICIPANTS)");
+        statement.executeUpdate("DELETE FROM APP.TIMES WHERE PARTICIPANT_ID IS NULL");
+        statement.executeUpdate("ALTER TABLE APP.TIMES ALTER COLUMN PARTICIPANT_ID NOT NULL");
+        statement.executeUpdate("ALTER TABLE APP.TIMES ADD CONSTRAINT TIMES_PARTICIPANT_FK "
+                + "FOREIGN KEY (PARTICIPANT_ID) REFERENCES APP.PARTICIPANTS (ID) ON DELETE CASCADE");
+    }
+
+    /**
+     * Version 3: index covering the history query, so pages are read only
+     * from the indexes, and HISTORY_STATS table with number of saved times.
+     * The number is kept up to date by triggers, so it can be read without
+     * counting all of the rows.
+     *
+     * @param statement statement used to run SQL
+     * @throws SQLException if the schema couldn't be changed
+     */
+    private void addHistoryIndexAndCount(Statement statement) throws SQLException {
+        statement.executeUpdate("CREATE INDEX APP.TIMES_PARTICIPANT_TIME ON APP.TIMES (PARTICIPANT_ID, TIME)");
+
+        statement.executeUpdate("CREATE TABLE APP.HISTORY_STATS "
+                + "(ID INTEGER NOT NULL PRIMARY KEY,"
+                + "ROW_COUNT BIGINT NOT NULL)");
+        statement.executeUpdate("INSERT INTO APP.HISTORY_STATS (ID, ROW_COUNT) "
+                + "SELECT 1, COUNT(*) FROM APP.TIMES");
+        statement.executeUpdate("CREATE TRIGGER APP.TIMES_COUNT_INSERT AFTER INSERT ON APP.TIMES "
+                + "REFERENCING NEW_TABLE AS INSERTED FOR EACH STATEMENT "
+                + "UPDATE APP.HISTORY_STATS SET ROW_COUNT = ROW_COUNT + (SELECT COUNT(*) FROM INSERTED) WHERE ID = 1");
+        statement.executeUpdate("CREATE TRIGGER APP.TIMES_COUNT_DELETE AFTER DELETE ON APP.TIMES "
+                + "REFERENCING OLD_TABLE AS DELETED FOR EACH STATEMENT "
+                + "UPDATE APP.HISTORY_STATS SET ROW_COUNT = ROW_COUNT - (SELECT COUNT(*) FROM DELETED) WHERE ID = 1");
+    }
+
+    /**
+     * Version 4: OWNER column of MEETINGS with the user or team which saved
+     * the meeting and index used to read their last meetings
+     *
+     * @param statement statement used to run SQL
+     * @throws SQLException if the schema couldn't be changed
+     */
+    private void addMeetingOwner(Statement statement) throws SQLException {
+        statement.executeUpdate("ALTER TABLE APP.MEETINGS ADD COLUMN OWNER VARCHAR(100)");
+        statement.executeUpdate("CREATE INDEX APP.MEETINGS_OWNER ON APP.MEETINGS (OWNER, ID)");
+    }
+
+    /**
+     * Version 5: VERSION column of MEETINGS counting rosters sent for the
+     * meeting, ROW_HASH column of PARTICIPANTS with the hash of the name and
+     * the local time, and index used to find the meeting of the owner at the
+     * date. Rows saved earlier have no hash, so they are updated once when
+     * their roster is sent again.
+     *
+     * @param statement statement used to run SQL
+     * @throws SQLException if the schema couldn't be changed
+     */
+    private void addRosterVersions(Statement statement) throws SQLException {
+        statement.executeUpdate("ALTER TABLE APP.MEETINGS ADD COLUMN VERSION INTEGER NOT NULL DEFAULT 1");
+        statement.executeUpdate("ALTER TABLE APP.PARTICIPANTS ADD COLUMN ROW_HASH BIGINT");
+        statement.executeUpdate("CREATE INDEX APP.MEETINGS_OWNER_DATE ON APP.MEETINGS (OWNER, MEETING_DATE)");
+    }
+
+    /**
+     * Version 6: number of saved times split into HISTORY_SHARDS rows of
+     * HISTORY_STATS. Both triggers updated the same row, which stayed locked
+     * until the end of the transaction, so every transaction saving times
+     * waited for the others. Times inserted by one statement are now counted
+     * in the row chosen by the meeting of their first participant and deleted
+     * times in the row chosen by their first participant, so saves of
+     * different meetings rarely wait for each other. The row is found with
+     * scalar subqueries instead of a join, so only that row is locked, not
+     * every row read by a scan. Rows can become negative, only their sum is
+     * the number of times.
+     *
+     * @param statement statement used to run SQL
+     * @throws SQLException if the schema couldn't be changed
+     */
+    private void shardHistoryCount(Statement statement) throws SQLException {
+        statement.executeUpdate("DROP TRIGGER APP.TIMES_COUNT_INSERT");
+        statement.executeUpdate("DROP TRIGGER APP.TIMES_COUNT_DELETE");
+        for (int shard = 0; shard < HISTORY_SHARDS; shard++) {
+            if (shard != 1) {
+                statement.executeUpdate("INSERT INTO APP.HISTORY_STATS (ID, ROW_COUNT) VALUES (" + shard + ", 0)");
+            }
+        }
+        statement.executeUpdate("CREATE TRIGGER APP.TIMES_COUNT_INSERT AFTER INSERT ON APP.TIMES "
+                + "REFERENCING NEW_TABLE AS INSERTED FOR EACH STATEMENT "
+                + "UPDATE APP.HISTORY_STATS SET ROW_COUNT = ROW_COUNT + (SELECT COUNT(*) FROM INSERTED) "
+                + "WHERE ID = MOD(COALESCE((SELECT MEETING_ID FROM APP.PARTICIPANTS "
+                + "WHERE ID = (SELECT MIN(PARTICIPANT_ID) FROM INSERTED)), "
+                + "(SELECT MIN(PARTICIPANT_ID) FROM INSERTED)), " + HISTORY_SHARDS + ")");
+        statement.executeUpdate("CREATE TRIGGER APP.TIMES_COUNT_DELETE AFTER DELETE ON APP.TIMES "
+                + "REFERENCING OLD_TABLE AS DELETED FOR EACH STATEMENT "
+                + "UPDATE APP.HISTORY_STATS SET ROW_COUNT = ROW_COUNT - (SELECT COUNT(*) FROM DELETED) "
+                + "WHERE ID = MOD((SELECT MIN(PARTICIPANT_ID) FROM DELETED), " + HISTORY_SHARDS + ")");
+    }
+
+    /**
+     * Version 7: ROSTER column of MEETINGS with the name of the roster file,
+     * which together with the owner and the date identifies versions of a
+     * roster, and SUPERSEDED_BY column with the id of the meeting which
+     * replaced the version. The index of version 5 is replaced by one which
+     * finds the current version of the roster. Meetings saved earlier have no
+     * roster, so they never get a new version.
+     *
+     * @param statement statement used to run SQL
+     * @throws SQLException if the schema couldn't be changed
+     */
+    private void addRosterIdentity(Statement statement) throws SQLException {
+        statement.executeUpdate("ALTER TABLE APP.MEETINGS ADD COLUMN ROSTER VARCHAR(255)");
+        statement.executeUpdate("ALTER TABLE APP.MEETINGS ADD COLUMN SUPERSEDED_BY INTEGER");
+        statement.executeUpdate("DROP INDEX APP.MEETINGS_OWNER_DATE");
+        statement.executeUpdate("CREATE INDEX APP.MEETINGS_ROSTER ON APP.MEETINGS (OWNER, ROSTER, MEETING_DATE)");
+    }
+
+    /**
+     * Version 8: SUPERSEDED_IN column of PARTICIPANTS with the version of the
+     * roster which replaced or removed the participant, so a new version of a
+     * team roster is saved in the same meeting and only its changed rows are
+     * written. SUPERSEDED_BY of MEETINGS isn't set anymore, it only marks
+     * versions saved earlier as separate meetings.
+     *
+     * @param statement statement used to run SQL
+     * @throws SQLException if the schema couldn't be changed
+     */
+    private void addParticipantVersions(Statement statement) throws SQLException {
+        statement.executeUpdate("ALTER TABLE APP.PARTICIPANTS ADD COLUMN SUPERSEDED_IN INTEGER");
+    }
+
+    /**
+     * Checks if table exists in APP schema
+     *
+     * @param dbm metadata of the database
+     * @param table name of the table
+     * @return true if table exists
+     * @throws SQLException if metadata couldn't be read
+     */
+    private static boolean tableExists(DatabaseMetaData dbm, String table) throws SQLException {
+        try (ResultSet rs = dbm.getTables(null, "APP", table, new String[] {"TABLE"})) {
+            return rs.next();
+        }
+    }
+}
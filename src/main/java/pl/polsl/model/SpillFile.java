@@ -0,0 +1,261 @@
+package pl.polsl.model;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Journal of meetings waiting in the write-behind queue. Every accepted
+ * meeting is appended before it is queued and a mark is appended when it is
+ * saved, so meetings which weren't saved when the server stopped are read
+ * back when it starts again. A meeting saved just before the server stopped
+ * can be saved twice, but it is never lost. The file is emptied whenever the
+ * queue is empty and rewritten with the waiting meetings when it grows too
+ * large.
+ *
+ * @author Jacek
+ * @version 1.5
+ */
+final class SpillFile implements Closeable {
+
+    /** Type of the record with a queued meeting, written by older versions */
+    private static final byte QUEUED = 1;
+
+    /** Type of the record with a queued meeting and the name of its roster */
+    private static final byte QUEUED_ROSTER = 3;
+
+    /** Type of the record marking a saved meeting */
+    private static final byte SAVED = 2;
+
+    /** Longest text which can be read, longer one means the file is damaged */
+    private static final int MAX_STRING_BYTES = 1 << 20;
+
+    /** Logger used to report damaged files */
+    private static final Logger LOGGER = Logger.getLogger(SpillFile.class.getName());
+
+    /** Path of the file */
+    private final Path path;
+
+    /** Stream appending to the file */
+    private DataOutputStream out;
+
+    /**
+     * Opens the file, creating it if it doesn't exist
+     *
+     * @param path path of the file
+     * @throws IOException if the file couldn't be opened
+     */
+    SpillFile(Path path) throws IOException {
+        this.path = path;
+        this.out = open();
+    }
+
+    /**
+     * Reads meetings which were queued but not saved, in order in which they
+     * were queued. The file can end in the middle of a record if the server
+     * stopped while it was written, such record is skipped.
+     *
+     * @return meetings which weren't saved
+     * @throws IOException if the file couldn't be read
+     */
+    List<WriteBehindQueue.Meeting> recover() throws IOException {
+        Map<Long, WriteBehindQueue.Meeting> pending = new LinkedHashMap<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            while (true) {
+                int type = in.read();
+                if (type < 0) {
+                    break;
+                } else if (type == QUEUED || type == QUEUED_ROSTER) {
+                    WriteBehindQueue.Meeting meeting = readMeeting(in, type == QUEUED_ROSTER);
+                    pending.put(meeting.getSequence(), meeting);
+                } else if (type == SAVED) {
+                    pending.remove(in.readLong());
+                } else {
+                    throw new IOException("Spill file " + path + " is damaged, unknown record type " + type);
+                }
+            }
+        } catch (NoSuchFileException ex) {
+            return new ArrayList<>();
+        } catch (EOFException ex) {
+            LOGGER.log(Level.WARNING, "Spill file {0} ends with an incomplete record, it is skipped", path);
+        }
+        return new ArrayList<>(pending.values());
+    }
+
+    /**
+     * Appends queued meeting and sends it to the operating system, so it
+     * survives stopping of the server
+     *
+     * @param meeting queued meeting
+     * @throws IOException if the file couldn't be written
+     */
+    void append(WriteBehindQueue.Meeting meeting) throws IOException {
+        writeMeeting(out, meeting);
+        out.flush();
+    }
+
+    /**
+     * Marks meetings as saved
+     *
+     * @param meetings saved meetings
+     * @throws IOException if the file couldn't be written
+     */
+    void saved(Collection<WriteBehindQueue.Meeting> meetings) throws IOException {
+        for (WriteBehindQueue.Meeting meeting : meetings) {
+            out.writeByte(SAVED);
+            out.writeLong(meeting.getSequence());
+        }
+        out.flush();
+    }
+
+    /**
+     * Returns size of the file
+     *
+     * @return size in bytes
+     * @throws IOException if the size couldn't be read
+     */
+    long size() throws IOException {
+        return Files.size(path);
+    }
+
+    /**
+     * Replaces content of the file with the waiting meetings. New file is
+     * written next to the old one and moved over it, so the meetings are
+     * kept even if the server stops in the meantime.
+     *
+     * @param pending meetings which weren't saved yet
+     * @throws IOException if the file couldn't be written
+     */
+    void rewrite(Collection<WriteBehindQueue.Meeting> pending) throws IOException {
+        out.close();
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (DataOutputStream copy = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+            for (WriteBehindQueue.Meeting meeting : pending) {
+                writeMeeting(copy, meeting);
+            }
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        out = open();
+    }
+
+    /**
+     * Closes the file
+     *
+     * @throws IOException if the file couldn't be closed
+     */
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    /**
+     * Opens the file for appending
+     *
+     * @return stream appending to the file
+     * @throws IOException if the file couldn't be opened
+     */
+    private DataOutputStream open() throws IOException {
+        return new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)));
+    }
+
+    /**
+     * Writes record of a queued meeting
+     *
+     * @param out written stream
+     * @param meeting queued meeting
+     * @throws IOException if the stream couldn't be written
+     */
+    private static void writeMeeting(DataOutputStream out, WriteBehindQueue.Meeting meeting) throws IOException {
+        List<List<String>> participants = meeting.getParticipants();
+        out.writeByte(QUEUED_ROSTER);
+        out.writeLong(meeting.getSequence());
+        writeString(out, meeting.getMeetingDate());
+        writeString(out, meeting.getOwner());
+        writeString(out, meeting.getRoster());
+        out.writeInt(participants.size());
+        for (List<String> participant : participants) {
+            writeString(out, participant.size() > 0 ? participant.get(0) : null);
+            writeString(out, participant.size() > 1 ? participant.get(1) : null);
+        }
+    }
+
+    /**
+     * Reads record of a queued meeting, without its type
+     *
+     * @param in read stream
+     * @param withRoster true if the record contains the name of the roster
+     * @return queued meeting
+     * @throws IOException if the stream couldn't be read
+     */
+    private static WriteBehindQueue.Meeting readMeeting(DataInputStream in, boolean withRoster) throws IOException {
+        long sequence = in.readLong();
+        String meetingDate = readString(in);
+        String owner = readString(in);
+        String roster = withRoster ? readString(in) : null;
+        int size = in.readInt();
+        if (size < 0) {
+            throw new IOException("Spill file is damaged, meeting has " + size + " participants");
+        }
+        List<List<String>> participants = new ArrayList<>(Math.min(size, 1 << 16));
+        for (int i = 0; i < size; i++) {
+            participants.add(Arrays.asList(readString(in), readString(in)));
+        }
+        return new WriteBehindQueue.Meeting(sequence, meetingDate, owner, roster, participants);
+    }
+
+    /**
+     * Writes text as its length and UTF-8 bytes, null is written as length -1
+     *
+     * @param out written stream
+     * @param value written text
+     * @throws IOException if the stream couldn't be written
+     */
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Reads text written by writeString
+     *
+     * @param in read stream
+     * @return read text or null
+     * @throws IOException if the stream couldn't be read
+     */
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        if (length > MAX_STRING_BYTES) {
+            throw new IOException("Spill file is damaged, text has " + length + " bytes");
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
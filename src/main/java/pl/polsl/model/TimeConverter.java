@@ -0,0 +1,193 @@
+package pl.polsl.model;
+
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.ResolverStyle;
+import java.time.zone.ZoneRules;
+import java.util.regex.Pattern;
+
+/**
+ * Converts the meeting date to local times of the participants. Meeting date
+ * is parsed once per request in the reference timezone, GMT+2 by default.
+ * Tables of the timezones are computed once per distinct timezone and shared
+ * by all threads, so converting a participant only searches the offset and
+ * formats the result.
+ *
+ * @author Jacek
+ * @version 1.5
+ */
+public final class TimeConverter {
+
+    /** Pattern of the meeting date in yyyy-MM-dd HH:mm:ss format */
+    private static final Pattern DATE_PATTERN = Pattern
+            .compile("^((19|2[0-9])[0-9]{2})-(0[1-9]|1[012])-(0[1-9]|[12][0-9]|3[01]) (2[0-3]|[01]?[0-9]):([0-5]?[0-9]):([0-5]?[0-9])$");
+
+    /** Parser of the meeting date, hours, minutes and seconds can have one digit */
+    private static final DateTimeFormatter MEETING_FORMAT = DateTimeFormatter.ofPattern("uuuu-MM-dd H:m:s")
+            .withResolverStyle(ResolverStyle.STRICT);
+
+    /** Parser of days of the searched ranges */
+    private static final DateTimeFormatter DAY_FORMAT = DateTimeFormatter.ofPattern("uuuu-MM-dd")
+            .withResolverStyle(ResolverStyle.STRICT);
+
+    /** Timezone in which meeting dates are given by default */
+    public static final String DEFAULT_REFERENCE_ZONE = "GMT+2";
+
+    /** Timezone in which meeting dates are given */
+    private final ZoneRules referenceZone;
+
+    /** Name of the timezone in which meeting dates are given */
+    private final String referenceName;
+
+    /**
+     * Creates converter for meeting dates given in GMT+2
+     */
+    public TimeConverter() {
+        this.referenceZone = ZoneOffset.ofHours(2).getRules();
+        this.referenceName = DEFAULT_REFERENCE_ZONE;
+    }
+
+    /**
+     * Creates converter for meeting dates given in the timezone
+     *
+     * @param referenceZone timezone of meeting dates, e.g. Europe/Warsaw
+     * @throws InvalidInputException if the timezone doesn't exist
+     */
+    public TimeConverter(String referenceZone) throws InvalidInputException {
+        this.referenceZone = ZoneTable.of(referenceZone).getRules();
+        this.referenceName = referenceZone;
+    }
+
+    /**
+     * Returns name of the timezone in which meeting dates are given
+     *
+     * @return name of the timezone
+     */
+    public String getReferenceZone() {
+        return referenceName;
+    }
+
+    /**
+     * Checks the meeting date and converts it to the instant of the meeting
+     *
+     * @param meetingDate date of the meeting in yyyy-MM-dd HH:mm:ss format
+     * @return instant of the meeting
+     * @throws InvalidInputException if the date is empty, in wrong format or
+     * doesn't exist
+     */
+    public Instant parseMeetingDate(String meetingDate) throws InvalidInputException {
+        if (meetingDate.isBlank()) {
+            throw new InvalidInputException("Date was empty!");
+        }
+        if (!DATE_PATTERN.matcher(meetingDate).matches()) {
+            throw new InvalidInputException("Date was invalid! Please use yyyy-MM-dd HH:mm:ss format");
+        }
+        try {
+            LocalDateTime local = LocalDateTime.parse(meetingDate, MEETING_FORMAT);
+            return local.toInstant(referenceZone.getOffset(local));
+        } catch (DateTimeException ex) {
+            throw new InvalidInputException("Date was invalid! " + meetingDate + " doesn't exist");
+        }
+    }
+
+    /**
+     * Checks the day and returns the instant of its midnight in the timezone
+     * of meeting dates
+     *
+     * @param day day in yyyy-MM-dd format
+     * @return instant of the start of the day
+     * @throws InvalidInputException if the day is empty, in wrong format or
+     * doesn't exist
+     */
+    public Instant parseDay(String day) throws InvalidInputException {
+        if (day == null || day.isBlank()) {
+            throw new InvalidInputException("Day was empty!");
+        }
+        try {
+            LocalDateTime midnight = LocalDate.parse(day, DAY_FORMAT).atStartOfDay();
+            return midnight.toInstant(referenceZone.getOffset(midnight));
+        } catch (DateTimeException ex) {
+            throw new InvalidInputException("Day " + day + " is invalid! Please use yyyy-MM-dd format");
+        }
+    }
+
+    /**
+     * Returns time of the instant in the timezone of meeting dates
+     *
+     * @param instant formatted instant
+     * @return time in yyyy-MM-dd HH:mm:ss format
+     */
+    public String referenceTime(Instant instant) {
+        return format(instant.getEpochSecond() + referenceZone.getOffset(instant).getTotalSeconds());
+    }
+
+    /**
+     * Returns local time of the meeting in given timezone
+     *
+     * @param meeting instant of the meeting
+     * @param zone timezone of the participant, e.g. GMT+1
+     * @return local time in yyyy-MM-dd HH:mm:ss format
+     * @throws InvalidInputException if the timezone doesn't exist
+     */
+    public String localTime(Instant meeting, String zone) throws InvalidInputException {
+        return format(localEpochSecond(meeting, zone));
+    }
+
+    /**
+     * Returns local time of the meeting in given timezone as number of
+     * seconds from 1970-01-01 00:00:00 of the local clock
+     *
+     * @param meeting instant of the meeting
+     * @param zone timezone of the participant, e.g. GMT+1
+     * @return local time in seconds
+     * @throws InvalidInputException if the timezone doesn't exist
+     */
+    public long localEpochSecond(Instant meeting, String zone) throws InvalidInputException {
+        return ZoneTable.of(zone).localEpochSecond(meeting);
+    }
+
+    /**
+     * Formats local time given as number of seconds from 1970-01-01 00:00:00
+     * of the local clock in yyyy-MM-dd HH:mm:ss format. Fields are written
+     * directly to one array instead of using a formatter.
+     *
+     * @param localEpochSecond local time in seconds
+     * @return formatted local time
+     */
+    public static String format(long localEpochSecond) {
+        LocalDateTime time = LocalDateTime.ofEpochSecond(localEpochSecond, 0, ZoneOffset.UTC);
+        char[] text = new char[19];
+        int year = time.getYear();
+        text[0] = (char) ('0' + year / 1000 % 10);
+        text[1] = (char) ('0' + year / 100 % 10);
+        text[2] = (char) ('0' + year / 10 % 10);
+        text[3] = (char) ('0' + year % 10);
+        text[4] = '-';
+        twoDigits(text, 5, time.getMonthValue());
+        text[7] = '-';
+        twoDigits(text, 8, time.getDayOfMonth());
+        text[10] = ' ';
+        twoDigits(text, 11, time.getHour());
+        text[13] = ':';
+        twoDigits(text, 14, time.getMinute());
+        text[16] = ':';
+        twoDigits(text, 17, time.getSecond());
+        return new String(text);
+    }
+
+    /**
+     * Writes number as two digits
+     *
+     * @param text array with the result
+     * @param index index of the first digit
+     * @param value written number, from 0 to 99
+     */
+    private static void twoDigits(char[] text, int index, int value) {
+        text[index] = (char) ('0' + value / 10);
+        text[index + 1] = (char) ('0' + value % 10);
+    }
+}
@@ -1,23 +1,27 @@
 package pl.polsl.model;
 
+import java.io.BufferedReader;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.sql.Connection;
-import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Savepoint;
 import java.sql.Statement;
-import java.text.DateFormat;
 import java.text.ParseException;
-import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Date;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Scanner;
-import java.util.TimeZone;
-import java.util.Vector;
-import java.util.regex.Pattern;
-import java.util.stream.Collectors;
+import java.util.Map;
 
 /**
  * Model part of the Model-View-Controller is responsible for computing and processing values
@@ -26,23 +30,81 @@ import java.util.stream.Collectors;
  * @version 1.5
  */
 public class TimesModel {
-    
+
+    /**
+     * Prefix of owners who are users logged in by the container. Only rows of
+     * their rosters are changed in place by a new version, because nobody
+     * else can send a roster as them.
+     */
+    public static final String USER_OWNER = "user:";
+
+    /**
+     * Prefix of owners which are teams given in the form. Anybody can send a
+     * roster of a team, so a new version only marks rows of the previous one
+     * as superseded and never changes their data.
+     */
+    public static final String TEAM_OWNER = "team:";
+
+    /** Maximal length of ROSTER column */
+    public static final int ROSTER_LENGTH = 255;
+
+    /** Maximal length of NAME and TIME columns */
+    private static final int COLUMN_LENGTH = 50;
+
+    /** Id returned when there is no saved meeting */
+    private static final int NO_MEETING = -1;
+
+    /** Offset basis of the FNV-1a hash of rows */
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+
+    /** Prime of the FNV-1a hash of rows */
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    /** Converts meeting date to local times */
+    private final TimeConverter converter;
+
     /** Name of the participant */
     private String name;
     
     /** Local time of the participant */
     private String localTime;
     
-    /** Vector containing history of meeting dates */
-    private final Vector<String> meetingDateHistory = new Vector<String>();
+    /** Last meeting dates converted with this model */
+    private final MeetingHistory meetingDateHistory = new MeetingHistory(MeetingHistory.DEFAULT_CAPACITY);
+
+    /**
+     * Creates model for meeting dates given in GMT+2
+     */
+    public TimesModel() {
+        this.converter = new TimeConverter();
+    }
+
+    /**
+     * Creates model for meeting dates given in the timezone
+     *
+     * @param referenceZone timezone of meeting dates, e.g. Europe/Warsaw
+     * @throws InvalidInputException if the timezone doesn't exist
+     */
+    public TimesModel(String referenceZone) throws InvalidInputException {
+        this.converter = new TimeConverter(referenceZone);
+    }
+
+    /**
+     * Returns timezone in which meeting dates are given
+     *
+     * @return name of the timezone
+     */
+    public String getReferenceZone() {
+        return converter.getReferenceZone();
+    }
     
-    /** Returns history of meeting dates 
+    /** Returns history of meeting dates, from the newest one
      *
-     * @return vector of previous meeting dates
+     * @return list of previous meeting dates
      */
-    public Vector<String> getMeetingDateHistory()
+    public List<String> getMeetingDateHistory()
     {
-        return meetingDateHistory;
+        return meetingDateHistory.getDates();
     }
     
     /**
@@ -59,13 +121,21 @@ public class TimesModel {
      * @throws InvalidInputException If string with name is empty
      */
     public void setName(String name) throws InvalidInputException {
-        
+        this.name = validateName(name);
+    }
+
+    /**
+     * Checks participants' name without changing the state of the model
+     * @param name Name of the participant
+     * @return the same name if it is correct
+     * @throws InvalidInputException If string with name is empty
+     */
+    public String validateName(String name) throws InvalidInputException {
         if(name.isEmpty())
         {
-            this.name = "";
             throw new InvalidInputException("Name cannot be empty!"); 
         }
-        this.name = name;
+        return name;
     }
 
     /**
@@ -86,10 +156,10 @@ public class TimesModel {
 
     /**
      * Opens file with names and timezones and then converts each line to
-     * two-element list "splitStr" where first element it the name of the
-     * participant and the second is their timezone. If it can't open file it
-     * throws FileNotFoundException. Then it adds this array to list "times". 
-     * At the end it assigns this list to atribute called "participants".
+     * list of its tokens where first element it the name of the participant
+     * and the second is their timezone. If it can't open file it throws
+     * FileNotFoundException. The whole file is kept in memory, so large files
+     * should be read with RosterReader instead.
      * 
      * @param filename path to the file
      * @return list containing info about participants
@@ -97,30 +167,36 @@ public class TimesModel {
      */
     public List<List<String>> convertFileInfo(String filename) throws FileNotFoundException {
         List<List<String>> participantsInfo = new ArrayList<>();
-        //File fileObj = new File(System.getProperty("user.home")+ "/times/" + filename);
-        File fileObj = new File(filename);
-        Scanner myReader = new Scanner(fileObj.getAbsoluteFile());
-        String data;
-        List<String> stringList;
-
-        while (myReader.hasNextLine()) {
-            data = myReader.nextLine();
-            stringList = Pattern.compile("\\s+").splitAsStream(data).collect(Collectors.toList());
-            participantsInfo.add(stringList);
+        FileInputStream stream = new FileInputStream(new File(filename).getAbsoluteFile());
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8))) {
+            String data;
+            while ((data = reader.readLine()) != null) {
+                participantsInfo.add(RosterReader.split(data));
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
         }
-        
-        myReader.close();
+        return participantsInfo;
+    }
 
-    return participantsInfo;
+    /**
+     * Opens the roster file for reading participants one at a time
+     *
+     * @param filename path to the file
+     * @return reader of participants
+     * @throws FileNotFoundException if file with participants' data isn't found
+     */
+    public RosterReader openRoster(String filename) throws FileNotFoundException {
+        return RosterReader.open(filename);
     }
+
     /**
      * Calculates time for specific timezone relative to the time of the meeting.
      * Checks if the meeting date is correct.
-     * First it creates new SimpleDateFormat then it sets timezone of the
-     * meeting which is GMT+2, then it parses string "meetingDate" to newly
-     * created DateFormat, and finally it offsets it by the offset which was
-     * given as a parameter, and sets it as a local time for the Model class. If
-     * date is empty will handle exeption.
+     * It parses string "meetingDate" in the timezone of the meeting, which is
+     * GMT+2 by default, then it offsets it by the offset which was given as a
+     * parameter, and sets it as a local time for the Model class. If date is empty will
+     * handle exeption.
      *
      * @param offset Time difference between the timezone of the participant and
      * the timezone of the meeting
@@ -130,81 +206,728 @@ public class TimesModel {
      * @throws InvalidInputException If the date or hour is incorrect or empty
      */
     public void calculateTime(String offset, String meetingDate) throws ParseException, InvalidInputException {
-        Pattern DATE_PATTERN = Pattern
-                .compile("^((19|2[0-9])[0-9]{2})-(0[1-9]|1[012])-(0[1-9]|[12][0-9]|3[01]) (2[0-3]|[01]?[0-9]):([0-5]?[0-9]):([0-5]?[0-9])$");
-        
-        if(meetingDate.isBlank() || meetingDate.isEmpty())
-            throw new InvalidInputException("Date was empty!");
-   
-        if(!DATE_PATTERN.matcher(meetingDate).matches() )
-            throw new InvalidInputException("Date was invalid! Please use yyyy-MM-dd HH:mm:ss format");
-        
-        DateFormat df = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
-        df.setTimeZone(TimeZone.getTimeZone("GMT+2"));
-        Date date = df.parse(meetingDate);
-        df.setTimeZone(TimeZone.getTimeZone(offset));
-        String time = df.format(date);
-        this.setLocalTime(time);
+        this.setLocalTime(localTimeFor(offset, meetingDate));
+    }
+
+    /**
+     * Calculates time for specific timezone relative to the time of the meeting
+     * the same way as calculateTime, but returns the result instead of storing
+     * it in the model, so it can be safely called by many requests at once.
+     *
+     * @param offset Time difference between the timezone of the participant and
+     * the timezone of the meeting
+     * @param meetingDate Date of the meeting without offset
+     * @return local time of the participant
+     * 
+     * @throws ParseException If date of the meeting is in incorrect format
+     * @throws InvalidInputException If the date or hour is incorrect or empty
+     */
+    public String localTimeFor(String offset, String meetingDate) throws ParseException, InvalidInputException {
+        return localTimeFor(offset, parseMeetingDate(meetingDate));
+    }
+
+    /**
+     * Calculates time for specific timezone relative to the meeting date which
+     * was already parsed, so the date is parsed only once for all participants
+     *
+     * @param offset Time difference between the timezone of the participant and
+     * the timezone of the meeting
+     * @param meeting Instant of the meeting returned by parseMeetingDate
+     * @return local time of the participant
+     * @throws InvalidInputException If the timezone doesn't exist
+     */
+    public String localTimeFor(String offset, Instant meeting) throws InvalidInputException {
+        return converter.localTime(meeting, offset);
+    }
+
+    /**
+     * Calculates local time of the participant like localTimeFor, but as
+     * number of seconds from 1970-01-01 00:00:00 of the local clock, which is
+     * formatted only when it is shown
+     *
+     * @param offset timezone of the participant
+     * @param meeting Instant of the meeting returned by parseMeetingDate
+     * @return local time of the participant in seconds
+     * @throws InvalidInputException If the timezone doesn't exist
+     */
+    public long localEpochSecondFor(String offset, Instant meeting) throws InvalidInputException {
+        return converter.localEpochSecond(meeting, offset);
+    }
+
+    /**
+     * Checks if the meeting date is not empty, is in yyyy-MM-dd HH:mm:ss format
+     * and exists, and returns its instant
+     *
+     * @param meetingDate Date of the meeting without offset
+     * @return instant of the meeting
+     * @throws InvalidInputException If the date or hour is incorrect or empty
+     */
+    public Instant parseMeetingDate(String meetingDate) throws InvalidInputException {
+        return converter.parseMeetingDate(meetingDate);
     }
     
+    /**
+     * Checks the day and returns the instant of its midnight in the timezone
+     * of the meeting
+     *
+     * @param day day in yyyy-MM-dd format
+     * @return instant of the start of the day
+     * @throws InvalidInputException If the day is incorrect or empty
+     */
+    public Instant parseDay(String day) throws InvalidInputException {
+        return converter.parseDay(day);
+    }
+
+    /**
+     * Returns time of the instant in the timezone of the meeting
+     *
+     * @param instant formatted instant
+     * @return time in yyyy-MM-dd HH:mm:ss format
+     */
+    public String meetingTime(Instant instant) {
+        return converter.referenceTime(instant);
+    }
+
     /** Adds date to date history
      * @param meetingDate date of the actual meeting
      */
     public void addDateToHisotry(String meetingDate)
     {
-        meetingDateHistory.add(0, meetingDate);
+        meetingDateHistory.add(meetingDate);
     }
     
     /**
-     * Checks if appropriate tables exist if they don't
-     * it creates them, otherwise it does nothing
-     * 
+     * Returns number of participants' times saved in the database. It is
+     * the sum of the rows of HISTORY_STATS table, which are updated by
+     * triggers, so it doesn't count the rows.
+     *
      * @param con Connection to database
-     * @throws SQLException if sql statement is invalid
+     * @return number of saved times
+     * @throws SQLException when sql statement is invalid
      */
-    public void createTables(Connection con) throws SQLException 
+    public static long countHistory(Connection con) throws SQLException
     {
-        DatabaseMetaData dbm = con.getMetaData();
-        ResultSet tableParticipants = dbm.getTables(null, null, "PARTICIPANTS", new String[] {"TABLE"});
-        ResultSet tableTimes = dbm.getTables(null, null, "TIMES", new String[] {"TABLE"});
+        try (Statement statement = con.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT SUM(ROW_COUNT) FROM APP.HISTORY_STATS")) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
 
-        if (tableParticipants.next() && tableTimes.next()) 
-        {
+    /**
+     * Inserts data to PARTICIPANTS and TIMES tables, time references the
+     * participant by its generated id. Tables have to be created earlier by
+     * SchemaMigrator.
+     *
+     * @param con Connection to database
+     * @param name of the participant
+     * @param date  their local time
+     * @throws SQLException when sql statement is invalid
+     */
+    public void insertToDB(Connection con, String name, String date) throws SQLException
+    {
+        try (PreparedStatement names = con.prepareStatement("INSERT INTO APP.PARTICIPANTS (NAME) VALUES (?)",
+                Statement.RETURN_GENERATED_KEYS);
+             PreparedStatement times = con.prepareStatement("INSERT INTO APP.TIMES (PARTICIPANT_ID, TIME) VALUES (?, ?)")) {
+            names.setString(1, name);
+            names.executeUpdate();
+            try (ResultSet keys = names.getGeneratedKeys()) {
+                keys.next();
+                times.setInt(1, keys.getInt(1));
+            }
+            times.setString(2, date);
+            times.executeUpdate();
+        }
+    }
+    
+    /**
+     * Inserts the meeting and all of its participants to MEETINGS,
+     * PARTICIPANTS and TIMES tables in one transaction. Rows are sent in
+     * batches of prepared statements. Participants are stored with their
+     * position in the roster, so their times can find them without reading
+     * generated ids back. If a batch fails, it is rolled back and repeated
+     * row by row, so only the incorrect participants are skipped and they are
+     * reported in the result.
+     *
+     * @param con Connection to database
+     * @param meetingDate date of the meeting
+     * @param participants list of participants names and their local time
+     * @param batchSize number of participants sent to the database at once
+     * @return number of saved participants and participants which couldn't be saved
+     * @throws SQLException when the transaction couldn't be finished
+     */
+    public BatchInsertResult insertAll(Connection con, String meetingDate, List<List<String>> participants, int batchSize) throws SQLException
+    {
+        return insertAll(con, meetingDate, null, participants, batchSize);
+    }
+
+    /**
+     * Inserts the meeting and all of its participants like
+     * insertAll(Connection, String, List, int) and saves the user or team
+     * which owns the meeting, so their history can be read back later. The
+     * roster has no name, so it is always saved as a new meeting.
+     *
+     * @param con Connection to database
+     * @param meetingDate date of the meeting
+     * @param owner user or team which owns the meeting, can be null
+     * @param participants list of participants names and their local time
+     * @param batchSize number of participants sent to the database at once
+     * @return number of saved participants and participants which couldn't be saved
+     * @throws SQLException when the transaction couldn't be finished
+     */
+    public BatchInsertResult insertAll(Connection con, String meetingDate, String owner, List<List<String>> participants, int batchSize) throws SQLException
+    {
+        return insertAll(con, meetingDate, owner, null, participants, batchSize);
+    }
+
+    /**
+     * Inserts the meeting and all of its participants like
+     * insertAll(Connection, String, String, List, int) together with the name
+     * of the roster. If the owner already saved the roster with the same name
+     * for the same date, it is saved as its new version, see
+     * insertMeetingRows.
+     *
+     * @param con Connection to database
+     * @param meetingDate date of the meeting
+     * @param owner user or team which owns the meeting, can be null
+     * @param roster name of the roster file, at most ROSTER_LENGTH characters,
+     * can be null
+     * @param participants list of participants names and their local time
+     * @param batchSize number of participants sent to the database at once
+     * @return number of saved participants and participants which couldn't be saved
+     * @throws SQLException when the transaction couldn't be finished
+     */
+    public BatchInsertResult insertAll(Connection con, String meetingDate, String owner, String roster,
+            List<List<String>> participants, int batchSize) throws SQLException
+    {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size has to be positive");
+        }
+        BatchInsertResult result = new BatchInsertResult();
+        boolean autoCommit = con.getAutoCommit();
+        con.setAutoCommit(false);
+        try {
+            insertMeetingRows(con, meetingDate, owner, roster, participants, batchSize, result);
+            con.commit();
+        } catch (SQLException | RuntimeException ex) {
+            con.rollback();
+            throw ex;
+        } finally {
+            con.setAutoCommit(autoCommit);
+        }
+        return result;
+    }
+
+    /**
+     * Inserts many meetings with their participants in one transaction, so
+     * many small meetings cost a single commit. Participants which couldn't
+     * be saved are skipped like in insertAll(Connection, String, String,
+     * List, int), if anything else fails none of the meetings is saved.
+     *
+     * @param con Connection to database
+     * @param meetings saved meetings
+     * @param batchSize number of participants sent to the database at once
+     * @return result of every meeting, in order of the meetings
+     * @throws SQLException when the transaction couldn't be finished
+     */
+    public List<BatchInsertResult> insertMeetings(Connection con, List<WriteBehindQueue.Meeting> meetings, int batchSize) throws SQLException
+    {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size has to be positive");
+        }
+        List<BatchInsertResult> results = new ArrayList<>(meetings.size());
+        boolean autoCommit = con.getAutoCommit();
+        con.setAutoCommit(false);
+        try {
+            for (WriteBehindQueue.Meeting meeting : meetings) {
+                BatchInsertResult result = new BatchInsertResult();
+                insertMeetingRows(con, meeting.getMeetingDate(), meeting.getOwner(), meeting.getRoster(),
+                        meeting.getParticipants(), batchSize, result);
+                results.add(result);
+            }
+            con.commit();
+        } catch (SQLException | RuntimeException ex) {
+            con.rollback();
+            throw ex;
+        } finally {
+            con.setAutoCommit(autoCommit);
+        }
+        return results;
+    }
+
+    /**
+     * Saves the meeting and its participants inside of the current
+     * transaction. A roster is identified by its owner, its name and the date
+     * of the meeting, so a roster sent again by the same owner is its new
+     * version and only the difference is saved in the meeting of the
+     * previous version: participants which aren't saved yet are inserted and
+     * participants which changed or are missing from the new version are
+     * replaced. For a logged in user changed rows are updated and missing
+     * ones deleted. A team isn't authenticated, so rows of its previous
+     * version are only marked as superseded and changed participants are
+     * inserted again, nothing saved earlier loses its data. Meetings without
+     * an owner or a name of the roster are always inserted.
+     *
+     * @param con Connection to database with auto-commit disabled
+     * @param meetingDate date of the meeting
+     * @param owner user or team which owns the meeting, can be null
+     * @param roster name of the roster file, can be null
+     * @param participants list of participants names and their local time
+     * @param batchSize number of participants sent to the database at once
+     * @param result result to which inserted rows and failures are added
+     * @throws SQLException when the meeting couldn't be saved
+     */
+    private void insertMeetingRows(Connection con, String meetingDate, String owner, String roster,
+            List<List<String>> participants, int batchSize, BatchInsertResult result) throws SQLException
+    {
+        int meetingId = owner != null && roster != null ? nextVersion(con, meetingDate, owner, roster, result) : NO_MEETING;
+        if (meetingId != NO_MEETING) {
+            updateMeetingRows(con, meetingId, !owner.startsWith(USER_OWNER), participants, batchSize, result);
             return;
         }
-        else 
-        {
-            Statement statement = con.createStatement();
-            statement.executeUpdate("CREATE TABLE Participants "
-                    + "(id INTEGER NOT NULL PRIMARY KEY "
-                    + "GENERATED ALWAYS AS IDENTITY (START WITH 1, INCREMENT BY 1),"
-                    + "name VARCHAR(50))");
+        meetingId = insertMeeting(con, meetingDate, owner, roster);
+        List<Integer> added = new ArrayList<>(participants.size());
+        for (int i = 0; i < participants.size(); i++) {
+            if (isCorrect(participants, i, result)) {
+                added.add(i);
+            }
+        }
+        insertRows(con, meetingId, 0, participants, added, batchSize, result);
+    }
+
+    /**
+     * Increases version of the roster of the last meeting of the owner at the
+     * date. The row of the meeting stays locked until the end of the
+     * transaction, so two versions of the same roster aren't saved at once.
+     *
+     * @param con Connection to database with auto-commit disabled
+     * @param meetingDate date of the meeting
+     * @param owner user or team which owns the meeting
+     * @param roster name of the roster file
+     * @param result result to which the version is set
+     * @return id of the meeting or NO_MEETING if the owner has no meeting
+     * with the roster at the date
+     * @throws SQLException when the meeting couldn't be read
+     */
+    private int nextVersion(Connection con, String meetingDate, String owner, String roster, BatchInsertResult result)
+            throws SQLException
+    {
+        try (PreparedStatement update = con.prepareStatement("UPDATE APP.MEETINGS SET VERSION = VERSION + 1 "
+                + "WHERE ID = (SELECT MAX(ID) FROM APP.MEETINGS WHERE OWNER = ? AND ROSTER = ? AND MEETING_DATE = ?)")) {
+            update.setString(1, owner);
+            update.setString(2, roster);
+            update.setString(3, meetingDate);
+            if (update.executeUpdate() == 0) {
+                return NO_MEETING;
+            }
+        }
+        try (PreparedStatement select = con.prepareStatement("SELECT ID, VERSION FROM APP.MEETINGS "
+                + "WHERE OWNER = ? AND ROSTER = ? AND MEETING_DATE = ? ORDER BY ID DESC FETCH FIRST 1 ROWS ONLY")) {
+            select.setString(1, owner);
+            select.setString(2, roster);
+            select.setString(3, meetingDate);
+            try (ResultSet rs = select.executeQuery()) {
+                rs.next();
+                result.setVersion(rs.getInt(2));
+                return rs.getInt(1);
+            }
+        }
+    }
+
+    /**
+     * Saves new version of the roster of the meeting. Participants are
+     * matched with the current rows by their names, a name repeated in the
+     * roster is matched in order of the rows. Hash of the name and the local
+     * time saved with every participant tells which of them changed, so
+     * local times don't have to be read and unchanged participants aren't
+     * written at all. When the previous version is kept, its changed and
+     * missing rows are marked with the version which superseded them and
+     * changed participants are inserted as new rows.
+     *
+     * @param con Connection to database with auto-commit disabled
+     * @param meetingId id of the meeting
+     * @param keepPrevious true if rows of the previous version are marked as
+     * superseded instead of being updated or deleted
+     * @param participants list of participants names and their local time
+     * @param batchSize number of participants sent to the database at once
+     * @param result result with the new version, to which saved rows and
+     * failures are added
+     * @throws SQLException when the roster couldn't be saved
+     */
+    private void updateMeetingRows(Connection con, int meetingId, boolean keepPrevious, List<List<String>> participants,
+            int batchSize, BatchInsertResult result) throws SQLException
+    {
+        Map<String, Deque<SavedParticipant>> saved = new HashMap<>();
+        int lastPosition = 0;
+        try (PreparedStatement select = con.prepareStatement("SELECT ID, NAME, ROW_HASH, POSITION, SUPERSEDED_IN "
+                + "FROM APP.PARTICIPANTS WHERE MEETING_ID = ? ORDER BY POSITION")) {
+            select.setInt(1, meetingId);
+            select.setFetchSize(Math.max(batchSize, 1));
+            try (ResultSet rs = select.executeQuery()) {
+                while (rs.next()) {
+                    lastPosition = rs.getInt(4);
+                    rs.getInt(5);
+                    if (!rs.wasNull()) {
+                        continue;
+                    }
+                    long hash = rs.getLong(3);
+                    boolean hashed = !rs.wasNull();
+                    saved.computeIfAbsent(rs.getString(2), name -> new ArrayDeque<>())
+                            .add(new SavedParticipant(rs.getInt(1), hash, hashed));
+                }
+            }
+        }
 
-            statement.executeUpdate("CREATE TABLE Times "
-                    + "(id INTEGER NOT NULL PRIMARY KEY "
-                    + "GENERATED ALWAYS AS IDENTITY (START WITH 1, INCREMENT BY 1),"
-                    + "time VARCHAR(50))");
+        List<Integer> added = new ArrayList<>();
+        List<Integer> replaced = new ArrayList<>();
+        List<Integer> superseded = new ArrayList<>();
+        try (PreparedStatement times = con.prepareStatement("UPDATE APP.TIMES SET TIME = ? WHERE PARTICIPANT_ID = ?");
+             PreparedStatement hashes = con.prepareStatement("UPDATE APP.PARTICIPANTS SET ROW_HASH = ? WHERE ID = ?")) {
+            int batch = 0;
+            for (int i = 0; i < participants.size(); i++) {
+                if (!isCorrect(participants, i, result)) {
+                    continue;
+                }
+                List<String> participant = participants.get(i);
+                Deque<SavedParticipant> sameName = saved.get(participant.get(0));
+                SavedParticipant row = sameName != null ? sameName.poll() : null;
+                long hash = rowHash(participant.get(0), participant.get(1));
+                if (row == null) {
+                    added.add(i);
+                } else if (row.hashed && row.hash == hash) {
+                    result.addUnchanged(1);
+                } else if (keepPrevious) {
+                    replaced.add(i);
+                    superseded.add(row.id);
+                } else {
+                    times.setString(1, participant.get(1));
+                    times.setInt(2, row.id);
+                    times.addBatch();
+                    hashes.setLong(1, hash);
+                    hashes.setInt(2, row.id);
+                    hashes.addBatch();
+                    if (++batch == batchSize) {
+                        times.executeBatch();
+                        hashes.executeBatch();
+                        result.addUpdated(batch);
+                        batch = 0;
+                    }
+                }
+            }
+            if (batch > 0) {
+                times.executeBatch();
+                hashes.executeBatch();
+                result.addUpdated(batch);
+            }
+        }
 
-            statement.executeUpdate("Alter Table APP.Participants " 
-                    + "Add FOREIGN KEY (ID) " 
-                    + "References APP.Times (ID)");
+        List<Integer> removed = new ArrayList<>();
+        for (Deque<SavedParticipant> rows : saved.values()) {
+            for (SavedParticipant row : rows) {
+                removed.add(row.id);
+            }
         }
+        if (keepPrevious) {
+            superseded.addAll(removed);
+            supersedeRows(con, superseded, result.getVersion(), batchSize);
+            result.addDeleted(removed.size());
+            result.setPreviousKept(true);
+        } else {
+            deleteRows(con, removed, batchSize, result);
+        }
+
+        insertRows(con, meetingId, lastPosition, participants, added, batchSize, result);
+        int inserted = result.getInsertedCount();
+        insertRows(con, meetingId, lastPosition, participants, replaced, batchSize, result);
+        int reinserted = result.getInsertedCount() - inserted;
+        result.addInserted(-reinserted);
+        result.addUpdated(reinserted);
     }
-    
+
     /**
-     * Inserts data to TIMES and PARTICIPANT tables
-     * 
+     * Marks rows of the previous version as superseded by the new one
+     *
+     * @param con Connection to database with auto-commit disabled
+     * @param ids ids of the superseded participants
+     * @param version version of the roster which superseded them
+     * @param batchSize number of rows sent to the database at once
+     * @throws SQLException when the rows couldn't be marked
+     */
+    private void supersedeRows(Connection con, List<Integer> ids, int version, int batchSize) throws SQLException
+    {
+        try (PreparedStatement update = con.prepareStatement("UPDATE APP.PARTICIPANTS SET SUPERSEDED_IN = ? WHERE ID = ?")) {
+            int batch = 0;
+            for (int id : ids) {
+                update.setInt(1, version);
+                update.setInt(2, id);
+                update.addBatch();
+                if (++batch == batchSize) {
+                    update.executeBatch();
+                    batch = 0;
+                }
+            }
+            if (batch > 0) {
+                update.executeBatch();
+            }
+        }
+    }
+
+    /**
+     * Deletes rows missing from the new version of the roster
+     *
+     * @param con Connection to database with auto-commit disabled
+     * @param ids ids of the deleted participants
+     * @param batchSize number of rows sent to the database at once
+     * @param result result to which deleted rows are added
+     * @throws SQLException when the rows couldn't be deleted
+     */
+    private void deleteRows(Connection con, List<Integer> ids, int batchSize, BatchInsertResult result) throws SQLException
+    {
+        try (PreparedStatement delete = con.prepareStatement("DELETE FROM APP.PARTICIPANTS WHERE ID = ?")) {
+            int batch = 0;
+            for (int id : ids) {
+                delete.setInt(1, id);
+                delete.addBatch();
+                if (++batch == batchSize) {
+                    delete.executeBatch();
+                    result.addDeleted(batch);
+                    batch = 0;
+                }
+            }
+            if (batch > 0) {
+                delete.executeBatch();
+                result.addDeleted(batch);
+            }
+        }
+    }
+
+    /**
+     * Inserts participants of the meeting in batches
+     *
+     * @param con Connection to database with auto-commit disabled
+     * @param meetingId id of the meeting
+     * @param lastPosition largest position already used in the meeting,
+     * participants get positions after it
+     * @param participants all of the participants
+     * @param indexes indexes of the inserted participants
+     * @param batchSize number of participants sent to the database at once
+     * @param result result to which inserted rows and failures are added
+     * @throws SQLException when savepoint couldn't be created or rolled back
+     */
+    private void insertRows(Connection con, int meetingId, int lastPosition, List<List<String>> participants,
+            List<Integer> indexes, int batchSize, BatchInsertResult result) throws SQLException
+    {
+        if (indexes.isEmpty()) {
+            return;
+        }
+        try (PreparedStatement names = con.prepareStatement(
+                     "INSERT INTO APP.PARTICIPANTS (NAME, MEETING_ID, POSITION, ROW_HASH) VALUES (?, ?, ?, ?)");
+             PreparedStatement times = con.prepareStatement(
+                     "INSERT INTO APP.TIMES (PARTICIPANT_ID, TIME) "
+                     + "SELECT ID, ? FROM APP.PARTICIPANTS WHERE MEETING_ID = ? AND POSITION = ?")) {
+            for (int from = 0; from < indexes.size(); from += batchSize) {
+                executeBatch(con, names, times, meetingId, lastPosition, participants,
+                        indexes.subList(from, Math.min(from + batchSize, indexes.size())), result);
+            }
+        }
+    }
+
+    /**
+     * Inserts the meeting to MEETINGS table
      *
      * @param con Connection to database
-     * @param name of the participant
-     * @param date  their local time
-     * @throws SQLException when sql statement is invalid
+     * @param meetingDate date of the meeting
+     * @param owner user or team which owns the meeting, can be null
+     * @param roster name of the roster file, can be null
+     * @return generated id of the meeting
+     * @throws SQLException when the meeting couldn't be inserted
      */
-    public void insertToDB(Connection con, String name, String date) throws SQLException
+    private int insertMeeting(Connection con, String meetingDate, String owner, String roster) throws SQLException
     {
-       Statement statement = con.createStatement();
+        try (PreparedStatement meeting = con.prepareStatement(
+                "INSERT INTO APP.MEETINGS (MEETING_DATE, CREATED_AT, OWNER, ROSTER) VALUES (?, CURRENT_TIMESTAMP, ?, ?)",
+                Statement.RETURN_GENERATED_KEYS)) {
+            meeting.setString(1, meetingDate);
+            meeting.setString(2, owner);
+            meeting.setString(3, roster);
+            meeting.executeUpdate();
+            try (ResultSet keys = meeting.getGeneratedKeys()) {
+                keys.next();
+                return keys.getInt(1);
+            }
+        }
+    }
+
+    /**
+     * Checks the participant, reporting it in the result if it doesn't fit
+     * into the tables
+     *
+     * @param participants all of the participants
+     * @param index index of the checked participant
+     * @param result result to which the failure is added
+     * @return true if the participant can be saved
+     */
+    private boolean isCorrect(List<List<String>> participants, int index, BatchInsertResult result) {
+        List<String> participant = participants.get(index);
+        String problem = checkRow(participant);
+        if (problem != null) {
+            result.addFailure(new BatchInsertResult.Failure(index + 1, participant.isEmpty() ? "" : participant.get(0), problem));
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Checks if the participant fits into the tables
+     *
+     * @param participant name and local time of the participant
+     * @return description of the problem or null if the row is correct
+     */
+    private String checkRow(List<String> participant) {
+        if (participant.size() < 2 || participant.get(0) == null || participant.get(1) == null) {
+            return "Participants info was incorrect!";
+        }
+        if (participant.get(0).length() > COLUMN_LENGTH || participant.get(1).length() > COLUMN_LENGTH) {
+            return "Values can't be longer than " + COLUMN_LENGTH + " characters";
+        }
+        return null;
+    }
 
-       statement.executeUpdate("INSERT INTO APP.TIMES (TIME) VALUES ('"+date+"')");
-       statement.executeUpdate("INSERT INTO APP.PARTICIPANTS (NAME) VALUES ('"+name+"')");
+    /**
+     * Sends one batch of participants to the database. If it fails, batch is
+     * rolled back and the participants are inserted one by one.
+     *
+     * @param con Connection to database
+     * @param names statement inserting to PARTICIPANTS table
+     * @param times statement inserting to TIMES table
+     * @param meetingId id of the meeting
+     * @param lastPosition position after which participants are saved
+     * @param participants all of the participants
+     * @param batch indexes of participants in this batch
+     * @param result result to which inserted rows and failures are added
+     * @throws SQLException when savepoint couldn't be created or rolled back
+     */
+    private void executeBatch(Connection con, PreparedStatement names, PreparedStatement times, int meetingId,
+            int lastPosition, List<List<String>> participants, List<Integer> batch, BatchInsertResult result) throws SQLException
+    {
+        Savepoint savepoint = con.setSavepoint();
+        try {
+            for (int index : batch) {
+                setParameters(names, times, meetingId, lastPosition, index, participants.get(index));
+                names.addBatch();
+                times.addBatch();
+            }
+            names.executeBatch();
+            times.executeBatch();
+            con.releaseSavepoint(savepoint);
+            result.addInserted(batch.size());
+        } catch (SQLException ex) {
+            names.clearBatch();
+            times.clearBatch();
+            con.rollback(savepoint);
+            for (int index : batch) {
+                insertOne(con, names, times, meetingId, lastPosition, index, participants.get(index), result);
+            }
+        }
+    }
+
+    /**
+     * Inserts single participant, reporting the failure instead of throwing it
+     *
+     * @param con Connection to database
+     * @param names statement inserting to PARTICIPANTS table
+     * @param times statement inserting to TIMES table
+     * @param meetingId id of the meeting
+     * @param lastPosition position after which participants are saved
+     * @param index index of the participant in the roster
+     * @param participant name and local time of the participant
+     * @param result result to which inserted row or failure is added
+     * @throws SQLException when savepoint couldn't be created or rolled back
+     */
+    private void insertOne(Connection con, PreparedStatement names, PreparedStatement times, int meetingId,
+            int lastPosition, int index, List<String> participant, BatchInsertResult result) throws SQLException
+    {
+        Savepoint savepoint = con.setSavepoint();
+        try {
+            setParameters(names, times, meetingId, lastPosition, index, participant);
+            names.executeUpdate();
+            times.executeUpdate();
+            con.releaseSavepoint(savepoint);
+            result.addInserted(1);
+        } catch (SQLException ex) {
+            con.rollback(savepoint);
+            result.addFailure(new BatchInsertResult.Failure(index + 1, participant.get(0), ex.getMessage()));
+        }
+    }
+
+    /**
+     * Sets parameters of both insert statements for one participant
+     *
+     * @param names statement inserting to PARTICIPANTS table
+     * @param times statement inserting to TIMES table
+     * @param meetingId id of the meeting
+     * @param lastPosition position after which participants are saved
+     * @param index index of the participant in the roster
+     * @param participant name and local time of the participant
+     * @throws SQLException when parameters couldn't be set
+     */
+    private void setParameters(PreparedStatement names, PreparedStatement times, int meetingId,
+            int lastPosition, int index, List<String> participant) throws SQLException
+    {
+        names.setString(1, participant.get(0));
+        names.setInt(2, meetingId);
+        names.setInt(3, lastPosition + index + 1);
+        names.setLong(4, rowHash(participant.get(0), participant.get(1)));
+        times.setString(1, participant.get(1));
+        times.setInt(2, meetingId);
+        times.setInt(3, lastPosition + index + 1);
+    }
+
+    /**
+     * Returns 64-bit FNV-1a hash of the name and the local time of the
+     * participant, saved with the participant to find changed rows without
+     * reading their times
+     *
+     * @param name name of the participant
+     * @param localTime local time of the participant
+     * @return hash of the row
+     */
+    private static long rowHash(String name, String localTime) {
+        long hash = FNV_OFFSET;
+        for (int i = 0; i < name.length(); i++) {
+            hash = (hash ^ name.charAt(i)) * FNV_PRIME;
+        }
+        hash *= FNV_PRIME;
+        for (int i = 0; i < localTime.length(); i++) {
+            hash = (hash ^ localTime.charAt(i)) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    /**
+     * Participant of a saved version of the roster
+     */
+    private static final class SavedParticipant {
+
+        /** Id of the participant */
+        private final int id;
+
+        /** Hash of the name and the local time */
+        private final long hash;
+
+        /** False for rows saved before hashes were added */
+        private final boolean hashed;
+
+        /**
+         * Creates saved participant
+         *
+         * @param id id of the participant
+         * @param hash hash of the name and the local time
+         * @param hashed true if the row has a hash
+         */
+        private SavedParticipant(int id, long hash, boolean hashed) {
+            this.id = id;
+            this.hash = hash;
+            this.hashed = hashed;
+        }
     }
 }
@@ -0,0 +1,148 @@
+package pl.polsl.model;
+
+/**
+ * Working hours of a participant in their local time, e.g. 09:00-17:00.
+ * Hours which end before they start last until the next day, e.g.
+ * 22:00-06:00.
+ *
+ * @author Jacek
+ * @version 1.5
+ */
+public final class WorkingHours {
+
+    /** Number of minutes in a day */
+    static final int MINUTES_PER_DAY = 24 * 60;
+
+    /** Working hours used when the roster doesn't give them */
+    public static final WorkingHours DEFAULT = new WorkingHours(9 * 60, 17 * 60);
+
+    /** Start of the work in minutes from midnight */
+    private final int start;
+
+    /** End of the work in minutes from midnight */
+    private final int end;
+
+    /**
+     * Creates working hours
+     *
+     * @param start start of the work in minutes from midnight
+     * @param end end of the work in minutes from midnight, 24:00 is 1440
+     */
+    public WorkingHours(int start, int end) {
+        if (start < 0 || start >= MINUTES_PER_DAY || end < 0 || end > MINUTES_PER_DAY || start == end) {
+            throw new IllegalArgumentException("Incorrect working hours " + start + "-" + end);
+        }
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * Reads working hours in H:mm-H:mm format
+     *
+     * @param text working hours
+     * @return read working hours
+     * @throws InvalidInputException if the text isn't in H:mm-H:mm format or
+     * hours are incorrect
+     */
+    public static WorkingHours parse(String text) throws InvalidInputException {
+        int dash = text.indexOf('-');
+        if (dash < 0) {
+            throw new InvalidInputException("Working hours " + text + " should be in HH:mm-HH:mm format");
+        }
+        int start = parseTime(text, 0, dash);
+        int end = parseTime(text, dash + 1, text.length());
+        if (start < 0 || end < 0 || start == MINUTES_PER_DAY || start == end) {
+            throw new InvalidInputException("Working hours " + text + " should be in HH:mm-HH:mm format");
+        }
+        return new WorkingHours(start, end);
+    }
+
+    /**
+     * Returns start of the work
+     *
+     * @return minutes from midnight
+     */
+    public int getStart() {
+        return start;
+    }
+
+    /**
+     * Returns end of the work, it is smaller than start if the work ends on
+     * the next day
+     *
+     * @return minutes from midnight
+     */
+    public int getEnd() {
+        return end;
+    }
+
+    /**
+     * Returns length of the work
+     *
+     * @return number of minutes
+     */
+    public int getLength() {
+        return end > start ? end - start : end + MINUTES_PER_DAY - start;
+    }
+
+    /**
+     * Compares start and end of the work
+     *
+     * @param other compared object
+     * @return true if both hours are the same
+     */
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof WorkingHours && ((WorkingHours) other).start == start && ((WorkingHours) other).end == end;
+    }
+
+    /**
+     * Returns hash code of the hours
+     *
+     * @return hash code
+     */
+    @Override
+    public int hashCode() {
+        return start * MINUTES_PER_DAY + end;
+    }
+
+    /**
+     * Returns hours in HH:mm-HH:mm format
+     *
+     * @return formatted hours
+     */
+    @Override
+    public String toString() {
+        return String.format("%02d:%02d-%02d:%02d", start / 60, start % 60, end / 60, end % 60);
+    }
+
+    /**
+     * Reads time in H:mm format, 24:00 is allowed
+     *
+     * @param text text with the time
+     * @param from index of the first character
+     * @param to index after the last character
+     * @return minutes from midnight or -1 if the time is incorrect
+     */
+    private static int parseTime(String text, int from, int to) {
+        int colon = text.indexOf(':', from);
+        if (colon < 0 || colon >= to || colon == from || colon - from > 2 || to - colon != 3) {
+            return -1;
+        }
+        int hours = 0;
+        for (int i = from; i < colon; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            hours = hours * 10 + c - '0';
+        }
+        char tens = text.charAt(colon + 1);
+        char ones = text.charAt(colon + 2);
+        if (tens < '0' || tens > '5' || ones < '0' || ones > '9') {
+            return -1;
+        }
+        int minutes = hours * 60 + (tens - '0') * 10 + ones - '0';
+        return hours > 24 || minutes > MINUTES_PER_DAY ? -1 : minutes;
+    }
+}
@@ -0,0 +1,659 @@
+package pl.polsl.model;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Saves converted meetings to the database in the background, so requests
+ * don't wait for the inserts. Requests put meetings into a bounded queue and
+ * one writer thread takes them when enough records wait or the oldest one
+ * waited long enough, and saves all of them in one transaction. If the queue
+ * is full, offer returns false and the caller should save the meeting
+ * itself. Meetings can be also appended to a spill file, so the ones which
+ * weren't saved when the server stopped are saved after it starts again. A
+ * record is a meeting or one of its participants.
+ *
+ * @author Jacek
+ * @version 1.5
+ */
+public class WriteBehindQueue implements AutoCloseable {
+
+    /**
+     * Meeting waiting to be saved
+     */
+    public static final class Meeting {
+
+        /** Number of the meeting in order of queueing */
+        private final long sequence;
+
+        /** Date of the meeting */
+        private final String meetingDate;
+
+        /** User or team which owns the meeting, can be null */
+        private final String owner;
+
+        /** Name of the roster file, can be null */
+        private final String roster;
+
+        /** Names and local times of the participants */
+        private final List<List<String>> participants;
+
+        /** Value of System.nanoTime when the meeting was queued */
+        private final long queuedAt = System.nanoTime();
+
+        /** Number of failed attempts to save the meeting */
+        private int attempts;
+
+        /**
+         * Creates meeting waiting to be saved
+         *
+         * @param sequence number of the meeting in order of queueing
+         * @param meetingDate date of the meeting
+         * @param owner user or team which owns the meeting, can be null
+         * @param roster name of the roster file, can be null
+         * @param participants names and local times of the participants
+         */
+        Meeting(long sequence, String meetingDate, String owner, String roster, List<List<String>> participants) {
+            this.sequence = sequence;
+            this.meetingDate = meetingDate;
+            this.owner = owner;
+            this.roster = roster;
+            this.participants = participants;
+        }
+
+        /**
+         * Returns number of the meeting in order of queueing
+         *
+         * @return number of the meeting
+         */
+        long getSequence() {
+            return sequence;
+        }
+
+        /**
+         * Returns date of the meeting
+         *
+         * @return date of the meeting
+         */
+        public String getMeetingDate() {
+            return meetingDate;
+        }
+
+        /**
+         * Returns user or team which owns the meeting
+         *
+         * @return owner or null
+         */
+        public String getOwner() {
+            return owner;
+        }
+
+        /**
+         * Returns name of the roster file, which identifies versions of the
+         * roster of the owner
+         *
+         * @return name of the roster or null
+         */
+        public String getRoster() {
+            return roster;
+        }
+
+        /**
+         * Returns names and local times of the participants
+         *
+         * @return participants
+         */
+        public List<List<String>> getParticipants() {
+            return participants;
+        }
+
+        /**
+         * Returns number of records saved for the meeting
+         *
+         * @return meeting and its participants
+         */
+        int records() {
+            return participants.size() + 1;
+        }
+    }
+
+    /** Logger used to report meetings which couldn't be saved */
+    private static final Logger LOGGER = Logger.getLogger(WriteBehindQueue.class.getName());
+
+    /** Number of attempts to save a meeting which fails on its own */
+    private static final int MAX_ATTEMPTS = 3;
+
+    /** Time the writer waits when the database can't be reached */
+    private static final long RETRY_DELAY_MILLIS = 1000;
+
+    /** Time close waits for the queue to be saved */
+    private static final long DRAIN_TIMEOUT_SECONDS = 30;
+
+    /** Size above which the spill file is rewritten with the waiting meetings */
+    private static final long COMPACT_BYTES = 64L * 1024 * 1024;
+
+    /** Opens connections used by the writer */
+    private final ConnectionPool.ConnectionFactory connections;
+
+    /** Model inserting the meetings */
+    private final TimesModel model = new TimesModel();
+
+    /** Maximal number of waiting records */
+    private final int maxRecords;
+
+    /** Number of records which are saved in one transaction */
+    private final int batchRecords;
+
+    /** Longest time a meeting waits for other ones, in nanoseconds */
+    private final long maxDelayNanos;
+
+    /** Number of participants sent to the database at once */
+    private final int insertBatchSize;
+
+    /** Journal of waiting meetings or null if it isn't used */
+    private final SpillFile spill;
+
+    /** Guards the queue and the spill file */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /** Signalled when meetings are queued, saved or the queue is closed */
+    private final Condition changed = lock.newCondition();
+
+    /** Meetings which wait for the writer */
+    private final Deque<Meeting> queue = new ArrayDeque<>();
+
+    /** Meetings which are being saved by the writer */
+    private final List<Meeting> saving = new ArrayList<>();
+
+    /** Number of records in the queue and being saved */
+    private long pendingRecords;
+
+    /** Number given to the next queued meeting */
+    private long nextSequence;
+
+    /** True if close was called */
+    private boolean closed;
+
+    /** Number of saved records */
+    private final AtomicLong savedRecords = new AtomicLong();
+
+    /** Number of records which couldn't be saved */
+    private final AtomicLong failedRecords = new AtomicLong();
+
+    /** Number of meetings which weren't accepted */
+    private final AtomicLong rejectedMeetings = new AtomicLong();
+
+    /** Thread saving the meetings */
+    private final Thread writer;
+
+    /** Receives time of every committed transaction in nanoseconds */
+    private final LongConsumer saveListener;
+
+    /** Receives result of every saved meeting */
+    private final Consumer<BatchInsertResult> resultListener;
+
+    /**
+     * Creates queue without listeners and starts its writer. Meetings left in
+     * the spill file are queued first.
+     *
+     * @param connections opens connections used by the writer
+     * @param maxRecords maximal number of waiting records
+     * @param batchRecords number of records saved in one transaction
+     * @param maxDelayMillis longest time a meeting waits for other ones
+     * @param insertBatchSize number of participants sent to the database at once
+     * @param spillFile path of the spill file or null if it isn't used
+     * @throws IOException if the spill file couldn't be read or opened, it is
+     * closed then
+     */
+    public WriteBehindQueue(ConnectionPool.ConnectionFactory connections, int maxRecords, int batchRecords,
+            long maxDelayMillis, int insertBatchSize, Path spillFile) throws IOException {
+        this(connections, maxRecords, batchRecords, maxDelayMillis, insertBatchSize, spillFile, nanos -> { }, result -> { });
+    }
+
+    /**
+     * Creates queue and starts its writer. Meetings left in the spill file
+     * are queued first. Listeners are given here, so they receive the
+     * meetings recovered from the spill file too. Both are called by the
+     * writer thread, the result listener after the transaction is committed.
+     *
+     * @param connections opens connections used by the writer
+     * @param maxRecords maximal number of waiting records
+     * @param batchRecords number of records saved in one transaction
+     * @param maxDelayMillis longest time a meeting waits for other ones
+     * @param insertBatchSize number of participants sent to the database at once
+     * @param spillFile path of the spill file or null if it isn't used
+     * @param saveListener receives time of every committed transaction in
+     * nanoseconds, e.g. to record it in metrics
+     * @param resultListener receives result of every saved meeting, e.g. to
+     * remove cached pages of the history
+     * @throws IOException if the spill file couldn't be read or opened, it is
+     * closed then
+     */
+    public WriteBehindQueue(ConnectionPool.ConnectionFactory connections, int maxRecords, int batchRecords,
+            long maxDelayMillis, int insertBatchSize, Path spillFile, LongConsumer saveListener,
+            Consumer<BatchInsertResult> resultListener) throws IOException {
+        if (maxRecords <= 0 || batchRecords <= 0 || maxDelayMillis < 0 || insertBatchSize <= 0) {
+            throw new IllegalArgumentException("Limits of the queue have to be positive");
+        }
+        this.connections = connections;
+        this.maxRecords = maxRecords;
+        this.batchRecords = batchRecords;
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+        this.insertBatchSize = insertBatchSize;
+        this.saveListener = saveListener;
+        this.resultListener = resultListener;
+        this.spill = spillFile != null ? new SpillFile(spillFile) : null;
+        if (spill != null) {
+            List<Meeting> recovered;
+            try {
+                recovered = spill.recover();
+                spill.rewrite(recovered);
+            } catch (IOException ex) {
+                try {
+                    spill.close();
+                } catch (IOException closing) {
+                    ex.addSuppressed(closing);
+                }
+                throw ex;
+            }
+            for (Meeting meeting : recovered) {
+                queue.add(meeting);
+                pendingRecords += meeting.records();
+                nextSequence = Math.max(nextSequence, meeting.getSequence() + 1);
+            }
+            if (!recovered.isEmpty()) {
+                LOGGER.log(Level.INFO, "{0} meetings from the spill file are saved again", recovered.size());
+            }
+        }
+        this.writer = new Thread(this::write, "write-behind");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Queues the meeting without a name of the roster if there is room for it
+     *
+     * @param meetingDate date of the meeting
+     * @param owner user or team which owns the meeting, can be null
+     * @param participants names and local times of the participants, the
+     * list can't be changed afterwards
+     * @return true if the meeting will be saved in the background, false if
+     * the caller should save it
+     */
+    public boolean offer(String meetingDate, String owner, List<List<String>> participants) {
+        return offer(meetingDate, owner, null, participants);
+    }
+
+    /**
+     * Queues the meeting if there is room for it
+     *
+     * @param meetingDate date of the meeting
+     * @param owner user or team which owns the meeting, can be null
+     * @param roster name of the roster file, can be null
+     * @param participants names and local times of the participants, the
+     * list can't be changed afterwards
+     * @return true if the meeting will be saved in the background, false if
+     * the caller should save it
+     */
+    public boolean offer(String meetingDate, String owner, String roster, List<List<String>> participants) {
+        lock.lock();
+        try {
+            if (closed || pendingRecords + participants.size() + 1 > maxRecords) {
+                rejectedMeetings.incrementAndGet();
+                return false;
+            }
+            Meeting meeting = new Meeting(nextSequence++, meetingDate, owner, roster, participants);
+            if (spill != null) {
+                try {
+                    spill.append(meeting);
+                } catch (IOException ex) {
+                    LOGGER.log(Level.WARNING, "Meeting couldn't be written to the spill file", ex);
+                    rejectedMeetings.incrementAndGet();
+                    return false;
+                }
+            }
+            queue.add(meeting);
+            pendingRecords += meeting.records();
+            changed.signalAll();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits until all of the queued meetings are saved
+     *
+     * @param timeoutMillis longest time of waiting
+     * @return true if the queue is empty
+     * @throws InterruptedException if the thread was interrupted
+     */
+    public boolean flush(long timeoutMillis) throws InterruptedException {
+        long remaining = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        lock.lock();
+        try {
+            while (pendingRecords > 0 && remaining > 0) {
+                remaining = changed.awaitNanos(remaining);
+            }
+            return pendingRecords == 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns number of records which wait or are being saved
+     *
+     * @return depth of the queue
+     */
+    public long getDepth() {
+        lock.lock();
+        try {
+            return pendingRecords;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns how long the oldest meeting which isn't saved yet waits
+     *
+     * @return lag in milliseconds, 0 if the queue is empty
+     */
+    public long getLagMillis() {
+        lock.lock();
+        try {
+            Meeting oldest = !saving.isEmpty() ? saving.get(0) : queue.peekFirst();
+            return oldest == null ? 0 : TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - oldest.queuedAt);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns number of saved records
+     *
+     * @return saved meetings and participants
+     */
+    public long getSavedRecords() {
+        return savedRecords.get();
+    }
+
+    /**
+     * Returns number of records which couldn't be saved
+     *
+     * @return meetings and participants which were given up
+     */
+    public long getFailedRecords() {
+        return failedRecords.get();
+    }
+
+    /**
+     * Returns number of meetings which weren't accepted because the queue was
+     * full or closed
+     *
+     * @return rejected meetings
+     */
+    public long getRejectedMeetings() {
+        return rejectedMeetings.get();
+    }
+
+    /**
+     * Stops accepting meetings and waits until the queued ones are saved.
+     * Meetings which couldn't be saved in time stay in the spill file.
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(DRAIN_TIMEOUT_SECONDS));
+            if (writer.isAlive()) {
+                writer.interrupt();
+                writer.join(RETRY_DELAY_MILLIS);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        lock.lock();
+        try {
+            if (pendingRecords > 0) {
+                LOGGER.log(Level.SEVERE, "{0} records weren''t saved when the application stopped, {1}",
+                        new Object[]{pendingRecords, spill != null ? "they stay in the spill file" : "they are lost"});
+            }
+            if (spill != null) {
+                spill.close();
+            }
+        } catch (IOException ex) {
+            LOGGER.log(Level.WARNING, "Spill file couldn't be closed", ex);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Body of the writer thread, saves batches until the queue is closed and
+     * empty
+     */
+    private void write() {
+        try {
+            List<Meeting> batch;
+            while (!(batch = take()).isEmpty()) {
+                boolean reached = save(batch);
+                giveBack();
+                if (!reached && !awaitRetry()) {
+                    return;
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Waits until enough records are queued, the oldest meeting waited long
+     * enough or the queue is closed, and moves the meetings of the next
+     * transaction to the saved ones
+     *
+     * @return meetings of the transaction, empty when the queue is closed and
+     * empty
+     * @throws InterruptedException if the writer was interrupted
+     */
+    private List<Meeting> take() throws InterruptedException {
+        lock.lock();
+        try {
+            while (true) {
+                if (queue.isEmpty()) {
+                    if (closed) {
+                        return Collections.emptyList();
+                    }
+                    changed.await();
+                    continue;
+                }
+                long wait = queue.peekFirst().queuedAt + maxDelayNanos - System.nanoTime();
+                if (closed || pendingRecords >= batchRecords || wait <= 0) {
+                    break;
+                }
+                changed.awaitNanos(wait);
+            }
+            int records = 0;
+            while (!queue.isEmpty() && (records == 0 || records + queue.peekFirst().records() <= batchRecords)) {
+                Meeting meeting = queue.pollFirst();
+                records += meeting.records();
+                saving.add(meeting);
+            }
+            return new ArrayList<>(saving);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Saves the meetings in one transaction. If the transaction fails, the
+     * meetings are saved one by one, so one incorrect meeting doesn't stop
+     * the others.
+     *
+     * @param batch saved meetings
+     * @return false if the database couldn't be reached and the meetings
+     * which weren't saved should be tried again later
+     */
+    private boolean save(List<Meeting> batch) {
+        try (Connection con = connections.create()) {
+            try {
+                long start = System.nanoTime();
+                List<BatchInsertResult> results = model.insertMeetings(con, batch, insertBatchSize);
+                saveListener.accept(System.nanoTime() - start);
+                saved(batch, results);
+                return true;
+            } catch (SQLException ex) {
+                if (batch.size() == 1) {
+                    failed(batch.get(0), ex);
+                    return true;
+                }
+                LOGGER.log(Level.WARNING, "Batch of " + batch.size() + " meetings couldn't be saved, they are saved one by one", ex);
+            }
+            for (Meeting meeting : batch) {
+                try {
+                    long start = System.nanoTime();
+                    BatchInsertResult result = model.insertAll(con, meeting.getMeetingDate(), meeting.getOwner(),
+                            meeting.getParticipants(), insertBatchSize);
+                    saveListener.accept(System.nanoTime() - start);
+                    saved(Collections.singletonList(meeting), Collections.singletonList(result));
+                } catch (SQLException ex) {
+                    failed(meeting, ex);
+                }
+            }
+            return true;
+        } catch (SQLException ex) {
+            LOGGER.log(Level.WARNING, "Database can't be reached, meetings are saved later", ex);
+            return false;
+        }
+    }
+
+    /**
+     * Removes saved meetings from the queue, marks them in the spill file and
+     * reports participants which couldn't be saved
+     *
+     * @param meetings saved meetings
+     * @param results results of the meetings
+     */
+    private void saved(List<Meeting> meetings, List<BatchInsertResult> results) {
+        for (int i = 0; i < meetings.size(); i++) {
+            BatchInsertResult result = results.get(i);
+            resultListener.accept(result);
+            savedRecords.addAndGet(result.getInsertedCount() + 1);
+            if (!result.isComplete()) {
+                failedRecords.addAndGet(result.getFailures().size());
+                LOGGER.log(Level.WARNING, "Participants of the meeting {0} weren''t saved: {1}",
+                        new Object[]{meetings.get(i).getMeetingDate(), result.getFailures()});
+            }
+        }
+        remove(meetings);
+    }
+
+    /**
+     * Counts failed attempt to save the meeting and gives it up after the
+     * last one
+     *
+     * @param meeting meeting which wasn't saved
+     * @param ex reason of the failure
+     */
+    private void failed(Meeting meeting, SQLException ex) {
+        if (++meeting.attempts < MAX_ATTEMPTS) {
+            LOGGER.log(Level.FINE, "Meeting " + meeting.getMeetingDate() + " will be saved again", ex);
+            return;
+        }
+        LOGGER.log(Level.SEVERE, "Meeting " + meeting.getMeetingDate() + " with " + meeting.getParticipants().size()
+                + " participants couldn't be saved", ex);
+        failedRecords.addAndGet(meeting.records());
+        remove(Collections.singletonList(meeting));
+    }
+
+    /**
+     * Removes meetings from the saved ones, marking them in the spill file.
+     * The spill file is emptied when nothing waits and rewritten when it is
+     * too large.
+     *
+     * @param meetings removed meetings
+     */
+    private void remove(List<Meeting> meetings) {
+        lock.lock();
+        try {
+            for (Meeting meeting : meetings) {
+                saving.remove(meeting);
+                pendingRecords -= meeting.records();
+            }
+            if (spill != null) {
+                if (pendingRecords == 0) {
+                    spill.rewrite(Collections.emptyList());
+                } else {
+                    spill.saved(meetings);
+                    if (spill.size() > COMPACT_BYTES) {
+                        List<Meeting> pending = new ArrayList<>(saving);
+                        pending.addAll(queue);
+                        spill.rewrite(pending);
+                    }
+                }
+            }
+            changed.signalAll();
+        } catch (IOException ex) {
+            LOGGER.log(Level.WARNING, "Spill file couldn't be updated", ex);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Puts meetings which weren't saved back at the head of the queue, so
+     * they are tried again first
+     */
+    private void giveBack() {
+        lock.lock();
+        try {
+            for (int i = saving.size() - 1; i >= 0; i--) {
+                queue.addFirst(saving.get(i));
+            }
+            saving.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits before the next attempt to reach the database
+     *
+     * @return false if the queue was closed and the writer should stop
+     * @throws InterruptedException if the writer was interrupted
+     */
+    private boolean awaitRetry() throws InterruptedException {
+        lock.lock();
+        try {
+            if (!closed) {
+                changed.await(RETRY_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+            }
+            return !closed;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
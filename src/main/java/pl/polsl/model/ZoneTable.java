@@ -0,0 +1,180 @@
+package pl.polsl.model;
+
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Offsets of a timezone with all of its transitions, e.g. changes of daylight
+ * saving time, computed in advance for years from 1900 to 2100. Offset of an
+ * instant in this range is found with a binary search in the table instead of
+ * evaluating rules of the timezone, fixed offsets don't need a search at all.
+ * Timezones are checked strictly: GMT offsets and IANA regions like
+ * Europe/Warsaw are accepted, anything else is reported instead of being
+ * treated as GMT.
+ *
+ * @author Jacek
+ * @version 1.5
+ */
+public final class ZoneTable {
+
+    /** Start of the precomputed range, 1900-01-01T00:00:00Z */
+    private static final long TABLE_START = LocalDateTime.of(1900, 1, 1, 0, 0).toEpochSecond(ZoneOffset.UTC);
+
+    /** End of the precomputed range, 2101-01-01T00:00:00Z */
+    private static final long TABLE_END = LocalDateTime.of(2101, 1, 1, 0, 0).toEpochSecond(ZoneOffset.UTC);
+
+    /** Maximal number of cached timezones, user can send any text as a timezone */
+    private static final int MAX_CACHED_ZONES = 10000;
+
+    /** Tables by the text used in the roster */
+    private static final Map<String, ZoneTable> TABLES = new ConcurrentHashMap<>();
+
+    /** Identifier of the timezone */
+    private final ZoneId id;
+
+    /** Rules used outside of the precomputed range */
+    private final ZoneRules rules;
+
+    /** Instants of the transitions in seconds, in increasing order */
+    private final long[] transitions;
+
+    /** Offsets in seconds, offsets[i] is used before transitions[i] */
+    private final int[] offsets;
+
+    /**
+     * Computes the table from rules of the timezone
+     *
+     * @param id identifier of the timezone
+     */
+    private ZoneTable(ZoneId id) {
+        this.id = id;
+        this.rules = id.getRules();
+        if (rules.isFixedOffset()) {
+            transitions = new long[0];
+            offsets = new int[] {rules.getOffset(Instant.EPOCH).getTotalSeconds()};
+            return;
+        }
+        long[] instants = new long[64];
+        int[] values = new int[65];
+        values[0] = rules.getOffset(Instant.ofEpochSecond(TABLE_START)).getTotalSeconds();
+        int count = 0;
+        ZoneOffsetTransition transition = rules.nextTransition(Instant.ofEpochSecond(TABLE_START));
+        while (transition != null && transition.toEpochSecond() < TABLE_END) {
+            if (count == instants.length) {
+                instants = Arrays.copyOf(instants, count * 2);
+                values = Arrays.copyOf(values, count * 2 + 1);
+            }
+            instants[count] = transition.toEpochSecond();
+            values[++count] = transition.getOffsetAfter().getTotalSeconds();
+            transition = rules.nextTransition(transition.getInstant());
+        }
+        transitions = Arrays.copyOf(instants, count);
+        offsets = Arrays.copyOf(values, count + 1);
+    }
+
+    /**
+     * Returns table of the timezone, computing it only the first time the
+     * timezone is used
+     *
+     * @param zone timezone, e.g. GMT+1, GMT-5:30 or Europe/Warsaw
+     * @return table of the timezone
+     * @throws InvalidInputException if the timezone doesn't exist
+     */
+    public static ZoneTable of(String zone) throws InvalidInputException {
+        ZoneTable table = TABLES.get(zone);
+        if (table == null) {
+            table = new ZoneTable(parse(zone));
+            if (TABLES.size() < MAX_CACHED_ZONES) {
+                TABLES.putIfAbsent(zone, table);
+            }
+        }
+        return table;
+    }
+
+    /**
+     * Returns offset of the timezone at the instant
+     *
+     * @param epochSecond instant in seconds from 1970-01-01T00:00:00Z
+     * @return offset in seconds
+     */
+    public int getOffset(long epochSecond) {
+        if (transitions.length == 0) {
+            return offsets[0];
+        }
+        if (epochSecond < TABLE_START || epochSecond >= TABLE_END) {
+            return rules.getOffset(Instant.ofEpochSecond(epochSecond)).getTotalSeconds();
+        }
+        int index = Arrays.binarySearch(transitions, epochSecond);
+        return offsets[index >= 0 ? index + 1 : -index - 1];
+    }
+
+    /**
+     * Returns local time of the instant as number of seconds from
+     * 1970-01-01 00:00:00 of the local clock
+     *
+     * @param instant converted instant
+     * @return local time in seconds
+     */
+    public long localEpochSecond(Instant instant) {
+        return instant.getEpochSecond() + getOffset(instant.getEpochSecond());
+    }
+
+    /**
+     * Returns identifier of the timezone
+     *
+     * @return identifier
+     */
+    public ZoneId getId() {
+        return id;
+    }
+
+    /**
+     * Returns rules of the timezone, used for local times which aren't
+     * instants, e.g. working hours
+     *
+     * @return rules of the timezone
+     */
+    public ZoneRules getRules() {
+        return rules;
+    }
+
+    /**
+     * Returns number of precomputed transitions
+     *
+     * @return number of transitions
+     */
+    public int getTransitionCount() {
+        return transitions.length;
+    }
+
+    /**
+     * Finds the timezone. GMT offsets which java.time doesn't accept, e.g.
+     * GMT+5:30, are read like java.util.TimeZone reads them.
+     *
+     * @param zone timezone
+     * @return identifier of the timezone
+     * @throws InvalidInputException if the timezone doesn't exist
+     */
+    private static ZoneId parse(String zone) throws InvalidInputException {
+        try {
+            return ZoneId.of(zone, ZoneId.SHORT_IDS);
+        } catch (DateTimeException ex) {
+            if (zone.startsWith("GMT+") || zone.startsWith("GMT-")) {
+                TimeZone custom = TimeZone.getTimeZone(zone);
+                if (!"GMT".equals(custom.getID())) {
+                    return custom.toZoneId();
+                }
+            }
+            throw new InvalidInputException("Unknown timezone " + zone);
+        }
+    }
+}
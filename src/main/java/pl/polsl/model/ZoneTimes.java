@@ -0,0 +1,68 @@
+package pl.polsl.model;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Local times of one meeting in every timezone of a roster. The timezone of a
+ * participant is looked up by its text first, so in a roster where thousands
+ * of participants share a few dozen timezones the table of the timezone is
+ * found and the meeting converted once per timezone, not once per
+ * participant. Different texts of the same timezone, e.g. GMT+2 and
+ * GMT+02:00, share one conversion. Every conversion of a roster creates its
+ * own instance, so it needs no locking.
+ *
+ * @author Jacek
+ * @version 1.5
+ */
+public final class ZoneTimes {
+
+    /** Instant of the meeting */
+    private final Instant meeting;
+
+    /** Local time of the meeting by the text of the timezone */
+    private final Map<String, Long> byText = new HashMap<>();
+
+    /** Local time of the meeting by the normalized timezone */
+    private final Map<ZoneId, Long> byZone = new HashMap<>();
+
+    /**
+     * Creates empty local times of the meeting
+     *
+     * @param meeting instant of the meeting
+     */
+    public ZoneTimes(Instant meeting) {
+        this.meeting = meeting;
+    }
+
+    /**
+     * Returns local time of the meeting for the participant, converting it
+     * only for the first participant in the timezone
+     *
+     * @param participant participant of the roster
+     * @return local time in seconds from 1970-01-01 00:00:00 of the local
+     * clock
+     * @throws InvalidInputException if the timezone doesn't exist, message
+     * contains number of the line
+     */
+    public long localEpochSecond(RosterEntry participant) throws InvalidInputException {
+        Long localTime = byText.get(participant.getZone());
+        if (localTime == null) {
+            ZoneTable table = participant.getZoneTable();
+            localTime = byZone.computeIfAbsent(table.getId().normalized(), zone -> table.localEpochSecond(meeting));
+            byText.put(participant.getZone(), localTime);
+        }
+        return localTime;
+    }
+
+    /**
+     * Returns number of distinct timezones converted so far
+     *
+     * @return number of timezones
+     */
+    public int getZoneCount() {
+        return byZone.size();
+    }
+}
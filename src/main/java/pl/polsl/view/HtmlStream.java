@@ -0,0 +1,238 @@
+package pl.polsl.view;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes HTML in UTF-8 straight to the output stream of the response. Static
+ * parts of the page are encoded once as fragments, dynamic values are
+ * escaped and encoded character by character into the buffer without
+ * creating intermediate strings. When the buffer is full it is sent and
+ * flushed, so a large page reaches the browser in chunks while it is still
+ * rendered and the memory used by one response doesn't depend on its size.
+ *
+ * @author Jacek
+ * @version 1.5
+ */
+public final class HtmlStream implements Closeable, Flushable {
+
+    /** Default size of the buffer in bytes */
+    public static final int DEFAULT_BUFFER_SIZE = 8 * 1024;
+
+    /** Escaped ampersand */
+    private static final byte[] AMP = fragment("&amp;");
+
+    /** Escaped less than sign */
+    private static final byte[] LT = fragment("&lt;");
+
+    /** Escaped greater than sign */
+    private static final byte[] GT = fragment("&gt;");
+
+    /** Escaped quotation mark */
+    private static final byte[] QUOT = fragment("&quot;");
+
+    /** Escaped apostrophe */
+    private static final byte[] APOS = fragment("&#39;");
+
+    /** Stream of the response */
+    private final OutputStream out;
+
+    /** Bytes which weren't sent yet */
+    private final byte[] buffer;
+
+    /** Number of bytes in the buffer */
+    private int count;
+
+    /**
+     * Creates stream with the default buffer
+     *
+     * @param out stream of the response
+     */
+    public HtmlStream(OutputStream out) {
+        this(out, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Creates stream with the buffer of given size
+     *
+     * @param out stream of the response
+     * @param bufferSize size of the buffer in bytes, at least 32
+     */
+    public HtmlStream(OutputStream out, int bufferSize) {
+        if (bufferSize < 32) {
+            throw new IllegalArgumentException("Buffer should have at least 32 bytes");
+        }
+        this.out = out;
+        this.buffer = new byte[bufferSize];
+    }
+
+    /**
+     * Encodes static part of the page, should be called once and the result
+     * kept in a constant
+     *
+     * @param html HTML which is written without escaping
+     * @return HTML encoded in UTF-8
+     */
+    public static byte[] fragment(String html) {
+        return html.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes encoded static part of the page
+     *
+     * @param fragment result of fragment
+     * @return this stream
+     * @throws IOException if the response couldn't be written
+     */
+    public HtmlStream write(byte[] fragment) throws IOException {
+        if (fragment.length > buffer.length - count) {
+            send();
+            if (fragment.length > buffer.length) {
+                out.write(fragment);
+                return this;
+            }
+        }
+        System.arraycopy(fragment, 0, buffer, count, fragment.length);
+        count += fragment.length;
+        return this;
+    }
+
+    /**
+     * Writes dynamic value, escaping characters which have a meaning in HTML.
+     * Null is written as an empty text.
+     *
+     * @param value written value
+     * @return this stream
+     * @throws IOException if the response couldn't be written
+     */
+    public HtmlStream text(CharSequence value) throws IOException {
+        if (value == null) {
+            return this;
+        }
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                switch (c) {
+                    case '&':
+                        write(AMP);
+                        break;
+                    case '<':
+                        write(LT);
+                        break;
+                    case '>':
+                        write(GT);
+                        break;
+                    case '"':
+                        write(QUOT);
+                        break;
+                    case '\'':
+                        write(APOS);
+                        break;
+                    default:
+                        ensure(1);
+                        buffer[count++] = (byte) c;
+                }
+            } else if (c < 0x800) {
+                ensure(2);
+                buffer[count++] = (byte) (0xC0 | c >> 6);
+                buffer[count++] = (byte) (0x80 | c & 0x3F);
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                ensure(4);
+                buffer[count++] = (byte) (0xF0 | codePoint >> 18);
+                buffer[count++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+                buffer[count++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+                buffer[count++] = (byte) (0x80 | codePoint & 0x3F);
+            } else if (Character.isSurrogate(c)) {
+                ensure(1);
+                buffer[count++] = '?';
+            } else {
+                ensure(3);
+                buffer[count++] = (byte) (0xE0 | c >> 12);
+                buffer[count++] = (byte) (0x80 | c >> 6 & 0x3F);
+                buffer[count++] = (byte) (0x80 | c & 0x3F);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Writes number in decimal form
+     *
+     * @param value written number
+     * @return this stream
+     * @throws IOException if the response couldn't be written
+     */
+    public HtmlStream number(long value) throws IOException {
+        ensure(20);
+        if (value < 0) {
+            buffer[count++] = '-';
+        }
+        int start = count;
+        do {
+            buffer[count++] = (byte) ('0' + Math.abs(value % 10));
+            value /= 10;
+        } while (value != 0);
+        for (int left = start, right = count - 1; left < right; left++, right--) {
+            byte digit = buffer[left];
+            buffer[left] = buffer[right];
+            buffer[right] = digit;
+        }
+        return this;
+    }
+
+    /**
+     * Sends the buffer and flushes the response, so everything written so far
+     * reaches the browser
+     *
+     * @throws IOException if the response couldn't be written
+     */
+    @Override
+    public void flush() throws IOException {
+        send();
+    }
+
+    /**
+     * Sends the buffer and closes the response
+     *
+     * @throws IOException if the response couldn't be written
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            send();
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Sends the buffer if there is no room for given number of bytes
+     *
+     * @param bytes number of written bytes
+     * @throws IOException if the response couldn't be written
+     */
+    private void ensure(int bytes) throws IOException {
+        if (buffer.length - count < bytes) {
+            send();
+        }
+    }
+
+    /**
+     * Writes the buffer to the response and flushes it, so the container
+     * sends it as one chunk instead of keeping the whole page
+     *
+     * @throws IOException if the response couldn't be written
+     */
+    private void send() throws IOException {
+        if (count > 0) {
+            out.write(buffer, 0, count);
+            count = 0;
+        }
+        out.flush();
+    }
+}
@@ -0,0 +1,302 @@
+package pl.polsl.view;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * Formats of converted times returned by the REST API. Every record is one
+ * participant at one meeting, or one timezone at one meeting with names of
+ * its participants, and is written as soon as it is converted, so the
+ * response can be streamed.
+ *
+ * @author Jacek
+ * @version 1.5
+ */
+public enum RecordFormat {
+
+    /**
+     * One JSON object per line
+     */
+    NDJSON("application/x-ndjson") {
+        /**
+         * Writes nothing, records don't need a header
+         *
+         * @param out writer of the response
+         */
+        @Override
+        public void writeHeader(Writer out) {
+        }
+
+        /**
+         * Writes the participant as one JSON object
+         *
+         * @param out writer of the response
+         * @param meeting instant of the meeting in ISO-8601 format
+         * @param name name of the participant
+         * @param zone timezone of the participant
+         * @param localTime local time of the participant
+         * @throws IOException if the response couldn't be written
+         */
+        @Override
+        public void writeRecord(Writer out, String meeting, String name, String zone, String localTime) throws IOException {
+            out.write("{\"meeting\":\"");
+            writeJson(out, meeting);
+            out.write("\",\"name\":\"");
+            writeJson(out, name);
+            out.write("\",\"zone\":\"");
+            writeJson(out, zone);
+            out.write("\",\"localTime\":\"");
+            writeJson(out, localTime);
+            out.write("\"}\n");
+        }
+
+        /**
+         * Writes nothing, groups don't need a header
+         *
+         * @param out writer of the response
+         */
+        @Override
+        public void writeGroupHeader(Writer out) {
+        }
+
+        /**
+         * Writes the group as one JSON object with an array of names
+         *
+         * @param out writer of the response
+         * @param meeting instant of the meeting in ISO-8601 format
+         * @param zone timezone of the group
+         * @param localTime local time of the group
+         * @param names names of the participants
+         * @throws IOException if the response couldn't be written
+         */
+        @Override
+        public void writeGroup(Writer out, String meeting, String zone, String localTime, List<String> names) throws IOException {
+            out.write("{\"meeting\":\"");
+            writeJson(out, meeting);
+            out.write("\",\"zone\":\"");
+            writeJson(out, zone);
+            out.write("\",\"localTime\":\"");
+            writeJson(out, localTime);
+            out.write("\",\"names\":[");
+            for (int i = 0; i < names.size(); i++) {
+                out.write(i == 0 ? "\"" : ",\"");
+                writeJson(out, names.get(i));
+                out.write('"');
+            }
+            out.write("]}\n");
+        }
+    },
+
+    /**
+     * Comma separated values with a header line, quoted like in RFC 4180
+     */
+    CSV("text/csv") {
+        /**
+         * Writes names of the columns
+         *
+         * @param out writer of the response
+         * @throws IOException if the response couldn't be written
+         */
+        @Override
+        public void writeHeader(Writer out) throws IOException {
+            out.write("meeting,name,zone,localTime\r\n");
+        }
+
+        /**
+         * Writes the participant as one line
+         *
+         * @param out writer of the response
+         * @param meeting instant of the meeting in ISO-8601 format
+         * @param name name of the participant
+         * @param zone timezone of the participant
+         * @param localTime local time of the participant
+         * @throws IOException if the response couldn't be written
+         */
+        @Override
+        public void writeRecord(Writer out, String meeting, String name, String zone, String localTime) throws IOException {
+            writeCsv(out, meeting);
+            out.write(',');
+            writeCsv(out, name);
+            out.write(',');
+            writeCsv(out, zone);
+            out.write(',');
+            writeCsv(out, localTime);
+            out.write("\r\n");
+        }
+
+        /**
+         * Writes names of the columns of groups
+         *
+         * @param out writer of the response
+         * @throws IOException if the response couldn't be written
+         */
+        @Override
+        public void writeGroupHeader(Writer out) throws IOException {
+            out.write("meeting,zone,localTime,names\r\n");
+        }
+
+        /**
+         * Writes the group as one line, names are separated by semicolons in
+         * one field
+         *
+         * @param out writer of the response
+         * @param meeting instant of the meeting in ISO-8601 format
+         * @param zone timezone of the group
+         * @param localTime local time of the group
+         * @param names names of the participants
+         * @throws IOException if the response couldn't be written
+         */
+        @Override
+        public void writeGroup(Writer out, String meeting, String zone, String localTime, List<String> names) throws IOException {
+            writeCsv(out, meeting);
+            out.write(',');
+            writeCsv(out, zone);
+            out.write(',');
+            writeCsv(out, localTime);
+            out.write(',');
+            writeCsv(out, String.join(";", names));
+            out.write("\r\n");
+        }
+    };
+
+    /** Hexadecimal digits used by escapes of control characters */
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    /** Media type of the format */
+    private final String mediaType;
+
+    /**
+     * Creates format
+     *
+     * @param mediaType media type of the format
+     */
+    RecordFormat(String mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    /**
+     * Returns media type of the format
+     *
+     * @return media type, e.g. text/csv
+     */
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    /**
+     * Returns format with the media type
+     *
+     * @param mediaType media type without parameters
+     * @return format or null if the type isn't supported
+     */
+    public static RecordFormat forMediaType(String mediaType) {
+        for (RecordFormat format : values()) {
+            if (format.mediaType.equalsIgnoreCase(mediaType)) {
+                return format;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Writes beginning of the response
+     *
+     * @param out writer of the response
+     * @throws IOException if the response couldn't be written
+     */
+    public abstract void writeHeader(Writer out) throws IOException;
+
+    /**
+     * Writes one converted participant
+     *
+     * @param out writer of the response
+     * @param meeting instant of the meeting in ISO-8601 format
+     * @param name name of the participant
+     * @param zone timezone of the participant
+     * @param localTime local time of the participant in yyyy-MM-dd HH:mm:ss format
+     * @throws IOException if the response couldn't be written
+     */
+    public abstract void writeRecord(Writer out, String meeting, String name, String zone, String localTime) throws IOException;
+
+    /**
+     * Writes beginning of the response with participants grouped by timezone
+     *
+     * @param out writer of the response
+     * @throws IOException if the response couldn't be written
+     */
+    public abstract void writeGroupHeader(Writer out) throws IOException;
+
+    /**
+     * Writes participants in one timezone at one meeting, their local time is
+     * written once for all of them
+     *
+     * @param out writer of the response
+     * @param meeting instant of the meeting in ISO-8601 format
+     * @param zone timezone of the group
+     * @param localTime local time of the group in yyyy-MM-dd HH:mm:ss format
+     * @param names names of the participants
+     * @throws IOException if the response couldn't be written
+     */
+    public abstract void writeGroup(Writer out, String meeting, String zone, String localTime, List<String> names) throws IOException;
+
+    /**
+     * Writes content of a JSON string, escaping quotes, backslashes and
+     * control characters
+     *
+     * @param out writer of the response
+     * @param value written value
+     * @throws IOException if the response couldn't be written
+     */
+    private static void writeJson(Writer out, String value) throws IOException {
+        int written = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c != '"' && c != '\\' && c >= 0x20) {
+                continue;
+            }
+            out.write(value, written, i - written);
+            written = i + 1;
+            if (c == '"' || c == '\\') {
+                out.write('\\');
+                out.write(c);
+            } else {
+                out.write("\\u00");
+                out.write(HEX[c >> 4]);
+                out.write(HEX[c & 0xF]);
+            }
+        }
+        out.write(value, written, value.length() - written);
+    }
+
+    /**
+     * Writes CSV field, quoting it only if it contains a comma, a quote or a
+     * line break
+     *
+     * @param out writer of the response
+     * @param value written value
+     * @throws IOException if the response couldn't be written
+     */
+    private static void writeCsv(Writer out, String value) throws IOException {
+        boolean quoted = false;
+        for (int i = 0; i < value.length() && !quoted; i++) {
+            char c = value.charAt(i);
+            quoted = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quoted) {
+            out.write(value);
+            return;
+        }
+        out.write('"');
+        int written = 0;
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) == '"') {
+                out.write(value, written, i + 1 - written);
+                out.write('"');
+                written = i + 1;
+            }
+        }
+        out.write(value, written, value.length() - written);
+        out.write('"');
+    }
+}
@@ -1,64 +1,253 @@
 package pl.polsl.view;
 
 import java.io.IOException;
-import java.io.PrintWriter;
-import java.sql.Connection;
-import java.sql.ResultSet;
-import java.sql.SQLException;
-import java.sql.Statement;
-import java.util.Vector;
+import java.util.Iterator;
+import java.util.List;
 import javax.servlet.http.HttpServletResponse;
+import pl.polsl.model.BatchInsertResult;
+import pl.polsl.model.HistoryPages;
+import pl.polsl.model.MeetingMatrix;
+import pl.polsl.model.Roster;
+import pl.polsl.model.TimeConverter;
 
 /**
  * The view part of the Model-View-Controller design patter. It represents the
- * visualization of the data that model contains.
+ * visualization of the data that model contains. Static parts of the page are
+ * encoded once and written with HtmlStream, all of the values are escaped.
  *
  * @author Jacek
  * @version 1.5
  */
 public class TimesView {
 
+    /** Beginning of the page */
+    private static final byte[] HEADER = HtmlStream.fragment("<html>\n"
+            + "<head>\n"
+            + "<style>\n"
+            + "table, th, td {\n"
+            + "border:1px solid black;\n"
+            + "}\n"
+            + "</style>\n"
+            + "<title>Time Zones</title>\n"
+            + "<meta charset=\"UTF-8\">\n"
+            + "</head>\n"
+            + "<body>\n"
+            + "<h1>Local times for participants</h1>\n\n");
+
+    /** End of the page */
+    private static final byte[] FOOTER = HtmlStream.fragment("</body>\n</html>\n");
+
+    /** Line break */
+    private static final byte[] BR = HtmlStream.fragment("<br>");
+
+    /** Beginning of the heading of the history */
+    private static final byte[] HISTORY_START = HtmlStream.fragment("<h2>Previous meeting dates (for ");
+
+    /** End of a heading with the timezone */
+    private static final byte[] ZONE_END = HtmlStream.fragment("):</h2>");
+
+    /** Beginning of the participant */
+    private static final byte[] PARTICIPANT_NAME = HtmlStream.fragment("<p>Name: ");
+
+    /** Local time of the participant */
+    private static final byte[] PARTICIPANT_TIME = HtmlStream.fragment("<br> Local time: ");
+
+    /** End of the participant */
+    private static final byte[] PARTICIPANT_END = HtmlStream.fragment("</p>\n\n");
+
+    /** Beginning of a group of participants in one timezone */
+    private static final byte[] GROUP_ZONE = HtmlStream.fragment("<p>Timezone: ");
+
+    /** Number of participants of the group */
+    private static final byte[] GROUP_SIZE = HtmlStream.fragment("<br> Participants (");
+
+    /** Beginning of the names of the group */
+    private static final byte[] GROUP_NAMES = HtmlStream.fragment("): ");
+
+    /** Separator of names of the group */
+    private static final byte[] NAME_SEPARATOR = HtmlStream.fragment(", ");
+
+    /** Heading of the participants which weren't saved */
+    private static final byte[] FAILURES = HtmlStream.fragment("<h2>Participants which weren't saved:</h2>");
+
+    /** Beginning of the version of the roster sent again */
+    private static final byte[] ROSTER_VERSION = HtmlStream.fragment("<p>Roster saved as version ");
+
+    /** Beginning of the number of added participants */
+    private static final byte[] VERSION_ADDED = HtmlStream.fragment(": ");
+
+    /** Beginning of the number of changed participants */
+    private static final byte[] VERSION_CHANGED = HtmlStream.fragment(" added, ");
+
+    /** Beginning of the number of removed participants */
+    private static final byte[] VERSION_REMOVED = HtmlStream.fragment(" changed, ");
+
+    /** Beginning of the number of unchanged participants */
+    private static final byte[] VERSION_UNCHANGED = HtmlStream.fragment(" removed, ");
+
+    /** End of the version of the roster */
+    private static final byte[] ROSTER_VERSION_END = HtmlStream.fragment(" unchanged participants</p>\n");
+
+    /** End of the version of the roster whose previous rows were kept */
+    private static final byte[] ROSTER_VERSION_KEPT = HtmlStream.fragment(
+            " unchanged participants, the previous version is kept in the history</p>\n");
+
+    /** Note about the meeting saved in the background */
+    private static final byte[] SAVED_IN_BACKGROUND = HtmlStream.fragment(
+            "<p>Participants are saved in the background, they can appear in the database data in a moment.</p>\n");
+
+    /** Beginning of the number of one participant at the last meeting */
+    private static final byte[] ONE_PARTICIPANT = HtmlStream.fragment("<p>There was <b>");
+
+    /** Beginning of the number of many participants at the last meeting */
+    private static final byte[] MANY_PARTICIPANTS = HtmlStream.fragment("<p>There were <b>");
+
+    /** End of the number of one participant */
+    private static final byte[] ONE_PARTICIPANT_END = HtmlStream.fragment("</b> participant at the last meeting</p>\n");
+
+    /** End of the number of many participants */
+    private static final byte[] MANY_PARTICIPANTS_END = HtmlStream.fragment("</b> participants at the last meeting</p>\n");
+
+    /** Beginning of the current meeting */
+    private static final byte[] CURRENT_MEETING = HtmlStream.fragment("<h2>Current meeting date (for ");
+
+    /** End of the heading of the current meeting */
+    private static final byte[] CURRENT_MEETING_END = HtmlStream.fragment("): </h2>");
+
+    /** Beginning of the row with the first cell */
+    private static final byte[] ROW_START = HtmlStream.fragment("<tr>\n<td>");
+
+    /** End of the ID cell */
+    private static final byte[] ID_END = HtmlStream.fragment("  </td>\n<td>");
+
+    /** Border between two cells */
+    private static final byte[] NEXT_CELL = HtmlStream.fragment("</td>\n<td>");
+
+    /** End of the row */
+    private static final byte[] ROW_END = HtmlStream.fragment("</td>\n</tr>\n");
+
+    /** Number of rows in the database */
+    private static final byte[] ROW_COUNT = HtmlStream.fragment("<p>Rows in the database: ");
+
+    /** Beginning of the link to the next page */
+    private static final byte[] NEXT_LINK = HtmlStream.fragment("<br><a href=\"");
+
+    /** Address of the next page of the history */
+    private static final byte[] HISTORY_LINK = HtmlStream.fragment("/History?before=");
+
+    /** Parameter with the size of the page */
+    private static final byte[] PAGE_SIZE_PARAMETER = HtmlStream.fragment("&amp;pageSize=");
+
+    /** End of the link to the next page */
+    private static final byte[] NEXT_LINK_END = HtmlStream.fragment("\">Next page</a>");
+
+    /** End of the paragraph */
+    private static final byte[] PARAGRAPH_END = HtmlStream.fragment("</p>\n");
+
+    /** Beginning of the table with database data */
+    private static final byte[] TABLE_HEADER = HtmlStream.fragment("<h2> Database data:</h2>\n"
+            + "<table>\n"
+            + "<tr>\n"
+            + " <th>ID</th>\n"
+            + " <th>Name</th>\n"
+            + " <th>Time</th>\n"
+            + "</tr>\n");
+
+    /** End of a table */
+    private static final byte[] TABLE_FOOTER = HtmlStream.fragment("</table>\n");
+
+    /** Beginning of the heading of the best meeting times */
+    private static final byte[] SLOTS_START = HtmlStream.fragment("<h2>Best meeting times (for ");
+
+    /** Number of participants in the heading of the best meeting times */
+    private static final byte[] SLOTS_FOR = HtmlStream.fragment(") for ");
+
+    /** Beginning of the table with the best meeting times */
+    private static final byte[] SLOTS_TABLE = HtmlStream.fragment(" participants:</h2>\n"
+            + "<table>\n"
+            + "<tr>\n"
+            + "<th>Start</th>\n"
+            + "<th>End</th>\n"
+            + "<th>Participants at work</th>\n"
+            + "</tr>\n");
+
+    /** Separator of available and all participants */
+    private static final byte[] OUT_OF = HtmlStream.fragment(" / ");
+
+    /** Beginning of the heading of the matrix of meetings */
+    private static final byte[] MATRIX_START = HtmlStream.fragment("<h2>Local times at candidate meetings (for ");
+
+    /** Beginning of the table with the matrix of meetings */
+    private static final byte[] MATRIX_TABLE = HtmlStream.fragment(" participants:</h2>\n"
+            + "<table>\n"
+            + "<tr>\n"
+            + "<th>Name</th>\n"
+            + "<th>Timezone</th>\n");
+
+    /** Beginning of a heading cell */
+    private static final byte[] HEADING_START = HtmlStream.fragment("<th>");
+
+    /** End of a heading cell */
+    private static final byte[] HEADING_END = HtmlStream.fragment("</th>\n");
+
+    /** End of the heading row */
+    private static final byte[] HEADING_ROW_END = HtmlStream.fragment("</tr>\n");
+
+    /**
+     * Timezone in which meeting dates are shown
+     */
+    private final String referenceZone;
+
+    /**
+     * Creates view showing meeting dates in GMT+2
+     */
+    public TimesView() {
+        this("GMT+2");
+    }
+
+    /**
+     * Creates view showing meeting dates in the timezone
+     *
+     * @param referenceZone timezone of meeting dates
+     */
+    public TimesView(String referenceZone) {
+        this.referenceZone = referenceZone;
+    }
+
     /**
      * Method prints header for HTML website
      *
-     * @param out PrintWriter used to output HTML
+     * @param out stream used to output HTML
+     * @throws IOException if the page couldn't be written
      */
-    public void printHeader(PrintWriter out) {
-        out.println("<html>\n"
-                + "<head>\n"
-                + "<style>\n"
-                + "table, th, td {\n"
-                + "border:1px solid black;\n"
-                + "}\n"
-                + "</style>\n"
-                + "<title>Time Zones</title>\n"
-                + "<meta charset=\"UTF-8\">\n"
-                + "</head>\n"
-                + "<body>\n"
-                + "<h1>Local times for participants</h1>\n");
+    public void printHeader(HtmlStream out) throws IOException {
+        out.write(HEADER);
     }
 
     /**
      * Method prints footer for HTML website
      *
-     * @param out PrintWriter used to output HTML
+     * @param out stream used to output HTML
+     * @throws IOException if the page couldn't be written
      */
-    public void printFooter(PrintWriter out) {
-        out.println("</body>\n"
-                + "</html>");
+    public void printFooter(HtmlStream out) throws IOException {
+        out.write(FOOTER);
     }
 
     /**
-     * Method prints out history of previous meeting date in HTML
+     * Method prints out history of previous meeting date in HTML. Dates are
+     * iterated without locking the history.
      *
-     * @param out PrintWriter used to output HTML
+     * @param out stream used to output HTML
      * @param dates previous meeting dates
+     * @throws IOException if the page couldn't be written
      */
-    public void printHistory(PrintWriter out, Vector<String> dates) {
-        if (dates.size() != 0) {
-            out.print("<h2>Previous meeting dates (for GMT+2):</h2>");
-            for (String date : dates) {
-                out.print(date + "<br>");
+    public void printHistory(HtmlStream out, Iterable<String> dates) throws IOException {
+        Iterator<String> date = dates.iterator();
+        if (date.hasNext()) {
+            out.write(HISTORY_START).text(referenceZone).write(ZONE_END);
+            while (date.hasNext()) {
+                out.text(date.next()).write(BR);
             }
         }
     }
@@ -66,15 +255,82 @@ public class TimesView {
     /**
      * Prints out info about participant to website
      *
-     * @param out PrintWriter used to output HTML
+     * @param out stream used to output HTML
      * @param info information about participant
+     * @throws IOException if the page couldn't be written
+     */
+    public void printParticipantInfo(HtmlStream out, String... info) throws IOException {
+        out.write(PARTICIPANT_NAME).text(info[0])
+                .write(PARTICIPANT_TIME).text(info[1])
+                .write(PARTICIPANT_END);
+    }
+
+    /**
+     * Prints out participants in one timezone with their local time written
+     * once for all of them
+     *
+     * @param out stream used to output HTML
+     * @param group participants in the timezone
+     * @throws IOException if the page couldn't be written
+     */
+    public void printZoneGroup(HtmlStream out, Roster.ZoneGroup group) throws IOException {
+        out.write(GROUP_ZONE).text(group.getZone())
+                .write(PARTICIPANT_TIME).text(group.getLocalTime())
+                .write(GROUP_SIZE).number(group.size()).write(GROUP_NAMES);
+        for (int i = 0; i < group.size(); i++) {
+            if (i > 0) {
+                out.write(NAME_SEPARATOR);
+            }
+            out.text(group.getName(i));
+        }
+        out.write(PARTICIPANT_END);
+    }
+
+    /**
+     * Prints participants which couldn't be saved to the database
+     *
+     * @param out stream used to output HTML
+     * @param failures participants which couldn't be saved
+     * @throws IOException if the page couldn't be written
      */
-    public void printParticipantInfo(PrintWriter out, String... info) {
-        out.println("<p>"
-                + "Name: " + info[0]
-                + "<br> "
-                + "Local time: " + info[1]
-                + "</p>\n");
+    public void printInsertFailures(HtmlStream out, List<BatchInsertResult.Failure> failures) throws IOException {
+        if (!failures.isEmpty()) {
+            out.write(FAILURES);
+            for (BatchInsertResult.Failure failure : failures) {
+                out.text(failure.toString()).write(BR);
+            }
+        }
+    }
+
+    /**
+     * Prints how the roster sent again for the same meeting differs from the
+     * saved version and whether the previous version was kept, nothing is
+     * printed for a new meeting
+     *
+     * @param out stream used to output HTML
+     * @param result result of saving the meeting
+     * @throws IOException if the page couldn't be written
+     */
+    public void printRosterVersion(HtmlStream out, BatchInsertResult result) throws IOException {
+        if (result.getVersion() > 1) {
+            out.write(ROSTER_VERSION).number(result.getVersion())
+                    .write(VERSION_ADDED).number(result.getInsertedCount())
+                    .write(VERSION_CHANGED).number(result.getUpdatedCount())
+                    .write(VERSION_REMOVED).number(result.getDeletedCount())
+                    .write(VERSION_UNCHANGED).number(result.getUnchangedCount())
+                    .write(result.isPreviousKept() ? ROSTER_VERSION_KEPT : ROSTER_VERSION_END);
+        }
+    }
+
+    /**
+     * Prints note that the meeting is saved in the background, so it can be
+     * missing from the table below
+     *
+     * @param out stream used to output HTML
+     * @throws IOException if the page couldn't be written
+     */
+    public void printSavedInBackground(HtmlStream out) throws IOException {
+        out.write(SAVED_IN_BACKGROUND);
     }
 
     /**
@@ -88,73 +344,192 @@ public class TimesView {
         response.sendError(HttpServletResponse.SC_BAD_REQUEST, message);
     }
 
+    /**
+     * Tells the user that the uploaded roster is too large
+     *
+     * @param response servlet response
+     * @param message message describing the limit
+     * @throws IOException if the error couldn't be sent
+     */
+    public void printTooLarge(HttpServletResponse response, String message) throws IOException {
+        response.sendError(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE, message);
+    }
+
+    /**
+     * Tells the user that the server couldn't handle the request now, e.g.
+     * because too many requests wait for the database
+     *
+     * @param response servlet response
+     * @param message message describing the problem
+     * @throws IOException if the error couldn't be sent
+     */
+    public void printUnavailable(HttpServletResponse response, String message) throws IOException {
+        response.setHeader("Retry-After", "1");
+        response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, message);
+    }
+
+    /**
+     * Tells the user that the request failed because of an error of the
+     * server
+     *
+     * @param response servlet response
+     * @param message message describing the problem
+     * @throws IOException if the error couldn't be sent
+     */
+    public void printInternalError(HttpServletResponse response, String message) throws IOException {
+        response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, message);
+    }
+
     /**
      * Prints info about number of participants at the last meeting
      *
-     * @param out PrintWriter used to output HTML
+     * @param out stream used to output HTML
      * @param lastNumber number of participants at the last meeting
+     * @throws IOException if the page couldn't be written
      */
-    public void printNumberOfParticipants(PrintWriter out, String lastNumber) {
+    public void printNumberOfParticipants(HtmlStream out, String lastNumber) throws IOException {
         if (lastNumber.equals("1")) {
-            out.println("<p>There was <b>" + lastNumber + "</b> participant at the last meeting</p>");
+            out.write(ONE_PARTICIPANT).text(lastNumber).write(ONE_PARTICIPANT_END);
         } else {
-            out.println("<p>There were <b>" + lastNumber + "</b> participants at the last meeting</p>");
+            out.write(MANY_PARTICIPANTS).text(lastNumber).write(MANY_PARTICIPANTS_END);
         }
     }
 
     /**
-     * Prints out info about current meeting date in GMT+2 timezone
+     * Prints out info about current meeting date in the reference timezone
      *
-     * @param out PrintWriter used to output HTML
+     * @param out stream used to output HTML
      * @param newMeetingDate current meeting date
+     * @throws IOException if the page couldn't be written
      */
-    public void printCurrentMeeting(PrintWriter out, String newMeetingDate) {
-        out.print("<h2>Current meeting date (for GMT+2): </h2>" + newMeetingDate);
+    public void printCurrentMeeting(HtmlStream out, String newMeetingDate) throws IOException {
+        out.write(CURRENT_MEETING).text(referenceZone).write(CURRENT_MEETING_END).text(newMeetingDate);
     }
 
     /**
-     * Prints data from database to the user in table format 
-     * 
-     * @param out PrintWriter used to output HTML
-     * @param con Connection to database
-     * @throws SQLException when sql statement is incorrect
+     * Prints one page of data from database to the user in table format,
+     * newest rows first
+     *
+     * @param out stream used to output HTML
+     * @param page page of saved participants
+     * @throws IOException if the page couldn't be written
      */
-    public void printDB(PrintWriter out, Connection con) throws SQLException {
-        Statement statement = con.createStatement();
-
-        ResultSet rs = statement.executeQuery("SELECT * FROM PARTICIPANTS NATURAL JOIN TIMES");
+    public void printHistoryPage(HtmlStream out, HistoryPages.Page page) throws IOException {
+        for (int i = 0; i < page.size(); i++) {
+            out.write(ROW_START).number(page.getId(i))
+                    .write(ID_END).text(page.getName(i))
+                    .write(NEXT_CELL).text(page.getTime(i))
+                    .write(ROW_END);
+        }
+    }
 
-        while (rs.next()) {
-            out.print("<tr>\n"
-                    + "<td>" + rs.getInt("ID") + "  </td>\n"
-                    + "<td>" + rs.getString("NAME") + "</td>\n"
-                    + "<td>" + rs.getString("TIME") + "</td>\n"
-                    + "</tr>\n");
+    /**
+     * Prints link to the next page of database data
+     * 
+     * @param out stream used to output HTML
+     * @param contextPath context path of the application
+     * @param next id to use as "before" for the next page, null if there is none
+     * @param pageSize number of rows on the page
+     * @param rowCount number of all rows in the database
+     * @throws IOException if the page couldn't be written
+     */
+    public void printPageLinks(HtmlStream out, String contextPath, Integer next, int pageSize, long rowCount) throws IOException {
+        out.write(ROW_COUNT).number(rowCount);
+        if (next != null) {
+            out.write(NEXT_LINK).text(contextPath).write(HISTORY_LINK).number(next)
+                    .write(PAGE_SIZE_PARAMETER).number(pageSize).write(NEXT_LINK_END);
         }
-        rs.close();
+        out.write(PARAGRAPH_END);
     }
 
     /**
      *  Prints header of the HTML table
      * 
-     * @param out PrintWriter used to output HTML
+     * @param out stream used to output HTML
+     * @throws IOException if the page couldn't be written
      */
-    public void printTableHeader(PrintWriter out) {
-        out.print("<h2> Database data:</h2>");
-        out.print("\n<table>\n"
-                + "<tr>\n"
-                + " <th>ID</th>\n"
-                + " <th>Name</th>\n"
-                + " <th>Time</th>\n"
-                + "</tr>\n");
+    public void printTableHeader(HtmlStream out) throws IOException {
+        out.write(TABLE_HEADER);
     }
     
     /**
      * Prints footer of the HTML table
      * 
-     * @param out PrintWriter used to output HTML
+     * @param out stream used to output HTML
+     * @throws IOException if the page couldn't be written
      */
-    public void printTableFooter(PrintWriter out){
-        out.print("</table>\n");
+    public void printTableFooter(HtmlStream out) throws IOException {
+        out.write(TABLE_FOOTER);
+    }
+
+    /**
+     * Prints out header of the table with the best meeting times
+     *
+     * @param out stream used to output HTML
+     * @param participants number of participants in the roster
+     * @throws IOException if the page couldn't be written
+     */
+    public void printSlotsHeader(HtmlStream out, int participants) throws IOException {
+        out.write(SLOTS_START).text(referenceZone).write(SLOTS_FOR).number(participants).write(SLOTS_TABLE);
+    }
+
+    /**
+     * Prints out one row of the table with the best meeting times
+     *
+     * @param out stream used to output HTML
+     * @param start start of the meeting
+     * @param end end of the meeting
+     * @param available number of participants at work during the meeting
+     * @param participants number of all of the participants
+     * @throws IOException if the page couldn't be written
+     */
+    public void printSlot(HtmlStream out, String start, String end, int available, int participants) throws IOException {
+        out.write(ROW_START).text(start)
+                .write(NEXT_CELL).text(end)
+                .write(NEXT_CELL).number(available).write(OUT_OF).number(participants)
+                .write(ROW_END);
+    }
+
+    /**
+     * Prints out header of the table with local times at candidate meetings
+     *
+     * @param out stream used to output HTML
+     * @param participants number of participants in the roster
+     * @param meetingTimes candidate meetings in the timezone of meeting dates
+     * @throws IOException if the page couldn't be written
+     */
+    public void printMatrixHeader(HtmlStream out, int participants, List<String> meetingTimes) throws IOException {
+        out.write(MATRIX_START).text(referenceZone).write(SLOTS_FOR).number(participants).write(MATRIX_TABLE);
+        for (String meetingTime : meetingTimes) {
+            out.write(HEADING_START).text(meetingTime).write(HEADING_END);
+        }
+        out.write(HEADING_ROW_END);
+    }
+
+    /**
+     * Prints out rows of the table with local times at candidate meetings.
+     * Cells with the local times are encoded once for every timezone and
+     * written as they are for each of its participants.
+     *
+     * @param out stream used to output HTML
+     * @param matrix local times of the participants
+     * @throws IOException if the page couldn't be written
+     */
+    public void printMatrix(HtmlStream out, MeetingMatrix matrix) throws IOException {
+        byte[][] rows = new byte[matrix.getZoneCount()][];
+        StringBuilder cells = new StringBuilder();
+        for (int zone = 0; zone < rows.length; zone++) {
+            cells.setLength(0);
+            for (int candidate = 0; candidate < matrix.getCandidateCount(); candidate++) {
+                cells.append("</td>\n<td>").append(TimeConverter.format(matrix.getZoneLocalEpochSecond(zone, candidate)));
+            }
+            rows[zone] = HtmlStream.fragment(cells.append("</td>\n</tr>\n").toString());
+        }
+        for (int participant = 0; participant < matrix.getParticipantCount(); participant++) {
+            int zone = matrix.getZoneIndex(participant);
+            out.write(ROW_START).text(matrix.getName(participant))
+                    .write(NEXT_CELL).text(matrix.getZone(zone))
+                    .write(rows[zone]);
+        }
     }
 }
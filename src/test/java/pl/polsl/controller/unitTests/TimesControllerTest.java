@@ -0,0 +1,343 @@
+package pl.polsl.controller.unitTests;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import javax.servlet.http.Part;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+import pl.polsl.controller.TimesController;
+import pl.polsl.model.ConversionCache;
+import pl.polsl.model.ParallelRosterLoader;
+import pl.polsl.model.Roster;
+
+/**
+ * Class used to test controller functionalities
+ *
+ * @author Jacek
+ * @version 1.5
+ */
+public class TimesControllerTest {
+
+    /**
+     * Number of threads calling the controller at once
+     */
+    private static final int THREADS = 32;
+
+    /**
+     * Number of calls made by every thread
+     */
+    private static final int CALLS_PER_THREAD = 200;
+
+    /**
+     * Meeting dates used by the threads
+     */
+    private static final String[] DATES = {"2021-11-15 15:30:00", "2022-01-24 15:15:00", "2022-06-01 00:05:00", "2023-12-31 23:59:59"};
+
+    /**
+     * Format of the dates returned by the controller
+     */
+    private static final DateTimeFormatter FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    /**
+     * Directory with generated participants files
+     */
+    @TempDir
+    Path directory;
+
+    /**
+     * Tests whether many threads using the same controller instance always get
+     * results computed for their own file and meeting date
+     *
+     * @throws Exception if the files couldn't be created or a thread failed
+     */
+    @Test
+    public void testGetParticipantInfoConcurrently() throws Exception {
+        TimesController controller = new TimesController();
+        List<Path> files = new ArrayList<>();
+        for (int file = 0; file < 4; file++) {
+            files.add(createFile(file, 20 + file * 15));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int thread = 0; thread < THREADS; thread++) {
+            final int seed = thread;
+            Callable<Integer> task = () -> {
+                start.await();
+                int checked = 0;
+                for (int call = 0; call < CALLS_PER_THREAD; call++) {
+                    int file = (seed + call) % files.size();
+                    String date = DATES[(seed * 7 + call) % DATES.length];
+                    List<List<String>> actual = controller.getParticipantInfo(files.get(file).toString(), date);
+                    assertEquals(expected(file, 20 + file * 15, date), actual, "Result of other request was returned");
+                    ++checked;
+                }
+                return checked;
+            };
+            results.add(executor.submit(task));
+        }
+        start.countDown();
+
+        int checked = 0;
+        for (Future<Integer> result : results) {
+            checked += result.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        assertEquals(THREADS * CALLS_PER_THREAD, checked);
+    }
+
+    /**
+     * Tests whether the same roster uploaded again for the same meeting is
+     * taken from the cache instead of being converted again
+     *
+     * @throws Exception if the roster couldn't be converted
+     */
+    @Test
+    public void testRepeatedUploadIsCacheHit() throws Exception {
+        ConversionCache cache = new ConversionCache(10, 1000000, 60);
+        TimesController controller = new TimesController(null, cache, directory.toFile());
+        byte[] content = Files.readAllBytes(createFile(1, 50));
+
+        Roster first = controller.getParticipantInfo(new UploadedPart(content, directory), DATES[1]);
+        Roster second = controller.getParticipantInfo(new UploadedPart(content, directory), DATES[1]);
+        assertEquals(expected(1, 50, DATES[1]), first);
+        assertSame(first, second, "Repeated upload should be taken from the cache");
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getHits());
+
+        controller.getParticipantInfo(new UploadedPart(content, directory), DATES[2]);
+        assertEquals(2, cache.getMisses(), "Other meeting shouldn't be taken from the cache");
+    }
+
+    /**
+     * Tests whether an upload larger than the threshold of the loader is
+     * written to a file, read in parallel and the file is removed afterwards
+     *
+     * @throws Exception if the roster couldn't be converted
+     */
+    @Test
+    public void testLargeUploadIsReadInParallel() throws Exception {
+        ConversionCache cache = new ConversionCache(10, 1000000, 60);
+        try (ParallelRosterLoader loader = new ParallelRosterLoader(2, 1024, 512)) {
+            TimesController controller = new TimesController(loader, cache, directory.toFile());
+            byte[] content = Files.readAllBytes(createFile(2, 500));
+            UploadedPart large = new UploadedPart(content, directory);
+            assertEquals(expected(2, 500, DATES[0]), controller.getParticipantInfo(large, DATES[0]));
+            assertEquals(1, large.written);
+
+            UploadedPart repeated = new UploadedPart(content, directory);
+            controller.getParticipantInfo(repeated, DATES[0]);
+            assertEquals(0, repeated.written, "Repeated upload shouldn't be written again");
+            try (Stream<Path> files = Files.list(directory)) {
+                assertEquals(0, files.filter(file -> file.getFileName().toString().startsWith("roster-")).count(),
+                        "Written roster should be removed");
+            }
+        }
+    }
+
+    /**
+     * Creates file with participants, where every participant has different
+     * name and one of the offsets from GMT-11 to GMT+12
+     *
+     * @param file number of the file
+     * @param size number of participants
+     * @return path to the created file
+     * @throws IOException if file couldn't be written
+     */
+    private Path createFile(int file, int size) throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            lines.add("Participant" + file + "_" + i + " " + zone(file, i));
+        }
+        return Files.write(directory.resolve("participants" + file + ".txt"), lines, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Computes expected result for generated file
+     *
+     * @param file number of the file
+     * @param size number of participants
+     * @param date date of the meeting in GMT+2
+     * @return participants names and their local time
+     */
+    private List<List<String>> expected(int file, int size, String date) {
+        LocalDateTime meeting = LocalDateTime.parse(date, FORMAT);
+        List<List<String>> expected = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            int hours = offset(file, i);
+            String local = meeting.toInstant(ZoneOffset.ofHours(2)).atOffset(ZoneOffset.ofHours(hours)).format(FORMAT);
+            expected.add(List.of("Participant" + file + "_" + i, local));
+        }
+        return expected;
+    }
+
+    /**
+     * Returns offset in hours of the participant
+     *
+     * @param file number of the file
+     * @param participant number of the participant
+     * @return offset in hours
+     */
+    private int offset(int file, int participant) {
+        return (file * 5 + participant) % 24 - 11;
+    }
+
+    /**
+     * Returns timezone of the participant in GMT+N format
+     *
+     * @param file number of the file
+     * @param participant number of the participant
+     * @return timezone of the participant
+     */
+    private String zone(int file, int participant) {
+        int hours = offset(file, participant);
+        return hours < 0 ? "GMT" + hours : "GMT+" + hours;
+    }
+
+    /**
+     * Uploaded file kept in memory, written to the directory like the
+     * container does
+     */
+    private static final class UploadedPart implements Part {
+
+        /** Content of the file */
+        private final byte[] content;
+
+        /** Directory where the part is written */
+        private final Path directory;
+
+        /** Number of times the part was written */
+        private int written;
+
+        /**
+         * Creates part
+         *
+         * @param content content of the file
+         * @param directory directory where the part is written
+         */
+        private UploadedPart(byte[] content, Path directory) {
+            this.content = content;
+            this.directory = directory;
+        }
+
+        /**
+         * Opens stream of the content
+         *
+         * @return stream of the content
+         */
+        @Override
+        public InputStream getInputStream() {
+            return new ByteArrayInputStream(content);
+        }
+
+        /**
+         * Returns type of the content
+         *
+         * @return plain text
+         */
+        @Override
+        public String getContentType() {
+            return "text/plain";
+        }
+
+        /**
+         * Returns name of the form field
+         *
+         * @return name of the field
+         */
+        @Override
+        public String getName() {
+            return "filename";
+        }
+
+        /**
+         * Returns name of the uploaded file
+         *
+         * @return name of the file
+         */
+        @Override
+        public String getSubmittedFileName() {
+            return "participants.txt";
+        }
+
+        /**
+         * Returns size of the content
+         *
+         * @return size in bytes
+         */
+        @Override
+        public long getSize() {
+            return content.length;
+        }
+
+        /**
+         * Writes the content to the file in the directory and counts it
+         *
+         * @param fileName name of the file in the directory
+         * @throws IOException if the file couldn't be written
+         */
+        @Override
+        public void write(String fileName) throws IOException {
+            ++written;
+            Files.write(directory.resolve(fileName), content);
+        }
+
+        /**
+         * Does nothing, content is kept in memory
+         */
+        @Override
+        public void delete() {
+        }
+
+        /**
+         * Returns no header
+         *
+         * @param name name of the header
+         * @return null
+         */
+        @Override
+        public String getHeader(String name) {
+            return null;
+        }
+
+        /**
+         * Returns no headers
+         *
+         * @param name name of the header
+         * @return empty list
+         */
+        @Override
+        public Collection<String> getHeaders(String name) {
+            return List.of();
+        }
+
+        /**
+         * Returns no headers
+         *
+         * @return empty list
+         */
+        @Override
+        public Collection<String> getHeaderNames() {
+            return List.of();
+        }
+    }
+}
@@ -0,0 +1,4 @@
+/*
+ * This package is used to test Controller classes with unit tests
+ */
+package pl.polsl.controller.unitTests;
@@ -0,0 +1,284 @@
+package pl.polsl.model.unitTests;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+import pl.polsl.model.BatchInsertResult;
+import pl.polsl.model.SchemaMigrator;
+import pl.polsl.model.TimesModel;
+
+/**
+ * Class used to test saving participants in batches, using in-memory
+ * database
+ *
+ * @author Jacek
+ * @version 1.5
+ */
+public class BatchInsertTest {
+
+    /**
+     * Tested model
+     */
+    private final TimesModel model = new TimesModel();
+
+    /**
+     * Connection to in-memory database
+     */
+    private Connection con;
+
+    /**
+     * Function creates new empty database before every test
+     *
+     * @throws SQLException if database couldn't be created
+     */
+    @BeforeEach
+    public void setUp() throws SQLException {
+        con = DriverManager.getConnection("jdbc:derby:memory:batchInsertTest;create=true");
+        new SchemaMigrator().migrate(con);
+    }
+
+    /**
+     * Function removes the database after every test
+     */
+    @AfterEach
+    public void tearDown() {
+        try {
+            con.close();
+            DriverManager.getConnection("jdbc:derby:memory:batchInsertTest;drop=true");
+        } catch (SQLException expected) {}
+    }
+
+    /**
+     * Tests whether all of the participants are saved when there are more of
+     * them than size of the batch
+     *
+     * @throws SQLException if participants couldn't be saved
+     */
+    @Test
+    public void testInsertAllSavesEveryParticipant() throws SQLException {
+        List<List<String>> participants = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            participants.add(List.of("Participant" + i, "2022-01-24 15:15:00"));
+        }
+
+        BatchInsertResult result = model.insertAll(con, "2022-01-24 15:15:00", participants, 10);
+
+        assertTrue(result.isComplete());
+        assertEquals(25, result.getInsertedCount());
+        assertEquals(25, count("SELECT COUNT(*) FROM APP.PARTICIPANTS p JOIN APP.TIMES t ON t.PARTICIPANT_ID = p.ID"));
+        assertTrue(con.getAutoCommit(), "Autocommit should be restored");
+        assertEquals(25, TimesModel.countHistory(con), "Number of rows should be updated by triggers");
+    }
+
+    /**
+     * Tests whether incorrect participants are reported and the rest of them
+     * is saved
+     *
+     * @throws SQLException if participants couldn't be saved
+     */
+    @Test
+    public void testInsertAllReportsFailures() throws SQLException {
+        String longName = "x".repeat(51);
+        List<List<String>> participants = List.of(
+                List.of("John", "2022-01-24 06:15:00"),
+                List.of(longName, "2022-01-24 15:15:00"),
+                List.of("Mark"),
+                List.of("Emma", "2022-01-24 15:15:00"));
+
+        BatchInsertResult result = model.insertAll(con, "2022-01-24 15:15:00", participants, 2);
+
+        assertEquals(2, result.getInsertedCount());
+        assertEquals(2, result.getFailures().size());
+        assertEquals(2, result.getFailures().get(0).getParticipantNumber());
+        assertEquals(3, result.getFailures().get(1).getParticipantNumber());
+        assertEquals(2, count("SELECT COUNT(*) FROM APP.PARTICIPANTS p JOIN APP.TIMES t ON t.PARTICIPANT_ID = p.ID"));
+    }
+
+    /**
+     * Tests whether a meeting is saved while another transaction saving times
+     * isn't finished, because the number of times is kept in many rows
+     *
+     * @throws SQLException if participants couldn't be saved
+     */
+    @Test
+    public void testConcurrentSavesDontWaitForCount() throws SQLException {
+        try (Statement statement = con.createStatement()) {
+            statement.execute("CALL SYSCS_UTIL.SYSCS_SET_DATABASE_PROPERTY('derby.locks.waitTimeout', '2')");
+        }
+        model.insertAll(con, "2022-01-24 15:15:00", List.of(List.of("John", "2022-01-24 06:15:00")), 10);
+        try (Connection other = DriverManager.getConnection("jdbc:derby:memory:batchInsertTest")) {
+            other.setAutoCommit(false);
+            try (Statement statement = other.createStatement()) {
+                statement.executeUpdate("INSERT INTO APP.TIMES (PARTICIPANT_ID, TIME) "
+                        + "SELECT ID, '2022-01-24 07:15:00' FROM APP.PARTICIPANTS");
+            }
+
+            BatchInsertResult result = model.insertAll(con, "2022-01-25 15:15:00",
+                    List.of(List.of("Emma", "2022-01-25 06:15:00")), 10);
+            assertEquals(1, result.getInsertedCount());
+            other.commit();
+        }
+        assertEquals(3, TimesModel.countHistory(con));
+    }
+
+    /**
+     * Tests whether a roster sent again by the same logged in user for the
+     * same meeting saves only the changed participants as its new version
+     *
+     * @throws SQLException if participants couldn't be saved
+     */
+    @Test
+    public void testNewVersionSavesOnlyChanges() throws SQLException {
+        List<List<String>> participants = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            participants.add(List.of("Participant" + i, "2022-01-24 15:15:00"));
+        }
+        model.insertAll(con, "2022-01-24 15:15:00", "user:jacek", "core.txt", participants, 10);
+        int firstId = count("SELECT MIN(ID) FROM APP.PARTICIPANTS");
+
+        participants.set(3, List.of("Participant3", "2022-01-24 06:15:00"));
+        participants.remove(7);
+        participants.add(List.of("Newcomer", "2022-01-24 23:15:00"));
+        BatchInsertResult result = model.insertAll(con, "2022-01-24 15:15:00", "user:jacek", "core.txt", participants, 10);
+
+        assertTrue(result.isComplete());
+        assertEquals(2, result.getVersion());
+        assertFalse(result.isPreviousKept());
+        assertEquals(1, result.getInsertedCount());
+        assertEquals(1, result.getUpdatedCount());
+        assertEquals(1, result.getDeletedCount());
+        assertEquals(23, result.getUnchangedCount());
+        assertEquals(1, count("SELECT COUNT(*) FROM APP.MEETINGS"));
+        assertEquals(25, count("SELECT COUNT(*) FROM APP.PARTICIPANTS p JOIN APP.TIMES t ON t.PARTICIPANT_ID = p.ID"));
+        assertEquals(25, TimesModel.countHistory(con), "Number of rows should be updated by triggers");
+        assertEquals(firstId, count("SELECT MIN(ID) FROM APP.PARTICIPANTS"), "Unchanged rows should be kept");
+        assertEquals(1, count("SELECT COUNT(*) FROM APP.PARTICIPANTS p JOIN APP.TIMES t ON t.PARTICIPANT_ID = p.ID "
+                + "WHERE p.NAME = 'Participant3' AND t.TIME = '2022-01-24 06:15:00'"));
+        assertEquals(0, count("SELECT COUNT(*) FROM APP.PARTICIPANTS WHERE NAME = 'Participant7'"));
+
+        BatchInsertResult same = model.insertAll(con, "2022-01-24 15:15:00", "user:jacek", "core.txt", participants, 10);
+        assertEquals(3, same.getVersion());
+        assertEquals(25, same.getUnchangedCount());
+        assertFalse(same.changedSavedRows());
+        assertEquals(0, same.getInsertedCount());
+    }
+
+    /**
+     * Tests whether a roster sent again for a team with one changed
+     * participant writes only one row and keeps the previous one marked as
+     * superseded by the new version
+     *
+     * @throws SQLException if participants couldn't be saved
+     */
+    @Test
+    public void testTeamVersionWritesOnlyChangedRow() throws SQLException {
+        List<List<String>> participants = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            participants.add(List.of("Participant" + i, "2022-01-24 15:15:00"));
+        }
+        model.insertAll(con, "2022-01-24 15:15:00", "team:Core", "core.txt", participants, 10);
+        int changedId = count("SELECT ID FROM APP.PARTICIPANTS WHERE NAME = 'Participant3'");
+
+        participants.set(3, List.of("Participant3", "2022-01-24 06:15:00"));
+        BatchInsertResult result = model.insertAll(con, "2022-01-24 15:15:00", "team:Core", "core.txt", participants, 10);
+
+        assertTrue(result.isComplete());
+        assertEquals(2, result.getVersion());
+        assertTrue(result.isPreviousKept());
+        assertFalse(result.changedSavedRows());
+        assertEquals(0, result.getInsertedCount());
+        assertEquals(1, result.getUpdatedCount());
+        assertEquals(4, result.getUnchangedCount());
+        assertEquals(1, count("SELECT COUNT(*) FROM APP.MEETINGS"));
+        assertEquals(6, count("SELECT COUNT(*) FROM APP.PARTICIPANTS"), "Only the changed row should be written");
+        assertEquals(6, count("SELECT COUNT(*) FROM APP.TIMES"));
+        assertEquals(2, count("SELECT SUPERSEDED_IN FROM APP.PARTICIPANTS WHERE ID = " + changedId));
+        assertEquals(1, count("SELECT COUNT(*) FROM APP.PARTICIPANTS WHERE SUPERSEDED_IN IS NOT NULL"));
+        assertEquals(1, count("SELECT COUNT(*) FROM APP.PARTICIPANTS p JOIN APP.TIMES t ON t.PARTICIPANT_ID = p.ID "
+                + "WHERE p.NAME = 'Participant3' AND t.TIME = '2022-01-24 15:15:00'"),
+                "Local time of the previous version shouldn't be changed");
+    }
+
+    /**
+     * Tests whether participants missing from a roster sent again for a team
+     * are kept and marked as superseded, and the same roster sent again
+     * writes nothing
+     *
+     * @throws SQLException if participants couldn't be saved
+     */
+    @Test
+    public void testTeamVersionKeepsPreviousRows() throws SQLException {
+        List<List<String>> participants = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            participants.add(List.of("Participant" + i, "2022-01-24 15:15:00"));
+        }
+        model.insertAll(con, "2022-01-24 15:15:00", "team:Core", "core.txt", participants, 10);
+        participants.set(0, List.of("Participant0", "2022-01-24 06:15:00"));
+        model.insertAll(con, "2022-01-24 15:15:00", "team:Core", "core.txt", participants, 10);
+
+        participants.remove(2);
+        participants.add(List.of("Newcomer", "2022-01-24 23:15:00"));
+        BatchInsertResult result = model.insertAll(con, "2022-01-24 15:15:00", "team:Core", "core.txt", participants, 10);
+        assertEquals(3, result.getVersion());
+        assertEquals(1, result.getInsertedCount());
+        assertEquals(0, result.getUpdatedCount());
+        assertEquals(1, result.getDeletedCount());
+        assertEquals(4, result.getUnchangedCount());
+        assertEquals(3, count("SELECT SUPERSEDED_IN FROM APP.PARTICIPANTS WHERE NAME = 'Participant2'"),
+                "Rows of the previous version shouldn't be removed");
+        assertEquals(7, count("SELECT COUNT(*) FROM APP.PARTICIPANTS p JOIN APP.TIMES t ON t.PARTICIPANT_ID = p.ID"));
+        assertEquals(7, TimesModel.countHistory(con));
+
+        BatchInsertResult same = model.insertAll(con, "2022-01-24 15:15:00", "team:Core", "core.txt", participants, 10);
+        assertEquals(4, same.getVersion());
+        assertEquals(5, same.getUnchangedCount());
+        assertEquals(0, same.getInsertedCount() + same.getUpdatedCount() + same.getDeletedCount());
+        assertEquals(7, count("SELECT COUNT(*) FROM APP.PARTICIPANTS"));
+        assertEquals(1, count("SELECT COUNT(*) FROM APP.MEETINGS"));
+    }
+
+    /**
+     * Tests whether meetings of other owners, other rosters, at other dates
+     * or without an owner or a roster aren't treated as versions of the same
+     * roster
+     *
+     * @throws SQLException if participants couldn't be saved
+     */
+    @Test
+    public void testOtherMeetingsAreInserted() throws SQLException {
+        List<List<String>> participants = List.of(List.of("John", "2022-01-24 06:15:00"), List.of("John", "2022-01-24 07:15:00"));
+        model.insertAll(con, "2022-01-24 15:15:00", "user:jacek", "core.txt", participants, 10);
+        assertEquals(1, model.insertAll(con, "2022-01-25 15:15:00", "user:jacek", "core.txt", participants, 10).getVersion());
+        assertEquals(1, model.insertAll(con, "2022-01-24 15:15:00", "user:anna", "core.txt", participants, 10).getVersion());
+        assertEquals(1, model.insertAll(con, "2022-01-24 15:15:00", "user:jacek", "web.txt", participants, 10).getVersion());
+        assertEquals(1, model.insertAll(con, "2022-01-24 15:15:00", "user:jacek", participants, 10).getVersion());
+        model.insertAll(con, "2022-01-24 15:15:00", participants, 10);
+        assertEquals(1, model.insertAll(con, "2022-01-24 15:15:00", participants, 10).getVersion());
+
+        assertEquals(7, count("SELECT COUNT(*) FROM APP.MEETINGS"));
+        assertEquals(14, count("SELECT COUNT(*) FROM APP.PARTICIPANTS"));
+        BatchInsertResult swapped = model.insertAll(con, "2022-01-24 15:15:00", "user:jacek", "core.txt",
+                List.of(List.of("John", "2022-01-24 07:15:00"), List.of("John", "2022-01-24 06:15:00")), 10);
+        assertEquals(2, swapped.getUpdatedCount(), "Repeated names should be matched in order of the rows");
+    }
+
+    /**
+     * Executes query returning one number
+     *
+     * @param query SQL query
+     * @return result of the query
+     * @throws SQLException if query failed
+     */
+    private int count(String query) throws SQLException {
+        try (Statement statement = con.createStatement(); ResultSet rs = statement.executeQuery(query)) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+}
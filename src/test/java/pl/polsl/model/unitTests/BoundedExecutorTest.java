@@ -0,0 +1,149 @@
+package pl.polsl.model.unitTests;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+import pl.polsl.model.BoundedExecutor;
+
+/**
+ * Class used to test the executor of requests
+ *
+ * @author Jacek
+ * @version 1.5
+ */
+public class BoundedExecutorTest {
+
+    /**
+     * Tested executor with one running and one waiting task
+     */
+    private BoundedExecutor executor;
+
+    /**
+     * Latch blocking the tasks until the test releases them
+     */
+    private CountDownLatch gate;
+
+    /**
+     * Function creates the executor before every test
+     */
+    @BeforeEach
+    public void setUp() {
+        executor = new BoundedExecutor(1, 1, false);
+        gate = new CountDownLatch(1);
+    }
+
+    /**
+     * Function releases the tasks and closes the executor after every test
+     */
+    @AfterEach
+    public void tearDown() {
+        gate.countDown();
+        executor.close();
+    }
+
+    /**
+     * Tests whether tasks above the limit of running and waiting tasks are
+     * rejected
+     */
+    @Test
+    public void testFullExecutorRejectsTasks() {
+        assertTrue(executor.trySubmit(this::await));
+        assertTrue(executor.trySubmit(this::await));
+        assertFalse(executor.trySubmit(this::await));
+        assertEquals(2, executor.getPending());
+        assertEquals(1, executor.getRejected());
+    }
+
+    /**
+     * Tests whether finished tasks make room for new ones
+     *
+     * @throws InterruptedException if the test was interrupted
+     */
+    @Test
+    public void testFinishedTasksReleaseRoom() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(2);
+        executor.trySubmit(() -> {
+            await();
+            done.countDown();
+        });
+        executor.trySubmit(done::countDown);
+        gate.countDown();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        waitForPending(0);
+        assertTrue(executor.trySubmit(() -> { }));
+    }
+
+    /**
+     * Tests whether failing task doesn't take the room forever
+     *
+     * @throws InterruptedException if the test was interrupted
+     */
+    @Test
+    public void testFailedTaskReleasesRoom() throws InterruptedException {
+        executor.trySubmit(() -> {
+            throw new IllegalStateException("Failure expected by the test");
+        });
+        waitForPending(0);
+        assertEquals(0, executor.getRejected());
+    }
+
+    /**
+     * Tests whether closed executor rejects tasks
+     */
+    @Test
+    public void testClosedExecutorRejectsTasks() {
+        executor.close();
+        assertFalse(executor.trySubmit(() -> { }));
+        assertEquals(0, executor.getPending());
+    }
+
+    /**
+     * Tests whether executor uses platform threads when virtual threads
+     * weren't requested
+     */
+    @Test
+    public void testPlatformThreadsWhenRequested() {
+        assertFalse(executor.usesVirtualThreads());
+    }
+
+    /**
+     * Tests whether executor with virtual threads runs tasks, also on a JDK
+     * without them
+     *
+     * @throws InterruptedException if the test was interrupted
+     */
+    @Test
+    public void testVirtualThreadsRunTasks() throws InterruptedException {
+        try (BoundedExecutor virtual = new BoundedExecutor(2, 0, true)) {
+            CountDownLatch done = new CountDownLatch(2);
+            assertTrue(virtual.trySubmit(done::countDown));
+            assertTrue(virtual.trySubmit(done::countDown));
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+        }
+    }
+
+    /**
+     * Waits until the executor has given number of pending tasks
+     *
+     * @param expected expected number of tasks
+     * @throws InterruptedException if the test was interrupted
+     */
+    private void waitForPending(int expected) throws InterruptedException {
+        for (int i = 0; i < 500 && executor.getPending() != expected; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(expected, executor.getPending());
+    }
+
+    /**
+     * Blocks the task until the gate is opened
+     */
+    private void await() {
+        try {
+            gate.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package pl.polsl.model.unitTests;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+import pl.polsl.model.ConnectionPool;
+
+/**
+ * Class used to test the connection pool
+ *
+ * @author Jacek
+ * @version 1.5
+ */
+public class ConnectionPoolTest {
+
+    /**
+     * Number of physical connections opened by the factory
+     */
+    private final AtomicInteger opened = new AtomicInteger();
+
+    /**
+     * Whether connections report themselves as valid
+     */
+    private final AtomicBoolean valid = new AtomicBoolean(true);
+
+    /**
+     * Tested pool
+     */
+    private ConnectionPool pool;
+
+    /**
+     * Function creates new pool with two connections before every test
+     */
+    @BeforeEach
+    public void setUp() {
+        pool = new ConnectionPool(this::fakeConnection, 2, 100, 1, 0);
+    }
+
+    /**
+     * Function closes the pool after every test
+     */
+    @AfterEach
+    public void tearDown() {
+        pool.close();
+    }
+
+    /**
+     * Tests whether closed connection is reused by the next borrow
+     *
+     * @throws SQLException if connection couldn't be borrowed
+     */
+    @Test
+    public void testConnectionIsReused() throws SQLException {
+        try (Connection con = pool.borrow()) {
+            assertEquals(1, pool.getActiveCount());
+        }
+        try (Connection con = pool.borrow()) {
+            assertFalse(con.isClosed());
+        }
+        assertEquals(1, opened.get(), "Returned connection should be reused");
+        assertEquals(0, pool.getActiveCount());
+        assertEquals(1, pool.getIdleCount());
+    }
+
+    /**
+     * Tests whether borrow fails after timeout when all connections are
+     * borrowed, and works again after one of them is returned
+     *
+     * @throws SQLException if connection couldn't be borrowed
+     */
+    @Test
+    public void testBorrowTimesOut() throws SQLException {
+        Connection first = pool.borrow();
+        Connection second = pool.borrow();
+        assertThrows(SQLException.class, pool::borrow);
+        first.close();
+        try (Connection third = pool.borrow()) {
+            assertEquals(2, pool.getActiveCount());
+        }
+        second.close();
+    }
+
+    /**
+     * Tests whether connection can't be used after it was returned
+     *
+     * @throws SQLException if connection couldn't be borrowed
+     */
+    @Test
+    public void testReturnedConnectionCantBeUsed() throws SQLException {
+        Connection con = pool.borrow();
+        con.close();
+        con.close();
+        assertTrue(con.isClosed());
+        assertThrows(SQLException.class, con::createStatement);
+        assertEquals(1, pool.getIdleCount(), "Connection should be returned only once");
+    }
+
+    /**
+     * Tests whether a connection closed by many threads at once is returned
+     * only once, so the pool never gives out more connections than its size
+     *
+     * @throws Exception if connection couldn't be borrowed or closed
+     */
+    @Test
+    public void testConcurrentCloseReturnsOnce() throws Exception {
+        ExecutorService threads = Executors.newFixedThreadPool(4);
+        try {
+            for (int i = 0; i < 200; i++) {
+                Connection con = pool.borrow();
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<?>> closes = new ArrayList<>();
+                for (int t = 0; t < 4; t++) {
+                    closes.add(threads.submit(() -> {
+                        start.await();
+                        con.close();
+                        return null;
+                    }));
+                }
+                start.countDown();
+                for (Future<?> close : closes) {
+                    close.get();
+                }
+            }
+        } finally {
+            threads.shutdown();
+        }
+        Connection first = pool.borrow();
+        Connection second = pool.borrow();
+        assertThrows(SQLException.class, pool::borrow, "Pool shouldn't exceed its size");
+        first.close();
+        second.close();
+    }
+
+    /**
+     * Tests whether invalid idle connection is replaced by a new one
+     *
+     * @throws SQLException if connection couldn't be borrowed
+     */
+    @Test
+    public void testInvalidConnectionIsReplaced() throws SQLException {
+        pool.borrow().close();
+        valid.set(false);
+        pool.borrow().close();
+        assertEquals(2, opened.get(), "Invalid connection shouldn't be borrowed");
+    }
+
+    /**
+     * Creates connection which only answers validation questions
+     *
+     * @return fake connection
+     */
+    private Connection fakeConnection() {
+        opened.incrementAndGet();
+        AtomicBoolean closed = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "isValid":
+                            return valid.get();
+                        case "isClosed":
+                            return closed.get();
+                        case "close":
+                            closed.set(true);
+                            return null;
+                        case "getAutoCommit":
+                            return true;
+                        default:
+                            return null;
+                    }
+                });
+    }
+}
@@ -0,0 +1,169 @@
+package pl.polsl.model.unitTests;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+import pl.polsl.model.ConversionCache;
+import pl.polsl.model.InvalidInputException;
+import pl.polsl.model.MeetingConversion;
+import pl.polsl.model.Roster;
+import pl.polsl.model.TimesModel;
+
+/**
+ * Class used to test cache of converted rosters
+ *
+ * @author Jacek
+ * @version 1.5
+ */
+public class ConversionCacheTest {
+
+    /**
+     * Instant of the first meeting
+     */
+    private static final Instant MEETING = Instant.parse("2022-01-24T13:15:00Z");
+
+    /**
+     * Time returned by the clock of the cache in nanoseconds
+     */
+    private final AtomicLong now = new AtomicLong();
+
+    /**
+     * Number of conversions which were run
+     */
+    private final AtomicInteger conversions = new AtomicInteger();
+
+    /**
+     * Directory with created files
+     */
+    @TempDir
+    Path directory;
+
+    /**
+     * Tests whether repeated conversion is taken from the cache and other
+     * meeting is converted again
+     *
+     * @throws Exception if the file couldn't be converted
+     */
+    @Test
+    public void testRepeatedConversionIsCached() throws Exception {
+        ConversionCache cache = new ConversionCache(10, 1000, 60, now::get);
+        Path file = write("roster.txt", "John GMT-7\nMark GMT+9\n");
+
+        Roster first = get(cache, file, MEETING);
+        assertSame(first, get(cache, file, MEETING));
+        get(cache, file, MEETING.plusSeconds(3600));
+
+        assertEquals(2, conversions.get());
+        assertEquals(1, cache.getHits());
+        assertEquals(2, cache.getMisses());
+    }
+
+    /**
+     * Tests whether changed file is converted again and the same content in
+     * other file is taken from the cache
+     *
+     * @throws Exception if the file couldn't be converted
+     */
+    @Test
+    public void testChangedFileIsConvertedAgain() throws Exception {
+        ConversionCache cache = new ConversionCache(10, 1000, 60, now::get);
+        Path file = write("roster.txt", "John GMT-7\n");
+        get(cache, file, MEETING);
+
+        FileTime modified = Files.getLastModifiedTime(file);
+        Files.writeString(file, "Emma GMT+1\n");
+        Files.setLastModifiedTime(file, FileTime.fromMillis(modified.toMillis() + 2000));
+        assertEquals("Emma", get(cache, file, MEETING).getName(0));
+
+        get(cache, write("copy.txt", "Emma GMT+1\n"), MEETING);
+        assertEquals(2, conversions.get(), "Same content should be found by its hash");
+    }
+
+    /**
+     * Tests whether results are removed when they are too old, too many or
+     * contain too many participants
+     *
+     * @throws Exception if the file couldn't be converted
+     */
+    @Test
+    public void testEviction() throws Exception {
+        ConversionCache cache = new ConversionCache(2, 3, 60, now::get);
+        Path file = write("roster.txt", "John GMT-7\nMark GMT+9\n");
+
+        get(cache, file, MEETING);
+        now.addAndGet(TimeUnit.SECONDS.toNanos(61));
+        get(cache, file, MEETING);
+        assertEquals(2, conversions.get(), "Expired result shouldn't be returned");
+
+        get(cache, file, MEETING.plusSeconds(60));
+        assertEquals(1, cache.size(), "Results with more than 3 participants shouldn't be kept");
+
+        Path small = write("small.txt", "Emma GMT+1\n");
+        get(cache, small, MEETING);
+        get(cache, small, MEETING.plusSeconds(60));
+        assertEquals(2, cache.size());
+        assertEquals(3, cache.getEvictions());
+    }
+
+    /**
+     * Tests whether conversion of the whole file uses the cache
+     *
+     * @throws Exception if the file couldn't be converted
+     */
+    @Test
+    public void testMeetingConversionUsesCache() throws Exception {
+        ConversionCache cache = new ConversionCache(10, 1000, 60);
+        Path file = write("roster.txt", "John GMT-7\n");
+        TimesModel model = new TimesModel();
+
+        Roster first = new MeetingConversion(file.toString(), "2022-01-24 15:15:00", null, cache).execute(model);
+        Roster second = new MeetingConversion(file.toString(), "2022-01-24 15:15:00", null, cache).execute(model);
+        assertSame(first, second);
+        assertEquals(List.of(List.of("John", "2022-01-24 06:15:00")), second);
+        assertThrows(InvalidInputException.class,
+                () -> new MeetingConversion(write("wrong.txt", "John\n").toString(), "2022-01-24 15:15:00", null, cache).execute(model));
+    }
+
+    /**
+     * Converts the file through the cache, counting conversions
+     *
+     * @param cache tested cache
+     * @param file converted file
+     * @param meeting instant of the meeting
+     * @return converted roster
+     * @throws Exception if the file couldn't be converted
+     */
+    private Roster get(ConversionCache cache, Path file, Instant meeting) throws Exception {
+        return cache.get(file.toString(), meeting, () -> {
+            conversions.incrementAndGet();
+            Roster.Builder roster = new Roster.Builder();
+            for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                String[] tokens = line.split(" ");
+                roster.add(tokens[0], tokens[1], meeting.getEpochSecond());
+            }
+            return roster.build();
+        });
+    }
+
+    /**
+     * Writes roster to a file
+     *
+     * @param name name of the file
+     * @param roster content of the file
+     * @return path to the file
+     * @throws IOException if the file couldn't be written
+     */
+    private Path write(String name, String roster) throws IOException {
+        return Files.writeString(directory.resolve(name), roster);
+    }
+}
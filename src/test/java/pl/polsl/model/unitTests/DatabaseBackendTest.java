@@ -0,0 +1,85 @@
+package pl.polsl.model.unitTests;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.List;
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.io.TempDir;
+import pl.polsl.model.DatabaseBackend;
+import pl.polsl.model.InvalidInputException;
+import pl.polsl.model.SchemaMigrator;
+import pl.polsl.model.TimesModel;
+
+/**
+ * Class used to test ways of running the database, using embedded databases
+ *
+ * @author Jacek
+ * @version 1.5
+ */
+public class DatabaseBackendTest {
+
+    /**
+     * Tests whether backends are found by their names in any case
+     *
+     * @throws InvalidInputException if a backend wasn't found
+     */
+    @Test
+    public void testOf() throws InvalidInputException {
+        assertEquals(DatabaseBackend.NETWORK, DatabaseBackend.of("network"));
+        assertEquals(DatabaseBackend.EMBEDDED, DatabaseBackend.of(" Embedded "));
+        assertEquals(DatabaseBackend.MEMORY, DatabaseBackend.of("MEMORY"));
+        assertThrows(InvalidInputException.class, () -> DatabaseBackend.of("mysql"));
+    }
+
+    /**
+     * Tests whether only the network backend uses the configured URL
+     */
+    @Test
+    public void testUrl() {
+        String networkUrl = "jdbc:derby://localhost:1527/TimeZones";
+        assertEquals(networkUrl, DatabaseBackend.NETWORK.getUrl(networkUrl, "TimeZones"));
+        assertEquals("jdbc:derby:TimeZones;create=true", DatabaseBackend.EMBEDDED.getUrl(networkUrl, "TimeZones"));
+        assertEquals("jdbc:derby:memory:TimeZones;create=true", DatabaseBackend.MEMORY.getUrl(networkUrl, "TimeZones"));
+        assertFalse(DatabaseBackend.NETWORK.isEmbedded());
+        assertTrue(DatabaseBackend.EMBEDDED.isEmbedded());
+    }
+
+    /**
+     * Tests whether embedded database in a directory is created, keeps the
+     * meetings after it is shut down and can be opened again
+     *
+     * @param directory directory of the database
+     * @throws Exception if the database couldn't be used
+     */
+    @Test
+    public void testEmbeddedDatabaseSurvivesShutdown(@TempDir Path directory) throws Exception {
+        String database = directory.resolve("TimeZones").toString();
+        DatabaseBackend backend = DatabaseBackend.EMBEDDED;
+        try (Connection con = DriverManager.getConnection(backend.getUrl(null, database))) {
+            new SchemaMigrator().migrate(con);
+            new TimesModel().insertAll(con, "2022-01-24 15:15:00", List.of(List.of("John", "2022-01-24 06:15:00")), 10);
+        }
+        backend.shutdown(database);
+
+        try (Connection con = DriverManager.getConnection(backend.getUrl(null, database))) {
+            assertEquals(1, TimesModel.countHistory(con));
+        } finally {
+            backend.shutdown(database);
+        }
+    }
+
+    /**
+     * Tests whether shutting down is ignored for the network server and
+     * reported for a database which isn't running
+     *
+     * @throws SQLException if the network backend did something
+     */
+    @Test
+    public void testShutdown() throws SQLException {
+        DatabaseBackend.NETWORK.shutdown("TimeZones");
+        assertThrows(SQLException.class, () -> DatabaseBackend.MEMORY.shutdown("databaseBackendTestMissing"));
+    }
+}
@@ -0,0 +1,195 @@
+package pl.polsl.model.unitTests;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+import pl.polsl.model.ConnectionPool;
+import pl.polsl.model.HistoryPages;
+import pl.polsl.model.SchemaMigrator;
+import pl.polsl.model.TimesModel;
+
+/**
+ * Class used to test the cache of history pages, using in-memory database
+ *
+ * @author Jacek
+ * @version 1.5
+ */
+public class HistoryPagesTest {
+
+    /**
+     * URL of the in-memory database
+     */
+    private static final String URL = "jdbc:derby:memory:historyPagesTest;create=true";
+
+    /**
+     * Connection used to save participants
+     */
+    private Connection con;
+
+    /**
+     * Number of connections opened by the cache
+     */
+    private final AtomicInteger opened = new AtomicInteger();
+
+    /**
+     * Source of connections counting them
+     */
+    private final ConnectionPool.ConnectionFactory connections = () -> {
+        opened.incrementAndGet();
+        return DriverManager.getConnection(URL);
+    };
+
+    /**
+     * Time returned by the clock of the cache in nanoseconds
+     */
+    private final AtomicLong now = new AtomicLong();
+
+    /**
+     * Tested cache keeping 10 pages for 60 seconds
+     */
+    private final HistoryPages pages = new HistoryPages(10, 60, now::get);
+
+    /**
+     * Function creates database with 7 participants before every test
+     *
+     * @throws SQLException if database couldn't be created
+     */
+    @BeforeEach
+    public void setUp() throws SQLException {
+        con = DriverManager.getConnection(URL);
+        new SchemaMigrator().migrate(con);
+        save(7);
+    }
+
+    /**
+     * Function removes the database after every test
+     */
+    @AfterEach
+    public void tearDown() {
+        try {
+            con.close();
+            DriverManager.getConnection("jdbc:derby:memory:historyPagesTest;drop=true");
+        } catch (SQLException expected) {}
+    }
+
+    /**
+     * Saves one meeting with participants
+     *
+     * @param number number of participants
+     * @throws SQLException if they couldn't be saved
+     */
+    private void save(int number) throws SQLException {
+        List<List<String>> participants = new ArrayList<>();
+        for (int i = 1; i <= number; i++) {
+            participants.add(List.of("Participant" + i, "2022-01-24 15:15:00"));
+        }
+        new TimesModel().insertAll(con, "2022-01-24 15:15:00", participants, 10);
+    }
+
+    /**
+     * Tests whether repeated pages and counts are returned without opening a
+     * connection
+     *
+     * @throws SQLException if the database couldn't be read
+     */
+    @Test
+    public void testRepeatedPagesAreKept() throws SQLException {
+        HistoryPages.Page first = pages.get(connections, null, 3);
+        assertEquals(3, first.size());
+        assertEquals("Participant7", first.getName(0));
+        HistoryPages.Page second = pages.get(connections, first.getNext(), 3);
+        assertEquals("Participant4", second.getName(0));
+        assertEquals(7, pages.count(connections));
+        assertEquals(3, opened.get());
+
+        assertSame(first, pages.get(connections, null, 3));
+        assertSame(second, pages.get(connections, first.getNext(), 3));
+        assertEquals(7, pages.count(connections));
+        assertEquals(3, opened.get(), "Kept pages shouldn't open connections");
+        assertEquals(3, pages.getHits());
+        assertEquals(3, pages.getMisses());
+        assertEquals(2, pages.size());
+    }
+
+    /**
+     * Tests whether a save removes the first page and the count but keeps the
+     * following pages, which don't change
+     *
+     * @throws SQLException if the database couldn't be read
+     */
+    @Test
+    public void testSaveRemovesFirstPage() throws SQLException {
+        HistoryPages.Page first = pages.get(connections, null, 3);
+        HistoryPages.Page second = pages.get(connections, first.getNext(), 3);
+        pages.count(connections);
+
+        save(2);
+        pages.saved();
+
+        HistoryPages.Page newFirst = pages.get(connections, null, 3);
+        assertEquals("Participant2", newFirst.getName(0));
+        assertEquals(9, pages.count(connections));
+        assertSame(second, pages.get(connections, first.getNext(), 3));
+        assertEquals(5, opened.get());
+    }
+
+    /**
+     * Tests whether all of the pages are removed when a new version of a
+     * roster changes rows saved earlier
+     *
+     * @throws SQLException if the database couldn't be read
+     */
+    @Test
+    public void testChangedRowsRemoveAllPages() throws SQLException {
+        HistoryPages.Page first = pages.get(connections, null, 3);
+        pages.get(connections, first.getNext(), 3);
+        List<List<String>> participants = List.of(List.of("John", "2022-01-24 06:15:00"));
+        TimesModel model = new TimesModel();
+        pages.saved(model.insertAll(con, "2022-01-25 15:15:00", "user:jacek", "core.txt", participants, 10));
+        assertEquals(1, pages.size(), "Only the first page should be removed after an insert");
+
+        pages.saved(model.insertAll(con, "2022-01-25 15:15:00", "user:jacek", "core.txt",
+                List.of(List.of("John", "2022-01-24 07:15:00")), 10));
+        assertEquals(0, pages.size());
+    }
+
+    /**
+     * Tests whether pages are read again after the time to live
+     *
+     * @throws SQLException if the database couldn't be read
+     */
+    @Test
+    public void testPagesExpire() throws SQLException {
+        HistoryPages.Page first = pages.get(connections, null, 3);
+        now.addAndGet(TimeUnit.SECONDS.toNanos(59));
+        assertSame(first, pages.get(connections, null, 3));
+        now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertNotSame(first, pages.get(connections, null, 3));
+        assertEquals(2, opened.get());
+    }
+
+    /**
+     * Tests whether the least recently used page is removed when there are
+     * too many pages
+     *
+     * @throws SQLException if the database couldn't be read
+     */
+    @Test
+    public void testLeastRecentlyUsedPageIsRemoved() throws SQLException {
+        HistoryPages small = new HistoryPages(2, 60, now::get);
+        HistoryPages.Page first = small.get(connections, null, 1);
+        small.get(connections, null, 2);
+        small.get(connections, null, 1);
+        small.get(connections, null, 3);
+        assertEquals(2, small.size());
+        assertSame(first, small.get(connections, null, 1));
+        assertEquals(3, opened.get());
+    }
+}
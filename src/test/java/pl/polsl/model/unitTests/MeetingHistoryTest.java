@@ -0,0 +1,152 @@
+package pl.polsl.model.unitTests;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+import pl.polsl.model.MeetingHistories;
+import pl.polsl.model.MeetingHistory;
+import pl.polsl.model.SchemaMigrator;
+import pl.polsl.model.TimesModel;
+
+/**
+ * Class used to test bounded history of meeting dates
+ *
+ * @author Jacek
+ * @version 1.5
+ */
+public class MeetingHistoryTest {
+
+    /**
+     * Tests whether the newest dates are returned first and the oldest are
+     * removed when the history is full
+     */
+    @Test
+    public void testOldestDatesAreRemoved() {
+        MeetingHistory history = new MeetingHistory(3);
+        assertTrue(history.getDates().isEmpty());
+        for (int day = 1; day <= 5; day++) {
+            history.add("2022-01-0" + day + " 15:30:00");
+        }
+        assertEquals(List.of("2022-01-05 15:30:00", "2022-01-04 15:30:00", "2022-01-03 15:30:00"), history.getDates());
+    }
+
+    /**
+     * Tests whether readers running together with writers always see at most
+     * capacity dates, newest first, and the last dates are kept
+     *
+     * @throws Exception if a thread failed
+     */
+    @Test
+    public void testConcurrentAddAndRead() throws Exception {
+        MeetingHistory history = new MeetingHistory(16);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> results = new ArrayList<>();
+        for (int thread = 0; thread < 4; thread++) {
+            final int writer = thread;
+            results.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < 10000; i++) {
+                    history.add(String.format("%d-%05d", writer, i));
+                }
+                return null;
+            }));
+            results.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < 2000; i++) {
+                    List<String> dates = history.getDates();
+                    assertTrue(dates.size() <= 16);
+                    for (int j = 1; j < dates.size(); j++) {
+                        String newer = dates.get(j - 1);
+                        String older = dates.get(j);
+                        if (newer.charAt(0) == older.charAt(0)) {
+                            assertTrue(newer.compareTo(older) > 0, "Dates of one writer should be newest first");
+                        }
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> result : results) {
+            result.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        assertEquals(16, history.getDates().size());
+    }
+
+    /**
+     * Tests whether a history which is still being read doesn't stop other
+     * teams and whether the first created history is kept for both readers
+     *
+     * @throws Exception if a thread failed
+     */
+    @Test
+    public void testSlowLoadDoesntBlockOtherTeams() throws Exception {
+        MeetingHistories histories = new MeetingHistories(10);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        MeetingHistory slow = new MeetingHistory(3);
+        Future<MeetingHistory> first = executor.submit(() -> histories.get("team:a", team -> {
+            loading.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            return slow;
+        }));
+        assertTrue(loading.await(10, TimeUnit.SECONDS));
+        Future<MeetingHistory> other = executor.submit(() -> histories.get("team:b", team -> new MeetingHistory(3)));
+        assertNotNull(other.get(10, TimeUnit.SECONDS), "Other team shouldn't wait for the slow one");
+        MeetingHistory fast = histories.get("team:a", team -> new MeetingHistory(3));
+        release.countDown();
+        assertSame(fast, first.get(10, TimeUnit.SECONDS), "History kept first should be returned");
+        executor.shutdown();
+        assertEquals(2, histories.size());
+    }
+
+    /**
+     * Tests whether history of the owner is read from saved meetings and
+     * registry returns one history per team
+     *
+     * @throws SQLException if database couldn't be used
+     */
+    @Test
+    public void testLoadSavedHistory() throws SQLException {
+        try (Connection con = DriverManager.getConnection("jdbc:derby:memory:meetingHistoryTest;create=true")) {
+            new SchemaMigrator().migrate(con);
+            TimesModel model = new TimesModel();
+            List<List<String>> participants = List.of(List.of("John", "2022-01-24 06:15:00"));
+            for (int day = 1; day <= 4; day++) {
+                model.insertAll(con, "2022-02-0" + day + " 10:00:00", "team:a", participants, 10);
+                model.insertAll(con, "2022-03-0" + day + " 10:00:00", "team:b", participants, 10);
+            }
+
+            MeetingHistory history = MeetingHistory.load(con, "team:a", 3);
+            assertEquals(List.of("2022-02-04 10:00:00", "2022-02-03 10:00:00", "2022-02-02 10:00:00"), history.getDates());
+
+            MeetingHistories histories = new MeetingHistories(1);
+            assertSame(histories.get("team:a", team -> history), histories.get("team:a", team -> new MeetingHistory(3)));
+            MeetingHistory other = histories.get("team:b", team -> new MeetingHistory(3));
+            assertSame(other, histories.get("team:b", team -> new MeetingHistory(3)), "New teams should be kept");
+            assertNotSame(history, histories.get("team:a", team -> new MeetingHistory(3)),
+                    "Least recently used team should be removed");
+            assertEquals(1, histories.size());
+        } finally {
+            try {
+                DriverManager.getConnection("jdbc:derby:memory:meetingHistoryTest;drop=true");
+            } catch (SQLException expected) {}
+        }
+    }
+}
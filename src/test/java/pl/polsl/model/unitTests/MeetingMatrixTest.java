@@ -0,0 +1,119 @@
+package pl.polsl.model.unitTests;
+
+import java.io.StringReader;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+import pl.polsl.model.InvalidInputException;
+import pl.polsl.model.MeetingMatrix;
+import pl.polsl.model.RosterReader;
+import pl.polsl.model.TimeConverter;
+
+/**
+ * Class used to test the matrix of local times at candidate meetings, results
+ * are compared with converting every participant at every candidate
+ *
+ * @author Jacek
+ * @version 1.5
+ */
+public class MeetingMatrixTest {
+
+    /**
+     * Timezones of the participants, including ones with daylight saving time
+     * and ones written differently but meaning the same offset
+     */
+    private static final String[] ZONES = {"GMT-7", "GMT+2", "GMT+02:00", "GMT+5:30", "Europe/Warsaw",
+        "America/New_York", "Australia/Lord_Howe", "UTC"};
+
+    /**
+     * Tests whether every cell is equal to converting the participant at the
+     * candidate, also across changes of daylight saving time
+     *
+     * @throws Exception if the roster couldn't be read
+     */
+    @Test
+    public void testMatchesConversionOfEveryCell() throws Exception {
+        StringBuilder roster = new StringBuilder();
+        for (int i = 0; i < 40; i++) {
+            roster.append("Participant").append(i).append(' ').append(ZONES[i % ZONES.length]).append('\n');
+        }
+        List<Instant> candidates = MeetingMatrix.range(Instant.parse("2022-03-26T00:00:00Z"),
+                Instant.parse("2022-04-03T12:00:00Z"), 90);
+        MeetingMatrix matrix = new MeetingMatrix(candidates);
+        matrix.addAll(new RosterReader(new StringReader(roster.toString())));
+
+        TimeConverter converter = new TimeConverter();
+        assertEquals(40, matrix.getParticipantCount());
+        assertEquals(candidates.size(), matrix.getCandidateCount());
+        for (int p = 0; p < matrix.getParticipantCount(); p++) {
+            for (int c = 0; c < matrix.getCandidateCount(); c++) {
+                assertEquals(converter.localTime(candidates.get(c), ZONES[p % ZONES.length]), matrix.getLocalTime(p, c),
+                        matrix.getName(p) + " at " + candidates.get(c));
+            }
+        }
+    }
+
+    /**
+     * Tests whether participants with the same timezone share its local times
+     *
+     * @throws Exception if the roster couldn't be read
+     */
+    @Test
+    public void testGroupsParticipantsByZone() throws Exception {
+        MeetingMatrix matrix = new MeetingMatrix(Arrays.asList(Instant.parse("2022-01-24T13:15:00Z")));
+        matrix.addAll(new RosterReader(new StringReader("John GMT+2\nMark GMT-7\nEmma GMT+02:00\nAnna GMT+2\n")));
+
+        assertEquals(4, matrix.getParticipantCount());
+        assertEquals(2, matrix.getZoneCount(), "GMT+2 and GMT+02:00 are the same timezone");
+        assertEquals(matrix.getZoneIndex(0), matrix.getZoneIndex(2));
+        assertEquals(matrix.getZoneIndex(0), matrix.getZoneIndex(3));
+        assertEquals("GMT+2", matrix.getZone(matrix.getZoneIndex(2)), "timezone is shown as its first participant wrote it");
+        assertEquals("2022-01-24 15:15:00", matrix.getLocalTime(2, 0));
+        assertEquals("2022-01-24 06:15:00", matrix.getLocalTime(1, 0));
+    }
+
+    /**
+     * Tests whether the range includes both ends and only whole steps
+     *
+     * @throws InvalidInputException if the range is incorrect
+     */
+    @Test
+    public void testRange() throws InvalidInputException {
+        Instant first = Instant.parse("2022-01-24T08:00:00Z");
+        List<Instant> range = MeetingMatrix.range(first, first.plusSeconds(4 * 3600), 60);
+        assertEquals(5, range.size());
+        assertEquals(first.plusSeconds(4 * 3600), range.get(4));
+
+        range = MeetingMatrix.range(first, first.plusSeconds(100 * 60), 45);
+        assertEquals(Arrays.asList(first, first.plusSeconds(45 * 60), first.plusSeconds(90 * 60)), range);
+        assertEquals(Collections.singletonList(first), MeetingMatrix.range(first, first, 30));
+    }
+
+    /**
+     * Tests whether incorrect candidates are rejected
+     */
+    @Test
+    public void testRejectsIncorrectCandidates() {
+        Instant first = Instant.parse("2022-01-24T08:00:00Z");
+        assertThrows(InvalidInputException.class, () -> MeetingMatrix.range(first, first.minusSeconds(60), 30));
+        assertThrows(InvalidInputException.class, () -> MeetingMatrix.range(first, first.plusSeconds(3600), 0));
+        assertThrows(InvalidInputException.class,
+                () -> MeetingMatrix.range(first, first.plusSeconds(60L * (MeetingMatrix.MAX_CANDIDATES + 1)), 1));
+        assertThrows(InvalidInputException.class, () -> new MeetingMatrix(new ArrayList<>()));
+    }
+
+    /**
+     * Tests whether a line with a wrong timezone is reported with its number
+     */
+    @Test
+    public void testReportsWrongZone() throws InvalidInputException {
+        MeetingMatrix matrix = new MeetingMatrix(Arrays.asList(Instant.parse("2022-01-24T13:15:00Z")));
+        InvalidInputException ex = assertThrows(InvalidInputException.class,
+                () -> matrix.addAll(new RosterReader(new StringReader("John GMT+2\nMark Mars/Olympus\n"))));
+        assertTrue(ex.getMessage().contains("2"), ex.getMessage());
+    }
+}
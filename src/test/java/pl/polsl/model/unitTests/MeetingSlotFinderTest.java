@@ -0,0 +1,153 @@
+package pl.polsl.model.unitTests;
+
+import java.io.StringReader;
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import pl.polsl.model.InvalidInputException;
+import pl.polsl.model.MeetingSlot;
+import pl.polsl.model.MeetingSlotFinder;
+import pl.polsl.model.RosterReader;
+import pl.polsl.model.WorkingHours;
+
+/**
+ * Class used to test finding of the best meeting times, results are compared
+ * with checking every participant at every candidate
+ *
+ * @author Jacek
+ * @version 1.5
+ */
+public class MeetingSlotFinderTest {
+
+    /**
+     * Timezones of the participants, including ones with daylight saving time
+     */
+    private static final String[] ZONES = {"GMT-7", "GMT+2", "GMT+9", "GMT+05:30", "Europe/Warsaw", "America/New_York", "UTC"};
+
+    /**
+     * Tests whether the best meeting of three participants is found
+     *
+     * @throws Exception if the roster couldn't be read
+     */
+    @Test
+    public void testFindsCommonHours() throws Exception {
+        MeetingSlotFinder finder = new MeetingSlotFinder();
+        finder.addAll(new RosterReader(new StringReader("John GMT+0 08:00-16:00\nMark GMT+2\nEmma GMT-5 06:00-14:00\n")));
+        Instant monday = Instant.parse("2022-01-24T00:00:00Z");
+
+        List<MeetingSlot> slots = finder.find(monday, monday.plusSeconds(24 * 3600), 60, 30, 3, false);
+        assertEquals(3, finder.getParticipants());
+        assertEquals(Instant.parse("2022-01-24T11:00:00Z"), slots.get(0).getStart());
+        assertEquals(3, slots.get(0).getAvailable());
+        assertEquals(Instant.parse("2022-01-24T11:30:00Z"), slots.get(1).getStart());
+        assertEquals(3, slots.get(1).getAvailable());
+        assertEquals(Instant.parse("2022-01-24T12:00:00Z"), slots.get(2).getStart());
+        assertEquals(3, slots.get(2).getAvailable());
+
+        slots = finder.find(monday, monday.plusSeconds(24 * 3600), 60, 30, 10, false);
+        assertEquals(7, slots.stream().filter(slot -> slot.getAvailable() == 3).count(), "11:00 to 14:00 fits everybody");
+        assertEquals(2, slots.get(7).getAvailable());
+    }
+
+    /**
+     * Tests whether results are the same as when every participant is
+     * checked at every candidate, for random rosters
+     *
+     * @param weekends true if participants work on weekends
+     * @throws InvalidInputException if the search failed
+     */
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    public void testMatchesBruteForce(boolean weekends) throws InvalidInputException {
+        Random random = new Random(42);
+        MeetingSlotFinder finder = new MeetingSlotFinder();
+        List<String> zones = new ArrayList<>();
+        List<WorkingHours> hours = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            String zone = ZONES[random.nextInt(ZONES.length)];
+            int start = random.nextInt(48) * 30;
+            WorkingHours workingHours = new WorkingHours(start, (start + 240 + random.nextInt(8) * 60) % (24 * 60));
+            finder.add(zone, workingHours);
+            zones.add(zone);
+            hours.add(workingHours);
+        }
+        Instant from = Instant.parse("2022-03-21T00:00:00Z");
+        Instant to = Instant.parse("2022-04-04T00:00:00Z");
+
+        List<MeetingSlot> slots = finder.find(from, to, 90, 15, 20, weekends);
+
+        List<long[]> expected = new ArrayList<>();
+        for (long start = from.getEpochSecond(); start + 90 * 60 <= to.getEpochSecond(); start += 15 * 60) {
+            int available = 0;
+            for (int i = 0; i < zones.size(); i++) {
+                if (atWork(zones.get(i), hours.get(i), start, start + 90 * 60, weekends)) {
+                    ++available;
+                }
+            }
+            expected.add(new long[] {start, available});
+        }
+        expected.sort(Comparator.<long[]>comparingLong(slot -> -slot[1]).thenComparingLong(slot -> slot[0]));
+
+        assertEquals(20, slots.size());
+        for (int i = 0; i < slots.size(); i++) {
+            assertEquals(expected.get(i)[0], slots.get(i).getStart().getEpochSecond(), "Slot " + i);
+            assertEquals(expected.get(i)[1], slots.get(i).getAvailable(), "Slot " + i);
+        }
+    }
+
+    /**
+     * Tests whether incorrect searches are rejected
+     */
+    @Test
+    public void testIncorrectSearch() {
+        MeetingSlotFinder finder = new MeetingSlotFinder();
+        Instant from = Instant.parse("2022-01-24T00:00:00Z");
+        assertThrows(InvalidInputException.class, () -> finder.find(from, from.plusSeconds(1800), 60, 30, 1, false));
+        assertThrows(InvalidInputException.class, () -> finder.find(from, from.plusSeconds(3 * 365L * 24 * 3600), 1, 1, 1, false));
+        assertThrows(InvalidInputException.class, () -> WorkingHours.parse("9-17"));
+        assertThrows(InvalidInputException.class, () -> WorkingHours.parse("09:00-25:00"));
+        InvalidInputException ex = assertThrows(InvalidInputException.class,
+                () -> finder.addAll(new RosterReader(new StringReader("John GMT+1\nMark GMT+2 nine-five\n"))));
+        assertTrue(ex.getMessage().startsWith("Line 2:"), ex.getMessage());
+    }
+
+    /**
+     * Checks if the participant works during the whole meeting by checking
+     * every working day around the meeting
+     *
+     * @param zone timezone of the participant
+     * @param hours working hours of the participant
+     * @param start start of the meeting in seconds
+     * @param end end of the meeting in seconds
+     * @param weekends true if the participant works on weekends
+     * @return true if the meeting is inside working hours
+     */
+    private boolean atWork(String zone, WorkingHours hours, long start, long end, boolean weekends) {
+        ZoneId id = ZoneId.of(zone, ZoneId.SHORT_IDS);
+        LocalDateTime local = LocalDateTime.ofInstant(Instant.ofEpochSecond(start), id);
+        for (int days = -2; days <= 1; days++) {
+            LocalDateTime day = local.toLocalDate().plusDays(days).atStartOfDay();
+            DayOfWeek dayOfWeek = day.getDayOfWeek();
+            if (!weekends && (dayOfWeek == DayOfWeek.SATURDAY || dayOfWeek == DayOfWeek.SUNDAY)) {
+                continue;
+            }
+            LocalDateTime workStart = day.plusMinutes(hours.getStart());
+            long workStartSecond = ZonedDateTime.ofLocal(workStart, id, null).toEpochSecond();
+            long workEndSecond = ZonedDateTime.ofLocal(workStart.plusMinutes(hours.getLength()), id, null).toEpochSecond();
+            if (workStartSecond <= start && end <= workEndSecond) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
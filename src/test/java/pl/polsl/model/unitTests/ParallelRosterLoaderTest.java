@@ -0,0 +1,156 @@
+package pl.polsl.model.unitTests;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.util.List;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+import pl.polsl.model.InvalidInputException;
+import pl.polsl.model.MeetingConversion;
+import pl.polsl.model.ParallelRosterLoader;
+import pl.polsl.model.TimesModel;
+
+/**
+ * Class used to test parallel conversion of roster files, results are
+ * compared with the streaming conversion
+ *
+ * @author Jacek
+ * @version 1.5
+ */
+public class ParallelRosterLoaderTest {
+
+    /**
+     * Date of the meeting
+     */
+    private static final String DATE = "2022-01-24 15:15:00";
+
+    /**
+     * Tested loader, with small chunks so every file is split into many of them
+     */
+    private final ParallelRosterLoader loader = new ParallelRosterLoader(4, 0, 37);
+
+    /**
+     * Model used to convert the dates
+     */
+    private final TimesModel model = new TimesModel();
+
+    /**
+     * Directory with created files
+     */
+    @TempDir
+    Path directory;
+
+    /**
+     * Stops the loader after every test
+     */
+    @AfterEach
+    public void tearDown() {
+        loader.close();
+    }
+
+    /**
+     * Tests whether parallel conversion returns the same participants in the
+     * same order as the streaming one, also with blank lines, different line
+     * endings and names which aren't ASCII
+     *
+     * @throws Exception if the file couldn't be converted
+     */
+    @Test
+    public void testConvertMatchesStreaming() throws Exception {
+        StringBuilder roster = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            roster.append("Uczestnik_ąę").append(i).append("\tGMT").append(i % 2 == 0 ? "+" : "-").append(i % 12);
+            roster.append(i % 3 == 0 ? "\r\n" : i % 7 == 0 ? "\n\n" : "\n");
+        }
+        Path file = write(roster.toString());
+
+        List<List<String>> expected = new MeetingConversion(file.toString(), DATE).execute(model);
+        List<List<String>> actual = new MeetingConversion(file.toString(), DATE, loader).execute(model);
+        assertEquals(500, actual.size());
+        assertEquals(expected, actual);
+    }
+
+    /**
+     * Tests whether chunks much larger than the buffer of decoded characters
+     * give the same result as streaming, including \r\n split between two
+     * refills of the buffer and a line longer than the buffer
+     *
+     * @throws Exception if the file couldn't be converted
+     */
+    @Test
+    public void testConvertLargeChunksMatchesStreaming() throws Exception {
+        StringBuilder roster = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            roster.append(i == 7000 ? "x".repeat(70000) : "Uczestnik_ąę" + i).append(" GMT+").append(i % 12);
+            roster.append(i % 3 == 0 ? "\r\n" : "\n");
+        }
+        Path file = write(roster.toString());
+
+        try (ParallelRosterLoader large = new ParallelRosterLoader(2, 0, 256 * 1024)) {
+            List<List<String>> expected = new MeetingConversion(file.toString(), DATE).execute(model);
+            List<List<String>> actual = new MeetingConversion(file.toString(), DATE, large).execute(model);
+            assertEquals(20000, actual.size());
+            assertEquals(expected, actual);
+        }
+    }
+
+    /**
+     * Tests whether incorrect participant is reported with the same line
+     * number as by the streaming conversion
+     *
+     * @throws IOException if the file couldn't be written
+     * @throws ParseException if the date couldn't be parsed
+     */
+    @Test
+    public void testConvertReportsLineNumber() throws IOException, ParseException {
+        StringBuilder roster = new StringBuilder();
+        for (int i = 1; i <= 300; i++) {
+            roster.append(i == 211 ? "Incorrect" : "Participant" + i + " GMT+1").append(i % 5 == 0 ? "\n\n" : "\n");
+        }
+        Path file = write(roster.toString());
+
+        InvalidInputException streaming = assertThrows(InvalidInputException.class,
+                () -> new MeetingConversion(file.toString(), DATE).execute(model));
+        InvalidInputException parallel = assertThrows(InvalidInputException.class,
+                () -> loader.convert(file.toString(), model.parseMeetingDate(DATE), model));
+        assertTrue(parallel.getMessage().startsWith("Line 253:"), parallel.getMessage());
+        assertEquals(streaming.getMessage(), parallel.getMessage());
+    }
+
+    /**
+     * Tests whether participant with unknown timezone is reported by both
+     * conversions with its line number instead of being converted as GMT
+     *
+     * @throws IOException if the file couldn't be written
+     */
+    @Test
+    public void testConvertRejectsUnknownTimezone() throws IOException {
+        StringBuilder roster = new StringBuilder();
+        for (int i = 1; i <= 300; i++) {
+            roster.append("Participant").append(i).append(i == 150 ? " Mars/Olympus" : " Europe/Warsaw").append('\n');
+        }
+        Path file = write(roster.toString());
+
+        InvalidInputException streaming = assertThrows(InvalidInputException.class,
+                () -> new MeetingConversion(file.toString(), DATE).execute(model));
+        InvalidInputException parallel = assertThrows(InvalidInputException.class,
+                () -> loader.convert(file.toString(), model.parseMeetingDate(DATE), model));
+        assertEquals("Line 150: Unknown timezone Mars/Olympus", streaming.getMessage());
+        assertEquals(streaming.getMessage(), parallel.getMessage());
+    }
+
+    /**
+     * Writes roster to a file
+     *
+     * @param roster content of the file
+     * @return path to the file
+     * @throws IOException if the file couldn't be written
+     */
+    private Path write(String roster) throws IOException {
+        return Files.write(directory.resolve("participants.txt"), roster.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,108 @@
+package pl.polsl.model.unitTests;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import pl.polsl.model.InvalidInputException;
+import pl.polsl.model.MeetingConversion;
+import pl.polsl.model.Roster;
+import pl.polsl.model.RosterEntry;
+import pl.polsl.model.RosterReader;
+import pl.polsl.model.RosterTooLargeException;
+import pl.polsl.model.TimesModel;
+
+/**
+ * Class used to test reading participants from the roster
+ *
+ * @author Jacek
+ * @version 1.5
+ */
+public class RosterReaderTest {
+
+    /**
+     * Tests whether participants are read with any whitespace between the
+     * tokens and blank lines are skipped
+     *
+     * @throws IOException if roster couldn't be read
+     * @throws InvalidInputException if roster was incorrect
+     */
+    @Test
+    public void testNextReadsParticipants() throws IOException, InvalidInputException {
+        RosterReader reader = new RosterReader(new StringReader("John GMT-7\n\n  Mark\t\tGMT+9  \r\nEmma GMT+2 ignored"));
+
+        RosterEntry first = reader.next();
+        assertEquals("John", first.getName());
+        assertEquals("GMT-7", first.getZone());
+        assertEquals(1, first.getLineNumber());
+
+        RosterEntry second = reader.next();
+        assertEquals("Mark", second.getName());
+        assertEquals("GMT+9", second.getZone());
+        assertEquals(3, second.getLineNumber());
+
+        RosterEntry third = reader.next();
+        assertEquals("Emma", third.getName());
+        assertEquals("GMT+2", third.getZone());
+
+        assertNull(reader.next());
+    }
+
+    /**
+     * Tests whether line without timezone is reported with its number
+     *
+     * @param roster content of the roster
+     */
+    @ParameterizedTest
+    @ValueSource(strings = {"John GMT-7\nMark\nEmma GMT+2", "John GMT-7\n\nMark   "})
+    public void testNextReportsLineNumber(String roster) {
+        RosterReader reader = new RosterReader(new StringReader(roster));
+        try {
+            reader.next();
+            reader.next();
+            fail("Line without timezone should be reported");
+        } catch (InvalidInputException ex) {
+            assertTrue(ex.getMessage().startsWith("Line " + (roster.contains("\n\n") ? 3 : 2) + ":"), ex.getMessage());
+        } catch (IOException ex) {
+            fail("Roster should be read");
+        }
+    }
+
+    /**
+     * Tests whether roster with more participants than the limit is rejected
+     * when the first participant above the limit is read, blank lines aren't
+     * counted
+     *
+     * @throws IOException if roster couldn't be read
+     * @throws InvalidInputException if roster was incorrect
+     */
+    @Test
+    public void testParticipantLimit() throws IOException, InvalidInputException {
+        RosterReader reader = new RosterReader(new StringReader("John GMT-7\n\nMark GMT+9\nEmma GMT+2\n"));
+        reader.setMaxParticipants(2);
+
+        assertEquals("John", reader.next().getName());
+        assertEquals("Mark", reader.next().getName());
+        RosterTooLargeException ex = assertThrows(RosterTooLargeException.class, reader::next);
+        assertEquals("Roster can't have more than 2 participants", ex.getMessage());
+    }
+
+    /**
+     * Tests whether uploaded roster is converted from the reader like a file
+     *
+     * @throws Exception if roster couldn't be converted
+     */
+    @Test
+    public void testConversionReadsUploadedRoster() throws Exception {
+        RosterReader reader = new RosterReader(new StringReader("John GMT-7\nMark GMT+9\n"));
+
+        Roster roster = new MeetingConversion("upload.txt", "2022-01-24 15:15:00").execute(new TimesModel(), reader);
+
+        assertEquals(2, roster.size());
+        assertEquals(List.of("John", "2022-01-24 06:15:00"), roster.get(0));
+        assertEquals(List.of("Mark", "2022-01-24 22:15:00"), roster.get(1));
+    }
+}
@@ -0,0 +1,135 @@
+package pl.polsl.model.unitTests;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+import pl.polsl.model.Roster;
+
+/**
+ * Class used to test columnar storage of converted participants
+ *
+ * @author Jacek
+ * @version 1.5
+ */
+public class RosterTest {
+
+    /**
+     * 2022-01-24 15:15:00 as number of seconds
+     */
+    private static final long MEETING = 1643037300L;
+
+    /**
+     * Tests whether participants are returned the same as they were added,
+     * both by columns and as rows
+     */
+    @Test
+    public void testAddedParticipantsAreReturned() {
+        Roster roster = new Roster.Builder(1)
+                .add("John", "GMT-7", MEETING - 9 * 3600)
+                .add("", "GMT+2", MEETING)
+                .add("Zażółć", "GMT-7", MEETING + 59)
+                .build();
+
+        assertEquals(3, roster.size());
+        assertEquals("John", roster.getName(0));
+        assertEquals("", roster.getName(1));
+        assertEquals("Zażółć", roster.getName(2));
+        assertEquals("2022-01-24 06:15:00", roster.getLocalTime(0));
+        assertEquals("2022-01-24 15:15:59", roster.getLocalTime(2));
+        assertSame(roster.getZone(0), roster.getZone(2));
+        assertEquals(2, roster.getZoneCount());
+        assertEquals(List.of(List.of("John", "2022-01-24 06:15:00"), List.of("", "2022-01-24 15:15:00"),
+                List.of("Zażółć", "2022-01-24 15:15:59")), roster);
+        assertThrows(IndexOutOfBoundsException.class, () -> roster.getName(3));
+    }
+
+    /**
+     * Tests whether rosters merged by the builder keep order of the
+     * participants and their timezones
+     */
+    @Test
+    public void testAddAllKeepsOrder() {
+        Roster first = new Roster.Builder().add("A", "GMT+1", MEETING).add("B", "GMT+3", MEETING).build();
+        Roster second = new Roster.Builder().add("C", "GMT+3", MEETING).add("D", "GMT-5", MEETING).build();
+
+        Roster merged = new Roster.Builder().addAll(first).addAll(second).build();
+        assertEquals(4, merged.size());
+        assertEquals("C", merged.getName(2));
+        assertEquals("GMT-5", merged.getZone(3));
+        assertEquals(3, merged.getZoneCount());
+    }
+
+    /**
+     * Tests whether participants are grouped by normalized timezone in order
+     * of the roster and local time of a timezone is formatted once
+     */
+    @Test
+    public void testGroupByZone() {
+        Roster roster = new Roster.Builder()
+                .add("John", "GMT+2", MEETING)
+                .add("Mark", "GMT-7", MEETING - 9 * 3600)
+                .add("Emma", "GMT+02:00", MEETING)
+                .add("Anna", "GMT+2", MEETING)
+                .build();
+
+        assertSame(roster.getLocalTime(0), roster.getLocalTime(3), "time of a timezone is formatted once");
+        List<Roster.ZoneGroup> groups = roster.groupByZone();
+        assertEquals(2, groups.size());
+        assertEquals("GMT+2", groups.get(0).getZone());
+        assertEquals("2022-01-24 15:15:00", groups.get(0).getLocalTime());
+        assertEquals(3, groups.get(0).size());
+        assertEquals(List.of("John", "Emma", "Anna"),
+                List.of(groups.get(0).getName(0), groups.get(0).getName(1), groups.get(0).getName(2)));
+        assertEquals("GMT-7", groups.get(1).getZone());
+        assertEquals("Mark", groups.get(1).getName(0));
+        assertThrows(IndexOutOfBoundsException.class, () -> groups.get(1).getName(1));
+    }
+
+    /**
+     * Tests whether roster survives serialization and is much smaller than
+     * the same participants kept in lists of strings
+     *
+     * @throws IOException if roster couldn't be serialized
+     * @throws ClassNotFoundException if roster couldn't be deserialized
+     */
+    @Test
+    public void testSerializedRosterIsSmall() throws IOException, ClassNotFoundException {
+        Roster.Builder builder = new Roster.Builder();
+        List<List<String>> lists = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            builder.add("Participant" + i, "GMT+" + i % 12, MEETING + i);
+            lists.add(new ArrayList<>(List.of("Participant" + i, new Roster.Builder().add("", "", MEETING + i).build().getLocalTime(0))));
+        }
+        Roster roster = builder.build();
+
+        byte[] serialized = serialize(roster);
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(serialized))) {
+            assertEquals(roster, in.readObject());
+        }
+        assertEquals(lists, roster);
+        assertTrue(serialized.length * 2 < serialize((Serializable) lists).length,
+                "Roster should be at least two times smaller than lists");
+    }
+
+    /**
+     * Serializes the object
+     *
+     * @param object serialized object
+     * @return serialized form
+     * @throws IOException if object couldn't be serialized
+     */
+    private byte[] serialize(Serializable object) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(object);
+        }
+        return bytes.toByteArray();
+    }
+}
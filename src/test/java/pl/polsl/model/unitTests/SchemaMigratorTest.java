@@ -0,0 +1,108 @@
+package pl.polsl.model.unitTests;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+import pl.polsl.model.SchemaMigrator;
+
+/**
+ * Class used to test migrations of the database, using in-memory database
+ *
+ * @author Jacek
+ * @version 1.5
+ */
+public class SchemaMigratorTest {
+
+    /**
+     * Tested migrator
+     */
+    private final SchemaMigrator migrator = new SchemaMigrator();
+
+    /**
+     * Connection to in-memory database
+     */
+    private Connection con;
+
+    /**
+     * Function creates new empty database before every test
+     *
+     * @throws SQLException if database couldn't be created
+     */
+    @BeforeEach
+    public void setUp() throws SQLException {
+        con = DriverManager.getConnection("jdbc:derby:memory:schemaMigratorTest;create=true");
+    }
+
+    /**
+     * Function removes the database after every test
+     */
+    @AfterEach
+    public void tearDown() {
+        try {
+            con.close();
+            DriverManager.getConnection("jdbc:derby:memory:schemaMigratorTest;drop=true");
+        } catch (SQLException expected) {}
+    }
+
+    /**
+     * Tests whether empty database is migrated to the latest version and
+     * second migration does nothing
+     *
+     * @throws SQLException if migration failed
+     */
+    @Test
+    public void testMigrateEmptyDatabase() throws SQLException {
+        assertEquals(migrator.getLatestVersion(), migrator.migrate(con));
+        assertEquals(migrator.getLatestVersion(), migrator.migrate(con));
+        assertEquals(migrator.getLatestVersion(), count("SELECT COUNT(*) FROM APP.SCHEMA_VERSION"));
+    }
+
+    /**
+     * Tests whether rows saved with the original schema are linked by the
+     * foreign key and times without participant are removed
+     *
+     * @throws SQLException if migration failed
+     */
+    @Test
+    public void testMigrateOriginalSchema() throws SQLException {
+        try (Statement statement = con.createStatement()) {
+            statement.executeUpdate("CREATE TABLE Participants (id INTEGER NOT NULL PRIMARY KEY "
+                    + "GENERATED ALWAYS AS IDENTITY (START WITH 1, INCREMENT BY 1), name VARCHAR(50))");
+            statement.executeUpdate("CREATE TABLE Times (id INTEGER NOT NULL PRIMARY KEY "
+                    + "GENERATED ALWAYS AS IDENTITY (START WITH 1, INCREMENT BY 1), time VARCHAR(50))");
+            statement.executeUpdate("Alter Table APP.Participants Add FOREIGN KEY (ID) References APP.Times (ID)");
+            statement.executeUpdate("INSERT INTO APP.TIMES (TIME) VALUES ('2022-01-24 06:15:00')");
+            statement.executeUpdate("INSERT INTO APP.TIMES (TIME) VALUES ('2022-01-24 22:15:00')");
+            statement.executeUpdate("INSERT INTO APP.PARTICIPANTS (NAME) VALUES ('John')");
+        }
+
+        migrator.migrate(con);
+
+        assertEquals(1, count("SELECT COUNT(*) FROM APP.PARTICIPANTS p JOIN APP.TIMES t ON t.PARTICIPANT_ID = p.ID "
+                + "WHERE p.NAME = 'John' AND t.TIME = '2022-01-24 06:15:00'"));
+        assertEquals(1, count("SELECT COUNT(*) FROM APP.TIMES"), "Time without participant should be removed");
+        try (Statement statement = con.createStatement()) {
+            assertThrows(SQLException.class, () -> statement.executeUpdate(
+                    "INSERT INTO APP.TIMES (PARTICIPANT_ID, TIME) VALUES (42, '2022-01-24 15:15:00')"),
+                    "Time of nonexistent participant shouldn't be saved");
+        }
+    }
+
+    /**
+     * Executes query returning one number
+     *
+     * @param query SQL query
+     * @return result of the query
+     * @throws SQLException if query failed
+     */
+    private int count(String query) throws SQLException {
+        try (Statement statement = con.createStatement(); ResultSet rs = statement.executeQuery(query)) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+}
@@ -42,7 +42,7 @@ public class TimesModelTest {
      * @param inputSecond Date of the meeting
      */
     @ParameterizedTest
-    @CsvSource({"GMT+1,''","GMT+2,' '", "GMT-9,9999-99-99 99:99:99", "GMT+2,0-0-0 00:00:00", "GMT+5,2021/11/15 15:30:00"})
+    @CsvSource({"GMT+1,''","GMT+2,' '", "GMT-9,9999-99-99 99:99:99", "GMT+2,0-0-0 00:00:00", "GMT+5,2021/11/15 15:30:00", "GMT+1,2021-02-30 10:00:00"})
     public void testCalculateTimeIncorrect(String input, String inputSecond) {
         try {
             model.calculateTime(input, inputSecond);
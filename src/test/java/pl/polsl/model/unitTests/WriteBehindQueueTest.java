@@ -0,0 +1,246 @@
+package pl.polsl.model.unitTests;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+import pl.polsl.model.BatchInsertResult;
+import pl.polsl.model.SchemaMigrator;
+import pl.polsl.model.WriteBehindQueue;
+
+/**
+ * Class used to test saving meetings in the background, using in-memory
+ * database
+ *
+ * @author Jacek
+ * @version 1.5
+ */
+public class WriteBehindQueueTest {
+
+    /**
+     * URL of the in-memory database
+     */
+    private static final String URL = "jdbc:derby:memory:writeBehindTest";
+
+    /**
+     * Connection used to check the content of the database
+     */
+    private Connection con;
+
+    /**
+     * Directory of the spill file
+     */
+    @TempDir
+    Path directory;
+
+    /**
+     * Function creates new empty database before every test
+     *
+     * @throws SQLException if database couldn't be created
+     */
+    @BeforeEach
+    public void setUp() throws SQLException {
+        con = DriverManager.getConnection(URL + ";create=true");
+        new SchemaMigrator().migrate(con);
+    }
+
+    /**
+     * Function removes the database after every test
+     */
+    @AfterEach
+    public void tearDown() {
+        try {
+            con.close();
+            DriverManager.getConnection(URL + ";drop=true");
+        } catch (SQLException expected) {}
+    }
+
+    /**
+     * Tests whether queued meetings are saved in the background
+     *
+     * @throws Exception if the queue couldn't be created or flushed
+     */
+    @Test
+    public void testQueuedMeetingsAreSaved() throws Exception {
+        AtomicInteger transactions = new AtomicInteger();
+        try (WriteBehindQueue queue = new WriteBehindQueue(this::connect, 1000, 100, 10, 50, null,
+                nanos -> transactions.incrementAndGet(), result -> { })) {
+            assertTrue(queue.offer("2022-01-24 15:15:00", null, participants(20)));
+            assertTrue(queue.offer("2022-01-25 15:15:00", "team:Core", participants(30)));
+
+            assertTrue(queue.flush(5000));
+            assertEquals(0, queue.getDepth());
+            assertEquals(0, queue.getLagMillis());
+            assertEquals(52, queue.getSavedRecords());
+        }
+        assertTrue(transactions.get() >= 1, "Time of every transaction should be reported");
+        assertEquals(2, count("SELECT COUNT(*) FROM APP.MEETINGS"));
+        assertEquals(50, count("SELECT COUNT(*) FROM APP.PARTICIPANTS p JOIN APP.TIMES t ON t.PARTICIPANT_ID = p.ID"));
+        assertEquals(1, count("SELECT COUNT(*) FROM APP.MEETINGS WHERE OWNER = 'team:Core'"));
+    }
+
+    /**
+     * Tests whether meetings waiting for the time trigger are saved when the
+     * queue is closed
+     *
+     * @throws Exception if the queue couldn't be created
+     */
+    @Test
+    public void testCloseSavesWaitingMeetings() throws Exception {
+        WriteBehindQueue queue = new WriteBehindQueue(this::connect, 1000, 1000, 60000, 50, null);
+        for (int i = 0; i < 5; i++) {
+            assertTrue(queue.offer("2022-01-24 15:15:00", null, participants(3)));
+        }
+        assertEquals(20, queue.getDepth());
+
+        queue.close();
+
+        assertEquals(5, count("SELECT COUNT(*) FROM APP.MEETINGS"));
+        assertFalse(queue.offer("2022-01-24 15:15:00", null, participants(3)), "Closed queue shouldn't accept meetings");
+    }
+
+    /**
+     * Tests whether meetings which don't fit into the queue are rejected
+     *
+     * @throws Exception if the queue couldn't be created
+     */
+    @Test
+    public void testFullQueueRejectsMeetings() throws Exception {
+        try (WriteBehindQueue queue = new WriteBehindQueue(this::unreachable, 10, 10, 60000, 50, null)) {
+            assertTrue(queue.offer("2022-01-24 15:15:00", null, participants(5)));
+            assertFalse(queue.offer("2022-01-24 15:15:00", null, participants(5)));
+            assertEquals(6, queue.getDepth());
+            assertEquals(1, queue.getRejectedMeetings());
+        }
+    }
+
+    /**
+     * Tests whether incorrect participants are counted as failed and the
+     * rest of the meeting is saved
+     *
+     * @throws Exception if the queue couldn't be created or flushed
+     */
+    @Test
+    public void testIncorrectParticipantsAreCounted() throws Exception {
+        List<List<String>> participants = participants(3);
+        participants.add(List.of("x".repeat(51), "2022-01-24 15:15:00"));
+        try (WriteBehindQueue queue = new WriteBehindQueue(this::connect, 1000, 100, 0, 50, null)) {
+            assertTrue(queue.offer("2022-01-24 15:15:00", null, participants));
+            assertTrue(queue.flush(5000));
+            assertEquals(1, queue.getFailedRecords());
+        }
+        assertEquals(3, count("SELECT COUNT(*) FROM APP.PARTICIPANTS"));
+    }
+
+    /**
+     * Tests whether meetings which weren't saved because the database was
+     * unreachable are saved from the spill file after a restart and reported
+     * to the listener given to the queue
+     *
+     * @throws Exception if the queue couldn't be created
+     */
+    @Test
+    public void testSpillFileKeepsUnsavedMeetings() throws Exception {
+        Path spill = directory.resolve("meetings.spill");
+        try (WriteBehindQueue queue = new WriteBehindQueue(this::unreachable, 1000, 100, 0, 50, spill)) {
+            assertTrue(queue.offer("2022-01-24 15:15:00", "user:jacek", "core.txt", participants(4)));
+            assertTrue(queue.offer("2022-01-25 15:15:00", null, participants(6)));
+            Thread.sleep(50);
+            assertTrue(queue.getLagMillis() > 0);
+        }
+        assertTrue(Files.size(spill) > 0);
+
+        List<BatchInsertResult> results = Collections.synchronizedList(new ArrayList<>());
+        try (WriteBehindQueue queue = new WriteBehindQueue(this::connect, 1000, 100, 0, 50, spill,
+                nanos -> { }, results::add)) {
+            assertTrue(queue.flush(5000));
+        }
+        assertEquals(2, results.size(), "Recovered meetings should be reported to the listener");
+        assertEquals(2, count("SELECT COUNT(*) FROM APP.MEETINGS"));
+        assertEquals(1, count("SELECT COUNT(*) FROM APP.MEETINGS WHERE OWNER = 'user:jacek' AND ROSTER = 'core.txt'"),
+                "Name of the roster should be kept in the spill file");
+        assertEquals(10, count("SELECT COUNT(*) FROM APP.PARTICIPANTS"));
+        assertEquals(0, Files.size(spill), "Spill file should be emptied when everything is saved");
+    }
+
+    /**
+     * Tests whether incomplete record at the end of the spill file is
+     * skipped
+     *
+     * @throws Exception if the queue couldn't be created
+     */
+    @Test
+    public void testIncompleteSpillRecordIsSkipped() throws Exception {
+        Path spill = directory.resolve("meetings.spill");
+        try (WriteBehindQueue queue = new WriteBehindQueue(this::unreachable, 1000, 100, 0, 50, spill)) {
+            queue.offer("2022-01-24 15:15:00", null, participants(4));
+            queue.offer("2022-01-25 15:15:00", null, participants(4));
+        }
+        byte[] content = Files.readAllBytes(spill);
+        Files.write(spill, Arrays.copyOf(content, content.length - 3));
+
+        try (WriteBehindQueue queue = new WriteBehindQueue(this::connect, 1000, 100, 0, 50, spill)) {
+            assertTrue(queue.flush(5000));
+        }
+        assertEquals(1, count("SELECT COUNT(*) FROM APP.MEETINGS"));
+    }
+
+    /**
+     * Opens connection to the in-memory database
+     *
+     * @return new connection
+     * @throws SQLException if connection couldn't be opened
+     */
+    private Connection connect() throws SQLException {
+        return DriverManager.getConnection(URL);
+    }
+
+    /**
+     * Fails like a database which can't be reached
+     *
+     * @return never returns
+     * @throws SQLException always
+     */
+    private Connection unreachable() throws SQLException {
+        throw new SQLException("Database is down");
+    }
+
+    /**
+     * Creates participants of a meeting
+     *
+     * @param count number of participants
+     * @return names and local times
+     */
+    private static List<List<String>> participants(int count) {
+        List<List<String>> participants = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            participants.add(List.of("Participant" + i, "2022-01-24 15:15:00"));
+        }
+        return participants;
+    }
+
+    /**
+     * Executes query returning one number
+     *
+     * @param query SQL query
+     * @return result of the query
+     * @throws SQLException if query failed
+     */
+    private int count(String query) throws SQLException {
+        try (Statement statement = con.createStatement(); ResultSet rs = statement.executeQuery(query)) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+}
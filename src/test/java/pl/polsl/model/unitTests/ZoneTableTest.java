@@ -0,0 +1,99 @@
+package pl.polsl.model.unitTests;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.zone.ZoneRules;
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+import pl.polsl.model.InvalidInputException;
+import pl.polsl.model.TimeConverter;
+import pl.polsl.model.ZoneTable;
+
+/**
+ * Class used to test precomputed tables of timezones and conversions in
+ * region timezones
+ *
+ * @author Jacek
+ * @version 1.5
+ */
+public class ZoneTableTest {
+
+    /**
+     * Tests whether offsets found in the table are the same as offsets of the
+     * rules of the timezone, also at the transitions and outside of the
+     * precomputed years
+     *
+     * @param zone tested timezone
+     * @throws InvalidInputException if the timezone doesn't exist
+     */
+    @ParameterizedTest
+    @ValueSource(strings = {"Europe/Warsaw", "America/New_York", "Australia/Sydney", "Asia/Kolkata", "America/Sao_Paulo"})
+    public void testOffsetsMatchRules(String zone) throws InvalidInputException {
+        ZoneTable table = ZoneTable.of(zone);
+        ZoneRules rules = ZoneId.of(zone).getRules();
+        assertTrue(table.getTransitionCount() > 0);
+
+        for (long second = Instant.parse("1890-01-01T00:00:00Z").getEpochSecond();
+                second < Instant.parse("2110-01-01T00:00:00Z").getEpochSecond(); second += 23 * 3600 + 17) {
+            assertEquals(rules.getOffset(Instant.ofEpochSecond(second)).getTotalSeconds(), table.getOffset(second),
+                    zone + " at " + Instant.ofEpochSecond(second));
+        }
+        rules.getTransitions().forEach(transition -> {
+            long second = transition.toEpochSecond();
+            assertEquals(transition.getOffsetBefore().getTotalSeconds(), table.getOffset(second - 1));
+            assertEquals(transition.getOffsetAfter().getTotalSeconds(), table.getOffset(second));
+        });
+    }
+
+    /**
+     * Tests whether local times in region timezones follow daylight saving time
+     *
+     * @param zone timezone of the participant
+     * @param meetingDate date of the meeting in GMT+2
+     * @param expected local time of the participant
+     * @throws InvalidInputException if the date or timezone is incorrect
+     */
+    @ParameterizedTest
+    @CsvSource({"Europe/Warsaw,2022-01-24 15:15:00,2022-01-24 14:15:00",
+        "Europe/Warsaw,2022-07-24 15:15:00,2022-07-24 15:15:00",
+        "America/New_York,2022-03-13 10:00:00,2022-03-13 04:00:00",
+        "America/New_York,2022-03-12 10:00:00,2022-03-12 03:00:00",
+        "GMT+5:30,2022-01-24 15:15:00,2022-01-24 18:45:00",
+        "GMT-7,2022-01-24 15:15:00,2022-01-24 06:15:00"})
+    public void testLocalTimeInRegions(String zone, String meetingDate, String expected) throws InvalidInputException {
+        TimeConverter converter = new TimeConverter();
+        assertEquals(expected, converter.localTime(converter.parseMeetingDate(meetingDate), zone));
+    }
+
+    /**
+     * Tests whether unknown timezones are reported instead of being treated
+     * as GMT
+     *
+     * @param zone incorrect timezone
+     */
+    @ParameterizedTest
+    @ValueSource(strings = {"Europe/Warsw", "GMT+25", "GMT+1:99", "Poland/Gliwice", "+-1", "GMT+"})
+    public void testUnknownTimezoneIsRejected(String zone) {
+        InvalidInputException ex = assertThrows(InvalidInputException.class, () -> ZoneTable.of(zone));
+        assertEquals("Unknown timezone " + zone, ex.getMessage());
+    }
+
+    /**
+     * Tests whether meeting dates are read in the configured timezone,
+     * including its daylight saving time
+     *
+     * @throws InvalidInputException if the date or timezone is incorrect
+     */
+    @Test
+    public void testReferenceZone() throws InvalidInputException {
+        TimeConverter converter = new TimeConverter("Europe/Warsaw");
+        assertEquals(Instant.parse("2022-01-24T14:15:00Z"), converter.parseMeetingDate("2022-01-24 15:15:00"));
+        assertEquals(Instant.parse("2022-07-24T13:15:00Z"), converter.parseMeetingDate("2022-07-24 15:15:00"));
+        assertEquals("2022-07-24 15:15:00", converter.referenceTime(Instant.parse("2022-07-24T13:15:00Z")));
+        assertEquals("Europe/Warsaw", converter.getReferenceZone());
+        assertThrows(InvalidInputException.class, () -> new TimeConverter("Europe/Warsw"));
+    }
+}
@@ -0,0 +1,101 @@
+package pl.polsl.view.unitTests;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import pl.polsl.view.HtmlStream;
+
+/**
+ * Class used to test writing of escaped HTML in UTF-8
+ *
+ * @author Jacek
+ * @version 1.5
+ */
+public class HtmlStreamTest {
+
+    /**
+     * Tests whether text is encoded like String.getBytes, also when
+     * characters are split between chunks of a small buffer
+     *
+     * @param text written text
+     * @throws IOException if the text couldn't be written
+     */
+    @ParameterizedTest
+    @ValueSource(strings = {"", "John", "Zażółć gęślą jaźń", "東京 Participant", "Emoji 😀 🌍 end",
+        "Lone \uD800 surrogate", "߿ࠀ￿"})
+    public void testTextIsEncodedInUtf8(String text) throws IOException {
+        for (int bufferSize : new int[] {32, 33, 35, HtmlStream.DEFAULT_BUFFER_SIZE}) {
+            ByteArrayOutputStream page = new ByteArrayOutputStream();
+            try (HtmlStream out = new HtmlStream(page, bufferSize)) {
+                out.text(text).text(text);
+            }
+            assertArrayEquals((text + text).getBytes(StandardCharsets.UTF_8), page.toByteArray(), "Buffer " + bufferSize);
+        }
+    }
+
+    /**
+     * Tests whether characters with a meaning in HTML are escaped and
+     * fragments aren't
+     *
+     * @throws IOException if the text couldn't be written
+     */
+    @Test
+    public void testTextIsEscaped() throws IOException {
+        ByteArrayOutputStream page = new ByteArrayOutputStream();
+        try (HtmlStream out = new HtmlStream(page)) {
+            out.write(HtmlStream.fragment("<td>")).text("a & b <c> \"d\" 'e'").text(null).write(HtmlStream.fragment("</td>"));
+        }
+        assertEquals("<td>a &amp; b &lt;c&gt; &quot;d&quot; &#39;e&#39;</td>", page.toString(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Tests whether numbers are written like Long.toString
+     *
+     * @throws IOException if the numbers couldn't be written
+     */
+    @Test
+    public void testNumbers() throws IOException {
+        long[] numbers = {0, 7, -7, 10, 1234567890123L, Long.MAX_VALUE, Long.MIN_VALUE};
+        ByteArrayOutputStream page = new ByteArrayOutputStream();
+        StringBuilder expected = new StringBuilder();
+        try (HtmlStream out = new HtmlStream(page, 32)) {
+            for (long number : numbers) {
+                out.number(number).write(HtmlStream.fragment(","));
+                expected.append(number).append(',');
+            }
+        }
+        assertEquals(expected.toString(), page.toString(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Tests whether a large page is sent in chunks of the buffer while it is
+     * written, instead of being kept until the end
+     *
+     * @throws IOException if the page couldn't be written
+     */
+    @Test
+    public void testPageIsSentInChunks() throws IOException {
+        List<Integer> flushed = new ArrayList<>();
+        ByteArrayOutputStream page = new ByteArrayOutputStream() {
+            @Override
+            public void flush() {
+                flushed.add(size());
+            }
+        };
+        byte[] row = HtmlStream.fragment("<tr><td>Participant</td></tr>\n");
+        try (HtmlStream out = new HtmlStream(page, 1024)) {
+            for (int i = 0; i < 1000; i++) {
+                out.write(row);
+                assertTrue(page.size() + 1024 >= (i + 1) * row.length, "Rows are kept in memory");
+            }
+        }
+        assertEquals(1000 * row.length, page.size());
+        assertTrue(flushed.size() >= 1000 * row.length / 1024, "Chunks weren't flushed");
+    }
+}
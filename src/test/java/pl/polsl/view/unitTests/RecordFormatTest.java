@@ -0,0 +1,80 @@
+package pl.polsl.view.unitTests;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.List;
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+import pl.polsl.view.RecordFormat;
+
+/**
+ * Class used to test formats of records returned by the REST API
+ *
+ * @author Jacek
+ * @version 1.5
+ */
+public class RecordFormatTest {
+
+    /**
+     * Tests whether NDJSON records are single lines with escaped values
+     *
+     * @throws IOException if the records couldn't be written
+     */
+    @Test
+    public void testNdjson() throws IOException {
+        StringWriter out = new StringWriter();
+        RecordFormat.NDJSON.writeHeader(out);
+        RecordFormat.NDJSON.writeRecord(out, "2022-01-24T13:15:00Z", "John", "GMT-7", "2022-01-24 06:15:00");
+        RecordFormat.NDJSON.writeRecord(out, "2022-01-24T13:15:00Z", "Zażółć\"\\\u0001", "Europe/Warsaw", "2022-01-24 14:15:00");
+        assertEquals("{\"meeting\":\"2022-01-24T13:15:00Z\",\"name\":\"John\",\"zone\":\"GMT-7\",\"localTime\":\"2022-01-24 06:15:00\"}\n"
+                + "{\"meeting\":\"2022-01-24T13:15:00Z\",\"name\":\"Zażółć\\\"\\\\\\u0001\",\"zone\":\"Europe/Warsaw\","
+                + "\"localTime\":\"2022-01-24 14:15:00\"}\n", out.toString());
+    }
+
+    /**
+     * Tests whether CSV has a header and quotes only values which need it
+     *
+     * @throws IOException if the records couldn't be written
+     */
+    @Test
+    public void testCsv() throws IOException {
+        StringWriter out = new StringWriter();
+        RecordFormat.CSV.writeHeader(out);
+        RecordFormat.CSV.writeRecord(out, "2022-01-24T13:15:00Z", "John", "GMT-7", "2022-01-24 06:15:00");
+        RecordFormat.CSV.writeRecord(out, "2022-01-24T13:15:00Z", "Smith,\"Jr\"", "GMT+1", "2022-01-24 14:15:00");
+        assertEquals("meeting,name,zone,localTime\r\n"
+                + "2022-01-24T13:15:00Z,John,GMT-7,2022-01-24 06:15:00\r\n"
+                + "2022-01-24T13:15:00Z,\"Smith,\"\"Jr\"\"\",GMT+1,2022-01-24 14:15:00\r\n", out.toString());
+    }
+
+    /**
+     * Tests whether groups of participants are written with one local time
+     * and all of the names
+     *
+     * @throws IOException if the records couldn't be written
+     */
+    @Test
+    public void testGroups() throws IOException {
+        StringWriter out = new StringWriter();
+        RecordFormat.NDJSON.writeGroupHeader(out);
+        RecordFormat.NDJSON.writeGroup(out, "2022-01-24T13:15:00Z", "GMT+2", "2022-01-24 15:15:00", List.of("John", "\"Emma\""));
+        assertEquals("{\"meeting\":\"2022-01-24T13:15:00Z\",\"zone\":\"GMT+2\",\"localTime\":\"2022-01-24 15:15:00\","
+                + "\"names\":[\"John\",\"\\\"Emma\\\"\"]}\n", out.toString());
+
+        out = new StringWriter();
+        RecordFormat.CSV.writeGroupHeader(out);
+        RecordFormat.CSV.writeGroup(out, "2022-01-24T13:15:00Z", "GMT+2", "2022-01-24 15:15:00", List.of("John", "Smith, Jr"));
+        assertEquals("meeting,zone,localTime,names\r\n"
+                + "2022-01-24T13:15:00Z,GMT+2,2022-01-24 15:15:00,\"John;Smith, Jr\"\r\n", out.toString());
+    }
+
+    /**
+     * Tests whether formats are found by their media types
+     */
+    @Test
+    public void testForMediaType() {
+        assertEquals(RecordFormat.CSV, RecordFormat.forMediaType("text/CSV"));
+        assertEquals(RecordFormat.NDJSON, RecordFormat.forMediaType("application/x-ndjson"));
+        assertNull(RecordFormat.forMediaType("text/html"));
+    }
+}
@@ -0,0 +1,161 @@
+package pl.polsl.view.unitTests;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+import pl.polsl.model.HistoryPages;
+import pl.polsl.model.MeetingMatrix;
+import pl.polsl.model.SchemaMigrator;
+import pl.polsl.model.ZoneTable;
+import pl.polsl.model.TimesModel;
+import pl.polsl.view.HtmlStream;
+import pl.polsl.view.TimesView;
+
+/**
+ * Class used to test printing of the data from database, using in-memory
+ * database
+ *
+ * @author Jacek
+ * @version 1.5
+ */
+public class TimesViewTest {
+
+    /**
+     * Tested view
+     */
+    private final TimesView view = new TimesView();
+
+    /**
+     * Connection to in-memory database
+     */
+    private Connection con;
+
+    /**
+     * Function creates database with 7 participants before every test
+     *
+     * @throws SQLException if database couldn't be created
+     */
+    @BeforeEach
+    public void setUp() throws SQLException {
+        con = DriverManager.getConnection("jdbc:derby:memory:timesViewTest;create=true");
+        new SchemaMigrator().migrate(con);
+        List<List<String>> participants = new ArrayList<>();
+        for (int i = 1; i <= 7; i++) {
+            participants.add(List.of("Participant" + i, "2022-01-24 15:15:00"));
+        }
+        new TimesModel().insertAll(con, "2022-01-24 15:15:00", participants, 10);
+    }
+
+    /**
+     * Function removes the database after every test
+     */
+    @AfterEach
+    public void tearDown() {
+        try {
+            con.close();
+            DriverManager.getConnection("jdbc:derby:memory:timesViewTest;drop=true");
+        } catch (SQLException expected) {}
+    }
+
+    /**
+     * Tests whether following pages contain all of the rows, newest first,
+     * without repeating any of them
+     *
+     * @throws SQLException if rows couldn't be read
+     * @throws IOException if the page couldn't be written
+     */
+    @Test
+    public void testPrintDBPages() throws SQLException, IOException {
+        ByteArrayOutputStream page = new ByteArrayOutputStream();
+        Integer next = printDB(page, null);
+        assertTrue(text(page).indexOf("Participant7") < text(page).indexOf("Participant5"));
+        assertFalse(text(page).contains("Participant4"));
+        assertNotNull(next);
+
+        page = new ByteArrayOutputStream();
+        next = printDB(page, next);
+        assertTrue(text(page).contains("Participant4"));
+        assertTrue(text(page).contains("Participant2"));
+        assertFalse(text(page).contains("Participant5"));
+        assertNotNull(next);
+
+        page = new ByteArrayOutputStream();
+        next = printDB(page, next);
+        assertTrue(text(page).contains("Participant1"));
+        assertNull(next, "Last page shouldn't have next page");
+    }
+
+    /**
+     * Tests whether values are escaped, so names from the roster can't add
+     * markup to the page
+     *
+     * @throws IOException if the page couldn't be written
+     */
+    @Test
+    public void testValuesAreEscaped() throws IOException {
+        ByteArrayOutputStream page = new ByteArrayOutputStream();
+        try (HtmlStream out = new HtmlStream(page)) {
+            view.printParticipantInfo(out, "<script>alert('Zażółć')</script>", "2022-01-24 15:15:00");
+            view.printNumberOfParticipants(out, "\"><b>1");
+        }
+        assertEquals("<p>Name: &lt;script&gt;alert(&#39;Zażółć&#39;)&lt;/script&gt;<br> Local time: 2022-01-24 15:15:00</p>\n\n"
+                + "<p>There were <b>&quot;&gt;&lt;b&gt;1</b> participants at the last meeting</p>\n", text(page));
+    }
+
+    /**
+     * Tests whether the matrix has a row of local times for every participant
+     * and escapes names and timezones
+     *
+     * @throws Exception if the matrix couldn't be created
+     */
+    @Test
+    public void testPrintMatrix() throws Exception {
+        MeetingMatrix matrix = new MeetingMatrix(List.of(Instant.parse("2022-01-24T13:15:00Z"),
+                Instant.parse("2022-01-24T14:15:00Z")));
+        matrix.add("<b>John</b>", "GMT+2", ZoneTable.of("GMT+2"));
+        matrix.add("Mark", "GMT-7", ZoneTable.of("GMT-7"));
+        ByteArrayOutputStream page = new ByteArrayOutputStream();
+        try (HtmlStream out = new HtmlStream(page)) {
+            view.printMatrix(out, matrix);
+        }
+        assertEquals("<tr>\n<td>&lt;b&gt;John&lt;/b&gt;</td>\n<td>GMT+2</td>\n"
+                + "<td>2022-01-24 15:15:00</td>\n<td>2022-01-24 16:15:00</td>\n</tr>\n"
+                + "<tr>\n<td>Mark</td>\n<td>GMT-7</td>\n"
+                + "<td>2022-01-24 06:15:00</td>\n<td>2022-01-24 07:15:00</td>\n</tr>\n", text(page));
+    }
+
+    /**
+     * Prints one page of the database with 3 rows
+     *
+     * @param page stream receiving the page
+     * @param before only rows with smaller id are printed, null for the first page
+     * @return id to use as "before" for the next page
+     * @throws SQLException if rows couldn't be read
+     * @throws IOException if the page couldn't be written
+     */
+    private Integer printDB(ByteArrayOutputStream page, Integer before) throws SQLException, IOException {
+        try (HtmlStream out = new HtmlStream(page)) {
+            HistoryPages.Page rows = HistoryPages.read(con, before, 3);
+            view.printHistoryPage(out, rows);
+            return rows.getNext();
+        }
+    }
+
+    /**
+     * Returns written page
+     *
+     * @param page stream which received the page
+     * @return content of the page
+     */
+    private static String text(ByteArrayOutputStream page) {
+        return page.toString(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,4 @@
+/*
+ * This package is used to test View class with unit tests
+ */
+package pl.polsl.view.unitTests;